@@ -2,3 +2,60 @@ plugins {
     id("java-library")
 }
 
+repositories {
+    mavenCentral()
+}
+
+dependencies {
+    testImplementation("org.junit.jupiter:junit-jupiter:5.10.2")
+    testRuntimeOnly("org.junit.platform:junit-platform-launcher")
+}
+
+tasks.test {
+    useJUnitPlatform()
+    jvmArgs("--add-modules", "jdk.incubator.vector")
+}
+
+// The network inference uses the Vector API when the module is present at runtime
+tasks.withType<JavaCompile> {
+    options.compilerArgs.addAll(listOf("--add-modules", "jdk.incubator.vector"))
+}
+
+// gradle :ChessEngine:exportTrainingData -Pargs="--games=100 --out=training.txt"
+tasks.register<JavaExec>("exportTrainingData") {
+    classpath = sourceSets["main"].runtimeClasspath
+    mainClass.set("org.checkmatecoders.engine.Eval.TrainingDataExporter")
+    jvmArgs("--add-modules", "jdk.incubator.vector")
+    args((project.findProperty("args") as String? ?: "").split(" ").filter { it.isNotBlank() })
+}
+
+// gradle :ChessEngine:evaluatePositions -Pargs="--in=positions.txt --out=labels.txt --depth=4"
+tasks.register<JavaExec>("evaluatePositions") {
+    classpath = sourceSets["main"].runtimeClasspath
+    mainClass.set("org.checkmatecoders.engine.Eval.BulkEvaluator")
+    jvmArgs("--add-modules", "jdk.incubator.vector")
+    args((project.findProperty("args") as String? ?: "").split(" ").filter { it.isNotBlank() })
+}
+
+// gradle :ChessEngine:analyseGames -Pargs="--in=games.txt --out=annotated.txt"
+tasks.register<JavaExec>("analyseGames") {
+    classpath = sourceSets["main"].runtimeClasspath
+    mainClass.set("org.checkmatecoders.engine.Analysis.GameAnalyser")
+    jvmArgs("--add-modules", "jdk.incubator.vector")
+    args((project.findProperty("args") as String? ?: "").split(" ").filter { it.isNotBlank() })
+}
+
+// gradle :ChessEngine:generatePuzzles -Pargs="--in=games.txt --out=puzzles.txt --max=3"
+tasks.register<JavaExec>("generatePuzzles") {
+    classpath = sourceSets["main"].runtimeClasspath
+    mainClass.set("org.checkmatecoders.engine.Puzzle.PuzzleGenerator")
+    jvmArgs("--add-modules", "jdk.incubator.vector")
+    args((project.findProperty("args") as String? ?: "").split(" ").filter { it.isNotBlank() })
+}
+
+// gradle :ChessEngine:simulationBenchmark -Pargs="--games=10000 --threads=1,2,4 --out=build/simulation.json"
+tasks.register<JavaExec>("simulationBenchmark") {
+    classpath = sourceSets["main"].runtimeClasspath
+    mainClass.set("org.checkmatecoders.engine.Simulation.SimulationBenchmark")
+    args((project.findProperty("args") as String? ?: "").split(" ").filter { it.isNotBlank() })
+}
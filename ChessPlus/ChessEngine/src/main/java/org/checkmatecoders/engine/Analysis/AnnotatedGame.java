@@ -0,0 +1,92 @@
+package org.checkmatecoders.engine.Analysis;
+
+import org.checkmatecoders.engine.Search.Move;
+import org.checkmatecoders.engine.Search.Search;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.List;
+
+/**
+ * The result of {@link GameAnalyser}: one {@link Ply} per move with the engine's verdict.
+ */
+public class AnnotatedGame {
+    public enum Tag {
+        None(""), Mistake("?"), Blunder("??"), MissedWin("?!"), WastedSpell("?");
+
+        public final String symbol;
+
+        Tag(String symbol) {
+            this.symbol = symbol;
+        }
+    }
+
+    /**
+     * Scores are from the point of view of the player who made the move.
+     * {@code loss} is how much worse the played move is than the engine's choice.
+     */
+    public static class Ply {
+        public final int ply;
+        public final int move;
+        public final int bestMove;
+        public final int bestScore;
+        public final int playedScore;
+        public final int loss;
+        public final Tag tag;
+
+        public Ply(int ply, int move, int bestMove, int bestScore, int playedScore, Tag tag) {
+            this.ply = ply;
+            this.move = move;
+            this.bestMove = bestMove;
+            this.bestScore = bestScore;
+            this.playedScore = playedScore;
+            this.loss = Math.max(0, bestScore - playedScore);
+            this.tag = tag;
+        }
+    }
+
+    public final GameRecord game;
+    public final List<Ply> plies;
+
+    public AnnotatedGame(GameRecord game, List<Ply> plies) {
+        this.game = game;
+        this.plies = plies;
+    }
+
+    public long count(Tag tag) {
+        return plies.stream().filter(p -> p.tag == tag).count();
+    }
+
+    /**
+     * Writes the game as the start FEN and one line per move, e.g.
+     * {@code 14. freeze:d5 -120 ?? Blunder, best e2e4 +35}.
+     */
+    public void write(Writer out) throws IOException {
+        out.write(game.startFen);
+        out.write('\n');
+        for (Ply p : plies) {
+            StringBuilder sb = new StringBuilder();
+            sb.append(p.ply).append(". ").append(Move.toString(p.move)).append(' ').append(formatScore(p.playedScore));
+            if (p.tag != Tag.None) {
+                sb.append(' ').append(p.tag.symbol).append(' ').append(p.tag)
+                        .append(", best ").append(p.bestMove == Move.NONE ? "-" : Move.toString(p.bestMove))
+                        .append(' ').append(formatScore(p.bestScore));
+            }
+            out.write(sb.append('\n').toString());
+        }
+        out.write('\n');
+    }
+
+    /**
+     * Centipawns with a sign, or #N / #-N when a king capture is forced in N plies.
+     */
+    public static String formatScore(int score) {
+        if (score >= Search.MATE_THRESHOLD) {
+            return "#" + (Search.MATE - score);
+        }
+        if (score <= -Search.MATE_THRESHOLD) {
+            return "#-" + (Search.MATE + score);
+        }
+        return (score > 0 ? "+" : "") + score;
+    }
+}
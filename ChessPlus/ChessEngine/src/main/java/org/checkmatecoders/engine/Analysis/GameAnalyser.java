@@ -0,0 +1,172 @@
+package org.checkmatecoders.engine.Analysis;
+
+import org.checkmatecoders.engine.Search.*;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+
+/**
+ * Finds blunders, missed wins and wasted spells in finished games. Every position of the game
+ * is searched on its own thread, all sharing one transposition table, and each move is judged
+ * by how far the score after it falls below the score of the engine's best move.
+ *
+ * Batch mode: --in=archive --out=file --threads=N --depth=N --nodes=N --hash=MB
+ */
+public class GameAnalyser implements AutoCloseable {
+    public static final int MISTAKE = 100;
+    public static final int BLUNDER = 250;
+    public static final int WASTED_SPELL = 60;
+    public static final int WINNING = 400;
+
+    private final int depth;
+    private final long nodes;
+    private final ThreadLocal<Search> searches;
+    private final ExecutorService pool;
+
+    public GameAnalyser(int threads, int depth, long nodes, int hashMegabytes) {
+        this.depth = depth;
+        this.nodes = nodes;
+        TranspositionTable table = new TranspositionTable(hashMegabytes);
+        this.searches = ThreadLocal.withInitial(() -> new Search(table));
+        this.pool = Executors.newFixedThreadPool(threads, r -> {
+            Thread t = new Thread(r, "game-analyser");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    public AnnotatedGame analyse(GameRecord game) {
+        SearchBoard[] positions = game.positions();
+        List<Future<SearchResult>> futures = new ArrayList<>(positions.length);
+        for (SearchBoard position : positions) {
+            futures.add(pool.submit(() -> searches.get().search(position, depth, nodes)));
+        }
+        SearchResult[] results = new SearchResult[positions.length];
+        try {
+            for (int i = 0; i < results.length; i++) {
+                results[i] = futures.get(i).get();
+            }
+        } catch (InterruptedException e) {
+            futures.forEach(f -> f.cancel(true));
+            Thread.currentThread().interrupt();
+            throw new CancellationException("Analysis interrupted");
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Analysis failed", e.getCause());
+        }
+
+        List<AnnotatedGame.Ply> plies = new ArrayList<>(game.length());
+        for (int i = 0; i < game.length(); i++) {
+            int move = game.moves[i];
+            int best = results[i].score;
+            //The next position is scored for whoever moves there, which is the same player after Time Travel
+            boolean sameSide = positions[i + 1].sideToMove() == positions[i].sideToMove() && !positions[i + 1].isGameOver();
+            int played = oneMorePly(sameSide ? results[i + 1].score : -results[i + 1].score);
+            if (move == results[i].move || played > best) {
+                best = played;
+            }
+            plies.add(new AnnotatedGame.Ply(i + 1, move, results[i].move, best, played, judge(move, best, played)));
+        }
+        return new AnnotatedGame(game, plies);
+    }
+
+    private static AnnotatedGame.Tag judge(int move, int best, int played) {
+        int loss = best - played;
+        if (best >= Search.MATE_THRESHOLD && played < Search.MATE_THRESHOLD
+                || best >= WINNING && played < WINNING / 4) {
+            return AnnotatedGame.Tag.MissedWin;
+        }
+        if (loss >= BLUNDER) {
+            return AnnotatedGame.Tag.Blunder;
+        }
+        if (Move.isSpell(move) && loss >= WASTED_SPELL) {
+            return AnnotatedGame.Tag.WastedSpell;
+        }
+        if (loss >= MISTAKE) {
+            return AnnotatedGame.Tag.Mistake;
+        }
+        return AnnotatedGame.Tag.None;
+    }
+
+    /**
+     * A forced king capture seen from the previous ply is one ply further away.
+     */
+    private static int oneMorePly(int score) {
+        if (score >= Search.MATE_THRESHOLD) {
+            return score - 1;
+        }
+        if (score <= -Search.MATE_THRESHOLD) {
+            return score + 1;
+        }
+        return score;
+    }
+
+    @Override
+    public void close() {
+        pool.shutdownNow();
+    }
+
+    public static void main(String[] args) throws IOException {
+        int threads = Runtime.getRuntime().availableProcessors(), depth = 4, hash = 64;
+        long nodes = 200_000;
+        Path inFile = null, outFile = null;
+        for (String arg : args) {
+            String[] kv = arg.replaceFirst("^--", "").split("=", 2);
+            String value = kv.length > 1 ? kv[1] : "";
+            switch (kv[0]) {
+                case "in" -> inFile = Path.of(value);
+                case "out" -> outFile = Path.of(value);
+                case "threads" -> threads = Integer.parseInt(value);
+                case "depth" -> depth = Integer.parseInt(value);
+                case "nodes" -> nodes = Long.parseLong(value);
+                case "hash" -> hash = Integer.parseInt(value);
+                default -> throw new IllegalArgumentException("Unknown option: " + arg);
+            }
+        }
+
+        long start = System.nanoTime();
+        int games = 0, skipped = 0, plies = 0;
+        try (GameAnalyser analyser = new GameAnalyser(threads, depth, nodes, hash);
+             BufferedReader in = inFile != null ? Files.newBufferedReader(inFile)
+                     : new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8));
+             Writer out = outFile != null ? Files.newBufferedWriter(outFile)
+                     : new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8))) {
+            while (true) {
+                GameRecord game;
+                try {
+                    game = GameRecord.read(in);
+                } catch (IllegalArgumentException e) {
+                    System.err.println("Skipping game " + (games + skipped + 1) + ": " + e.getMessage());
+                    skipped++;
+                    continue;
+                }
+                if (game == null) {
+                    break;
+                }
+                String annotated;
+                try {
+                    //Formatted first, so a game that fails half way leaves nothing in the output
+                    StringWriter text = new StringWriter();
+                    analyser.analyse(game).write(text);
+                    annotated = text.toString();
+                } catch (CancellationException e) {
+                    throw e;
+                } catch (IOException | RuntimeException | StackOverflowError e) {
+                    Throwable cause = e.getCause() != null ? e.getCause() : e;
+                    System.err.println("Skipping game " + (games + skipped + 1) + ": could not analyse it: " + cause);
+                    skipped++;
+                    continue;
+                }
+                out.write(annotated);
+                games++;
+                plies += game.length();
+            }
+        }
+        long millis = (System.nanoTime() - start) / 1_000_000;
+        System.err.println("Analysed " + games + " games (" + skipped + " skipped), " + plies + " plies in " + millis + " ms");
+    }
+}
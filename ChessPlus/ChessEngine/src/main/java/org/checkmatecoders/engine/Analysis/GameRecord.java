@@ -0,0 +1,100 @@
+package org.checkmatecoders.engine.Analysis;
+
+import org.checkmatecoders.engine.Search.Move;
+import org.checkmatecoders.engine.Search.MoveGenerator;
+import org.checkmatecoders.engine.Search.SearchBoard;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A played game: the start position and the moves in {@link Move} notation.
+ * In text the first line is the start FEN and the moves follow separated by whitespace;
+ * an archive is a file of games separated by blank lines.
+ */
+public class GameRecord {
+    public final String startFen;
+    public final int[] moves;
+
+    public GameRecord(String startFen, int[] moves) {
+        this.startFen = startFen;
+        this.moves = moves;
+    }
+
+    public int length() {
+        return moves.length;
+    }
+
+    /**
+     * The positions before every move and after the last one, so there are length() + 1.
+     * Throws IllegalArgumentException if a move is not legal where it was played.
+     */
+    public SearchBoard[] positions() {
+        SearchBoard[] positions = new SearchBoard[moves.length + 1];
+        SearchBoard board = SearchBoard.fromFen(startFen);
+        int[] legal = new int[MoveGenerator.MAX_MOVES];
+        positions[0] = new SearchBoard(board);
+        for (int i = 0; i < moves.length; i++) {
+            if (!contains(legal, MoveGenerator.generate(board, legal, true), moves[i]) || board.isGameOver()) {
+                throw new IllegalArgumentException("Illegal move " + Move.toString(moves[i]) + " at ply " + (i + 1));
+            }
+            board.make(moves[i]);
+            positions[i + 1] = new SearchBoard(board);
+        }
+        return positions;
+    }
+
+    private static boolean contains(int[] moves, int n, int move) {
+        for (int i = 0; i < n; i++) {
+            if (moves[i] == move) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public void write(Writer out) throws IOException {
+        out.write(startFen);
+        out.write('\n');
+        for (int i = 0; i < moves.length; i++) {
+            out.write(Move.toString(moves[i]));
+            out.write(i % 16 == 15 || i == moves.length - 1 ? '\n' : ' ');
+        }
+        out.write('\n');
+    }
+
+    /**
+     * Reads the next game of an archive, or returns null at the end.
+     */
+    public static GameRecord read(BufferedReader in) throws IOException {
+        String line;
+        do {
+            line = in.readLine();
+            if (line == null) {
+                return null;
+            }
+        } while (line.isBlank() || line.startsWith("#"));
+        String startFen = line.trim();
+        List<Integer> moves = new ArrayList<>();
+        IllegalArgumentException error = null;
+        //A bad move still consumes the whole game, so the next read starts at the next game
+        while ((line = in.readLine()) != null && !line.isBlank()) {
+            for (String move : line.trim().split("\\s+")) {
+                try {
+                    moves.add(Move.parse(move));
+                } catch (IllegalArgumentException e) {
+                    if (error == null) {
+                        error = e;
+                    }
+                }
+            }
+        }
+        if (error != null) {
+            throw error;
+        }
+        return new GameRecord(startFen, moves.stream().mapToInt(Integer::intValue).toArray());
+    }
+}
@@ -6,6 +6,7 @@ import org.checkmatecoders.engine.Spell.Shield;
 import org.checkmatecoders.engine.Spell.Spell;
 import org.checkmatecoders.engine.Spell.Swap;
 import org.checkmatecoders.engine.Spell.TimeTravel;
+import org.checkmatecoders.engine.Stats.EngineStats;
 
 import javax.swing.*;
 import java.util.ArrayList;
@@ -16,26 +17,89 @@ import java.util.stream.Collectors;
 public class Board {
     public List<Piece> pieces;
     public List<Spell> spells;
-    public List<Runnable> listeners;
+    public List<BoardListener> listeners;
 
     public Color winner;
 
+    private int changeDepth;
+    private long dirtySquares;
+    private List<Spell> dirtySpells = new ArrayList<>();
+    private boolean dirtyAll;
+    private volatile BoardSnapshot snapshot = BoardSnapshot.EMPTY;
+
     public Board(){
         pieces = new ArrayList<>();
         listeners = new ArrayList<>();
     }
 
+    /**
+     * Starts a change. Listeners are not notified until the matching {@link #commitChange()},
+     * and nested changes are merged into the outermost one.
+     */
+    public void beginChange() {
+        changeDepth++;
+    }
+
+    /**
+     * Ends a change started with {@link #beginChange()} and, for the outermost one, notifies
+     * the listeners once with everything that was touched in between.
+     */
+    public void commitChange() {
+        if (changeDepth == 0) {
+            throw new IllegalStateException("commitChange without beginChange");
+        }
+        changeDepth--;
+        if (changeDepth > 0 || (!dirtyAll && dirtySquares == 0 && dirtySpells.isEmpty())) {
+            return;
+        }
+        BoardChange change = new BoardChange(dirtySquares, dirtySpells, dirtyAll);
+        dirtySquares = 0;
+        dirtySpells = new ArrayList<>();
+        dirtyAll = false;
+        snapshot = snapshot.next(this, change);
+        listeners.forEach(i -> i.boardChanged(change));
+    }
+
+    /**
+     * The board as of the last committed change. Safe to call from any thread; the board
+     * itself must still only be changed from one thread.
+     */
+    public BoardSnapshot snapshot() {
+        return snapshot;
+    }
+
+    /**
+     * Records that the square at the given position changed, e.g. a piece was frozen or shielded.
+     */
+    public void markDirty(Position position) {
+        beginChange();
+        dirtySquares |= BoardChange.bit(position.x, position.y);
+        commitChange();
+    }
+
+    public void markDirty(Spell spell) {
+        beginChange();
+        dirtySpells.add(spell);
+        commitChange();
+    }
+
     public void addPiece(Piece p) {
+        beginChange();
         pieces.add(p);
-        listeners.forEach(i -> i.run());
+        markDirty(p.position);
+        commitChange();
     }
 
     public void addSpell(Spell s) {
+        beginChange();
         spells.add(s);
-        listeners.forEach(i -> i.run());
+        markDirty(s);
+        commitChange();
     }
 
     public void resetToStart() {
+        beginChange();
+        dirtyAll = true;
         pieces = new ArrayList<>();
         addPiece(new Rook(Color.White, this, new Position(0, 7)));
         addPiece(new Knight(Color.White,this,new Position(1,7)));
@@ -73,15 +137,48 @@ public class Board {
         addPiece(new Pawn(Color.Black,this,new Position(7,1)));
         
         initializeSpells();
-        listeners.forEach(i -> i.run());
+        commitChange();
+    }
+    /**
+     * Replaces the whole position with recorded states, e.g. when jumping through the
+     * game history. Listeners get a single full refresh.
+     */
+    public void restore(List<PieceState> states, List<SpellState> spellStates, Color winner) {
+        beginChange();
+        try {
+            dirtyAll = true;
+            pieces = new ArrayList<>(states.size());
+            for (PieceState p : states) {
+                Piece piece = p.type.create(p.color, this, new Position(p.x, p.y));
+                piece.canMove = p.canMove;
+                piece.capturable = p.capturable;
+                if (piece instanceof Pawn) {
+                    ((Pawn) piece).isFirstMove = p.isFirstMove;
+                }
+                pieces.add(piece);
+            }
+            if (spells == null || spells.size() != spellStates.size()) {
+                initializeSpells();
+            }
+            for (int i = 0; i < spellStates.size() && i < spells.size(); i++) {
+                spells.get(i).restore(spellStates.get(i));
+            }
+            this.winner = winner;
+        } finally {
+            commitChange();
+        }
     }
     public void initializeSpells(){
+        beginChange();
+        if (spells != null) {
+            spells.forEach(this::markDirty);
+        }
         spells = new ArrayList<>();
         addSpell(new Swap(this, 2, 2, new Position(0, 8)));
         addSpell(new Freeze(this, 2, 2,3, new Position(1, 8)));
         addSpell(new Shield(this, 2, 2, new Position(2, 8)));
         addSpell(new TimeTravel(this, 2, 2, new Position(3, 8)));
-        listeners.forEach(i -> i.run());
+        commitChange();
     }
     public int spellSize() { return spells.size();}
     
@@ -104,6 +201,11 @@ public class Board {
     }
 
     public List<Position> check() {
+        long start = 0;
+        if (EngineStats.ENABLED) {
+            EngineStats.count(EngineStats.Counter.CheckCalls);
+            start = EngineStats.start();
+        }
         List<Position> checkingPieces = new ArrayList<Position>();
         for (Piece j : this.pieces) {
             if (! j.getValidMoves2()
@@ -113,6 +215,7 @@ public class Board {
                 checkingPieces.add(j.position);
             }
         }
+        if (EngineStats.ENABLED) EngineStats.stop(EngineStats.Phase.Check, start);
         return checkingPieces;
     }
 
@@ -122,6 +225,10 @@ public class Board {
     }
     
     public void movePiece(Position p1, Position p2){
+        beginChange();
+        try {
+        markDirty(p1);
+        markDirty(p2);
         Piece p = getPiece(p2);
         if(p != null){
             if(p instanceof King){
@@ -136,9 +243,14 @@ public class Board {
             pieces.remove(getPiece(p2));
         }
         getPiece(p1).move(p2);
-        listeners.forEach(i -> i.run());
+        } finally {
+            commitChange();
+        }
     }
     public void register(Runnable listener){
+        listeners.add(change -> listener.run());
+    }
+    public void addListener(BoardListener listener){
         listeners.add(listener);
     }
 }
@@ -0,0 +1,66 @@
+package org.checkmatecoders.engine;
+
+import org.checkmatecoders.engine.Piece.Position;
+import org.checkmatecoders.engine.Spell.Spell;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The squares and spells touched by one committed change on a {@link Board}, so listeners
+ * can update only what changed. A full refresh means the whole board was replaced.
+ */
+public final class BoardChange {
+    private final long squares;
+    private final List<Spell> spells;
+    private final boolean fullRefresh;
+
+    BoardChange(long squares, List<Spell> spells, boolean fullRefresh) {
+        this.squares = squares;
+        this.spells = List.copyOf(spells);
+        this.fullRefresh = fullRefresh;
+    }
+
+    public boolean isFullRefresh() {
+        return fullRefresh;
+    }
+
+    public boolean isEmpty() {
+        return !fullRefresh && squares == 0 && spells.isEmpty();
+    }
+
+    public boolean isDirty(int x, int y) {
+        return fullRefresh || (squares & bit(x, y)) != 0;
+    }
+
+    /**
+     * Bit x + 8 * y is set for every touched square.
+     */
+    public long getSquareMask() {
+        return squares;
+    }
+
+    public List<Position> getSquares() {
+        List<Position> result = new ArrayList<>(Long.bitCount(squares));
+        for (long rest = squares; rest != 0; rest &= rest - 1) {
+            int index = Long.numberOfTrailingZeros(rest);
+            result.add(new Position(index % 8, index / 8));
+        }
+        return result;
+    }
+
+    public List<Spell> getSpells() {
+        return spells;
+    }
+
+    static long bit(int x, int y) {
+        if (x < 0 || x > 7 || y < 0 || y > 7) {
+            return 0;
+        }
+        return 1L << (x + 8 * y);
+    }
+
+    public String toString() {
+        return fullRefresh ? "full refresh" : "squares " + getSquares() + ", spells " + spells.size();
+    }
+}
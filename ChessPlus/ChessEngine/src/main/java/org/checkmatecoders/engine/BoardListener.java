@@ -0,0 +1,9 @@
+package org.checkmatecoders.engine;
+
+/**
+ * Receives one notification per committed change on a {@link Board}.
+ */
+@FunctionalInterface
+public interface BoardListener {
+    void boardChanged(BoardChange change);
+}
@@ -0,0 +1,107 @@
+package org.checkmatecoders.engine;
+
+import org.checkmatecoders.engine.Piece.Color;
+import org.checkmatecoders.engine.Piece.Piece;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Immutable view of a {@link Board} after a committed change. The board publishes a new
+ * snapshot on every commit by copying the previous square array and refreshing only the
+ * touched squares, and reading the current snapshot is a single volatile read, so search,
+ * rendering or serialisation threads can work on it while the game goes on.
+ */
+public final class BoardSnapshot {
+    public static final BoardSnapshot EMPTY = new BoardSnapshot(0, new PieceState[64], List.of(), null);
+
+    private final long version;
+    private final PieceState[] squares;
+    private final List<SpellState> spells;
+    private final Color winner;
+    private List<PieceState> pieces;
+
+    private BoardSnapshot(long version, PieceState[] squares, List<SpellState> spells, Color winner) {
+        this.version = version;
+        this.squares = squares;
+        this.spells = spells;
+        this.winner = winner;
+    }
+
+    /**
+     * Builds the snapshot that follows this one, copying only what the change touched from the live board.
+     * Must be called on the thread that mutates the board.
+     */
+    BoardSnapshot next(Board board, BoardChange change) {
+        PieceState[] nextSquares;
+        if (change.isFullRefresh()) {
+            nextSquares = new PieceState[64];
+            for (Piece p : board.pieces) {
+                put(nextSquares, p);
+            }
+        } else {
+            nextSquares = squares.clone();
+            for (long rest = change.getSquareMask(); rest != 0; rest &= rest - 1) {
+                nextSquares[Long.numberOfTrailingZeros(rest)] = null;
+            }
+            for (Piece p : board.pieces) {
+                int index = p.position.x + 8 * p.position.y;
+                if (index >= 0 && index < 64 && (change.getSquareMask() & (1L << index)) != 0) {
+                    put(nextSquares, p);
+                }
+            }
+        }
+        List<SpellState> nextSpells = spells;
+        if ((change.isFullRefresh() || !change.getSpells().isEmpty()) && board.spells != null) {
+            List<SpellState> copy = new ArrayList<>(board.spells.size());
+            board.spells.forEach(s -> copy.add(SpellState.of(s)));
+            nextSpells = Collections.unmodifiableList(copy);
+        }
+        return new BoardSnapshot(version + 1, nextSquares, nextSpells, board.winner);
+    }
+
+    private static void put(PieceState[] squares, Piece p) {
+        if (p.position.x >= 0 && p.position.x < 8 && p.position.y >= 0 && p.position.y < 8) {
+            squares[p.position.x + 8 * p.position.y] = PieceState.of(p);
+        }
+    }
+
+    /**
+     * Increases by one with every committed change.
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    public PieceState getPiece(int x, int y) {
+        if (x < 0 || x > 7 || y < 0 || y > 7) {
+            return null;
+        }
+        return squares[x + 8 * y];
+    }
+
+    public List<PieceState> getPieces() {
+        List<PieceState> result = pieces;
+        if (result == null) {
+            List<PieceState> list = new ArrayList<>(32);
+            for (PieceState p : squares) {
+                if (p != null) {
+                    list.add(p);
+                }
+            }
+            // Racing threads build equal immutable lists, so publishing without a lock is fine
+            result = List.copyOf(list);
+            pieces = result;
+        }
+        return result;
+    }
+
+    public List<SpellState> getSpells() {
+        return spells;
+    }
+
+    public Color getWinner() {
+        return winner;
+    }
+}
@@ -0,0 +1,94 @@
+package org.checkmatecoders.engine.Broadcast;
+
+import org.checkmatecoders.engine.BoardChange;
+import org.checkmatecoders.engine.BoardSnapshot;
+import org.checkmatecoders.engine.Piece.Color;
+import org.checkmatecoders.engine.PieceState;
+import org.checkmatecoders.engine.SpellState;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+
+/**
+ * Binary frames sent to spectators. Every frame starts with its length (int, not counting
+ * itself), a type byte and the snapshot version (long), all big-endian:
+ * <pre>
+ * SNAPSHOT: 64 square bytes, winner byte, spell count byte, 4 bytes per spell
+ * DELTA:    square mask (long), one square byte per set bit from low to high,
+ *           winner byte, then the spells as in SNAPSHOT if the spells changed (flag bit 7 of the type)
+ * </pre>
+ * A square byte is 0 for empty, otherwise bits 0-2 hold the {@link org.checkmatecoders.engine.Piece.PieceType}
+ * ordinal plus one, bit 3 is set for black, bit 4 for a piece that cannot move and bit 5 for one
+ * that cannot be captured. The winner byte is 0, 1 for white or 2 for black. A spell is its
+ * {@link org.checkmatecoders.engine.Spell.SpellType} ordinal, amount, cooldown and duration.
+ * A spectator applies a delta only when its version follows the last one it saw.
+ */
+public final class FrameEncoder {
+    public static final byte SNAPSHOT = 1;
+    public static final byte DELTA = 2;
+    public static final byte SPELLS_FLAG = (byte) 0x80;
+
+    private static final int HEADER = 4 + 1 + 8;
+
+    private FrameEncoder() {
+    }
+
+    public static ByteBuffer snapshot(BoardSnapshot snapshot) {
+        List<SpellState> spells = snapshot.getSpells();
+        ByteBuffer buf = ByteBuffer.allocate(HEADER + 64 + 2 + 4 * spells.size());
+        buf.putInt(buf.capacity() - 4).put(SNAPSHOT).putLong(snapshot.getVersion());
+        for (int i = 0; i < 64; i++) {
+            buf.put(square(snapshot.getPiece(i % 8, i / 8)));
+        }
+        buf.put(winner(snapshot.getWinner()));
+        putSpells(buf, spells);
+        return buf.flip();
+    }
+
+    /**
+     * The change that produced {@code snapshot}, or a full snapshot if the change was a full refresh.
+     */
+    public static ByteBuffer delta(BoardChange change, BoardSnapshot snapshot) {
+        if (change.isFullRefresh()) {
+            return snapshot(snapshot);
+        }
+        long mask = change.getSquareMask();
+        boolean withSpells = !change.getSpells().isEmpty();
+        List<SpellState> spells = snapshot.getSpells();
+        int size = HEADER + 8 + Long.bitCount(mask) + 1 + (withSpells ? 1 + 4 * spells.size() : 0);
+        ByteBuffer buf = ByteBuffer.allocate(size);
+        buf.putInt(size - 4).put(withSpells ? (byte) (DELTA | SPELLS_FLAG) : DELTA).putLong(snapshot.getVersion());
+        buf.putLong(mask);
+        for (long rest = mask; rest != 0; rest &= rest - 1) {
+            int i = Long.numberOfTrailingZeros(rest);
+            buf.put(square(snapshot.getPiece(i % 8, i / 8)));
+        }
+        buf.put(winner(snapshot.getWinner()));
+        if (withSpells) {
+            putSpells(buf, spells);
+        }
+        return buf.flip();
+    }
+
+    private static byte square(PieceState p) {
+        if (p == null) {
+            return 0;
+        }
+        int code = p.type.ordinal() + 1;
+        if (p.color == Color.Black) code |= 8;
+        if (!p.canMove) code |= 16;
+        if (!p.capturable) code |= 32;
+        return (byte) code;
+    }
+
+    private static byte winner(Color winner) {
+        return winner == null ? 0 : winner == Color.White ? (byte) 1 : (byte) 2;
+    }
+
+    private static void putSpells(ByteBuffer buf, List<SpellState> spells) {
+        buf.put((byte) spells.size());
+        for (SpellState s : spells) {
+            buf.put((byte) s.type.ordinal()).put((byte) s.amount).put((byte) s.cooldown).put((byte) s.duration);
+        }
+    }
+}
@@ -0,0 +1,248 @@
+package org.checkmatecoders.engine.Broadcast;
+
+import org.checkmatecoders.engine.Board;
+import org.checkmatecoders.engine.BoardChange;
+import org.checkmatecoders.engine.BoardListener;
+import org.checkmatecoders.engine.BoardSnapshot;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.*;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Streams a game to spectators over TCP. Every committed board change is encoded once with
+ * {@link FrameEncoder} and the same bytes are queued for every spectator; one selector thread
+ * writes them out without blocking. A spectator whose queue fills up stops receiving deltas
+ * and gets a fresh snapshot once it has caught up, and late joiners start with a snapshot,
+ * so a slow connection never holds back the game or the other spectators.
+ */
+public class GameBroadcaster implements BoardListener, AutoCloseable {
+    public static final int MAX_QUEUED = 64;
+
+    private final Board board;
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+    private final AtomicBoolean pending = new AtomicBoolean();
+    private final AtomicLong resyncs = new AtomicLong();
+    private final ByteBuffer readBuffer = ByteBuffer.allocate(256);
+    private Selector selector;
+    private ServerSocketChannel server;
+    private Thread thread;
+    private volatile boolean open;
+
+    private long snapshotVersion = -1;
+    private ByteBuffer snapshotFrame;
+
+    private static class Subscriber {
+        final SocketChannel channel;
+        final ArrayDeque<ByteBuffer> queue = new ArrayDeque<>();
+        SelectionKey key;
+        boolean resync = true;
+
+        Subscriber(SocketChannel channel) {
+            this.channel = channel;
+        }
+    }
+
+    /**
+     * Listens to the board from now on. Must be created on the thread that changes the board.
+     */
+    public GameBroadcaster(Board board) {
+        this.board = board;
+        board.addListener(this);
+    }
+
+    public void start(InetSocketAddress address) throws IOException {
+        selector = Selector.open();
+        server = ServerSocketChannel.open();
+        server.bind(address);
+        server.configureBlocking(false);
+        server.register(selector, SelectionKey.OP_ACCEPT);
+        open = true;
+        thread = new Thread(this::run, "game-broadcaster");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    public int getPort() {
+        return server.socket().getLocalPort();
+    }
+
+    public int getSubscriberCount() {
+        return subscribers.size();
+    }
+
+    /**
+     * How often a spectator fell behind and was switched to a snapshot.
+     */
+    public long getResyncCount() {
+        return resyncs.get();
+    }
+
+    @Override
+    public void boardChanged(BoardChange change) {
+        if (!open || subscribers.isEmpty()) {
+            return;
+        }
+        ByteBuffer frame = FrameEncoder.delta(change, board.snapshot()).asReadOnlyBuffer();
+        for (Subscriber s : subscribers) {
+            synchronized (s) {
+                if (s.resync) {
+                    continue;
+                }
+                if (s.queue.size() >= MAX_QUEUED) {
+                    dropQueued(s);
+                    continue;
+                }
+                s.queue.add(frame.duplicate());
+            }
+        }
+        if (pending.compareAndSet(false, true)) {
+            selector.wakeup();
+        }
+    }
+
+    /**
+     * Drops everything but a frame that is partly written already, so the stream stays
+     * aligned on frame boundaries, and sends a snapshot once that frame is out.
+     */
+    private void dropQueued(Subscriber s) {
+        ByteBuffer head = s.queue.peek();
+        s.queue.clear();
+        if (head != null && head.position() > 0) {
+            s.queue.add(head);
+        }
+        s.resync = true;
+        resyncs.incrementAndGet();
+    }
+
+    private void run() {
+        try {
+            while (open) {
+                selector.select();
+                Iterator<SelectionKey> it = selector.selectedKeys().iterator();
+                while (it.hasNext()) {
+                    SelectionKey key = it.next();
+                    it.remove();
+                    if (!key.isValid()) {
+                        continue;
+                    }
+                    if (key.isAcceptable()) {
+                        accept();
+                        continue;
+                    }
+                    Subscriber s = (Subscriber) key.attachment();
+                    if (key.isReadable() && !read(s)) {
+                        continue;
+                    }
+                    if (key.isWritable()) {
+                        flush(s);
+                    }
+                }
+                if (pending.getAndSet(false)) {
+                    subscribers.forEach(this::flush);
+                }
+            }
+        } catch (IOException | ClosedSelectorException e) {
+            if (open) {
+                System.err.println("Broadcaster stopped: " + e.getMessage());
+            }
+        }
+    }
+
+    private void accept() throws IOException {
+        SocketChannel channel = server.accept();
+        if (channel == null) {
+            return;
+        }
+        channel.configureBlocking(false);
+        channel.socket().setTcpNoDelay(true);
+        Subscriber s = new Subscriber(channel);
+        s.key = channel.register(selector, SelectionKey.OP_READ, s);
+        subscribers.add(s);
+        flush(s);
+    }
+
+    /**
+     * Spectators do not send anything, reading only notices when they hang up.
+     */
+    private boolean read(Subscriber s) {
+        try {
+            readBuffer.clear();
+            if (s.channel.read(readBuffer) < 0) {
+                drop(s);
+                return false;
+            }
+            return true;
+        } catch (IOException e) {
+            drop(s);
+            return false;
+        }
+    }
+
+    private void flush(Subscriber s) {
+        try {
+            synchronized (s) {
+                while (true) {
+                    ByteBuffer head = s.queue.peek();
+                    if (head == null) {
+                        if (!s.resync) {
+                            break;
+                        }
+                        s.resync = false;
+                        s.queue.add(snapshotFrame().duplicate());
+                        continue;
+                    }
+                    s.channel.write(head);
+                    if (head.hasRemaining()) {
+                        break;
+                    }
+                    s.queue.poll();
+                }
+                s.key.interestOps(s.queue.isEmpty() ? SelectionKey.OP_READ : SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+            }
+        } catch (IOException | CancelledKeyException e) {
+            drop(s);
+        }
+    }
+
+    /**
+     * The current position as a snapshot frame, encoded once per version however many
+     * spectators need it. Only called on the selector thread.
+     */
+    private ByteBuffer snapshotFrame() {
+        BoardSnapshot snapshot = board.snapshot();
+        if (snapshotFrame == null || snapshot.getVersion() != snapshotVersion) {
+            snapshotFrame = FrameEncoder.snapshot(snapshot).asReadOnlyBuffer();
+            snapshotVersion = snapshot.getVersion();
+        }
+        return snapshotFrame;
+    }
+
+    private void drop(Subscriber s) {
+        subscribers.remove(s);
+        s.key.cancel();
+        try {
+            s.channel.close();
+        } catch (IOException ignored) {
+        }
+    }
+
+    @Override
+    public void close() {
+        open = false;
+        board.listeners.remove(this);
+        subscribers.forEach(this::drop);
+        try {
+            if (server != null) server.close();
+            if (selector != null) selector.close();
+        } catch (IOException ignored) {
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package org.checkmatecoders.engine;
+
+import org.checkmatecoders.engine.Spell.SpellType;
+
+/**
+ * A spell effect still running on the board, such as a freeze, with the square it targets
+ * and the turns it has left.
+ */
+public final class EffectState {
+    public final SpellType type;
+    public final int x;
+    public final int y;
+    public final int duration;
+
+    public EffectState(SpellType type, int x, int y, int duration) {
+        this.type = type;
+        this.x = x;
+        this.y = y;
+        this.duration = duration;
+    }
+
+    public String toString() {
+        return type + " at " + x + "," + y + " for " + duration;
+    }
+}
@@ -0,0 +1,90 @@
+package org.checkmatecoders.engine.Eval;
+
+import org.checkmatecoders.engine.Search.PositionListener;
+import org.checkmatecoders.engine.Search.SearchBoard;
+
+import java.util.Arrays;
+
+/**
+ * First-layer outputs of the network for the positions along the current search path.
+ * A make copies the top entry and adds or subtracts the weight rows of the features it
+ * changed; an unmake just drops back to the entry below.
+ */
+public final class Accumulator implements PositionListener {
+    private final Network network;
+    private final Inference inference;
+    private short[][] stack = new short[64][Network.HIDDEN];
+    private int top;
+
+    public Accumulator(Network network, Inference inference) {
+        this.network = network;
+        this.inference = inference;
+    }
+
+    /**
+     * Recomputes the accumulator from scratch for the given position.
+     */
+    public void refresh(SearchBoard board) {
+        top = 0;
+        short[] acc = stack[0];
+        System.arraycopy(network.biases, 0, acc, 0, Network.HIDDEN);
+        for (int sq = 0; sq < 64; sq++) {
+            int piece = board.pieceAt(sq);
+            if (piece != 0) {
+                inference.add(acc, network.inputWeights, Features.piece(piece, sq) * Network.HIDDEN);
+            }
+        }
+        for (int color = 0; color < 2; color++) {
+            for (int spell = 0; spell < SearchBoard.SPELL_TYPES; spell++) {
+                spellCountChanged(color, spell, 0, board.spellCount(color, spell));
+            }
+        }
+    }
+
+    public short[] current() {
+        return stack[top];
+    }
+
+    @Override
+    public void push() {
+        if (top + 1 == stack.length) {
+            stack = Arrays.copyOf(stack, stack.length * 2);
+            for (int i = top + 1; i < stack.length; i++) {
+                stack[i] = new short[Network.HIDDEN];
+            }
+        }
+        System.arraycopy(stack[top], 0, stack[top + 1], 0, Network.HIDDEN);
+        top++;
+    }
+
+    @Override
+    public void pop() {
+        top--;
+    }
+
+    @Override
+    public void pieceAdded(int piece, int square) {
+        inference.add(stack[top], network.inputWeights, Features.piece(piece, square) * Network.HIDDEN);
+    }
+
+    @Override
+    public void pieceRemoved(int piece, int square) {
+        inference.subtract(stack[top], network.inputWeights, Features.piece(piece, square) * Network.HIDDEN);
+    }
+
+    @Override
+    public void spellCountChanged(int color, int spell, int oldCount, int newCount) {
+        for (int threshold = 1; threshold <= Features.SPELL_THRESHOLDS; threshold++) {
+            boolean had = oldCount >= threshold;
+            boolean has = newCount >= threshold;
+            if (had != has) {
+                int offset = Features.spell(color, spell, threshold) * Network.HIDDEN;
+                if (has) {
+                    inference.add(stack[top], network.inputWeights, offset);
+                } else {
+                    inference.subtract(stack[top], network.inputWeights, offset);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,159 @@
+package org.checkmatecoders.engine.Eval;
+
+import org.checkmatecoders.engine.Search.*;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.concurrent.*;
+
+/**
+ * Labels positions with engine scores. Positions are read one per line (the FEN format of
+ * {@link SearchBoard#toFen()}, anything after a ';' is ignored), searched in parallel and
+ * written as {@code fen;score;bestmove} in input order. At most a fixed window of positions
+ * is in flight, so reading waits for the slowest worker and memory does not grow with the input.
+ * A position that cannot be parsed is written as {@code fen;invalid}, one whose search fails as
+ * {@code fen;error;message}; either way the run goes on with the next line.
+ *
+ * Options: --in=file --out=file --threads=N --depth=N --nodes=N --hash=MB (per thread)
+ * (standard input and output by default, depth 0 for the static evaluation only)
+ */
+public class BulkEvaluator {
+    private final int threads;
+    private final int depth;
+    private final long nodes;
+    private final ThreadLocal<Worker> workers;
+
+    public BulkEvaluator(int threads, int depth, long nodes, int hashMegabytes) {
+        this.threads = threads;
+        this.depth = depth;
+        this.nodes = nodes;
+        this.workers = ThreadLocal.withInitial(() -> new Worker(new TranspositionTable(hashMegabytes)));
+    }
+
+    /**
+     * Evaluates every position from the reader and returns how many were written.
+     */
+    public long run(BufferedReader in, Writer out) throws IOException {
+        int window = threads * 16;
+        ArrayDeque<Pending> pending = new ArrayDeque<>(window);
+        ExecutorService pool = Executors.newFixedThreadPool(threads, r -> {
+            Thread t = new Thread(r, "bulk-eval");
+            t.setDaemon(true);
+            return t;
+        });
+        long count = 0;
+        try {
+            String line;
+            while ((line = in.readLine()) != null) {
+                String fen = line.split(";", 2)[0].trim();
+                if (fen.isEmpty() || fen.startsWith("#")) {
+                    continue;
+                }
+                if (pending.size() == window) {
+                    write(pending.poll(), out);
+                    count++;
+                }
+                pending.add(new Pending(fen, pool.submit(() -> evaluate(fen))));
+            }
+            while (!pending.isEmpty()) {
+                write(pending.poll(), out);
+                count++;
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        out.flush();
+        return count;
+    }
+
+    private String evaluate(String fen) {
+        SearchBoard board;
+        try {
+            board = SearchBoard.fromFen(fen);
+        } catch (RuntimeException e) {
+            return fen + ";invalid";
+        }
+        try {
+            Worker worker = workers.get();
+            if (depth <= 0) {
+                return fen + ";" + worker.search.evaluate(board) + ";-";
+            }
+            //A table left over from another position would make the label depend on scheduling
+            worker.table.clear();
+            SearchResult result = worker.search.search(board, depth, nodes);
+            return fen + ";" + result.score + ";" + (result.move == Move.NONE ? "-" : Move.toString(result.move));
+        } catch (RuntimeException | StackOverflowError e) {
+            return error(fen, e);
+        }
+    }
+
+    private static String error(String fen, Throwable e) {
+        System.err.println("Could not evaluate " + fen + ": " + e);
+        //The message must not break the line format
+        return fen + ";error;" + String.valueOf(e).replaceAll("[;\\r\\n]", " ");
+    }
+
+    private static class Worker {
+        final TranspositionTable table;
+        final Search search;
+
+        Worker(TranspositionTable table) {
+            this.table = table;
+            this.search = new Search(table);
+        }
+    }
+
+    private record Pending(String fen, Future<String> result) {
+    }
+
+    private static void write(Pending pending, Writer out) throws IOException {
+        String line;
+        try {
+            line = pending.result().get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException();
+        } catch (ExecutionException e) {
+            line = error(pending.fen(), e.getCause());
+        }
+        out.write(line);
+        out.write('\n');
+    }
+
+    public static void main(String[] args) throws IOException {
+        int threads = Runtime.getRuntime().availableProcessors(), depth = 4, hash = 8;
+        long nodes = 0;
+        Path inFile = null, outFile = null;
+        for (String arg : args) {
+            String[] kv = arg.replaceFirst("^--", "").split("=", 2);
+            String value = kv.length > 1 ? kv[1] : "";
+            switch (kv[0]) {
+                case "in" -> inFile = Path.of(value);
+                case "out" -> outFile = Path.of(value);
+                case "threads" -> threads = Integer.parseInt(value);
+                case "depth" -> depth = Integer.parseInt(value);
+                case "nodes" -> nodes = Long.parseLong(value);
+                case "hash" -> hash = Integer.parseInt(value);
+                default -> throw new IllegalArgumentException("Unknown option: " + arg);
+            }
+        }
+
+        BulkEvaluator evaluator = new BulkEvaluator(threads, depth, nodes, hash);
+        long start = System.nanoTime();
+        long count;
+        try (BufferedReader in = inFile != null ? Files.newBufferedReader(inFile)
+                : new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8));
+             Writer out = outFile != null ? Files.newBufferedWriter(outFile)
+                     : new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8))) {
+            count = evaluator.run(in, out);
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        double perSecond = count / Math.max(seconds, 1e-9);
+        int cores = Math.min(threads, Runtime.getRuntime().availableProcessors());
+        System.err.printf("Evaluated %d positions in %.1f s: %.0f positions/s, %.0f positions/s per core (%d threads, %d cores)%n",
+                count, seconds, perSecond, perSecond / cores, threads, cores);
+    }
+}
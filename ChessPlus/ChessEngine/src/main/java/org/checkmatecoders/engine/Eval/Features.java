@@ -0,0 +1,39 @@
+package org.checkmatecoders.engine.Eval;
+
+import org.checkmatecoders.engine.Search.SearchBoard;
+
+/**
+ * Input features of the network. Pieces and spell charges are kept up to date incrementally
+ * in the {@link Accumulator}. Frozen and shielded pieces change with the ply count rather
+ * than with moves, so they are added on top at evaluation time; there are rarely more than a few.
+ */
+public final class Features {
+    public static final int PIECES = 0;
+    public static final int SPELLS = PIECES + 12 * 64;
+    public static final int SPELL_THRESHOLDS = 2;
+    public static final int FROZEN = SPELLS + 2 * SearchBoard.SPELL_TYPES * SPELL_THRESHOLDS;
+    public static final int SHIELDED = FROZEN + 2 * 64;
+    public static final int INPUTS = SHIELDED + 2 * 64;
+
+    private Features() {
+    }
+
+    public static int piece(int piece, int square) {
+        return PIECES + (SearchBoard.type(piece) - 1 + 6 * SearchBoard.color(piece)) * 64 + square;
+    }
+
+    /**
+     * Active while the side has at least {@code threshold} (1 or 2) charges of the spell.
+     */
+    public static int spell(int color, int spell, int threshold) {
+        return SPELLS + (color * SearchBoard.SPELL_TYPES + spell) * SPELL_THRESHOLDS + threshold - 1;
+    }
+
+    public static int frozen(int color, int square) {
+        return FROZEN + color * 64 + square;
+    }
+
+    public static int shielded(int color, int square) {
+        return SHIELDED + color * 64 + square;
+    }
+}
@@ -0,0 +1,28 @@
+package org.checkmatecoders.engine.Eval;
+
+/**
+ * The arithmetic of the network: adding weight rows to an accumulator and the output layer.
+ * {@link #create()} picks the SIMD version when the JVM runs with
+ * --add-modules jdk.incubator.vector, and the scalar loops otherwise.
+ */
+public interface Inference {
+    void add(short[] accumulator, short[] weights, int offset);
+
+    void subtract(short[] accumulator, short[] weights, int offset);
+
+    /**
+     * Sum over i of clamp(accumulator[i], 0, clip) * outputWeights[i].
+     */
+    int forward(short[] accumulator, short[] outputWeights, int clip);
+
+    static Inference create() {
+        if (!Boolean.getBoolean("chessplus.nnue.scalar") && ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent()) {
+            try {
+                return (Inference) Class.forName("org.checkmatecoders.engine.Eval.VectorInference").getDeclaredConstructor().newInstance();
+            } catch (ReflectiveOperationException | LinkageError e) {
+                System.err.println("Vector API unavailable, using scalar inference: " + e);
+            }
+        }
+        return new ScalarInference();
+    }
+}
@@ -0,0 +1,171 @@
+package org.checkmatecoders.engine.Eval;
+
+import org.checkmatecoders.engine.Search.SearchBoard;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * Quantised weights of the evaluation network: a {@link Features#INPUTS} x {@link #HIDDEN}
+ * feature transformer with int16 weights, clipped ReLU, and one int16 output neuron.
+ * <p>
+ * A trained network is read from the file named by -Dchessplus.nnue. Without one,
+ * {@link #createDefault()} builds a network that computes material, piece placement,
+ * spell charges and frozen or shielded pieces, so the engine plays sensibly before any
+ * training has been done.
+ */
+public final class Network {
+    public static final int HIDDEN = 64;
+    private static final int MAGIC = 0x4E4E5545;
+    private static final int VERSION = 1;
+
+    private static final int[] PIECE_VALUES = {0, 100, 320, 330, 500, 900, 0};
+    private static final int[] SPELL_VALUES = {60, 80, 40, 70};
+
+    final short[] inputWeights;
+    final short[] biases;
+    final short[] outputWeights;
+    final int outputBias;
+    final int outputScale;
+    final int clip;
+
+    public Network(short[] inputWeights, short[] biases, short[] outputWeights, int outputBias, int outputScale, int clip) {
+        if (inputWeights.length != Features.INPUTS * HIDDEN || biases.length != HIDDEN || outputWeights.length != HIDDEN) {
+            throw new IllegalArgumentException("Network does not match " + Features.INPUTS + "x" + HIDDEN);
+        }
+        this.inputWeights = inputWeights;
+        this.biases = biases;
+        this.outputWeights = outputWeights;
+        this.outputBias = outputBias;
+        this.outputScale = outputScale;
+        this.clip = clip;
+    }
+
+    private static Network loaded;
+
+    /**
+     * The network named by -Dchessplus.nnue, or the default one. Loaded once and shared,
+     * since networks are never modified.
+     */
+    public static synchronized Network get() {
+        if (loaded == null) {
+            String file = System.getProperty("chessplus.nnue");
+            try {
+                loaded = file != null ? read(Paths.get(file)) : createDefault();
+            } catch (IOException e) {
+                throw new UncheckedIOException("Could not read network " + file, e);
+            }
+        }
+        return loaded;
+    }
+
+    public static Network createDefault() {
+        short[] weights = new short[Features.INPUTS * HIDDEN];
+        // Hidden units 0-7 hold, for white and black in turn: placed material,
+        // spell charges, material lost to frozen pieces and shielded material
+        for (int color = 0; color < 2; color++) {
+            for (int type = SearchBoard.PAWN; type <= SearchBoard.KING; type++) {
+                int piece = SearchBoard.piece(type, color);
+                for (int sq = 0; sq < 64; sq++) {
+                    weights[Features.piece(piece, sq) * HIDDEN + color] = (short) (PIECE_VALUES[type] + placement(type, color, sq));
+                }
+            }
+            for (int sq = 0; sq < 64; sq++) {
+                weights[Features.frozen(color, sq) * HIDDEN + 4 + color] = (short) 30;
+                weights[Features.shielded(color, sq) * HIDDEN + 6 + color] = (short) 15;
+            }
+            for (int spell = 0; spell < SearchBoard.SPELL_TYPES; spell++) {
+                for (int threshold = 1; threshold <= Features.SPELL_THRESHOLDS; threshold++) {
+                    weights[Features.spell(color, spell, threshold) * HIDDEN + 2 + color] = (short) (SPELL_VALUES[spell] / threshold);
+                }
+            }
+        }
+        short[] output = new short[HIDDEN];
+        output[0] = 1;
+        output[1] = -1;
+        output[2] = 1;
+        output[3] = -1;
+        output[4] = -1;
+        output[5] = 1;
+        output[6] = 1;
+        output[7] = -1;
+        return new Network(weights, new short[HIDDEN], output, 0, 1, 8191);
+    }
+
+    /**
+     * Bonus in centipawns for a piece of the given type and color standing on a square.
+     */
+    private static int placement(int type, int color, int sq) {
+        int x = sq % 8;
+        int y = sq / 8;
+        int advance = color == SearchBoard.WHITE ? 6 - y : y - 1;
+        int center = 3 - Math.max(Math.abs(2 * x - 7), Math.abs(2 * y - 7)) / 2;
+        switch (type) {
+            case SearchBoard.PAWN:
+                return 6 * Math.max(0, advance) + (center >= 2 ? 10 : 0);
+            case SearchBoard.KNIGHT:
+                return 10 * center;
+            case SearchBoard.BISHOP:
+                return 5 * center;
+            case SearchBoard.ROOK:
+                return advance == 5 ? 15 : 0;
+            case SearchBoard.QUEEN:
+                return 3 * center;
+            default:
+                return y == (color == SearchBoard.WHITE ? 7 : 0) ? 10 : 0;
+        }
+    }
+
+    public static Network read(Path file) throws IOException {
+        //Header of seven ints, then the input weights, hidden biases and output weights
+        long expected = 7L * Integer.BYTES + 2L * ((long) Features.INPUTS * HIDDEN + 2L * HIDDEN);
+        long size = Files.size(file);
+        if (size != expected) {
+            throw new IOException(file + " is not a complete Chess+ network: " + size + " bytes, expected " + expected);
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                throw new IOException(file + " is not a Chess+ network");
+            }
+            if (in.readInt() != Features.INPUTS || in.readInt() != HIDDEN) {
+                throw new IOException(file + " has a different architecture");
+            }
+            int outputBias = in.readInt();
+            int outputScale = in.readInt();
+            int clip = in.readInt();
+            return new Network(readShorts(in, Features.INPUTS * HIDDEN), readShorts(in, HIDDEN), readShorts(in, HIDDEN),
+                    outputBias, outputScale, clip);
+        }
+    }
+
+    public void write(Path file) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(Features.INPUTS);
+            out.writeInt(HIDDEN);
+            out.writeInt(outputBias);
+            out.writeInt(outputScale);
+            out.writeInt(clip);
+            writeShorts(out, inputWeights);
+            writeShorts(out, biases);
+            writeShorts(out, outputWeights);
+        }
+    }
+
+    private static short[] readShorts(DataInputStream in, int count) throws IOException {
+        short[] result = new short[count];
+        ByteBuffer.wrap(in.readNBytes(count * 2)).order(ByteOrder.BIG_ENDIAN).asShortBuffer().get(result);
+        return result;
+    }
+
+    private static void writeShorts(DataOutputStream out, short[] values) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(values.length * 2).order(ByteOrder.BIG_ENDIAN);
+        buffer.asShortBuffer().put(values);
+        out.write(buffer.array());
+    }
+}
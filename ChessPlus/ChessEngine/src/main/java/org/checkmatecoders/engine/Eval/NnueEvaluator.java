@@ -0,0 +1,77 @@
+package org.checkmatecoders.engine.Eval;
+
+import org.checkmatecoders.engine.Search.SearchBoard;
+import org.checkmatecoders.engine.Stats.EngineStats;
+
+/**
+ * Evaluates positions with the {@link Network}. Attach it to a board before searching;
+ * from then on every make and unmake keeps the accumulator current, so an evaluation
+ * only costs the output layer. Pawn structure terms come from a {@link PawnTable} and are
+ * only added when they could move the score across the search window.
+ * Each search thread needs its own evaluator.
+ */
+public final class NnueEvaluator {
+    private final Network network;
+    private final Inference inference;
+    private final Accumulator accumulator;
+    private final short[] scratch = new short[Network.HIDDEN];
+    private final PawnTable pawns = new PawnTable(1 << 14);
+
+    public NnueEvaluator(Network network) {
+        this(network, Inference.create());
+    }
+
+    public NnueEvaluator(Network network, Inference inference) {
+        this.network = network;
+        this.inference = inference;
+        this.accumulator = new Accumulator(network, inference);
+    }
+
+    public void attach(SearchBoard board) {
+        accumulator.refresh(board);
+        board.setListener(accumulator);
+    }
+
+    /**
+     * Score in centipawns from the point of view of the side to move.
+     */
+    public int evaluate(SearchBoard board) {
+        return evaluate(board, -Integer.MAX_VALUE, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Like {@link #evaluate(SearchBoard)}, but when the network score is so far outside
+     * alpha..beta that the pawn structure cannot bring it back, that score is returned as it is.
+     */
+    public int evaluate(SearchBoard board, int alpha, int beta) {
+        int score = network(board);
+        if (score + PawnTable.MAX_SCORE <= alpha || score - PawnTable.MAX_SCORE >= beta) {
+            if (EngineStats.ENABLED) EngineStats.count(EngineStats.Counter.LazyEvaluations);
+            return score;
+        }
+        int structure = pawns.score(board);
+        return score + (board.sideToMove() == SearchBoard.WHITE ? structure : -structure);
+    }
+
+    private int network(SearchBoard board) {
+        short[] acc = accumulator.current();
+        if (board.hasEffects()) {
+            System.arraycopy(acc, 0, scratch, 0, Network.HIDDEN);
+            for (int sq = 0; sq < 64; sq++) {
+                int piece = board.pieceAt(sq);
+                if (piece == 0) {
+                    continue;
+                }
+                if (board.isFrozen(sq)) {
+                    inference.add(scratch, network.inputWeights, Features.frozen(SearchBoard.color(piece), sq) * Network.HIDDEN);
+                }
+                if (board.isShielded(sq)) {
+                    inference.add(scratch, network.inputWeights, Features.shielded(SearchBoard.color(piece), sq) * Network.HIDDEN);
+                }
+            }
+            acc = scratch;
+        }
+        int score = inference.forward(acc, network.outputWeights, network.clip) / network.outputScale + network.outputBias;
+        return board.sideToMove() == SearchBoard.WHITE ? score : -score;
+    }
+}
@@ -0,0 +1,113 @@
+package org.checkmatecoders.engine.Eval;
+
+import org.checkmatecoders.engine.Search.SearchBoard;
+import org.checkmatecoders.engine.Stats.EngineStats;
+
+import java.util.Arrays;
+
+/**
+ * Caches pawn structure scores by {@link SearchBoard#pawnKey()}. Pawns move far less often than
+ * other pieces and Freeze can hold them in place for several turns, so most lookups hit and
+ * the structure costs one probe. Each evaluator owns its table.
+ */
+public final class PawnTable {
+    public static final int DOUBLED = 15;
+    public static final int ISOLATED = 12;
+    /**
+     * Passed pawn bonus by the number of steps taken from the start rank.
+     */
+    public static final int[] PASSED = {0, 10, 20, 35, 55, 80, 0, 0};
+    /**
+     * Structure scores are clamped to this, which lets lazy evaluation skip them safely.
+     */
+    public static final int MAX_SCORE = 150;
+
+    private final long[] keys;
+    private final int[] scores;
+    private final int mask;
+
+    public PawnTable(int entries) {
+        int size = Integer.highestOneBit(Math.max(1, entries));
+        keys = new long[size];
+        scores = new int[size];
+        mask = size - 1;
+    }
+
+    /**
+     * Pawn structure score in centipawns from white's point of view.
+     */
+    public int score(SearchBoard board) {
+        long key = board.pawnKey();
+        int index = (int) key & mask;
+        if (EngineStats.ENABLED) EngineStats.count(EngineStats.Counter.PawnProbes);
+        //Keys are stored plus one so an empty slot never matches a position without pawns
+        if (keys[index] == key + 1) {
+            if (EngineStats.ENABLED) EngineStats.count(EngineStats.Counter.PawnHits);
+            return scores[index];
+        }
+        int score = evaluate(board);
+        keys[index] = key + 1;
+        scores[index] = score;
+        return score;
+    }
+
+    public static int evaluate(SearchBoard board) {
+        //Pawns per file and how far the most advanced of them has come, for each color
+        int[][] counts = new int[2][8];
+        int[][] front = new int[2][8];
+        for (int sq = 0; sq < 64; sq++) {
+            int piece = board.pieceAt(sq);
+            if (SearchBoard.type(piece) != SearchBoard.PAWN) {
+                continue;
+            }
+            int color = SearchBoard.color(piece);
+            int x = sq % 8;
+            int steps = color == SearchBoard.WHITE ? 6 - sq / 8 : sq / 8 - 1;
+            counts[color][x]++;
+            front[color][x] = Math.max(front[color][x], steps);
+        }
+        int score = 0;
+        for (int color = 0; color < 2; color++) {
+            int sign = color == SearchBoard.WHITE ? 1 : -1;
+            for (int x = 0; x < 8; x++) {
+                int count = counts[color][x];
+                if (count == 0) {
+                    continue;
+                }
+                if (count > 1) {
+                    score -= sign * DOUBLED * (count - 1);
+                }
+                boolean left = x > 0 && counts[color][x - 1] > 0;
+                boolean right = x < 7 && counts[color][x + 1] > 0;
+                if (!left && !right) {
+                    score -= sign * ISOLATED * count;
+                }
+                if (isPassed(board, color, x, front[color][x])) {
+                    score += sign * PASSED[Math.min(front[color][x], 7)];
+                }
+            }
+        }
+        return Math.max(-MAX_SCORE, Math.min(MAX_SCORE, score));
+    }
+
+    /**
+     * True if no enemy pawn stands ahead of the front pawn on its own or a neighbouring file.
+     */
+    private static boolean isPassed(SearchBoard board, int color, int x, int steps) {
+        int y = color == SearchBoard.WHITE ? 6 - steps : steps + 1;
+        int dy = color == SearchBoard.WHITE ? -1 : 1;
+        int enemyPawn = SearchBoard.piece(SearchBoard.PAWN, 1 - color);
+        for (int yy = y + dy; yy >= 0 && yy < 8; yy += dy) {
+            for (int xx = Math.max(0, x - 1); xx <= Math.min(7, x + 1); xx++) {
+                if (board.pieceAt(xx + 8 * yy) == enemyPawn) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    public void clear() {
+        Arrays.fill(keys, 0);
+    }
+}
@@ -0,0 +1,30 @@
+package org.checkmatecoders.engine.Eval;
+
+/**
+ * Plain loops over short arrays, which the JIT can still auto-vectorise.
+ */
+public final class ScalarInference implements Inference {
+    @Override
+    public void add(short[] accumulator, short[] weights, int offset) {
+        for (int i = 0; i < accumulator.length; i++) {
+            accumulator[i] += weights[offset + i];
+        }
+    }
+
+    @Override
+    public void subtract(short[] accumulator, short[] weights, int offset) {
+        for (int i = 0; i < accumulator.length; i++) {
+            accumulator[i] -= weights[offset + i];
+        }
+    }
+
+    @Override
+    public int forward(short[] accumulator, short[] outputWeights, int clip) {
+        int sum = 0;
+        for (int i = 0; i < accumulator.length; i++) {
+            int v = Math.min(Math.max(accumulator[i], 0), clip);
+            sum += v * outputWeights[i];
+        }
+        return sum;
+    }
+}
@@ -0,0 +1,103 @@
+package org.checkmatecoders.engine.Eval;
+
+import org.checkmatecoders.engine.Analysis.GameRecord;
+import org.checkmatecoders.engine.Search.*;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Plays seeded self-play games with the current network and writes one line per position:
+ * {@code fen;score;result}. The score is the search score for the side to move and the result
+ * is from White's point of view (1, 0.5 or 0), the usual input for training a new network.
+ *
+ * Options: --games=N --depth=N --nodes=N --seed=N --random-plies=N --max-plies=N --out=file
+ * --archive=file also writes the games themselves as a {@link GameRecord} archive.
+ */
+public class TrainingDataExporter {
+    public static void main(String[] args) throws IOException {
+        int games = 10, depth = 3, randomPlies = 6, maxPlies = 300;
+        long nodes = 20000, seed = 1;
+        Path out = Path.of("training.txt"), archive = null;
+        for (String arg : args) {
+            String[] kv = arg.replaceFirst("^--", "").split("=", 2);
+            String value = kv.length > 1 ? kv[1] : "";
+            switch (kv[0]) {
+                case "games" -> games = Integer.parseInt(value);
+                case "depth" -> depth = Integer.parseInt(value);
+                case "nodes" -> nodes = Long.parseLong(value);
+                case "seed" -> seed = Long.parseLong(value);
+                case "random-plies" -> randomPlies = Integer.parseInt(value);
+                case "max-plies" -> maxPlies = Integer.parseInt(value);
+                case "out" -> out = Path.of(value);
+                case "archive" -> archive = Path.of(value);
+                default -> throw new IllegalArgumentException("Unknown option: " + arg);
+            }
+        }
+
+        Random random = new Random(seed);
+        Search search = new Search(new TranspositionTable(64));
+        int[] moves = new int[MoveGenerator.MAX_MOVES];
+        long positions = 0;
+        long start = System.nanoTime();
+        try (BufferedWriter writer = Files.newBufferedWriter(out);
+             BufferedWriter archiveWriter = archive != null ? Files.newBufferedWriter(archive) : null) {
+            for (int game = 0; game < games; game++) {
+                SearchBoard board = SearchBoard.startPosition();
+                List<String> lines = new ArrayList<>();
+                List<Integer> played = new ArrayList<>();
+                while (!board.isGameOver() && board.ply() < maxPlies) {
+                    int move;
+                    if (board.ply() < randomPlies) {
+                        int n = MoveGenerator.generate(board, moves, false);
+                        if (n == 0) {
+                            break;
+                        }
+                        move = moves[random.nextInt(n)];
+                    } else {
+                        SearchResult result = search.search(board, depth, nodes);
+                        if (result.move == Move.NONE) {
+                            break;
+                        }
+                        if (!result.isMate()) {
+                            lines.add(board.toFen() + ";" + result.score);
+                        }
+                        move = result.move;
+                    }
+                    board.make(move);
+                    played.add(move);
+                }
+                String result = result(board);
+                for (String line : lines) {
+                    writer.write(line + ";" + result);
+                    writer.newLine();
+                }
+                positions += lines.size();
+                if (archiveWriter != null) {
+                    new GameRecord(SearchBoard.START_FEN, played.stream().mapToInt(Integer::intValue).toArray()).write(archiveWriter);
+                }
+                System.out.println("Game " + (game + 1) + "/" + games + ": " + board.ply() + " plies, result " + result);
+            }
+        }
+        long millis = (System.nanoTime() - start) / 1_000_000;
+        System.out.println("Wrote " + positions + " positions to " + out + " in " + millis + " ms");
+    }
+
+    private static String result(SearchBoard board) {
+        int winner = board.winner();
+        if (winner == SearchBoard.NO_WINNER) {
+            //A side without moves loses, anything else that ran out of plies is a draw
+            if (!board.isGameOver() && MoveGenerator.generate(board, new int[MoveGenerator.MAX_MOVES], true) == 0) {
+                winner = 1 - board.sideToMove();
+            } else {
+                return "0.5";
+            }
+        }
+        return winner == SearchBoard.WHITE ? "1" : "0";
+    }
+}
@@ -0,0 +1,50 @@
+package org.checkmatecoders.engine.Eval;
+
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.ShortVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * SIMD version of {@link ScalarInference} on the JDK Vector API. Only loaded through
+ * {@link Inference#create()} when the jdk.incubator.vector module is present.
+ * The accumulator length must be a multiple of the vector lengths, which {@link Network#HIDDEN} is.
+ */
+final class VectorInference implements Inference {
+    private static final VectorSpecies<Short> SHORTS = ShortVector.SPECIES_PREFERRED;
+    private static final VectorSpecies<Short> SHORTS_128 = ShortVector.SPECIES_128;
+    private static final VectorSpecies<Integer> INTS_256 = IntVector.SPECIES_256;
+
+    @Override
+    public void add(short[] accumulator, short[] weights, int offset) {
+        for (int i = 0; i < accumulator.length; i += SHORTS.length()) {
+            ShortVector.fromArray(SHORTS, accumulator, i)
+                    .add(ShortVector.fromArray(SHORTS, weights, offset + i))
+                    .intoArray(accumulator, i);
+        }
+    }
+
+    @Override
+    public void subtract(short[] accumulator, short[] weights, int offset) {
+        for (int i = 0; i < accumulator.length; i += SHORTS.length()) {
+            ShortVector.fromArray(SHORTS, accumulator, i)
+                    .sub(ShortVector.fromArray(SHORTS, weights, offset + i))
+                    .intoArray(accumulator, i);
+        }
+    }
+
+    @Override
+    public int forward(short[] accumulator, short[] outputWeights, int clip) {
+        // Eight shorts at a time, widened to ints so the products cannot overflow
+        IntVector sum = IntVector.zero(INTS_256);
+        for (int i = 0; i < accumulator.length; i += SHORTS_128.length()) {
+            ShortVector clipped = ShortVector.fromArray(SHORTS_128, accumulator, i)
+                    .lanewise(VectorOperators.MAX, (short) 0)
+                    .lanewise(VectorOperators.MIN, (short) clip);
+            IntVector values = (IntVector) clipped.castShape(INTS_256, 0);
+            IntVector weights = (IntVector) ShortVector.fromArray(SHORTS_128, outputWeights, i).castShape(INTS_256, 0);
+            sum = sum.add(values.mul(weights));
+        }
+        return sum.reduceLanes(VectorOperators.ADD);
+    }
+}
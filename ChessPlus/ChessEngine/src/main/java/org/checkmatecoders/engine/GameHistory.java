@@ -0,0 +1,223 @@
+package org.checkmatecoders.engine;
+
+import org.checkmatecoders.engine.Piece.Color;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Every position of the game, one per ply. A ply is stored as the squares it changed, with
+ * the pieces before and after, so stepping one ply either way only touches those squares.
+ * Every {@code keyframeInterval} plies the whole position is kept as well, so jumping to any
+ * ply starts from the nearest keyframe and replays fewer than that many plies, however long
+ * the game is. Recording a ply while looking at an earlier one drops the plies after it.
+ */
+public class GameHistory {
+    public static final int DEFAULT_KEYFRAME_INTERVAL = 16;
+
+    private final int keyframeInterval;
+    private final List<Ply> plies = new ArrayList<>();
+    private final List<State> keyframes = new ArrayList<>();
+    private State current;
+    private int currentPly;
+
+    /**
+     * The full position at one ply.
+     */
+    public static final class State {
+        private final PieceState[] squares;
+        public final List<SpellState> spells;
+        public final Color winner;
+        public final Color turn;
+        public final List<EffectState> effects;
+
+        State(PieceState[] squares, List<SpellState> spells, Color winner, Color turn, List<EffectState> effects) {
+            this.squares = squares;
+            this.spells = spells;
+            this.winner = winner;
+            this.turn = turn;
+            this.effects = effects;
+        }
+
+        public PieceState getPiece(int x, int y) {
+            return squares[x + 8 * y];
+        }
+
+        public List<PieceState> getPieces() {
+            List<PieceState> list = new ArrayList<>(32);
+            for (PieceState p : squares) {
+                if (p != null) {
+                    list.add(p);
+                }
+            }
+            return list;
+        }
+    }
+
+    /**
+     * What one ply changed. Spells, winner, turn and effects are small, so they are kept whole.
+     */
+    private static final class Ply {
+        final long mask;
+        final PieceState[] before;
+        final PieceState[] after;
+        final List<SpellState> spells;
+        final Color winner;
+        final Color turn;
+        final List<EffectState> effects;
+
+        Ply(long mask, PieceState[] before, PieceState[] after, State to) {
+            this.mask = mask;
+            this.before = before;
+            this.after = after;
+            this.spells = to.spells;
+            this.winner = to.winner;
+            this.turn = to.turn;
+            this.effects = to.effects;
+        }
+    }
+
+    public GameHistory() {
+        this(DEFAULT_KEYFRAME_INTERVAL);
+    }
+
+    public GameHistory(int keyframeInterval) {
+        this.keyframeInterval = Math.max(1, keyframeInterval);
+    }
+
+    /**
+     * Forgets everything and starts a new game at the given position.
+     */
+    public void start(BoardSnapshot snapshot, Color turn, List<EffectState> effects) {
+        plies.clear();
+        keyframes.clear();
+        current = position(snapshot, turn, effects);
+        currentPly = 0;
+        keyframes.add(current);
+    }
+
+    /**
+     * Adds the position after a finished ply. If an earlier ply is shown, the later ones are dropped first.
+     */
+    public void record(BoardSnapshot snapshot, Color turn, List<EffectState> effects) {
+        if (current == null) {
+            start(BoardSnapshot.EMPTY, turn, List.of());
+        }
+        truncate(currentPly);
+        State next = position(snapshot, turn, effects);
+        long mask = 0;
+        for (int i = 0; i < 64; i++) {
+            if (!same(current.squares[i], next.squares[i])) {
+                mask |= 1L << i;
+            }
+        }
+        int n = Long.bitCount(mask);
+        PieceState[] before = new PieceState[n];
+        PieceState[] after = new PieceState[n];
+        int k = 0;
+        for (long rest = mask; rest != 0; rest &= rest - 1, k++) {
+            int i = Long.numberOfTrailingZeros(rest);
+            before[k] = current.squares[i];
+            after[k] = next.squares[i];
+        }
+        plies.add(new Ply(mask, before, after, next));
+        current = next;
+        currentPly++;
+        if (currentPly % keyframeInterval == 0) {
+            keyframes.add(current);
+        }
+    }
+
+    public int size() {
+        return plies.size();
+    }
+
+    public int getCurrentPly() {
+        return currentPly;
+    }
+
+    public State current() {
+        return current;
+    }
+
+    public boolean canUndo() {
+        return currentPly > 0;
+    }
+
+    public boolean canRedo() {
+        return currentPly < plies.size();
+    }
+
+    public State undo() {
+        return goTo(currentPly - 1);
+    }
+
+    public State redo() {
+        return goTo(currentPly + 1);
+    }
+
+    /**
+     * Moves to the given ply (clamped to the recorded range) and returns its position.
+     */
+    public State goTo(int ply) {
+        ply = Math.max(0, Math.min(plies.size(), ply));
+        if (ply == currentPly) {
+            return current;
+        }
+        PieceState[] squares;
+        int at;
+        int keyframe = ply / keyframeInterval * keyframeInterval;
+        if (Math.abs(ply - currentPly) <= ply - keyframe) {
+            squares = current.squares.clone();
+            at = currentPly;
+        } else {
+            squares = keyframes.get(ply / keyframeInterval).squares.clone();
+            at = keyframe;
+        }
+        for (; at < ply; at++) {
+            apply(squares, plies.get(at).mask, plies.get(at).after);
+        }
+        for (; at > ply; at--) {
+            apply(squares, plies.get(at - 1).mask, plies.get(at - 1).before);
+        }
+        if (ply == 0) {
+            State start = keyframes.get(0);
+            current = new State(squares, start.spells, start.winner, start.turn, start.effects);
+        } else {
+            Ply last = plies.get(ply - 1);
+            current = new State(squares, last.spells, last.winner, last.turn, last.effects);
+        }
+        currentPly = ply;
+        return current;
+    }
+
+    private void truncate(int ply) {
+        if (plies.size() > ply) {
+            plies.subList(ply, plies.size()).clear();
+            keyframes.subList(ply / keyframeInterval + 1, keyframes.size()).clear();
+        }
+    }
+
+    private static void apply(PieceState[] squares, long mask, PieceState[] states) {
+        int k = 0;
+        for (long rest = mask; rest != 0; rest &= rest - 1) {
+            squares[Long.numberOfTrailingZeros(rest)] = states[k++];
+        }
+    }
+
+    private static State position(BoardSnapshot snapshot, Color turn, List<EffectState> effects) {
+        PieceState[] squares = new PieceState[64];
+        for (PieceState p : snapshot.getPieces()) {
+            squares[p.x + 8 * p.y] = p;
+        }
+        return new State(squares, snapshot.getSpells(), snapshot.getWinner(), turn, List.copyOf(effects));
+    }
+
+    private static boolean same(PieceState a, PieceState b) {
+        if (a == b) {
+            return true;
+        }
+        return a != null && b != null && a.type == b.type && a.color == b.color && a.canMove == b.canMove
+                && a.capturable == b.capturable && a.isFirstMove == b.isFirstMove;
+    }
+}
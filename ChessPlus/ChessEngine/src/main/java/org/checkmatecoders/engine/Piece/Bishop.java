@@ -1,6 +1,7 @@
 package org.checkmatecoders.engine.Piece;
 
 import org.checkmatecoders.engine.Board;
+import org.checkmatecoders.engine.Stats.EngineStats;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -49,6 +50,7 @@ public class Bishop extends Piece{
 
     @Override
     public List<Position> getValidMoves() {
+        if (EngineStats.ENABLED) EngineStats.countMoveGeneration(PieceType.Bishop);
         List<Position> allMoves = new ArrayList<Position>();
         List<Position> allNewMoves = new ArrayList<Position>();
         //Up right
@@ -137,6 +139,7 @@ public class Bishop extends Piece{
 
     }
     public List<Position> getValidMoves2(){
+        if (EngineStats.ENABLED) EngineStats.count(EngineStats.Counter.AttackGeneration);
         List<Position> allMoves = new ArrayList<Position>();
         //Up right
         if(canMove){
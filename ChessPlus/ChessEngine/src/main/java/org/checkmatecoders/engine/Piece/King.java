@@ -1,6 +1,7 @@
 package org.checkmatecoders.engine.Piece;
 
 import org.checkmatecoders.engine.Board;
+import org.checkmatecoders.engine.Stats.EngineStats;
 
 import javax.swing.*;
 import java.util.ArrayList;
@@ -20,6 +21,7 @@ public class King extends Piece{
 
     @Override
     public List<Position> getValidMoves() {
+        if (EngineStats.ENABLED) EngineStats.countMoveGeneration(PieceType.King);
         
         List<Position> allMoves = new ArrayList<Position>();
         List<Position> allNewMoves = new ArrayList<Position>();
@@ -63,6 +65,7 @@ public class King extends Piece{
     }
     @Override
     public List<Position> getValidMoves2() {
+        if (EngineStats.ENABLED) EngineStats.count(EngineStats.Counter.AttackGeneration);
 
         List<Position> allMoves = new ArrayList<Position>();
         if(canMove && capturable){
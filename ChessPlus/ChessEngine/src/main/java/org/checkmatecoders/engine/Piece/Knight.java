@@ -1,6 +1,7 @@
 package org.checkmatecoders.engine.Piece;
 
 import org.checkmatecoders.engine.Board;
+import org.checkmatecoders.engine.Stats.EngineStats;
 
 import javax.imageio.ImageIO;
 import java.io.IOException;
@@ -19,6 +20,7 @@ public class Knight extends Piece{
 
     @Override
     public List<Position> getValidMoves() {
+        if (EngineStats.ENABLED) EngineStats.countMoveGeneration(PieceType.Knight);
         List<Position> allMoves = new ArrayList<Position>();
         List<Position> allNewMoves = new ArrayList<Position>();
         if(canMove){
@@ -61,6 +63,7 @@ public class Knight extends Piece{
     }
     @Override
     public List<Position> getValidMoves2() {
+        if (EngineStats.ENABLED) EngineStats.count(EngineStats.Counter.AttackGeneration);
         List<Position> allMoves = new ArrayList<Position>();
         if (canMove && capturable) {
             allMoves.add(new Position(this.position.x + 2, this.position.y + 1));
@@ -1,6 +1,7 @@
 package org.checkmatecoders.engine.Piece;
 
 import org.checkmatecoders.engine.Board;
+import org.checkmatecoders.engine.Stats.EngineStats;
 
 
 import javax.swing.*;
@@ -59,6 +60,7 @@ public class Pawn extends Piece{
 
     @Override
     public List<Position> getValidMoves() {
+        if (EngineStats.ENABLED) EngineStats.countMoveGeneration(PieceType.Pawn);
         List<Position> allMoves = new ArrayList<Position>();
         List<Position> allNewMoves = new ArrayList<Position>();
         if(canMove){
@@ -99,6 +101,7 @@ public class Pawn extends Piece{
     }
     @Override
     public List<Position> getValidMoves2() {
+        if (EngineStats.ENABLED) EngineStats.count(EngineStats.Counter.AttackGeneration);
         List<Position> allMoves = new ArrayList<Position>();
         if(canMove){
             if(isFirstMove && board.getPiece(new Position(this.position.x,this.position.y + movingWay)) == null && board.getPiece(new Position(this.position.x,this.position.y + 2*movingWay)) == null){
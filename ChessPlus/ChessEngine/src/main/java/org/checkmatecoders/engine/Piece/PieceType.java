@@ -0,0 +1,35 @@
+package org.checkmatecoders.engine.Piece;
+
+import org.checkmatecoders.engine.Board;
+
+public enum PieceType {
+    Pawn,
+    Knight,
+    Bishop,
+    Rook,
+    Queen,
+    King,
+    Ghost;
+
+    public static PieceType of(Piece p) {
+        if (p instanceof org.checkmatecoders.engine.Piece.Pawn) return Pawn;
+        if (p instanceof org.checkmatecoders.engine.Piece.Knight) return Knight;
+        if (p instanceof org.checkmatecoders.engine.Piece.Bishop) return Bishop;
+        if (p instanceof org.checkmatecoders.engine.Piece.Rook) return Rook;
+        if (p instanceof org.checkmatecoders.engine.Piece.Queen) return Queen;
+        if (p instanceof org.checkmatecoders.engine.Piece.King) return King;
+        return Ghost;
+    }
+
+    public Piece create(Color color, Board board, Position position) {
+        switch (this) {
+            case Pawn: return new org.checkmatecoders.engine.Piece.Pawn(color, board, position);
+            case Knight: return new org.checkmatecoders.engine.Piece.Knight(color, board, position);
+            case Bishop: return new org.checkmatecoders.engine.Piece.Bishop(color, board, position);
+            case Rook: return new org.checkmatecoders.engine.Piece.Rook(color, board, position);
+            case Queen: return new org.checkmatecoders.engine.Piece.Queen(color, board, position);
+            case King: return new org.checkmatecoders.engine.Piece.King(color, board, position);
+            default: return new org.checkmatecoders.engine.Piece.Ghost(color, board, position);
+        }
+    }
+}
@@ -1,6 +1,7 @@
 package org.checkmatecoders.engine.Piece;
 
 import org.checkmatecoders.engine.Board;
+import org.checkmatecoders.engine.Stats.EngineStats;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -71,6 +72,7 @@ public class Queen extends Piece{
 
     @Override
     public List<Position> getValidMoves() {
+        if (EngineStats.ENABLED) EngineStats.countMoveGeneration(PieceType.Queen);
         List<Position> allMoves = new ArrayList<Position>();
         List<Position> allNewMoves = new ArrayList<Position>();
         //Move Right
@@ -229,6 +231,7 @@ public class Queen extends Piece{
     }
     @Override
     public List<Position> getValidMoves2() {
+        if (EngineStats.ENABLED) EngineStats.count(EngineStats.Counter.AttackGeneration);
         List<Position> allMoves = new ArrayList<Position>();
         //Move Right
         if(canMove && capturable){
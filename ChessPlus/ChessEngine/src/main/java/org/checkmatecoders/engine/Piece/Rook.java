@@ -1,6 +1,7 @@
 package org.checkmatecoders.engine.Piece;
 
 import org.checkmatecoders.engine.Board;
+import org.checkmatecoders.engine.Stats.EngineStats;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -45,6 +46,7 @@ public class Rook extends Piece{
 
     @Override
     public List<Position> getValidMoves() {
+        if (EngineStats.ENABLED) EngineStats.countMoveGeneration(PieceType.Rook);
         List<Position> allMoves = new ArrayList<Position>();
         List<Position> allNewMoves = new ArrayList<Position>();
         //Move Right
@@ -134,6 +136,7 @@ public class Rook extends Piece{
     }
     @Override
     public List<Position> getValidMoves2() {
+        if (EngineStats.ENABLED) EngineStats.count(EngineStats.Counter.AttackGeneration);
         List<Position> allMoves = new ArrayList<Position>();
         //Move Right
         if(canMove && capturable){
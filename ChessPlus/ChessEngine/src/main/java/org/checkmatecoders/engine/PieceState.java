@@ -0,0 +1,38 @@
+package org.checkmatecoders.engine;
+
+import org.checkmatecoders.engine.Piece.Color;
+import org.checkmatecoders.engine.Piece.Pawn;
+import org.checkmatecoders.engine.Piece.Piece;
+import org.checkmatecoders.engine.Piece.PieceType;
+
+/**
+ * Immutable copy of a piece as it stood when a {@link BoardSnapshot} was taken.
+ */
+public final class PieceState {
+    public final PieceType type;
+    public final Color color;
+    public final int x;
+    public final int y;
+    public final boolean canMove;
+    public final boolean capturable;
+    public final boolean isFirstMove;
+
+    public PieceState(PieceType type, Color color, int x, int y, boolean canMove, boolean capturable, boolean isFirstMove) {
+        this.type = type;
+        this.color = color;
+        this.x = x;
+        this.y = y;
+        this.canMove = canMove;
+        this.capturable = capturable;
+        this.isFirstMove = isFirstMove;
+    }
+
+    public static PieceState of(Piece p) {
+        return new PieceState(PieceType.of(p), p.color, p.position.x, p.position.y, p.canMove, p.capturable,
+                p instanceof Pawn && ((Pawn) p).isFirstMove);
+    }
+
+    public String toString() {
+        return color + " " + type + " at " + x + "," + y;
+    }
+}
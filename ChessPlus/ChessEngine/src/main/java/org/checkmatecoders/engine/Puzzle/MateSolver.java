@@ -0,0 +1,346 @@
+package org.checkmatecoders.engine.Puzzle;
+
+import org.checkmatecoders.engine.Search.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Proves king captures: "the side to move wins the king in N" means that within N of its own
+ * moves the attacker captures the enemy king whatever the defender does, spells included.
+ * A Time Travel keeps the turn, so it does not count as one of the N moves; a Time Travel
+ * that only delays a mate the attacker has anyway is not reported as a first move of its own.
+ * This is a depth-limited AND/OR search: the attacker needs one winning move, the defender
+ * must have none that escapes. Proven and refuted nodes go into a shared transposition table.
+ */
+public class MateSolver {
+    /**
+     * Keeps the same position apart when it is solved for the other attacker.
+     */
+    private static final long BLACK_ATTACKER = 0x9E3779B97F4A7C15L;
+    private static final int WIN = 1;
+    private static final int NO_WIN = -1;
+
+    private final TranspositionTable table;
+    private final ThreadLocal<Prover> provers;
+    private final LongAdder nodes = new LongAdder();
+
+    public MateSolver(int hashMegabytes) {
+        this.table = new TranspositionTable(hashMegabytes);
+        this.provers = ThreadLocal.withInitial(Prover::new);
+    }
+
+    public static class Solution {
+        /**
+         * Attacker moves needed, or 0 if there is no forced win within the limit.
+         */
+        public final int moves;
+        /**
+         * Every first move that wins in {@link #moves}.
+         */
+        public final int[] firstMoves;
+
+        public Solution(int moves, int[] firstMoves) {
+            this.moves = moves;
+            this.firstMoves = firstMoves;
+        }
+
+        public boolean isWin() {
+            return moves > 0;
+        }
+
+        public boolean isUnique() {
+            return firstMoves.length == 1;
+        }
+    }
+
+    /**
+     * Finds the shortest forced win of the side to move within maxMoves, on the calling thread.
+     */
+    public Solution solve(SearchBoard position, int maxMoves) {
+        return solve(position, maxMoves, null);
+    }
+
+    /**
+     * Like {@link #solve(SearchBoard, int)}, but the root moves of each depth are split across
+     * the pool. Worth it for single deep problems; for many positions, solve them side by side instead.
+     */
+    public Solution solve(SearchBoard position, int maxMoves, ExecutorService pool) {
+        if (position.isGameOver()) {
+            return new Solution(0, new int[0]);
+        }
+        int[] rootMoves = new int[MoveGenerator.MAX_MOVES];
+        int n = MoveGenerator.generate(position, rootMoves, true);
+        for (int depth = 1; depth <= maxMoves; depth++) {
+            List<Integer> winning = pool == null
+                    ? winningMoves(position, rootMoves, n, depth)
+                    : winningMovesParallel(position, rootMoves, n, depth, pool);
+            if (!winning.isEmpty()) {
+                winning = withoutDelayingTimeTravel(position, winning, depth);
+                return new Solution(depth, winning.stream().mapToInt(Integer::intValue).toArray());
+            }
+        }
+        return new Solution(0, new int[0]);
+    }
+
+    /**
+     * "Time Travel, then the same mate" is the mate itself: the Time Travel is dropped when
+     * every move that wins after it also wins straight away. It stays if the mate needs it.
+     */
+    private List<Integer> withoutDelayingTimeTravel(SearchBoard position, List<Integer> winning, int depth) {
+        int timeTravel = Move.of(0, 0, Move.TIME_TRAVEL);
+        if (winning.size() < 2 || !winning.contains(timeTravel)) {
+            return winning;
+        }
+        SearchBoard after = new SearchBoard(position);
+        after.make(timeTravel);
+        int[] moves = new int[MoveGenerator.MAX_MOVES];
+        int n = MoveGenerator.generate(after, moves, true);
+        for (int move : winningMoves(after, moves, n, depth)) {
+            if (move != timeTravel && !winning.contains(move)) {
+                return winning;
+            }
+        }
+        List<Integer> direct = new ArrayList<>(winning);
+        direct.remove(Integer.valueOf(timeTravel));
+        return direct;
+    }
+
+    public long getNodes() {
+        return nodes.sum();
+    }
+
+    private List<Integer> winningMoves(SearchBoard position, int[] rootMoves, int n, int depth) {
+        Prover prover = provers.get();
+        prover.reset(position);
+        List<Integer> winning = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            if (prover.rootMoveWins(rootMoves[i], depth)) {
+                winning.add(rootMoves[i]);
+            }
+        }
+        return winning;
+    }
+
+    private List<Integer> winningMovesParallel(SearchBoard position, int[] rootMoves, int n, int depth, ExecutorService pool) {
+        List<Future<Boolean>> results = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            int move = rootMoves[i];
+            results.add(pool.submit(() -> {
+                Prover prover = provers.get();
+                prover.reset(position);
+                return prover.rootMoveWins(move, depth);
+            }));
+        }
+        List<Integer> winning = new ArrayList<>();
+        try {
+            for (int i = 0; i < n; i++) {
+                if (results.get(i).get()) {
+                    winning.add(rootMoves[i]);
+                }
+            }
+        } catch (InterruptedException e) {
+            results.forEach(f -> f.cancel(true));
+            Thread.currentThread().interrupt();
+            throw new CancellationException("Solve interrupted");
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Solve failed", e.getCause());
+        }
+        return winning;
+    }
+
+    /**
+     * Per-thread search state: a private copy of the position and move lists for every level.
+     */
+    private class Prover {
+        private static final int MAX_LEVELS = 64;
+
+        private final int[][] moves = new int[MAX_LEVELS][MoveGenerator.MAX_MOVES];
+        private final int[][] order = new int[MAX_LEVELS][MoveGenerator.MAX_MOVES];
+        private SearchBoard board;
+        private int attacker;
+        private long visited;
+
+        void reset(SearchBoard position) {
+            board = new SearchBoard(position);
+            attacker = position.sideToMove();
+        }
+
+        boolean rootMoveWins(int move, int depth) {
+            visited = 0;
+            board.make(move);
+            boolean win = afterAttackerMove(remaining(depth), 0);
+            board.unmake();
+            nodes.add(visited);
+            return win;
+        }
+
+        /**
+         * {@code left} is the number of attacker moves still allowed.
+         */
+        private boolean attackerWins(int left, int level) {
+            visited++;
+            if (left == 0) {
+                return false;
+            }
+            long key = key();
+            int proven = probe(key, left);
+            if (proven != 0) {
+                return proven == WIN;
+            }
+            int[] list = moves[level];
+            int n;
+            if (left == 1) {
+                //Only taking the king wins with the last move, possibly after Time Travels that
+                //let frozen or shielded pieces expire
+                n = MoveGenerator.generateCaptures(board, list);
+                for (int i = 0; i < n; i++) {
+                    if (SearchBoard.type(board.pieceAt(Move.to(list[i]))) == SearchBoard.KING) {
+                        return true;
+                    }
+                }
+                if (board.spellCount(attacker, SearchBoard.spellIndex(Move.TIME_TRAVEL)) > 0) {
+                    int timeTravel = Move.of(0, 0, Move.TIME_TRAVEL);
+                    board.make(timeTravel);
+                    boolean win = afterAttackerMove(remaining(left), level + 1);
+                    board.unmake();
+                    if (win) {
+                        table.store(key, timeTravel, WIN, left, TranspositionTable.EXACT);
+                        return true;
+                    }
+                }
+                table.store(key, Move.NONE, NO_WIN, left, TranspositionTable.EXACT);
+                return false;
+            }
+            n = MoveGenerator.generate(board, list, true);
+            for (int i = 0; i < n; i++) {
+                board.make(list[i]);
+                boolean win = afterAttackerMove(remaining(left), level + 1);
+                board.unmake();
+                if (win) {
+                    table.store(key, list[i], WIN, left, TranspositionTable.EXACT);
+                    return true;
+                }
+            }
+            table.store(key, Move.NONE, NO_WIN, left, TranspositionTable.EXACT);
+            return false;
+        }
+
+        /**
+         * The defender has to move and loses if every move still allows the capture.
+         * A defender with no moves at all loses as well.
+         */
+        private boolean defenderLoses(int left, int level) {
+            visited++;
+            long key = key();
+            int proven = probe(key, left);
+            if (proven != 0) {
+                return proven == WIN;
+            }
+            int[] list = moves[level];
+            //Most escapes are plain moves, so spells are only generated when none of those works
+            int normal = MoveGenerator.generate(board, list, false);
+            orderDefences(list, order[level], 0, normal);
+            if (refutes(list, 0, normal, key, left, level)) {
+                return false;
+            }
+            int n = MoveGenerator.generate(board, list, true);
+            orderDefences(list, order[level], normal, n);
+            if (refutes(list, normal, n, key, left, level)) {
+                return false;
+            }
+            table.store(key, Move.NONE, WIN, left, TranspositionTable.EXACT);
+            return true;
+        }
+
+        private boolean refutes(int[] list, int from, int to, long key, int left, int level) {
+            for (int i = from; i < to; i++) {
+                board.make(list[i]);
+                boolean lost;
+                if (board.isGameOver()) {
+                    lost = board.winner() == attacker;
+                } else {
+                    //After Time Travel the defender moves again
+                    lost = board.sideToMove() == attacker ? attackerWins(left, level + 1) : defenderLoses(left, level + 1);
+                }
+                board.unmake();
+                if (!lost) {
+                    table.store(key, list[i], NO_WIN, left, TranspositionTable.EXACT);
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        /**
+         * Attacker moves left after the one just made: the same number if it was a Time Travel
+         * and the attacker is still to move.
+         */
+        private int remaining(int left) {
+            return board.sideToMove() == attacker ? left : left - 1;
+        }
+
+        private boolean afterAttackerMove(int left, int level) {
+            if (board.isGameOver()) {
+                return board.winner() == attacker;
+            }
+            return board.sideToMove() == attacker ? attackerWins(left, level) : defenderLoses(left, level);
+        }
+
+        /**
+         * Results hold for more moves once won, and for fewer once refuted.
+         */
+        private int probe(long key, int left) {
+            long entry = table.probe(key);
+            if (entry == 0) {
+                return 0;
+            }
+            int result = TranspositionTable.score(entry);
+            int depth = TranspositionTable.depth(entry);
+            if (result == WIN && depth <= left || result == NO_WIN && depth >= left) {
+                return result;
+            }
+            return 0;
+        }
+
+        private long key() {
+            return attacker == SearchBoard.BLACK ? board.key() ^ BLACK_ATTACKER : board.key();
+        }
+
+        /**
+         * Likely escapes first, so a refutation usually ends the node after one or two moves:
+         * shields, king moves and captures ahead of everything else.
+         */
+        private void orderDefences(int[] list, int[] scores, int from, int to) {
+            for (int i = from; i < to; i++) {
+                int move = list[i];
+                int kind = Move.kind(move);
+                int piece = board.pieceAt(Move.from(move));
+                if (kind == Move.SHIELD) {
+                    scores[i] = SearchBoard.type(piece) == SearchBoard.KING ? 4 : 1;
+                } else if (kind == Move.NORMAL && SearchBoard.type(piece) == SearchBoard.KING) {
+                    scores[i] = 3;
+                } else if (kind == Move.NORMAL && board.pieceAt(Move.to(move)) != 0) {
+                    scores[i] = 2;
+                } else if (kind == Move.FREEZE || kind == Move.SWAP) {
+                    scores[i] = 1;
+                } else {
+                    scores[i] = 0;
+                }
+            }
+            //Insertion sort, lists are short and mostly in order already
+            for (int i = from + 1; i < to; i++) {
+                int move = list[i], score = scores[i], j = i - 1;
+                while (j >= from && scores[j] < score) {
+                    list[j + 1] = list[j];
+                    scores[j + 1] = scores[j];
+                    j--;
+                }
+                list[j + 1] = move;
+                scores[j + 1] = score;
+            }
+        }
+    }
+}
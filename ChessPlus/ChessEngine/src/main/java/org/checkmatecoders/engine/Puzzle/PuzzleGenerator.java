@@ -0,0 +1,144 @@
+package org.checkmatecoders.engine.Puzzle;
+
+import org.checkmatecoders.engine.Analysis.GameRecord;
+import org.checkmatecoders.engine.Search.Move;
+import org.checkmatecoders.engine.Search.SearchBoard;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.*;
+
+/**
+ * Mines puzzles from game archives. Every position of every game is a candidate; it becomes a
+ * puzzle when the side to move has a forced king capture in at least --min and at most --max
+ * moves, and exactly one first move achieves it. Candidates are solved in parallel, written
+ * in archive order and each position is used once. Output lines are
+ * {@code fen;moves;solution;theme;game:ply}.
+ *
+ * Options: --in=archive --out=file --threads=N --min=N --max=N --skip=plies --hash=MB
+ */
+public class PuzzleGenerator {
+    public static void main(String[] args) throws IOException {
+        int threads = Runtime.getRuntime().availableProcessors(), min = 2, max = 3, skip = 4, hash = 256;
+        Path inFile = null, outFile = null;
+        for (String arg : args) {
+            String[] kv = arg.replaceFirst("^--", "").split("=", 2);
+            String value = kv.length > 1 ? kv[1] : "";
+            switch (kv[0]) {
+                case "in" -> inFile = Path.of(value);
+                case "out" -> outFile = Path.of(value);
+                case "threads" -> threads = Integer.parseInt(value);
+                case "min" -> min = Integer.parseInt(value);
+                case "max" -> max = Integer.parseInt(value);
+                case "skip" -> skip = Integer.parseInt(value);
+                case "hash" -> hash = Integer.parseInt(value);
+                default -> throw new IllegalArgumentException("Unknown option: " + arg);
+            }
+        }
+
+        MateSolver solver = new MateSolver(hash);
+        ExecutorService pool = Executors.newFixedThreadPool(threads, r -> {
+            Thread t = new Thread(r, "puzzle-solver");
+            t.setDaemon(true);
+            return t;
+        });
+        int window = threads * 16;
+        int maxMoves = max;
+        ArrayDeque<Future<String>> pending = new ArrayDeque<>(window);
+        Set<Long> seen = new HashSet<>();
+        long candidates = 0, puzzles = 0;
+        long start = System.nanoTime();
+        try (BufferedReader in = inFile != null ? Files.newBufferedReader(inFile)
+                : new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8));
+             Writer out = outFile != null ? Files.newBufferedWriter(outFile)
+                     : new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8))) {
+            int games = 0;
+            while (true) {
+                GameRecord game;
+                SearchBoard[] positions;
+                try {
+                    //A game with a bad move is consumed before read() throws, so the next one is intact
+                    game = GameRecord.read(in);
+                } catch (IllegalArgumentException e) {
+                    System.err.println("Skipping game " + ++games + ": " + e.getMessage());
+                    continue;
+                }
+                if (game == null) {
+                    break;
+                }
+                games++;
+                try {
+                    positions = game.positions();
+                } catch (IllegalArgumentException e) {
+                    System.err.println("Skipping game " + games + ": " + e.getMessage());
+                    continue;
+                }
+                for (int ply = skip; ply < positions.length; ply++) {
+                    SearchBoard position = positions[ply];
+                    if (position.isGameOver() || !seen.add(position.key())) {
+                        continue;
+                    }
+                    candidates++;
+                    if (pending.size() == window) {
+                        puzzles += write(pending.poll(), out);
+                    }
+                    String source = games + ":" + ply;
+                    int minMoves = min;
+                    pending.add(pool.submit(() -> puzzle(solver, position, minMoves, maxMoves, source)));
+                }
+            }
+            while (!pending.isEmpty()) {
+                puzzles += write(pending.poll(), out);
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.err.printf("Found %d puzzles in %d candidates in %.1f s: %.0f candidates/s, %.0f nodes/s%n",
+                puzzles, candidates, seconds, candidates / seconds, solver.getNodes() / seconds);
+    }
+
+    /**
+     * The puzzle line for the position, or null if it is not a puzzle.
+     */
+    static String puzzle(MateSolver solver, SearchBoard position, int minMoves, int maxMoves, String source) {
+        MateSolver.Solution solution = solver.solve(position, maxMoves);
+        if (!solution.isWin() || solution.moves < minMoves || !solution.isUnique()) {
+            return null;
+        }
+        int move = solution.firstMoves[0];
+        return position.toFen() + ";" + solution.moves + ";" + Move.toString(move) + ";" + theme(move) + ";" + source;
+    }
+
+    private static String theme(int move) {
+        return switch (Move.kind(move)) {
+            case Move.SWAP -> "Swap";
+            case Move.FREEZE -> "Freeze";
+            case Move.SHIELD -> "Shield";
+            case Move.TIME_TRAVEL -> "TimeTravel";
+            default -> "Move";
+        };
+    }
+
+    private static int write(Future<String> result, Writer out) throws IOException {
+        try {
+            String line = result.get();
+            if (line == null) {
+                return 0;
+            }
+            out.write(line);
+            out.write('\n');
+            return 1;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException();
+        } catch (ExecutionException e) {
+            throw new IOException(e.getCause());
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package org.checkmatecoders.engine.Search;
+
+/**
+ * Moves are packed into an int so move lists are plain int arrays.
+ * Bits 0-5 hold the from square, bits 6-11 the to square and bits 12-14 the kind.
+ * Squares are x + 8 * y, the same numbering as {@link org.checkmatecoders.engine.BoardChange}.
+ */
+public final class Move {
+    public static final int NONE = 0;
+
+    public static final int NORMAL = 0;
+    public static final int SWAP = 1;
+    public static final int FREEZE = 2;
+    public static final int SHIELD = 3;
+    public static final int TIME_TRAVEL = 4;
+
+    private static final String[] KIND_NAMES = {"", "swap", "freeze", "shield", "timetravel"};
+
+    private Move() {
+    }
+
+    public static int of(int from, int to, int kind) {
+        return from | (to << 6) | (kind << 12);
+    }
+
+    public static int normal(int from, int to) {
+        return of(from, to, NORMAL);
+    }
+
+    public static int from(int move) {
+        return move & 63;
+    }
+
+    public static int to(int move) {
+        return (move >>> 6) & 63;
+    }
+
+    public static int kind(int move) {
+        return (move >>> 12) & 7;
+    }
+
+    public static boolean isSpell(int move) {
+        return kind(move) != NORMAL;
+    }
+
+    public static String squareName(int square) {
+        return "" + (char) ('a' + square % 8) + (8 - square / 8);
+    }
+
+    public static int parseSquare(String name) {
+        if (name.length() != 2) {
+            throw new IllegalArgumentException("Not a square: " + name);
+        }
+        int x = name.charAt(0) - 'a';
+        int y = 8 - (name.charAt(1) - '0');
+        if (x < 0 || x > 7 || y < 0 || y > 7) {
+            throw new IllegalArgumentException("Not a square: " + name);
+        }
+        return x + 8 * y;
+    }
+
+    /**
+     * e.g. "e2e4", "swap:b1g8", "freeze:d5", "shield:e4", "timetravel".
+     */
+    public static String toString(int move) {
+        switch (kind(move)) {
+            case NORMAL:
+                return squareName(from(move)) + squareName(to(move));
+            case SWAP:
+                return "swap:" + squareName(from(move)) + squareName(to(move));
+            case FREEZE:
+            case SHIELD:
+                return KIND_NAMES[kind(move)] + ":" + squareName(to(move));
+            default:
+                return KIND_NAMES[kind(move)];
+        }
+    }
+
+    /**
+     * Parses the format written by {@link #toString(int)}.
+     *
+     * @throws IllegalArgumentException naming the token if it is not a move
+     */
+    public static int parse(String text) {
+        if (text.equals("timetravel")) {
+            return of(0, 0, TIME_TRAVEL);
+        }
+        int colon = text.indexOf(':');
+        String kind = colon < 0 ? "" : text.substring(0, colon);
+        String squares = text.substring(colon + 1);
+        try {
+            switch (kind) {
+                case "":
+                case "swap":
+                    if (squares.length() != 4) {
+                        break;
+                    }
+                    return of(parseSquare(squares.substring(0, 2)), parseSquare(squares.substring(2, 4)),
+                            kind.isEmpty() ? NORMAL : SWAP);
+                case "freeze":
+                    return of(parseSquare(squares), parseSquare(squares), FREEZE);
+                case "shield":
+                    return of(parseSquare(squares), parseSquare(squares), SHIELD);
+                default:
+                    break;
+            }
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Not a move: " + text, e);
+        }
+        throw new IllegalArgumentException("Not a move: " + text);
+    }
+}
@@ -0,0 +1,184 @@
+package org.checkmatecoders.engine.Search;
+
+import static org.checkmatecoders.engine.Search.SearchBoard.*;
+
+/**
+ * Generates the moves of the side to move into an int array, see {@link Move}.
+ * Moves are pseudo-legal: leaving the king attacked is allowed, losing it ends the game.
+ */
+public final class MoveGenerator {
+    /**
+     * Enough for any position, reachable or not. With k own and m opposing pieces (k + m <= 64),
+     * normal moves go from an own piece to one of the other squares (at most k * (64 - k)),
+     * swaps pair an own piece with an opposing one (at most k * m), and shields, freezes and
+     * Time Travel add at most 65, so the total stays below 2 * 32 * 32 + 65.
+     */
+    public static final int MAX_MOVES = 2 * 32 * 32 + 65;
+
+    private static final int[] KNIGHT_DX = {1, 2, 2, 1, -1, -2, -2, -1};
+    private static final int[] KNIGHT_DY = {-2, -1, 1, 2, 2, 1, -1, -2};
+    private static final int[] KING_DX = {1, 1, 0, -1, -1, -1, 0, 1};
+    private static final int[] KING_DY = {0, 1, 1, 1, 0, -1, -1, -1};
+    private static final int[] ROOK_DIRECTIONS = {0, 2, 4, 6};
+    private static final int[] BISHOP_DIRECTIONS = {1, 3, 5, 7};
+
+    private MoveGenerator() {
+    }
+
+    /**
+     * Writes all moves into the array and returns how many there are. Normal moves come
+     * first, then spells if {@code withSpells} is set.
+     */
+    public static int generate(SearchBoard b, int[] moves, boolean withSpells) {
+        int n = generateNormal(b, moves, 0, false);
+        if (withSpells) {
+            n = generateSpells(b, moves, n);
+        }
+        return n;
+    }
+
+    /**
+     * Writes only the moves that capture a piece.
+     */
+    public static int generateCaptures(SearchBoard b, int[] moves) {
+        return generateNormal(b, moves, 0, true);
+    }
+
+    private static int generateNormal(SearchBoard b, int[] moves, int n, boolean capturesOnly) {
+        int us = b.sideToMove;
+        int[] squares = b.squares;
+        for (int from = 0; from < 64; from++) {
+            int piece = squares[from];
+            if (piece == 0 || color(piece) != us || b.frozenUntil[from] > b.ply || b.shieldedUntil[from] > b.ply) {
+                continue;
+            }
+            int x = from % 8;
+            int y = from / 8;
+            switch (type(piece)) {
+                case PAWN: {
+                    int dir = us == WHITE ? -1 : 1;
+                    int ny = y + dir;
+                    if (ny < 0 || ny > 7) {
+                        break;
+                    }
+                    int ahead = x + 8 * ny;
+                    if (!capturesOnly && squares[ahead] == 0) {
+                        moves[n++] = Move.normal(from, ahead);
+                        int startRow = us == WHITE ? 6 : 1;
+                        int twoAhead = ahead + 8 * dir;
+                        if (y == startRow && squares[twoAhead] == 0) {
+                            moves[n++] = Move.normal(from, twoAhead);
+                        }
+                    }
+                    if (x > 0 && canCapture(b, us, ahead - 1)) {
+                        moves[n++] = Move.normal(from, ahead - 1);
+                    }
+                    if (x < 7 && canCapture(b, us, ahead + 1)) {
+                        moves[n++] = Move.normal(from, ahead + 1);
+                    }
+                    break;
+                }
+                case KNIGHT:
+                    n = steps(b, moves, n, from, KNIGHT_DX, KNIGHT_DY, capturesOnly);
+                    break;
+                case KING:
+                    n = steps(b, moves, n, from, KING_DX, KING_DY, capturesOnly);
+                    break;
+                case BISHOP:
+                    n = slides(b, moves, n, from, BISHOP_DIRECTIONS, capturesOnly);
+                    break;
+                case ROOK:
+                    n = slides(b, moves, n, from, ROOK_DIRECTIONS, capturesOnly);
+                    break;
+                case QUEEN:
+                    n = slides(b, moves, n, from, BISHOP_DIRECTIONS, capturesOnly);
+                    n = slides(b, moves, n, from, ROOK_DIRECTIONS, capturesOnly);
+                    break;
+                default:
+                    break;
+            }
+        }
+        return n;
+    }
+
+    private static int generateSpells(SearchBoard b, int[] moves, int n) {
+        int us = b.sideToMove;
+        int[] squares = b.squares;
+        int[] spells = b.spells[us];
+        if (spells[spellIndex(Move.TIME_TRAVEL)] > 0) {
+            moves[n++] = Move.of(0, 0, Move.TIME_TRAVEL);
+        }
+        boolean shield = spells[spellIndex(Move.SHIELD)] > 0;
+        boolean freeze = spells[spellIndex(Move.FREEZE)] > 0;
+        boolean swap = spells[spellIndex(Move.SWAP)] > 0;
+        for (int sq = 0; sq < 64; sq++) {
+            int piece = squares[sq];
+            if (piece == 0) {
+                continue;
+            }
+            if (color(piece) == us) {
+                if (shield && b.shieldedUntil[sq] <= b.ply) {
+                    moves[n++] = Move.of(sq, sq, Move.SHIELD);
+                }
+                if (swap && type(piece) != KING) {
+                    for (int other = 0; other < 64; other++) {
+                        int target = squares[other];
+                        if (target != 0 && color(target) != us && type(target) != KING) {
+                            moves[n++] = Move.of(sq, other, Move.SWAP);
+                        }
+                    }
+                }
+            } else if (freeze && b.frozenUntil[sq] <= b.ply) {
+                // Freezes are centred on opposing pieces that can still move
+                moves[n++] = Move.of(sq, sq, Move.FREEZE);
+            }
+        }
+        return n;
+    }
+
+    private static boolean canCapture(SearchBoard b, int us, int sq) {
+        int target = b.squares[sq];
+        return target != 0 && color(target) != us && b.shieldedUntil[sq] <= b.ply;
+    }
+
+    private static int steps(SearchBoard b, int[] moves, int n, int from, int[] dx, int[] dy, boolean capturesOnly) {
+        int us = b.sideToMove;
+        int x = from % 8;
+        int y = from / 8;
+        for (int i = 0; i < dx.length; i++) {
+            int nx = x + dx[i];
+            int ny = y + dy[i];
+            if (nx < 0 || nx > 7 || ny < 0 || ny > 7) {
+                continue;
+            }
+            int to = nx + 8 * ny;
+            if (b.squares[to] == 0 ? !capturesOnly : canCapture(b, us, to)) {
+                moves[n++] = Move.normal(from, to);
+            }
+        }
+        return n;
+    }
+
+    private static int slides(SearchBoard b, int[] moves, int n, int from, int[] directions, boolean capturesOnly) {
+        int us = b.sideToMove;
+        for (int d : directions) {
+            int x = from % 8 + KING_DX[d];
+            int y = from / 8 + KING_DY[d];
+            while (x >= 0 && x <= 7 && y >= 0 && y <= 7) {
+                int to = x + 8 * y;
+                if (b.squares[to] != 0) {
+                    if (canCapture(b, us, to)) {
+                        moves[n++] = Move.normal(from, to);
+                    }
+                    break;
+                }
+                if (!capturesOnly) {
+                    moves[n++] = Move.normal(from, to);
+                }
+                x += KING_DX[d];
+                y += KING_DY[d];
+            }
+        }
+        return n;
+    }
+}
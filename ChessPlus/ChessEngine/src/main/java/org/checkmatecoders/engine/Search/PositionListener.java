@@ -0,0 +1,19 @@
+package org.checkmatecoders.engine.Search;
+
+/**
+ * Follows the changes {@link SearchBoard#make(int)} applies, so incrementally updated state
+ * such as evaluation accumulators stays in step with the board. Every make starts with
+ * {@link #push()} and the matching unmake calls {@link #pop()}, which restores the state
+ * saved by the push without replaying the changes backwards.
+ */
+public interface PositionListener {
+    void push();
+
+    void pop();
+
+    void pieceAdded(int piece, int square);
+
+    void pieceRemoved(int piece, int square);
+
+    void spellCountChanged(int color, int spell, int oldCount, int newCount);
+}
@@ -0,0 +1,251 @@
+package org.checkmatecoders.engine.Search;
+
+import org.checkmatecoders.engine.Eval.Network;
+import org.checkmatecoders.engine.Eval.NnueEvaluator;
+import org.checkmatecoders.engine.Stats.EngineStats;
+
+/**
+ * Iterative deepening alpha-beta search with a transposition table and a captures-only
+ * quiescence search. A Search is used by one thread at a time; threads can share the
+ * {@link TranspositionTable}.
+ */
+public final class Search {
+    public static final int MATE = 30000;
+    public static final int INFINITY = 32000;
+    public static final int MAX_PLY = 128;
+    public static final int MATE_THRESHOLD = MATE - MAX_PLY;
+
+    private static final int[] ORDER_VALUES = {0, 100, 320, 330, 500, 900, 20000};
+
+    private final TranspositionTable table;
+    private final NnueEvaluator evaluator;
+    private final int[][] moves = new int[MAX_PLY][MoveGenerator.MAX_MOVES];
+    private final int[][] orderScores = new int[MAX_PLY][MoveGenerator.MAX_MOVES];
+    private SearchBoard board;
+    private long nodes;
+    private long nodeLimit;
+    private boolean aborted;
+    private int rootMove;
+
+    public Search(TranspositionTable table) {
+        this(table, new NnueEvaluator(Network.get()));
+    }
+
+    public Search(TranspositionTable table, NnueEvaluator evaluator) {
+        this.table = table;
+        this.evaluator = evaluator;
+    }
+
+    /**
+     * Searches a copy of the position to the given depth, stopping early once more than
+     * {@code nodeLimit} nodes were visited (0 for no limit). The result comes from the
+     * deepest iteration that completed.
+     */
+    public SearchResult search(SearchBoard position, int maxDepth, long nodeLimit) {
+        long start = System.nanoTime();
+        board = new SearchBoard(position);
+        evaluator.attach(board);
+        nodes = 0;
+        this.nodeLimit = nodeLimit > 0 ? nodeLimit : Long.MAX_VALUE;
+        aborted = false;
+        int bestMove = Move.NONE;
+        int bestScore = 0;
+        int completed = 0;
+        for (int depth = 1; depth <= maxDepth; depth++) {
+            rootMove = Move.NONE;
+            int score = negamax(depth, -INFINITY, INFINITY, 0);
+            if (aborted) {
+                if (bestMove == Move.NONE) {
+                    bestMove = rootMove;
+                }
+                break;
+            }
+            bestMove = rootMove;
+            bestScore = score;
+            completed = depth;
+            if (Math.abs(score) >= MATE_THRESHOLD) {
+                break;
+            }
+        }
+        if (EngineStats.ENABLED) EngineStats.stop(EngineStats.Phase.Search, start);
+        return new SearchResult(bestMove, bestScore, completed, nodes, System.nanoTime() - start);
+    }
+
+    /**
+     * Static evaluation of the position for the side to move, without searching.
+     */
+    public int evaluate(SearchBoard position) {
+        board = new SearchBoard(position);
+        evaluator.attach(board);
+        return evaluator.evaluate(board);
+    }
+
+    private int negamax(int depth, int alpha, int beta, int ply) {
+        nodes++;
+        if (EngineStats.ENABLED) EngineStats.count(EngineStats.Counter.Nodes);
+        if (board.winner != SearchBoard.NO_WINNER) {
+            return board.winner == board.sideToMove ? MATE - ply : -(MATE - ply);
+        }
+        if ((nodes & 1023) == 0 && nodes >= nodeLimit) {
+            aborted = true;
+        }
+        if (aborted) {
+            return 0;
+        }
+        if (depth <= 0 || ply >= MAX_PLY - 1) {
+            return quiescence(alpha, beta, ply);
+        }
+
+        long key = board.key();
+        int ttMove = Move.NONE;
+        long entry = table.probe(key);
+        if (EngineStats.ENABLED) EngineStats.count(EngineStats.Counter.TtProbes);
+        if (entry != 0) {
+            if (EngineStats.ENABLED) EngineStats.count(EngineStats.Counter.TtHits);
+            ttMove = TranspositionTable.move(entry);
+            if (ply > 0 && TranspositionTable.depth(entry) >= depth) {
+                int score = fromTable(TranspositionTable.score(entry), ply);
+                int bound = TranspositionTable.bound(entry);
+                if (bound == TranspositionTable.EXACT
+                        || (bound == TranspositionTable.LOWER && score >= beta)
+                        || (bound == TranspositionTable.UPPER && score <= alpha)) {
+                    return score;
+                }
+            }
+        }
+
+        int[] list = moves[ply];
+        int[] order = orderScores[ply];
+        //Spells multiply the branching factor, so they are left out of frontier nodes
+        int n = MoveGenerator.generate(board, list, depth >= 2 || ply == 0);
+        if (n == 0) {
+            //A side that cannot move loses, as in the game
+            return -(MATE - ply);
+        }
+        scoreMoves(list, order, n, ttMove);
+        int originalAlpha = alpha;
+        int best = -INFINITY;
+        int bestMove = Move.NONE;
+        for (int i = 0; i < n; i++) {
+            int move = pickNext(list, order, i, n);
+            int us = board.sideToMove;
+            //Spells other than the hash move are searched one ply shallower
+            int next = Move.isSpell(move) && move != ttMove ? depth - 2 : depth - 1;
+            board.make(move);
+            //After Time Travel the same side moves again, so the score keeps its sign
+            int score = board.sideToMove == us
+                    ? negamax(next, alpha, beta, ply + 1)
+                    : -negamax(next, -beta, -alpha, ply + 1);
+            board.unmake();
+            if (aborted) {
+                return 0;
+            }
+            if (score > best) {
+                best = score;
+                bestMove = move;
+                if (ply == 0) {
+                    rootMove = move;
+                }
+            }
+            if (score > alpha) {
+                alpha = score;
+            }
+            if (alpha >= beta) {
+                if (EngineStats.ENABLED) EngineStats.countCutoff(i);
+                break;
+            }
+        }
+        int bound = best >= beta ? TranspositionTable.LOWER
+                : best > originalAlpha ? TranspositionTable.EXACT : TranspositionTable.UPPER;
+        table.store(key, bestMove, toTable(best, ply), depth, bound);
+        return best;
+    }
+
+    private int quiescence(int alpha, int beta, int ply) {
+        nodes++;
+        if (EngineStats.ENABLED) EngineStats.count(EngineStats.Counter.QuiescenceNodes);
+        if (board.winner != SearchBoard.NO_WINNER) {
+            return board.winner == board.sideToMove ? MATE - ply : -(MATE - ply);
+        }
+        if ((nodes & 1023) == 0 && nodes >= nodeLimit) {
+            aborted = true;
+        }
+        if (aborted) {
+            return 0;
+        }
+        if (EngineStats.ENABLED) EngineStats.count(EngineStats.Counter.Evaluations);
+        int standPat = evaluator.evaluate(board, alpha, beta);
+        if (standPat >= beta || ply >= MAX_PLY - 1) {
+            return standPat;
+        }
+        if (standPat > alpha) {
+            alpha = standPat;
+        }
+        int[] list = moves[ply];
+        int[] order = orderScores[ply];
+        int n = MoveGenerator.generateCaptures(board, list);
+        scoreMoves(list, order, n, Move.NONE);
+        for (int i = 0; i < n; i++) {
+            board.make(pickNext(list, order, i, n));
+            int score = -quiescence(-beta, -alpha, ply + 1);
+            board.unmake();
+            if (aborted) {
+                return 0;
+            }
+            if (score >= beta) {
+                return score;
+            }
+            if (score > alpha) {
+                alpha = score;
+            }
+        }
+        return alpha;
+    }
+
+    /**
+     * Hash move first, then captures by most valuable victim and least valuable attacker,
+     * then quiet moves, then spells.
+     */
+    private void scoreMoves(int[] list, int[] order, int n, int ttMove) {
+        for (int i = 0; i < n; i++) {
+            int move = list[i];
+            if (move == ttMove) {
+                order[i] = 1_000_000;
+            } else if (Move.kind(move) == Move.NORMAL) {
+                int victim = board.squares[Move.to(move)];
+                order[i] = victim == 0 ? 0
+                        : 100_000 + 16 * ORDER_VALUES[SearchBoard.type(victim)] - ORDER_VALUES[SearchBoard.type(board.squares[Move.from(move)])] / 16;
+            } else {
+                order[i] = -1000 * Move.kind(move);
+            }
+        }
+    }
+
+    private static int pickNext(int[] list, int[] order, int i, int n) {
+        int best = i;
+        for (int j = i + 1; j < n; j++) {
+            if (order[j] > order[best]) {
+                best = j;
+            }
+        }
+        int move = list[best];
+        list[best] = list[i];
+        list[i] = move;
+        int score = order[best];
+        order[best] = order[i];
+        order[i] = score;
+        return move;
+    }
+
+    /**
+     * Mate scores are stored relative to the node so they stay correct when the position
+     * is reached at a different distance from the root.
+     */
+    private static int toTable(int score, int ply) {
+        return score >= MATE_THRESHOLD ? score + ply : score <= -MATE_THRESHOLD ? score - ply : score;
+    }
+
+    private static int fromTable(int score, int ply) {
+        return score >= MATE_THRESHOLD ? score - ply : score <= -MATE_THRESHOLD ? score + ply : score;
+    }
+}
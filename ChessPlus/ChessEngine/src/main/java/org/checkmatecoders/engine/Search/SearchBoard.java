@@ -0,0 +1,551 @@
+package org.checkmatecoders.engine.Search;
+
+import org.checkmatecoders.engine.BoardSnapshot;
+import org.checkmatecoders.engine.PieceState;
+import org.checkmatecoders.engine.SpellState;
+import org.checkmatecoders.engine.Piece.Color;
+
+import java.util.Arrays;
+
+/**
+ * Compact, mutable Chess+ position used by the search, with make/unmake instead of the
+ * object graph of {@link org.checkmatecoders.engine.Board}.
+ * <p>
+ * Squares are x + 8 * y as on the board, so white starts on rows 6 and 7 and moves up.
+ * The rules follow the game:
+ * <ul>
+ *     <li>The game is won by capturing the king. There is no castling, en passant or promotion.</li>
+ *     <li>Freeze stops every piece in a 3x3 area from moving for {@value #FREEZE_PLIES} plies.
+ *     Frozen pieces can still be captured.</li>
+ *     <li>Shield makes a piece impossible to capture during the opponent's next turn.</li>
+ *     <li>Swap exchanges one of the mover's pieces with an opposing piece. Kings cannot be swapped.</li>
+ *     <li>Time Travel gives the mover another move straight away.</li>
+ * </ul>
+ * Effects store the ply at which they run out, so nothing has to be counted down between moves.
+ */
+public final class SearchBoard {
+    public static final int WHITE = 0;
+    public static final int BLACK = 1;
+
+    public static final int PAWN = 1;
+    public static final int KNIGHT = 2;
+    public static final int BISHOP = 3;
+    public static final int ROOK = 4;
+    public static final int QUEEN = 5;
+    public static final int KING = 6;
+
+    public static final int SPELL_TYPES = 4;
+    public static final int MAX_SPELLS = 7;
+    public static final int FREEZE_PLIES = 6;
+    public static final int SHIELD_PLIES = 1;
+    public static final int NO_WINNER = -1;
+
+    public static final String START_FEN = "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w s2f2h2t2/s2f2h2t2 -";
+
+    private static final String PIECE_LETTERS = " pnbrqk";
+    private static final String SPELL_LETTERS = "sfht";
+
+    final int[] squares = new int[64];
+    final int[][] spells = new int[2][SPELL_TYPES];
+    final int[] frozenUntil = new int[64];
+    final int[] shieldedUntil = new int[64];
+    int sideToMove;
+    int ply;
+    int winner = NO_WINNER;
+    int effectsUntil;
+    long key;
+    long pawnKey;
+
+    private Undo[] undo = new Undo[0];
+    private int undoSize;
+    private PositionListener listener;
+
+    private static final class Undo {
+        int move;
+        int side;
+        int winner;
+        int effectsUntil;
+        long key;
+        long pawnKey;
+        int captured;
+        int fromFrozen;
+        int fromShielded;
+        int toFrozen;
+        int toShielded;
+        final int[] area = new int[9];
+    }
+
+    public SearchBoard() {
+    }
+
+    /**
+     * Copies the position, but not its move history or listener.
+     */
+    public SearchBoard(SearchBoard other) {
+        copyFrom(other);
+    }
+
+    /**
+     * Makes this board the same position as another one and forgets its own move history,
+     * reusing the arrays it already has.
+     */
+    public void copyFrom(SearchBoard other) {
+        undoSize = 0;
+        System.arraycopy(other.squares, 0, squares, 0, 64);
+        for (int c = 0; c < 2; c++) {
+            System.arraycopy(other.spells[c], 0, spells[c], 0, SPELL_TYPES);
+        }
+        System.arraycopy(other.frozenUntil, 0, frozenUntil, 0, 64);
+        System.arraycopy(other.shieldedUntil, 0, shieldedUntil, 0, 64);
+        sideToMove = other.sideToMove;
+        ply = other.ply;
+        winner = other.winner;
+        effectsUntil = other.effectsUntil;
+        key = other.key;
+        pawnKey = other.pawnKey;
+    }
+
+    public static SearchBoard startPosition() {
+        return fromFen(START_FEN);
+    }
+
+    public static int piece(int type, int color) {
+        return type | (color << 3);
+    }
+
+    public static int type(int piece) {
+        return piece & 7;
+    }
+
+    public static int color(int piece) {
+        return piece >> 3;
+    }
+
+    public static int spellIndex(int moveKind) {
+        return moveKind - 1;
+    }
+
+    public int pieceAt(int square) {
+        return squares[square];
+    }
+
+    public int sideToMove() {
+        return sideToMove;
+    }
+
+    public int ply() {
+        return ply;
+    }
+
+    /**
+     * The color that captured a king, or {@link #NO_WINNER}.
+     */
+    public int winner() {
+        return winner;
+    }
+
+    public boolean isGameOver() {
+        return winner != NO_WINNER;
+    }
+
+    public int spellCount(int color, int spell) {
+        return spells[color][spell];
+    }
+
+    public boolean isFrozen(int square) {
+        return frozenUntil[square] > ply;
+    }
+
+    public boolean isShielded(int square) {
+        return shieldedUntil[square] > ply;
+    }
+
+    public boolean hasEffects() {
+        return effectsUntil > ply;
+    }
+
+    public void setListener(PositionListener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * Zobrist key of the position, including which squares are frozen or shielded right now.
+     */
+    public long key() {
+        long k = key;
+        if (effectsUntil > ply) {
+            for (int sq = 0; sq < 64; sq++) {
+                if (frozenUntil[sq] > ply) k ^= Zobrist.FROZEN[sq];
+                if (shieldedUntil[sq] > ply) k ^= Zobrist.SHIELDED[sq];
+            }
+        }
+        return k;
+    }
+
+    /**
+     * Zobrist key of the pawns alone, for caching pawn structure terms.
+     */
+    public long pawnKey() {
+        return pawnKey;
+    }
+
+    public void make(int move) {
+        if (undoSize == undo.length) {
+            undo = Arrays.copyOf(undo, Math.max(16, undo.length * 2));
+            for (int i = undoSize; i < undo.length; i++) {
+                undo[i] = new Undo();
+            }
+        }
+        Undo u = undo[undoSize++];
+        u.move = move;
+        u.side = sideToMove;
+        u.winner = winner;
+        u.effectsUntil = effectsUntil;
+        u.key = key;
+        u.pawnKey = pawnKey;
+        if (listener != null) {
+            listener.push();
+        }
+        int us = sideToMove;
+        int from = Move.from(move);
+        int to = Move.to(move);
+        int kind = Move.kind(move);
+        switch (kind) {
+            case Move.NORMAL: {
+                int moving = squares[from];
+                int captured = squares[to];
+                u.captured = captured;
+                u.fromFrozen = frozenUntil[from];
+                u.fromShielded = shieldedUntil[from];
+                u.toFrozen = frozenUntil[to];
+                u.toShielded = shieldedUntil[to];
+                if (captured != 0) {
+                    removePiece(captured, to);
+                    if (type(captured) == KING) {
+                        winner = us;
+                    }
+                }
+                removePiece(moving, from);
+                putPiece(moving, to);
+                frozenUntil[from] = frozenUntil[to] = 0;
+                shieldedUntil[from] = shieldedUntil[to] = 0;
+                break;
+            }
+            case Move.SWAP: {
+                int a = squares[from];
+                int b = squares[to];
+                removePiece(a, from);
+                removePiece(b, to);
+                putPiece(b, from);
+                putPiece(a, to);
+                swapEffects(from, to);
+                useSpell(us, kind);
+                break;
+            }
+            case Move.FREEZE: {
+                int until = ply + 1 + FREEZE_PLIES;
+                for (int i = 0; i < 9; i++) {
+                    int sq = areaSquare(to, i);
+                    if (sq >= 0) {
+                        u.area[i] = frozenUntil[sq];
+                        frozenUntil[sq] = Math.max(frozenUntil[sq], until);
+                    }
+                }
+                effectsUntil = Math.max(effectsUntil, until);
+                useSpell(us, kind);
+                break;
+            }
+            case Move.SHIELD: {
+                int until = ply + 1 + SHIELD_PLIES;
+                u.toShielded = shieldedUntil[to];
+                shieldedUntil[to] = until;
+                effectsUntil = Math.max(effectsUntil, until);
+                useSpell(us, kind);
+                break;
+            }
+            default:
+                useSpell(us, kind);
+                break;
+        }
+        if (kind != Move.TIME_TRAVEL) {
+            sideToMove ^= 1;
+            key ^= Zobrist.SIDE;
+        }
+        ply++;
+    }
+
+    public void unmake() {
+        Undo u = undo[--undoSize];
+        ply--;
+        int move = u.move;
+        int from = Move.from(move);
+        int to = Move.to(move);
+        int kind = Move.kind(move);
+        switch (kind) {
+            case Move.NORMAL:
+                squares[from] = squares[to];
+                squares[to] = u.captured;
+                frozenUntil[from] = u.fromFrozen;
+                shieldedUntil[from] = u.fromShielded;
+                frozenUntil[to] = u.toFrozen;
+                shieldedUntil[to] = u.toShielded;
+                break;
+            case Move.SWAP: {
+                int a = squares[from];
+                squares[from] = squares[to];
+                squares[to] = a;
+                swapEffects(from, to);
+                spells[u.side][spellIndex(kind)]++;
+                break;
+            }
+            case Move.FREEZE:
+                for (int i = 0; i < 9; i++) {
+                    int sq = areaSquare(to, i);
+                    if (sq >= 0) {
+                        frozenUntil[sq] = u.area[i];
+                    }
+                }
+                spells[u.side][spellIndex(kind)]++;
+                break;
+            case Move.SHIELD:
+                shieldedUntil[to] = u.toShielded;
+                spells[u.side][spellIndex(kind)]++;
+                break;
+            default:
+                spells[u.side][spellIndex(kind)]++;
+                break;
+        }
+        sideToMove = u.side;
+        winner = u.winner;
+        effectsUntil = u.effectsUntil;
+        key = u.key;
+        pawnKey = u.pawnKey;
+        if (listener != null) {
+            listener.pop();
+        }
+    }
+
+    /**
+     * Square i (0-8) of the 3x3 area around center, or -1 if it is off the board.
+     */
+    public static int areaSquare(int center, int i) {
+        int x = center % 8 + i % 3 - 1;
+        int y = center / 8 + i / 3 - 1;
+        return x < 0 || x > 7 || y < 0 || y > 7 ? -1 : x + 8 * y;
+    }
+
+    private void putPiece(int piece, int square) {
+        squares[square] = piece;
+        key ^= Zobrist.PIECES[piece][square];
+        if (type(piece) == PAWN) {
+            pawnKey ^= Zobrist.PIECES[piece][square];
+        }
+        if (listener != null) {
+            listener.pieceAdded(piece, square);
+        }
+    }
+
+    private void removePiece(int piece, int square) {
+        squares[square] = 0;
+        key ^= Zobrist.PIECES[piece][square];
+        if (type(piece) == PAWN) {
+            pawnKey ^= Zobrist.PIECES[piece][square];
+        }
+        if (listener != null) {
+            listener.pieceRemoved(piece, square);
+        }
+    }
+
+    private void swapEffects(int a, int b) {
+        int frozen = frozenUntil[a];
+        frozenUntil[a] = frozenUntil[b];
+        frozenUntil[b] = frozen;
+        int shielded = shieldedUntil[a];
+        shieldedUntil[a] = shieldedUntil[b];
+        shieldedUntil[b] = shielded;
+    }
+
+    private void useSpell(int color, int kind) {
+        int spell = spellIndex(kind);
+        int count = spells[color][spell];
+        key ^= Zobrist.SPELLS[color][spell][count] ^ Zobrist.SPELLS[color][spell][count - 1];
+        spells[color][spell] = count - 1;
+        if (listener != null) {
+            listener.spellCountChanged(color, spell, count, count - 1);
+        }
+    }
+
+    /**
+     * Piece placement as in FEN, then the side to move, the spell charges of white and black
+     * (s = Swap, f = Freeze, h = Shield, t = Time Travel) and the active effects as
+     * f or h, a square and the plies left, e.g.
+     * "rnbqkbnr/pppppppp/8/8/4P3/8/PPPP1PPP/RNBQKBNR b s2f1h2t2/s2f2h2t2 fe5:5,fd5:5".
+     */
+    public String toFen() {
+        StringBuilder sb = new StringBuilder(90);
+        for (int y = 0; y < 8; y++) {
+            int empty = 0;
+            for (int x = 0; x < 8; x++) {
+                int piece = squares[x + 8 * y];
+                if (piece == 0) {
+                    empty++;
+                    continue;
+                }
+                if (empty > 0) {
+                    sb.append(empty);
+                    empty = 0;
+                }
+                char letter = PIECE_LETTERS.charAt(type(piece));
+                sb.append(color(piece) == WHITE ? Character.toUpperCase(letter) : letter);
+            }
+            if (empty > 0) {
+                sb.append(empty);
+            }
+            if (y < 7) {
+                sb.append('/');
+            }
+        }
+        sb.append(sideToMove == WHITE ? " w " : " b ");
+        for (int c = 0; c < 2; c++) {
+            for (int s = 0; s < SPELL_TYPES; s++) {
+                sb.append(SPELL_LETTERS.charAt(s)).append(spells[c][s]);
+            }
+            sb.append(c == 0 ? '/' : ' ');
+        }
+        int length = sb.length();
+        for (int sq = 0; sq < 64; sq++) {
+            if (isFrozen(sq)) {
+                sb.append(sb.length() > length ? "," : "").append('f').append(Move.squareName(sq)).append(':').append(frozenUntil[sq] - ply);
+            }
+            if (isShielded(sq)) {
+                sb.append(sb.length() > length ? "," : "").append('h').append(Move.squareName(sq)).append(':').append(shieldedUntil[sq] - ply);
+            }
+        }
+        if (sb.length() == length) {
+            sb.append('-');
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Parses the format written by {@link #toFen()}. The spell and effect fields may be left out,
+     * in which case each side gets the starting spell charges and no effects are active.
+     */
+    public static SearchBoard fromFen(String fen) {
+        String[] fields = fen.trim().split("\\s+");
+        if (fields.length < 2) {
+            throw new IllegalArgumentException("Not a position: " + fen);
+        }
+        SearchBoard b = new SearchBoard();
+        int x = 0, y = 0;
+        for (char ch : fields[0].toCharArray()) {
+            if (ch == '/') {
+                x = 0;
+                y++;
+            } else if (Character.isDigit(ch)) {
+                x += ch - '0';
+            } else {
+                int type = PIECE_LETTERS.indexOf(Character.toLowerCase(ch));
+                if (type <= 0 || x > 7 || y > 7) {
+                    throw new IllegalArgumentException("Bad piece placement: " + fields[0]);
+                }
+                b.squares[x + 8 * y] = piece(type, Character.isUpperCase(ch) ? WHITE : BLACK);
+                x++;
+            }
+        }
+        b.sideToMove = fields[1].equals("b") ? BLACK : WHITE;
+        String spellField = fields.length > 2 ? fields[2] : "s2f2h2t2/s2f2h2t2";
+        String[] sides = spellField.split("/");
+        for (int c = 0; c < 2; c++) {
+            String side = sides[Math.min(c, sides.length - 1)];
+            for (int i = 0; i + 1 < side.length(); i += 2) {
+                int s = SPELL_LETTERS.indexOf(side.charAt(i));
+                int count = side.charAt(i + 1) - '0';
+                //The count indexes the Zobrist keys, so it has to stay within their table
+                if (s < 0 || count < 0 || count > MAX_SPELLS) {
+                    throw new IllegalArgumentException("Bad spell field: " + spellField);
+                }
+                b.spells[c][s] = count;
+            }
+        }
+        if (fields.length > 3 && !fields[3].equals("-")) {
+            for (String effect : fields[3].split(",")) {
+                int colon = effect.indexOf(':');
+                int sq = Move.parseSquare(effect.substring(1, colon));
+                int until = Integer.parseInt(effect.substring(colon + 1));
+                if (effect.charAt(0) == 'f') {
+                    b.frozenUntil[sq] = until;
+                } else {
+                    b.shieldedUntil[sq] = until;
+                }
+                b.effectsUntil = Math.max(b.effectsUntil, until);
+            }
+        }
+        b.key = b.computeKey();
+        b.pawnKey = b.computePawnKey();
+        return b;
+    }
+
+    /**
+     * Converts a snapshot of the live board. The board does not record how long effects
+     * have left, so frozen pieces are taken to be freshly frozen and shields to last one ply.
+     */
+    public static SearchBoard of(BoardSnapshot snapshot, Color sideToMove) {
+        SearchBoard b = new SearchBoard();
+        for (PieceState p : snapshot.getPieces()) {
+            int type = p.type.ordinal() + 1;
+            if (type > KING) {
+                continue;
+            }
+            int sq = p.x + 8 * p.y;
+            b.squares[sq] = piece(type, p.color == Color.White ? WHITE : BLACK);
+            if (!p.canMove && p.capturable) {
+                b.frozenUntil[sq] = FREEZE_PLIES;
+            }
+            if (!p.capturable) {
+                b.shieldedUntil[sq] = SHIELD_PLIES;
+            }
+            b.effectsUntil = Math.max(b.effectsUntil, Math.max(b.frozenUntil[sq], b.shieldedUntil[sq]));
+        }
+        for (SpellState s : snapshot.getSpells()) {
+            int index = s.type.ordinal();
+            if (index < SPELL_TYPES) {
+                b.spells[WHITE][index] = Math.min(MAX_SPELLS, s.amount);
+                b.spells[BLACK][index] = Math.min(MAX_SPELLS, s.amount);
+            }
+        }
+        b.sideToMove = sideToMove == Color.White ? WHITE : BLACK;
+        b.key = b.computeKey();
+        b.pawnKey = b.computePawnKey();
+        return b;
+    }
+
+    private long computePawnKey() {
+        long k = 0;
+        for (int sq = 0; sq < 64; sq++) {
+            if (type(squares[sq]) == PAWN) {
+                k ^= Zobrist.PIECES[squares[sq]][sq];
+            }
+        }
+        return k;
+    }
+
+    private long computeKey() {
+        long k = sideToMove == BLACK ? Zobrist.SIDE : 0;
+        for (int sq = 0; sq < 64; sq++) {
+            if (squares[sq] != 0) {
+                k ^= Zobrist.PIECES[squares[sq]][sq];
+            }
+        }
+        for (int c = 0; c < 2; c++) {
+            for (int s = 0; s < SPELL_TYPES; s++) {
+                k ^= Zobrist.SPELLS[c][s][spells[c][s]];
+            }
+        }
+        return k;
+    }
+
+    public String toString() {
+        return toFen();
+    }
+}
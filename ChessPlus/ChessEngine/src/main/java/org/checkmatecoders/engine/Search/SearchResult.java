@@ -0,0 +1,29 @@
+package org.checkmatecoders.engine.Search;
+
+/**
+ * Outcome of {@link Search#search}. The score is in centipawns for the side to move;
+ * scores beyond {@link Search#MATE_THRESHOLD} mean a king capture was found.
+ */
+public final class SearchResult {
+    public final int move;
+    public final int score;
+    public final int depth;
+    public final long nodes;
+    public final long nanos;
+
+    public SearchResult(int move, int score, int depth, long nodes, long nanos) {
+        this.move = move;
+        this.score = score;
+        this.depth = depth;
+        this.nodes = nodes;
+        this.nanos = nanos;
+    }
+
+    public boolean isMate() {
+        return Math.abs(score) >= Search.MATE_THRESHOLD;
+    }
+
+    public String toString() {
+        return (move == Move.NONE ? "none" : Move.toString(move)) + " score " + score + " depth " + depth + " nodes " + nodes;
+    }
+}
@@ -0,0 +1,74 @@
+package org.checkmatecoders.engine.Search;
+
+import java.util.Arrays;
+
+/**
+ * Fixed-size hash table of search results that any number of search threads can share
+ * without locks. Each slot stores key ^ data next to data, so a slot torn by two threads
+ * writing at once fails the key check on the next probe instead of returning wrong data.
+ */
+public final class TranspositionTable {
+    public static final int EXACT = 0;
+    public static final int LOWER = 1;
+    public static final int UPPER = 2;
+
+    private final long[] keys;
+    private final long[] data;
+    private final int mask;
+
+    public TranspositionTable(int megabytes) {
+        int entries = Integer.highestOneBit(Math.max(1, megabytes) * (1 << 20) / 16);
+        keys = new long[entries];
+        data = new long[entries];
+        mask = entries - 1;
+    }
+
+    /**
+     * Returns the packed entry for the key, or 0 if there is none.
+     */
+    public long probe(long key) {
+        int index = (int) key & mask;
+        long d = data[index];
+        if ((keys[index] ^ d) != key || d == 0) {
+            return 0;
+        }
+        return d;
+    }
+
+    public void store(long key, int move, int score, int depth, int bound) {
+        int index = (int) key & mask;
+        long old = data[index];
+        // Keep deeper results for other positions unless they come from a shallower search
+        if (old != 0 && (keys[index] ^ old) != key && depth(old) > depth + 2) {
+            return;
+        }
+        long d = (move & 0x7FFFL)
+                | ((score & 0xFFFFL) << 15)
+                | ((long) (depth & 0xFF) << 31)
+                | ((long) bound << 39)
+                | (1L << 41);
+        data[index] = d;
+        keys[index] = key ^ d;
+    }
+
+    public void clear() {
+        Arrays.fill(keys, 0);
+        Arrays.fill(data, 0);
+    }
+
+    public static int move(long entry) {
+        return (int) (entry & 0x7FFF);
+    }
+
+    public static int score(long entry) {
+        return (short) (entry >>> 15);
+    }
+
+    public static int depth(long entry) {
+        return (int) ((entry >>> 31) & 0xFF);
+    }
+
+    public static int bound(long entry) {
+        return (int) ((entry >>> 39) & 3);
+    }
+}
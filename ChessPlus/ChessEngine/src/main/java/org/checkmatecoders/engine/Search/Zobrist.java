@@ -0,0 +1,39 @@
+package org.checkmatecoders.engine.Search;
+
+import java.util.SplittableRandom;
+
+/**
+ * Random keys for hashing positions. The seed is fixed so keys, and therefore
+ * transposition table contents and exported data, are the same on every run.
+ */
+final class Zobrist {
+    static final long[][] PIECES = new long[16][64];
+    static final long[][][] SPELLS = new long[2][SearchBoard.SPELL_TYPES][SearchBoard.MAX_SPELLS + 1];
+    static final long[] FROZEN = new long[64];
+    static final long[] SHIELDED = new long[64];
+    static final long SIDE;
+
+    static {
+        SplittableRandom random = new SplittableRandom(0x5EEDC0DEL);
+        for (long[] piece : PIECES) {
+            for (int sq = 0; sq < 64; sq++) {
+                piece[sq] = random.nextLong();
+            }
+        }
+        for (long[][] color : SPELLS) {
+            for (long[] spell : color) {
+                for (int i = 0; i < spell.length; i++) {
+                    spell[i] = random.nextLong();
+                }
+            }
+        }
+        for (int sq = 0; sq < 64; sq++) {
+            FROZEN[sq] = random.nextLong();
+            SHIELDED[sq] = random.nextLong();
+        }
+        SIDE = random.nextLong();
+    }
+
+    private Zobrist() {
+    }
+}
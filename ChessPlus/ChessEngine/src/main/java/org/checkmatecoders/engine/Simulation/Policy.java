@@ -0,0 +1,52 @@
+package org.checkmatecoders.engine.Simulation;
+
+import org.checkmatecoders.engine.Search.Move;
+import org.checkmatecoders.engine.Search.SearchBoard;
+
+import java.util.SplittableRandom;
+
+/**
+ * How a simulated player picks its move from the generated list. Policies only use the
+ * random source they are given, so a game is fully determined by its seed.
+ */
+public enum Policy {
+    /**
+     * Any move, spells included, with equal chance.
+     */
+    Random {
+        @Override
+        public int choose(SearchBoard board, int[] moves, int n, SplittableRandom random) {
+            return moves[random.nextInt(n)];
+        }
+    },
+    /**
+     * Takes the king when it can, otherwise the most valuable capture, otherwise a random
+     * move; spells are cast now and then so games still use them.
+     */
+    Greedy {
+        @Override
+        public int choose(SearchBoard board, int[] moves, int n, SplittableRandom random) {
+            int best = Move.NONE;
+            int bestValue = 0;
+            for (int i = 0; i < n; i++) {
+                int move = moves[i];
+                if (Move.isSpell(move)) {
+                    continue;
+                }
+                int victim = board.pieceAt(Move.to(move));
+                if (victim != 0 && VALUES[SearchBoard.type(victim)] > bestValue) {
+                    best = move;
+                    bestValue = VALUES[SearchBoard.type(victim)];
+                }
+            }
+            if (best != Move.NONE && (bestValue >= VALUES[SearchBoard.KING] || random.nextInt(4) != 0)) {
+                return best;
+            }
+            return moves[random.nextInt(n)];
+        }
+    };
+
+    private static final int[] VALUES = {0, 1, 3, 3, 5, 9, 100};
+
+    public abstract int choose(SearchBoard board, int[] moves, int n, SplittableRandom random);
+}
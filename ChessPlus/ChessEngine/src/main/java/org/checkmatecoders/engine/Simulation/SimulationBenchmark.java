@@ -0,0 +1,187 @@
+package org.checkmatecoders.engine.Simulation;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Measures how many complete games the engine simulates per second. The same seeded games are
+ * played once per thread count, after a warm-up round, and the results are written as JSON:
+ * games/s, plies/s, bytes allocated per game and GC pauses for each thread count, plus a
+ * checksum of all game results that must be equal for every thread count.
+ *
+ * Options: --games=N --threads=1,2,4 --white=Random|Greedy --black=Random|Greedy
+ * --max-plies=N --seed=N --warmup=N --out=file
+ */
+public class SimulationBenchmark {
+    public static class Run {
+        public int threads;
+        public long nanos;
+        public long plies;
+        public long allocatedBytes;
+        public long gcCount;
+        public long gcMillis;
+        public long checksum;
+        public int[] wins = new int[3];
+
+        public double gamesPerSecond(int games) {
+            return games / (nanos / 1e9);
+        }
+
+        public double pliesPerSecond() {
+            return plies / (nanos / 1e9);
+        }
+    }
+
+    public static Run run(int threads, int games, long seed, Policy white, Policy black, int maxPlies) throws InterruptedException {
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        AtomicInteger next = new AtomicInteger();
+        int[] results = new int[games];
+        ThreadMXBean mx = ManagementFactory.getThreadMXBean();
+        long gcCount = gcCount(), gcMillis = gcMillis();
+        long start = System.nanoTime();
+        Run run = new Run();
+        try {
+            List<Future<Long>> workers = new ArrayList<>(threads);
+            for (int t = 0; t < threads; t++) {
+                workers.add(pool.submit(() -> {
+                    long before = allocatedBytes(mx);
+                    Simulator simulator = new Simulator(white, black, maxPlies);
+                    //Games are handed out one at a time; each one's seed depends only on its index
+                    for (int game; (game = next.getAndIncrement()) < games; ) {
+                        results[game] = simulator.play(seed + game);
+                    }
+                    return allocatedBytes(mx) - before;
+                }));
+            }
+            //A failing game ends the run instead of leaving the others waiting for it
+            for (Future<Long> worker : workers) {
+                run.allocatedBytes += worker.get();
+            }
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Simulation failed", e.getCause());
+        } finally {
+            pool.shutdownNow();
+        }
+        run.nanos = System.nanoTime() - start;
+        run.threads = threads;
+        run.gcCount = gcCount() - gcCount;
+        run.gcMillis = gcMillis() - gcMillis;
+        for (int result : results) {
+            run.plies += Simulator.plies(result);
+            run.wins[Simulator.winner(result) + 1]++;
+            run.checksum = run.checksum * 31 + result;
+        }
+        return run;
+    }
+
+    private static long allocatedBytes(ThreadMXBean mx) {
+        if (mx instanceof com.sun.management.ThreadMXBean) {
+            return ((com.sun.management.ThreadMXBean) mx).getCurrentThreadAllocatedBytes();
+        }
+        return 0;
+    }
+
+    private static long gcCount() {
+        long count = 0;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            count += Math.max(0, gc.getCollectionCount());
+        }
+        return count;
+    }
+
+    private static long gcMillis() {
+        long millis = 0;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            millis += Math.max(0, gc.getCollectionTime());
+        }
+        return millis;
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        int games = 10000, maxPlies = 300, warmup = 2000;
+        long seed = 1;
+        Policy white = Policy.Random, black = Policy.Random;
+        List<Integer> threadCounts = new ArrayList<>(List.of(1, Runtime.getRuntime().availableProcessors()));
+        Path out = null;
+        for (String arg : args) {
+            String[] kv = arg.replaceFirst("^--", "").split("=", 2);
+            String value = kv.length > 1 ? kv[1] : "";
+            switch (kv[0]) {
+                case "games" -> games = Integer.parseInt(value);
+                case "threads" -> {
+                    threadCounts.clear();
+                    for (String t : value.split(",")) {
+                        threadCounts.add(Integer.parseInt(t.trim()));
+                    }
+                }
+                case "white" -> white = Policy.valueOf(value);
+                case "black" -> black = Policy.valueOf(value);
+                case "max-plies" -> maxPlies = Integer.parseInt(value);
+                case "seed" -> seed = Long.parseLong(value);
+                case "warmup" -> warmup = Integer.parseInt(value);
+                case "out" -> out = Path.of(value);
+                default -> throw new IllegalArgumentException("Unknown option: " + arg);
+            }
+        }
+        threadCounts = threadCounts.stream().distinct().toList();
+
+        if (warmup > 0) {
+            run(threadCounts.get(threadCounts.size() - 1), warmup, seed, white, black, maxPlies);
+        }
+        List<Run> runs = new ArrayList<>();
+        for (int threads : threadCounts) {
+            Run run = run(threads, games, seed, white, black, maxPlies);
+            runs.add(run);
+            System.err.printf(Locale.ROOT, "%d threads: %.0f games/s, %.0f plies/s, %.0f bytes/game, %d GCs (%d ms)%n",
+                    threads, run.gamesPerSecond(games), run.pliesPerSecond(), (double) run.allocatedBytes / games,
+                    run.gcCount, run.gcMillis);
+            if (run.checksum != runs.get(0).checksum) {
+                System.err.println("Results differ from the first run, the simulation is not deterministic");
+            }
+        }
+
+        String json = toJson(runs, games, seed, white, black, maxPlies);
+        if (out != null) {
+            Files.writeString(out, json);
+        } else {
+            System.out.println(json);
+        }
+    }
+
+    static String toJson(List<Run> runs, int games, long seed, Policy white, Policy black, int maxPlies) {
+        StringBuilder sb = new StringBuilder();
+        sb.append("{\n");
+        sb.append("  \"timestamp\": \"").append(java.time.Instant.now()).append("\",\n");
+        sb.append("  \"java\": \"").append(System.getProperty("java.version")).append("\",\n");
+        sb.append("  \"cores\": ").append(Runtime.getRuntime().availableProcessors()).append(",\n");
+        sb.append("  \"games\": ").append(games).append(",\n");
+        sb.append("  \"seed\": ").append(seed).append(",\n");
+        sb.append("  \"white\": \"").append(white).append("\",\n");
+        sb.append("  \"black\": \"").append(black).append("\",\n");
+        sb.append("  \"maxPlies\": ").append(maxPlies).append(",\n");
+        sb.append("  \"runs\": [\n");
+        for (int i = 0; i < runs.size(); i++) {
+            Run r = runs.get(i);
+            sb.append(String.format(Locale.ROOT,
+                    "    {\"threads\": %d, \"seconds\": %.3f, \"gamesPerSecond\": %.1f, \"pliesPerSecond\": %.1f, "
+                            + "\"allocatedBytesPerGame\": %.1f, \"allocationMBPerSecond\": %.1f, \"gcCount\": %d, \"gcPauseMillis\": %d, "
+                            + "\"whiteWins\": %d, \"blackWins\": %d, \"draws\": %d, \"checksum\": %d}",
+                    r.threads, r.nanos / 1e9, r.gamesPerSecond(games), r.pliesPerSecond(),
+                    (double) r.allocatedBytes / games, r.allocatedBytes / (r.nanos / 1e9) / (1 << 20), r.gcCount, r.gcMillis,
+                    r.wins[1], r.wins[2], r.wins[0], r.checksum));
+            sb.append(i < runs.size() - 1 ? ",\n" : "\n");
+        }
+        sb.append("  ]\n}\n");
+        return sb.toString();
+    }
+}
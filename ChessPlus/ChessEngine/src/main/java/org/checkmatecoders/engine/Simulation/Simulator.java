@@ -0,0 +1,58 @@
+package org.checkmatecoders.engine.Simulation;
+
+import org.checkmatecoders.engine.Search.MoveGenerator;
+import org.checkmatecoders.engine.Search.SearchBoard;
+
+import java.util.SplittableRandom;
+
+/**
+ * Plays complete games on a {@link SearchBoard} without any UI. The same seed always gives the
+ * same game, whichever thread plays it. A simulator reuses its buffers and is meant for one thread.
+ */
+public class Simulator {
+    public static final int DRAW = -1;
+
+    private final Policy white;
+    private final Policy black;
+    private final int maxPlies;
+    private final int[] moves = new int[MoveGenerator.MAX_MOVES];
+    private final SearchBoard board = new SearchBoard();
+    private final SearchBoard start = SearchBoard.startPosition();
+
+    public Simulator(Policy white, Policy black, int maxPlies) {
+        this.white = white;
+        this.black = black;
+        this.maxPlies = maxPlies;
+    }
+
+    /**
+     * Plays one game and returns its result: bits 0-15 hold the plies played, the bits above
+     * the winner plus one (0 for a draw). Packing it into an int keeps the game loop free of allocation.
+     */
+    public int play(long seed) {
+        SplittableRandom random = new SplittableRandom(seed);
+        board.copyFrom(start);
+        while (!board.isGameOver() && board.ply() < maxPlies) {
+            int n = MoveGenerator.generate(board, moves, true);
+            if (n == 0) {
+                //A side that cannot move loses
+                return pack(board.ply(), 1 - board.sideToMove());
+            }
+            Policy policy = board.sideToMove() == SearchBoard.WHITE ? white : black;
+            board.make(policy.choose(board, moves, n, random));
+        }
+        return pack(board.ply(), board.isGameOver() ? board.winner() : DRAW);
+    }
+
+    public static int plies(int result) {
+        return result & 0xFFFF;
+    }
+
+    public static int winner(int result) {
+        return (result >>> 16) - 1;
+    }
+
+    private static int pack(int plies, int winner) {
+        return plies | ((winner + 1) << 16);
+    }
+}
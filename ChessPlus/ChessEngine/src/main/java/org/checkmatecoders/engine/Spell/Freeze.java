@@ -38,6 +38,8 @@ public class Freeze extends Spell {
     public void spellAction() {
         // TODO Auto-generated method stub
         if (checkValidity()) {
+            board.beginChange();
+            try {
 
             // deactivation (freeze) of cells the position being the center
 
@@ -52,6 +54,7 @@ public class Freeze extends Spell {
                         if (checkValidity()) {
 
                             board.getPiece(getTargetedPosition()).canMove = false;
+                            board.markDirty(getTargetedPosition());
 
                             //System.out.println("I am frozen" + getTargetedPosition());
                             
@@ -68,6 +71,7 @@ public class Freeze extends Spell {
                         if (checkValidity()) {
 
                             board.getPiece(getTargetedPosition()).canMove = true;
+                            board.markDirty(getTargetedPosition());
                             //System.out.println("I am defrozen" + getTargetedPosition());
                             
 
@@ -77,7 +81,9 @@ public class Freeze extends Spell {
 
             }
 
-
+            } finally {
+                board.commitChange();
+            }
         }
     }
 }
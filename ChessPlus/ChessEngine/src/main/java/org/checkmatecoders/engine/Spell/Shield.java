@@ -26,11 +26,13 @@ public class Shield extends Spell {
             board.getPiece(getTargetedPosition()).canMove = false;
             
             currentlyUsed = true;
+            board.markDirty(getTargetedPosition());
 
             if(duration == 0){
             board.getPiece(getTargetedPosition()).capturable = true;
             board.getPiece(getTargetedPosition()).canMove = true;
             currentlyUsed = false;
+            board.markDirty(getTargetedPosition());
             board.initializeSpells();
             //System.out.println("Iam not protected");
         }
@@ -1,6 +1,7 @@
 package org.checkmatecoders.engine.Spell;
 
 import org.checkmatecoders.engine.Board;
+import org.checkmatecoders.engine.SpellState;
 import org.checkmatecoders.engine.Piece.Piece;
 import org.checkmatecoders.engine.Piece.Position;
 
@@ -51,6 +52,19 @@ public void decrementDuration() {
     duration--;
 }
 
+public void setDuration(int duration) {
+    this.duration = duration;
+}
+
+/**
+ * Puts back the charges and timers the spell had when the state was recorded.
+ */
+public void restore(SpellState state) {
+    this.amount = state.amount;
+    this.cooldown = state.cooldown;
+    this.duration = state.duration;
+}
+
 public Position getTargetedPosition(){
     return targetedPosition;
 }
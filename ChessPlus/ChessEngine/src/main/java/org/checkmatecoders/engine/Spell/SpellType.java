@@ -0,0 +1,17 @@
+package org.checkmatecoders.engine.Spell;
+
+public enum SpellType {
+    Swap,
+    Freeze,
+    Shield,
+    TimeTravel,
+    Teleport;
+
+    public static SpellType of(Spell s) {
+        if (s instanceof org.checkmatecoders.engine.Spell.Swap) return Swap;
+        if (s instanceof org.checkmatecoders.engine.Spell.Freeze) return Freeze;
+        if (s instanceof org.checkmatecoders.engine.Spell.Shield) return Shield;
+        if (s instanceof org.checkmatecoders.engine.Spell.TimeTravel) return TimeTravel;
+        return Teleport;
+    }
+}
@@ -26,11 +26,16 @@ private Position choosenPosition;
             Piece victim = board.getPiece(choosenPosition);
             Piece target = board.getPiece(getTargetedPosition());
 
-
+            // movePiece marks both squares, the victim lands on one of them
+            board.beginChange();
+            try {
             board.pieces.remove(victim);
             board.movePiece(getTargetedPosition(),choosenPosition);
             victim.position.changePosition(getTargetedPosition());
             board.pieces.add(victim);
+            } finally {
+                board.commitChange();
+            }
             
             //System.out.println("Swapped");
         }
@@ -0,0 +1,29 @@
+package org.checkmatecoders.engine;
+
+import org.checkmatecoders.engine.Spell.Spell;
+import org.checkmatecoders.engine.Spell.SpellType;
+
+/**
+ * Immutable copy of a spell in the deck as it stood when a {@link BoardSnapshot} was taken.
+ */
+public final class SpellState {
+    public final SpellType type;
+    public final int amount;
+    public final int cooldown;
+    public final int duration;
+
+    public SpellState(SpellType type, int amount, int cooldown, int duration) {
+        this.type = type;
+        this.amount = amount;
+        this.cooldown = cooldown;
+        this.duration = duration;
+    }
+
+    public static SpellState of(Spell s) {
+        return new SpellState(SpellType.of(s), s.getAmount(), s.getCooldown(), s.getDuration());
+    }
+
+    public String toString() {
+        return type + " x" + amount;
+    }
+}
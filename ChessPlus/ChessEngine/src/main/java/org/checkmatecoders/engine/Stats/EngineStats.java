@@ -0,0 +1,170 @@
+package org.checkmatecoders.engine.Stats;
+
+import org.checkmatecoders.engine.Piece.PieceType;
+
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters and timers for the engine, switched on with -Dchessplus.stats=true.
+ * <p>
+ * Every call site checks {@link #ENABLED} first. It is a static final, so when stats are off
+ * the JIT drops the whole branch and the instrumentation costs nothing. When on, counters
+ * are {@link LongAdder}s, which stripe updates across threads instead of contending on one value.
+ * With -Dchessplus.stats.log=N a summary line is printed every N seconds.
+ */
+public final class EngineStats implements EngineStatsMXBean {
+    public static final boolean ENABLED = Boolean.getBoolean("chessplus.stats");
+
+    public enum Counter {
+        CheckCalls,
+        AttackGeneration,
+        Nodes,
+        QuiescenceNodes,
+        Evaluations,
+        TtProbes,
+        TtHits,
+        PawnProbes,
+        PawnHits,
+        LazyEvaluations,
+    }
+
+    public enum Phase {
+        Check,
+        Search,
+    }
+
+    /**
+     * Beta cutoffs are counted by the index of the move that caused them, the last bucket
+     * collecting every later move. Good move ordering shows up as most cutoffs at index 0.
+     */
+    public static final int CUTOFF_BUCKETS = 8;
+
+    private static final EngineStats INSTANCE = new EngineStats();
+
+    private final LongAdder[] counters = adders(Counter.values().length);
+    private final LongAdder[] moveGeneration = adders(PieceType.values().length);
+    private final LongAdder[] phaseNanos = adders(Phase.values().length);
+    private final LongAdder[] cutoffs = adders(CUTOFF_BUCKETS);
+
+    static {
+        if (ENABLED) {
+            INSTANCE.register();
+            long period = Long.getLong("chessplus.stats.log", 0);
+            if (period > 0) {
+                ScheduledExecutorService logger = Executors.newSingleThreadScheduledExecutor(r -> {
+                    Thread t = new Thread(r, "engine-stats");
+                    t.setDaemon(true);
+                    return t;
+                });
+                logger.scheduleAtFixedRate(() -> System.out.println(INSTANCE.summary()), period, period, TimeUnit.SECONDS);
+            }
+        }
+    }
+
+    private EngineStats() {
+    }
+
+    public static EngineStats get() {
+        return INSTANCE;
+    }
+
+    public static void count(Counter counter) {
+        INSTANCE.counters[counter.ordinal()].increment();
+    }
+
+    public static void countMoveGeneration(PieceType type) {
+        INSTANCE.moveGeneration[type.ordinal()].increment();
+    }
+
+    public static void countCutoff(int moveIndex) {
+        INSTANCE.cutoffs[Math.min(moveIndex, CUTOFF_BUCKETS - 1)].increment();
+    }
+
+    /**
+     * Returns the start time to pass to {@link #stop(Phase, long)}.
+     */
+    public static long start() {
+        return System.nanoTime();
+    }
+
+    public static void stop(Phase phase, long start) {
+        INSTANCE.phaseNanos[phase.ordinal()].add(System.nanoTime() - start);
+    }
+
+    public long get(Counter counter) {
+        return counters[counter.ordinal()].sum();
+    }
+
+    @Override
+    public Map<String, Long> getCounters() {
+        Map<String, Long> result = new LinkedHashMap<>();
+        for (Counter c : Counter.values()) {
+            result.put(c.name(), get(c));
+        }
+        return result;
+    }
+
+    @Override
+    public Map<String, Long> getMoveGenerationCalls() {
+        Map<String, Long> result = new LinkedHashMap<>();
+        for (PieceType t : PieceType.values()) {
+            result.put(t.name(), moveGeneration[t.ordinal()].sum());
+        }
+        return result;
+    }
+
+    @Override
+    public Map<String, Long> getCutoffsByMoveIndex() {
+        Map<String, Long> result = new LinkedHashMap<>();
+        for (int i = 0; i < CUTOFF_BUCKETS; i++) {
+            result.put(i == CUTOFF_BUCKETS - 1 ? i + "+" : String.valueOf(i), cutoffs[i].sum());
+        }
+        return result;
+    }
+
+    @Override
+    public Map<String, Long> getPhaseMillis() {
+        Map<String, Long> result = new LinkedHashMap<>();
+        for (Phase p : Phase.values()) {
+            result.put(p.name(), phaseNanos[p.ordinal()].sum() / 1_000_000);
+        }
+        return result;
+    }
+
+    @Override
+    public void reset() {
+        for (LongAdder[] group : new LongAdder[][]{counters, moveGeneration, phaseNanos, cutoffs}) {
+            for (LongAdder adder : group) {
+                adder.reset();
+            }
+        }
+    }
+
+    public String summary() {
+        return "engine stats: " + getCounters() + " moves " + getMoveGenerationCalls()
+                + " cutoffs " + getCutoffsByMoveIndex() + " ms " + getPhaseMillis();
+    }
+
+    private void register() {
+        try {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(this, new ObjectName("org.checkmatecoders.engine:type=EngineStats"));
+        } catch (Exception e) {
+            System.err.println("Could not register engine stats MBean: " + e);
+        }
+    }
+
+    private static LongAdder[] adders(int n) {
+        LongAdder[] result = new LongAdder[n];
+        for (int i = 0; i < n; i++) {
+            result[i] = new LongAdder();
+        }
+        return result;
+    }
+}
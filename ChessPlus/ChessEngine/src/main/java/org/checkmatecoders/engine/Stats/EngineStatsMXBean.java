@@ -0,0 +1,18 @@
+package org.checkmatecoders.engine.Stats;
+
+import java.util.Map;
+
+/**
+ * JMX view of {@link EngineStats}, registered as org.checkmatecoders.engine:type=EngineStats.
+ */
+public interface EngineStatsMXBean {
+    Map<String, Long> getCounters();
+
+    Map<String, Long> getMoveGenerationCalls();
+
+    Map<String, Long> getCutoffsByMoveIndex();
+
+    Map<String, Long> getPhaseMillis();
+
+    void reset();
+}
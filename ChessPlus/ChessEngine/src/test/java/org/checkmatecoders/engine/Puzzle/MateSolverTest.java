@@ -0,0 +1,33 @@
+package org.checkmatecoders.engine.Puzzle;
+
+import org.checkmatecoders.engine.Search.Move;
+import org.checkmatecoders.engine.Search.SearchBoard;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MateSolverTest {
+
+    @Test
+    void timeTravelChargeKeepsMateUnique() {
+        //The queen takes the king at once; Time Travel first would only delay the same capture
+        SearchBoard board = SearchBoard.fromFen("k7/8/8/8/8/8/8/Q6K w s0f0h0t1/s0f0h0t0");
+
+        MateSolver.Solution solution = new MateSolver(4).solve(board, 3);
+
+        assertEquals(1, solution.moves);
+        assertTrue(solution.isUnique());
+        assertEquals("a1a8", Move.toString(solution.firstMoves[0]));
+    }
+
+    @Test
+    void timeTravelChargeKeepsLongerMateUnique() {
+        SearchBoard board = SearchBoard.fromFen("k7/8/8/1Q6/8/8/8/7K w s0f0h0t1/s0f0h0t0");
+
+        MateSolver.Solution solution = new MateSolver(4).solve(board, 3);
+
+        assertEquals(2, solution.moves);
+        assertTrue(solution.isUnique());
+        assertEquals("b5b6", Move.toString(solution.firstMoves[0]));
+    }
+}
@@ -3,13 +3,25 @@ package org.checkmatecoders.frontend;
 import javax.swing.*;
 import java.awt.*;
 import java.awt.Color;
+import java.awt.event.ActionEvent;
+import java.awt.event.KeyEvent;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.function.IntSupplier;
 
 import org.checkmatecoders.engine.Board;
+import org.checkmatecoders.engine.BoardChange;
+import org.checkmatecoders.engine.Broadcast.GameBroadcaster;
+import org.checkmatecoders.engine.EffectState;
+import org.checkmatecoders.engine.GameHistory;
 import org.checkmatecoders.engine.Piece.*;
 import org.checkmatecoders.engine.Spell.Freeze;
 import org.checkmatecoders.engine.Spell.Shield;
 import org.checkmatecoders.engine.Spell.Spell;
+import org.checkmatecoders.engine.Spell.SpellType;
 import org.checkmatecoders.engine.Spell.Swap;
 import org.checkmatecoders.engine.Spell.TimeTravel;
 
@@ -23,16 +35,54 @@ public class BoardPanel extends JPanel {
     public org.checkmatecoders.engine.Piece.Color turn;
     public ChessListener chessListener;
     public Board board;
-    
+    public GameBroadcaster broadcaster;
+    public GameHistory history;
+
+    private static final Color LIGHT_SQUARE = new Color(240,217,181);
+    private static final Color DARK_SQUARE = new Color(181,136,99);
+    private static final Color FROZEN_OVERLAY = new Color(51,153,255,126);
+    private static final Color SHIELD_OVERLAY = new Color(255, 215, 0,127);
+    private static final Color MOVE_OVERLAY = new Color(103,177,86,190);
+
+    private BufferedImage boardLayer;
+    private List<Position> chosenMoves;
+    private JSlider timeline;
+    private JButton backButton, forwardButton;
+    private boolean updatingControls;
+
 
     public BoardPanel(){
+        Resources.await();
         setPreferredSize(new Dimension(8* Resources.SQUARE_SIZE ,9* Resources.SQUARE_SIZE ));
         board = new Board();
         board.resetToStart();
+        //Paints are no longer scheduled from paintComponent itself, so board changes request them
+        board.addListener(this::boardChanged);
+        startBroadcast();
         chessListener = new ChessListener(board,this);
         this.addMouseListener(chessListener);
         this.addMouseMotionListener(chessListener);
         turn = org.checkmatecoders.engine.Piece.Color.White;
+        history = new GameHistory();
+        history.start(board.snapshot(), turn, List.of());
+        bindHistoryKeys();
+    }
+    /**
+     * Streams the game to spectators when started with -Dchessplus.broadcast.port=N.
+     */
+    private void startBroadcast(){
+        Integer port = Integer.getInteger("chessplus.broadcast.port");
+        if(port == null){
+            return;
+        }
+        broadcaster = new GameBroadcaster(board);
+        try {
+            broadcaster.start(new InetSocketAddress(port));
+        } catch (IOException e) {
+            System.err.println("Could not start broadcast on port " + port + ": " + e.getMessage());
+            broadcaster.close();
+            broadcaster = null;
+        }
     }
     public void nextTurn(){
         if(turn == org.checkmatecoders.engine.Piece.Color.White){
@@ -51,78 +101,239 @@ public class BoardPanel extends JPanel {
                     i--; // Adjust index after removal
                 }
             }
+        history.record(board.snapshot(), turn, activeEffects());
+        updateHistoryControls();
     }
 
-    public void paintComponent(Graphics g){
-        super.paintComponent(g);
+    private List<EffectState> activeEffects(){
+        List<EffectState> effects = new ArrayList<>();
+        for(Spell s: chessListener.activeSpellEffects){
+            Position p = s.getTargetedPosition();
+            effects.add(new EffectState(SpellType.of(s), p.x, p.y, s.getDuration()));
+        }
+        return effects;
+    }
 
-        Graphics2D g2 = (Graphics2D) g;
+    /**
+     * Shows the position after the given ply. Only the plies since the nearest stored
+     * keyframe are replayed, so this is instant even late in a long game. Making a move
+     * from there continues the game from that ply.
+     */
+    public void showPly(int ply){
+        GameHistory.State state = history.goTo(ply);
+        choosePiece(null);
+        choosenSpell = null;
+        board.restore(state.getPieces(), state.spells, state.winner);
+        turn = state.turn;
+        List<Spell> effects = new ArrayList<>();
+        for(EffectState e: state.effects){
+            Spell s;
+            if(e.type == SpellType.Freeze){
+                s = new Freeze(board, 3, 3, 3, new Position(1, 8));
+            }
+            else{
+                s = new Shield(board, 3, 3, new Position(2, 8));
+            }
+            s.setTargetedPosition(new Position(e.x, e.y));
+            s.setDuration(e.duration);
+            effects.add(s);
+        }
+        chessListener.activeSpellEffects = effects;
+        updateHistoryControls();
+    }
+
+    /**
+     * Back and forward buttons with a timeline slider over every recorded ply.
+     */
+    public JComponent createHistoryControls(){
+        JPanel panel = new JPanel(new BorderLayout());
+        panel.setBackground(Color.BLACK);
+        backButton = new JButton("<");
+        forwardButton = new JButton(">");
+        backButton.setFocusable(false);
+        forwardButton.setFocusable(false);
+        backButton.addActionListener(e -> showPly(history.getCurrentPly() - 1));
+        forwardButton.addActionListener(e -> showPly(history.getCurrentPly() + 1));
+        timeline = new JSlider(0, 0, 0);
+        timeline.setFocusable(false);
+        timeline.setBackground(Color.BLACK);
+        timeline.addChangeListener(e -> {
+            if(!updatingControls && timeline.getValue() != history.getCurrentPly()){
+                showPly(timeline.getValue());
+            }
+        });
+        panel.add(backButton, BorderLayout.WEST);
+        panel.add(timeline, BorderLayout.CENTER);
+        panel.add(forwardButton, BorderLayout.EAST);
+        updateHistoryControls();
+        return panel;
+    }
+
+    private void updateHistoryControls(){
+        if(timeline == null){
+            return;
+        }
+        updatingControls = true;
+        timeline.setMaximum(history.size());
+        timeline.setValue(history.getCurrentPly());
+        updatingControls = false;
+        backButton.setEnabled(history.canUndo());
+        forwardButton.setEnabled(history.canRedo());
+    }
 
-        //Prints the squares
-        for (int row = 0; row < rows; row++) {
-            for (int col = 0; col < cols; col++) {
-                int x = col * Resources.SQUARE_SIZE;
-                int y = row * Resources.SQUARE_SIZE;
+    /**
+     * Left and right arrows step through the history, Home and End jump to either end.
+     */
+    private void bindHistoryKeys(){
+        InputMap keys = getInputMap(WHEN_IN_FOCUSED_WINDOW);
+        keys.put(KeyStroke.getKeyStroke(KeyEvent.VK_LEFT, 0), "historyBack");
+        keys.put(KeyStroke.getKeyStroke(KeyEvent.VK_RIGHT, 0), "historyForward");
+        keys.put(KeyStroke.getKeyStroke(KeyEvent.VK_HOME, 0), "historyStart");
+        keys.put(KeyStroke.getKeyStroke(KeyEvent.VK_END, 0), "historyEnd");
+        getActionMap().put("historyBack", historyAction(() -> history.getCurrentPly() - 1));
+        getActionMap().put("historyForward", historyAction(() -> history.getCurrentPly() + 1));
+        getActionMap().put("historyStart", historyAction(() -> 0));
+        getActionMap().put("historyEnd", historyAction(() -> history.size()));
+    }
 
-                java.awt.Color squareColor = (row + col) % 2 == 0 ? new java.awt.Color(240,217,181) : new java.awt.Color(181,136,99);
+    private Action historyAction(IntSupplier ply){
+        return new AbstractAction() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                showPly(ply.getAsInt());
+            }
+        };
+    }
 
-                g2.setColor(squareColor);
-                g2.fillRect(x, y, Resources.SQUARE_SIZE, Resources.SQUARE_SIZE);
+    /**
+     * Renders the static part of the frame (squares and the spell deck strip) once,
+     * so every paint only has to blit a single image instead of filling 64 squares.
+     */
+    private BufferedImage getBoardLayer(){
+        if(boardLayer == null){
+            GraphicsConfiguration gc = getGraphicsConfiguration();
+            int width = cols * Resources.SQUARE_SIZE;
+            int height = (rows + 1) * Resources.SQUARE_SIZE;
+            boardLayer = gc != null
+                    ? gc.createCompatibleImage(width, height, Transparency.TRANSLUCENT)
+                    : new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+            Graphics2D g2 = boardLayer.createGraphics();
+            for (int row = 0; row < rows; row++) {
+                for (int col = 0; col < cols; col++) {
+                    g2.setColor((row + col) % 2 == 0 ? LIGHT_SQUARE : DARK_SQUARE);
+                    g2.fillRect(col * Resources.SQUARE_SIZE, row * Resources.SQUARE_SIZE, Resources.SQUARE_SIZE, Resources.SQUARE_SIZE);
+                }
             }
+            //Background of the spell deck
+            g2.setColor(Color.PINK);
+            g2.fillRect(0, 575, width, height - 575);
+            g2.dispose();
+        }
+        return boardLayer;
+    }
+
+    public void choosePiece(Piece p){
+        chosenPiece = p;
+        chosenMoves = null;
+    }
+
+    /**
+     * Valid moves of the chosen piece, computed once per selection instead of on every frame.
+     */
+    public List<Position> getChosenMoves(){
+        if(chosenPiece == null){
+            return List.of();
+        }
+        if(chosenMoves == null){
+            chosenMoves = chosenPiece.getValidMoves();
+        }
+        return chosenMoves;
+    }
+
+    /**
+     * Repaints the square-sized area whose top-left corner is at the given pixel.
+     */
+    public void repaintSquare(int x, int y){
+        repaint(x, y, Resources.SQUARE_SIZE, Resources.SQUARE_SIZE);
+    }
+
+    /**
+     * Repaints only the squares and spell slots touched by a board change.
+     */
+    public void boardChanged(BoardChange change){
+        if(change.isFullRefresh()){
+            repaint();
+            return;
+        }
+        for(Position p: change.getSquares()){
+            repaintSquare(p.x * Resources.SQUARE_SIZE, p.y * Resources.SQUARE_SIZE);
+        }
+        for(Spell s: change.getSpells()){
+            repaintSquare(20 + s.xPos, 20 + s.yPos);
         }
+    }
+
+    /**
+     * Repaints the squares the chosen piece can move to, used when a piece is picked up or dropped.
+     */
+    public void repaintChosenMoves(){
+        for(Position p: getChosenMoves()){
+            repaintSquare(p.x * Resources.SQUARE_SIZE, p.y * Resources.SQUARE_SIZE);
+        }
+    }
+
+    /**
+     * Repaints the 3x3 area a dragged Freeze spell highlights, together with the spell icon itself.
+     */
+    public void repaintFreezeArea(Spell s){
+        Position p = s.position;
+        repaint((p.x - 1) * Resources.SQUARE_SIZE, (p.y - 1) * Resources.SQUARE_SIZE, 3 * Resources.SQUARE_SIZE, 3 * Resources.SQUARE_SIZE);
+        repaintSquare(20 + s.xPos, 20 + s.yPos);
+    }
+
+    public void paintComponent(Graphics g){
+        super.paintComponent(g);
+
+        Graphics2D g2 = (Graphics2D) g;
+        Rectangle clip = g2.getClipBounds();
+
+        //Prints the squares and the spell deck background
+        g2.drawImage(getBoardLayer(), 0, 0, null);
+
         for( Piece p : board.pieces){
+            if(clip != null && !clip.intersects(p.xPos, p.yPos, Resources.SQUARE_SIZE, Resources.SQUARE_SIZE)){
+                continue;
+            }
             if(!p.canMove){
-            g2.setColor(new Color(51,153,255,126));
+            g2.setColor(FROZEN_OVERLAY);
             g2.fillRect(p.xPos, p.yPos,Resources.SQUARE_SIZE, Resources.SQUARE_SIZE);
             }
             if(!p.capturable){
-            g2.setColor(new Color(255, 215, 0,127)); 
-            g2.fillRect(p.xPos, p.yPos,Resources.SQUARE_SIZE, Resources.SQUARE_SIZE);   
+            g2.setColor(SHIELD_OVERLAY);
+            g2.fillRect(p.xPos, p.yPos,Resources.SQUARE_SIZE, Resources.SQUARE_SIZE);
             }
         }
 
         if(chosenPiece != null && chosenPiece.color == turn){
-            List<Position> moves = chosenPiece.getValidMoves();
-            for(Position p: moves){
-                g2.setColor(new Color(103,177,86,190));
+            g2.setColor(MOVE_OVERLAY);
+            for(Position p: getChosenMoves()){
                 g2.fillRect(p.x * Resources.SQUARE_SIZE, p.y*Resources.SQUARE_SIZE, Resources.SQUARE_SIZE, Resources.SQUARE_SIZE);
             }
         }
 
-
         if( choosenSpell instanceof Freeze ){
-                Position p = choosenSpell.position;
-            
-                    g2.setColor(new Color(51,153,255,126));
-                    
-                    g2.fillRect((p.x +1) * Resources.SQUARE_SIZE, (p.y-1)*Resources.SQUARE_SIZE, Resources.SQUARE_SIZE, Resources.SQUARE_SIZE);
-                    g2.fillRect((p.x +1) * Resources.SQUARE_SIZE, p.y*Resources.SQUARE_SIZE, Resources.SQUARE_SIZE, Resources.SQUARE_SIZE);
-                    g2.fillRect((p.x +1) * Resources.SQUARE_SIZE, (p.y+1)*Resources.SQUARE_SIZE, Resources.SQUARE_SIZE, Resources.SQUARE_SIZE);
-                    g2.fillRect(p.x * Resources.SQUARE_SIZE, (p.y-1)*Resources.SQUARE_SIZE, Resources.SQUARE_SIZE, Resources.SQUARE_SIZE);
-                    g2.fillRect(p.x * Resources.SQUARE_SIZE, p.y*Resources.SQUARE_SIZE, Resources.SQUARE_SIZE, Resources.SQUARE_SIZE);
-                    g2.fillRect(p.x * Resources.SQUARE_SIZE, (p.y+1)*Resources.SQUARE_SIZE, Resources.SQUARE_SIZE, Resources.SQUARE_SIZE);
-                    g2.fillRect((p.x -1) * Resources.SQUARE_SIZE, (p.y-1)*Resources.SQUARE_SIZE, Resources.SQUARE_SIZE, Resources.SQUARE_SIZE);
-                    g2.fillRect((p.x -1) * Resources.SQUARE_SIZE, p.y*Resources.SQUARE_SIZE, Resources.SQUARE_SIZE, Resources.SQUARE_SIZE);
-                    g2.fillRect((p.x -1)* Resources.SQUARE_SIZE, (p.y+1)*Resources.SQUARE_SIZE, Resources.SQUARE_SIZE, Resources.SQUARE_SIZE);
-
-                    
-                    }
-                    
-                
-            
-       
+            Position p = choosenSpell.position;
+            g2.setColor(FROZEN_OVERLAY);
+            for (int i = -1; i <= 1; i++) {
+                for (int j = -1; j <= 1; j++) {
+                    g2.fillRect((p.x + i) * Resources.SQUARE_SIZE, (p.y + j) * Resources.SQUARE_SIZE, Resources.SQUARE_SIZE, Resources.SQUARE_SIZE);
+                }
+            }
+        }
 
-        //Print the spell deck (only player's deck as it will require interface and interactions //I guess the other deck which shows opponents deck(on the top of the board) will be only indicator which will not be GUI,)
-        
-        g2.setColor(Color.PINK);
-        g2.fillRect( 0 ,575, 600, 600+Resources.SPELL_SIZE);
-        
-        
-        
-        drawPieces(g);
+        drawPieces(g, clip);
         showSpellFrame(g);
         //drawSpellEffect(g);
-        repaint();
     }
     public void showSpellFrame(Graphics g){
         
@@ -156,44 +367,20 @@ public class BoardPanel extends JPanel {
         
     }
 
-    public void drawPieces(Graphics g) {
+    public void drawPieces(Graphics g, Rectangle clip) {
+        Piece dragged = null;
         for (Piece p : board.pieces) {
-            if (p instanceof Rook) {
-                switch (p.color) {
-                    case White -> g.drawImage(Resources.whiteRook, p.xPos, p.yPos, null);
-                    case Black -> g.drawImage(Resources.blackRook, p.xPos, p.yPos, null);
-                }
-            }
-            if (p instanceof Bishop) {
-                switch (p.color) {
-                    case White -> g.drawImage(Resources.whiteBishop, p.xPos, p.yPos, null);
-                    case Black -> g.drawImage(Resources.blackBishop, p.xPos, p.yPos, null);
-                }
+            if (p == chosenPiece) {
+                dragged = p;
+                continue;
             }
-            if (p instanceof Knight) {
-                switch (p.color) {
-                    case White -> g.drawImage(Resources.whiteKnight, p.xPos, p.yPos, null);
-                    case Black -> g.drawImage(Resources.blackKnight, p.xPos, p.yPos, null);
-                }
-            }
-            if (p instanceof Queen) {
-                switch (p.color) {
-                    case White -> g.drawImage(Resources.whiteQueen, p.xPos, p.yPos, null);
-                    case Black -> g.drawImage(Resources.blackQueen, p.xPos, p.yPos, null);
-                }
-            }
-            if (p instanceof King) {
-                switch (p.color) {
-                    case White -> g.drawImage(Resources.whiteKing, p.xPos, p.yPos, null);
-                    case Black -> g.drawImage(Resources.blackKing, p.xPos, p.yPos, null);
-                }
-            }
-            if (p instanceof Pawn) {
-                switch (p.color) {
-                    case White -> g.drawImage(Resources.whitePawn, p.xPos, p.yPos, null);
-                    case Black -> g.drawImage(Resources.blackPawn, p.xPos, p.yPos, null);
-                }
+            if (clip == null || clip.intersects(p.xPos, p.yPos, Resources.SQUARE_SIZE, Resources.SQUARE_SIZE)) {
+                g.drawImage(Resources.pieceImage(p), p.xPos, p.yPos, null);
             }
         }
+        //The dragged piece is drawn last so it stays above the pieces it passes over
+        if (dragged != null) {
+            g.drawImage(Resources.pieceImage(dragged), dragged.xPos, dragged.yPos, null);
+        }
     }
 }
@@ -36,7 +36,9 @@ public class ChessListener implements MouseListener, MouseMotionListener {
 
         Piece pieceTry = board.getPiece(new Position(col,row));
         if(pieceTry != null && pieceTry.color == boardPanel.turn){
-            boardPanel.chosenPiece = pieceTry;
+            boardPanel.choosePiece(pieceTry);
+            boardPanel.repaintSquare(pieceTry.xPos, pieceTry.yPos);
+            boardPanel.repaintChosenMoves();
         }
         Spell spellTry = board.getSpell(new Position(col, row));
         if(spellTry != null){
@@ -117,23 +119,28 @@ public class ChessListener implements MouseListener, MouseMotionListener {
 }
     @Override
     public void mouseDragged(MouseEvent e) {
+        //Only the area the dragged item leaves and the area it enters are repainted
         if(boardPanel.chosenPiece != null){
+            boardPanel.repaintSquare(boardPanel.chosenPiece.xPos, boardPanel.chosenPiece.yPos);
             boardPanel.chosenPiece.xPos = e.getX() - Resources.SQUARE_SIZE / 2;
             boardPanel.chosenPiece.yPos = e.getY() - Resources.SQUARE_SIZE / 2;
+            boardPanel.repaintSquare(boardPanel.chosenPiece.xPos, boardPanel.chosenPiece.yPos);
         }
         if(boardPanel.choosenSpell != null){
         if(boardPanel.choosenSpell instanceof Freeze){
+            boardPanel.repaintFreezeArea(boardPanel.choosenSpell);
             boardPanel.choosenSpell.xPos = e.getX() - Resources.SQUARE_SIZE / 2;
             boardPanel.choosenSpell.yPos = e.getY() - Resources.SQUARE_SIZE / 2;
             boardPanel.choosenSpell.position = new Position(e.getX() / Resources.SQUARE_SIZE,e.getY() / Resources.SQUARE_SIZE);
             boardPanel.choosenSpell.setTargetedPosition(new Position(boardPanel.choosenSpell.xPos,boardPanel.choosenSpell.yPos));
-            boardPanel.repaint();
+            boardPanel.repaintFreezeArea(boardPanel.choosenSpell);
         }
         if(boardPanel.choosenSpell instanceof Shield){
+            boardPanel.repaintSquare(20 + boardPanel.choosenSpell.xPos, 20 + boardPanel.choosenSpell.yPos);
             boardPanel.choosenSpell.xPos = e.getX() - Resources.SQUARE_SIZE / 2;
             boardPanel.choosenSpell.yPos = e.getY() - Resources.SQUARE_SIZE / 2;
             boardPanel.choosenSpell.setTargetedPosition(new Position(boardPanel.choosenSpell.xPos,boardPanel.choosenSpell.yPos));
-            boardPanel.repaint();
+            boardPanel.repaintSquare(20 + boardPanel.choosenSpell.xPos, 20 + boardPanel.choosenSpell.yPos);
         }
     }
         
@@ -144,7 +151,7 @@ public class ChessListener implements MouseListener, MouseMotionListener {
         int row = e.getY() / Resources.SQUARE_SIZE;
         Position newPosition = new Position(col,row);
         if(boardPanel.chosenPiece != null){
-            List<Position> moves = boardPanel.chosenPiece.getValidMoves();
+            List<Position> moves = boardPanel.getChosenMoves();
             Position currentPosition = boardPanel.chosenPiece.position;
             for(Position pos: moves){
                 if(pos.equals(newPosition)){
@@ -160,10 +167,13 @@ public class ChessListener implements MouseListener, MouseMotionListener {
                     boardPanel.nextTurn();
                 }
             }
+            //The board reports the squares the move touched, only the drag and the highlights are left
+            boardPanel.repaintSquare(boardPanel.chosenPiece.xPos, boardPanel.chosenPiece.yPos);
+            boardPanel.repaintChosenMoves();
             boardPanel.chosenPiece.xPos = boardPanel.chosenPiece.position.x * Resources.SQUARE_SIZE;
             boardPanel.chosenPiece.yPos = boardPanel.chosenPiece.position.y * Resources.SQUARE_SIZE;
-            boardPanel.chosenPiece = null;
-            boardPanel.repaint();
+            boardPanel.repaintSquare(boardPanel.chosenPiece.xPos, boardPanel.chosenPiece.yPos);
+            boardPanel.choosePiece(null);
         }
         if(boardPanel.choosenSpell != null){
             if( boardPanel.choosenSpell instanceof Freeze){
@@ -7,6 +7,8 @@ import java.io.IOException;
 
 public class Main {
     public static void main(String[] args){
+        //The start frame doubles as the splash screen while the images load
+        Resources.load();
         StartFrame s = new StartFrame();
         
     }
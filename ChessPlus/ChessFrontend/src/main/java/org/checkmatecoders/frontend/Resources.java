@@ -1,11 +1,24 @@
 package org.checkmatecoders.frontend;
 
+import org.checkmatecoders.engine.Piece.*;
+
 import javax.imageio.ImageIO;
 import java.awt.Image;
 import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.*;
 
 
 public class Resources {
@@ -32,30 +45,173 @@ public class Resources {
     public static final int SQUARE_SIZE = 70;
     public static final int SPELL_SIZE = 50;
 
+    public static Image pieceImage(Piece p) {
+        boolean white = p.color == Color.White;
+        if (p instanceof Rook) return white ? whiteRook : blackRook;
+        if (p instanceof Bishop) return white ? whiteBishop : blackBishop;
+        if (p instanceof Knight) return white ? whiteKnight : blackKnight;
+        if (p instanceof Queen) return white ? whiteQueen : blackQueen;
+        if (p instanceof King) return white ? whiteKing : blackKing;
+        if (p instanceof Pawn) return white ? whitePawn : blackPawn;
+        return null;
+    }
+
+    private static final String CACHE_VERSION = "v1";
+    private static final Map<String, Integer> SOURCES = new LinkedHashMap<>();
     private static ClassLoader loader =  ClassLoader.getSystemClassLoader();
+    private static CompletableFuture<Void> loading;
+    private static long loadMillis;
+    private static boolean warmStart;
+
     static {
+        for (String name : new String[]{"wrook", "brook", "wknight", "bknight", "wbishop", "bbishop",
+                "wqueen", "bqueen", "wpawn", "bpawn", "wking", "bking"}) {
+            SOURCES.put(name, SQUARE_SIZE);
+        }
+        for (String name : new String[]{"freeze", "swap", "shield", "time"}) {
+            SOURCES.put(name, SPELL_SIZE);
+        }
+        SOURCES.put("start", 500);
+        SOURCES.put("play", 500);
+        ImageIO.setUseCache(false);
+        font = new File(loader.getResource("Fraktur.ttf").getFile());
+    }
+
+    /**
+     * Starts loading the images in the background and returns immediately. Every image is
+     * decoded and scaled on its own thread, the results are packed into a {@link SpriteAtlas},
+     * and the atlas is cached so later starts read one file instead of decoding the PNGs.
+     */
+    public static synchronized CompletableFuture<Void> load() {
+        if (loading == null) {
+            loading = CompletableFuture.runAsync(Resources::loadAll);
+        }
+        return loading;
+    }
+
+    /**
+     * Blocks until the images are available.
+     */
+    public static void await() {
+        load().join();
+    }
+
+    public static long getLoadMillis() {
+        return loadMillis;
+    }
+
+    public static boolean isWarmStart() {
+        return warmStart;
+    }
+
+    private static void loadAll() {
+        long start = System.nanoTime();
+        //Reading the PNG bytes is cheap next to decoding them, and the hash keeps a stale atlas from being used
+        Map<String, byte[]> sources = readSources();
+        Path cacheFile = cacheFile(sources);
+        SpriteAtlas atlas = cacheFile != null ? SpriteAtlas.read(cacheFile) : null;
+        warmStart = atlas != null;
+        if (atlas == null) {
+            atlas = SpriteAtlas.pack(decodeAll(sources));
+            if (cacheFile != null) {
+                try {
+                    atlas.write(cacheFile);
+                } catch (IOException e) {
+                    //The cache only speeds up the next start, the game works without it
+                    System.err.println("Could not write sprite cache " + cacheFile + ": " + e);
+                }
+            }
+        }
+        whiteRook = atlas.get("wrook");
+        blackRook = atlas.get("brook");
+        whiteKnight = atlas.get("wknight");
+        blackKnight = atlas.get("bknight");
+        whiteBishop = atlas.get("wbishop");
+        blackBishop = atlas.get("bbishop");
+        whiteQueen = atlas.get("wqueen");
+        blackQueen = atlas.get("bqueen");
+        whitePawn = atlas.get("wpawn");
+        blackPawn = atlas.get("bpawn");
+        whiteKing = atlas.get("wking");
+        blackKing = atlas.get("bking");
+        freeze = atlas.get("freeze");
+        swap = atlas.get("swap");
+        shield = atlas.get("shield");
+        time = atlas.get("time");
+        startingPage = atlas.get("start");
+        play = atlas.get("play");
+        loadMillis = (System.nanoTime() - start) / 1_000_000;
+    }
+
+    private static Map<String, byte[]> readSources() {
+        Map<String, byte[]> sources = new LinkedHashMap<>();
+        for (String name : SOURCES.keySet()) {
+            try (InputStream in = loader.getResourceAsStream(name + ".png")) {
+                sources.put(name, Objects.requireNonNull(in, name + ".png").readAllBytes());
+            } catch (IOException e) {
+                throw new UncheckedIOException("Could not read " + name + ".png", e);
+            }
+        }
+        return sources;
+    }
+
+    private static Map<String, BufferedImage> decodeAll(Map<String, byte[]> sources) {
+        ExecutorService pool = Executors.newFixedThreadPool(Math.min(SOURCES.size(), Runtime.getRuntime().availableProcessors()), r -> {
+            Thread t = new Thread(r, "resource-loader");
+            t.setDaemon(true);
+            return t;
+        });
         try {
-            whiteRook = ImageIO.read(loader.getResource("wrook.png")).getScaledInstance(SQUARE_SIZE, SQUARE_SIZE, BufferedImage.SCALE_SMOOTH);
-            blackRook = ImageIO.read(loader.getResource("brook.png")).getScaledInstance(SQUARE_SIZE, SQUARE_SIZE, BufferedImage.SCALE_SMOOTH);;
-            whiteKnight = ImageIO.read(loader.getResource("wknight.png")).getScaledInstance(SQUARE_SIZE, SQUARE_SIZE, BufferedImage.SCALE_SMOOTH);;
-            blackKnight = ImageIO.read(loader.getResource("bknight.png")).getScaledInstance(SQUARE_SIZE, SQUARE_SIZE, BufferedImage.SCALE_SMOOTH);;
-            whiteBishop = ImageIO.read(loader.getResource("wbishop.png")).getScaledInstance(SQUARE_SIZE, SQUARE_SIZE, BufferedImage.SCALE_SMOOTH);;
-            blackBishop = ImageIO.read(loader.getResource("bbishop.png")).getScaledInstance(SQUARE_SIZE, SQUARE_SIZE, BufferedImage.SCALE_SMOOTH);;
-            whiteQueen= ImageIO.read(loader.getResource("wqueen.png")).getScaledInstance(SQUARE_SIZE, SQUARE_SIZE, BufferedImage.SCALE_SMOOTH);;
-            blackQueen = ImageIO.read(loader.getResource("bqueen.png")).getScaledInstance(SQUARE_SIZE, SQUARE_SIZE, BufferedImage.SCALE_SMOOTH);;
-            whitePawn = ImageIO.read(loader.getResource("wpawn.png")).getScaledInstance(SQUARE_SIZE, SQUARE_SIZE, BufferedImage.SCALE_SMOOTH);;
-            blackPawn = ImageIO.read(loader.getResource("bpawn.png")).getScaledInstance(SQUARE_SIZE, SQUARE_SIZE, BufferedImage.SCALE_SMOOTH);;
-            whiteKing = ImageIO.read(loader.getResource("wking.png")).getScaledInstance(SQUARE_SIZE, SQUARE_SIZE, BufferedImage.SCALE_SMOOTH);;
-            blackKing = ImageIO.read(loader.getResource("bking.png")).getScaledInstance(SQUARE_SIZE, SQUARE_SIZE, BufferedImage.SCALE_SMOOTH);;
-            startingPage = ImageIO.read(loader.getResource("start.png")).getScaledInstance(500,500, BufferedImage.SCALE_SMOOTH);
-            freeze = ImageIO.read(loader.getResource("freeze.png")).getScaledInstance(SPELL_SIZE, SPELL_SIZE, BufferedImage.SCALE_SMOOTH);;
-            swap = ImageIO.read(loader.getResource("swap.png")).getScaledInstance(SPELL_SIZE, SPELL_SIZE, BufferedImage.SCALE_SMOOTH);;
-            shield = ImageIO.read(loader.getResource("shield.png")).getScaledInstance(SPELL_SIZE, SPELL_SIZE, BufferedImage.SCALE_SMOOTH);;
-            time = ImageIO.read(loader.getResource("time.png")).getScaledInstance(SPELL_SIZE, SPELL_SIZE, BufferedImage.SCALE_SMOOTH);;
-            play = ImageIO.read(loader.getResource("play.png")).getScaledInstance(500,500, BufferedImage.SCALE_SMOOTH);;
-            font = new File(loader.getResource("Fraktur.ttf").getFile());
-        } catch (IOException e) {
+            Map<String, Future<BufferedImage>> futures = new LinkedHashMap<>();
+            SOURCES.forEach((name, size) -> futures.put(name, pool.submit(() -> {
+                BufferedImage image = ImageIO.read(new ByteArrayInputStream(sources.get(name)));
+                return SpriteAtlas.scale(Objects.requireNonNull(image, name + ".png is not a readable image"), size);
+            })));
+            Map<String, BufferedImage> images = new LinkedHashMap<>();
+            for (Map.Entry<String, Future<BufferedImage>> e : futures.entrySet()) {
+                images.put(e.getKey(), e.getValue().get());
+            }
+            return images;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
             throw new RuntimeException(e);
+        } catch (ExecutionException e) {
+            throw new RuntimeException(e.getCause());
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Location of the cached atlas, or null when caching is turned off with -Dchessplus.cache=false.
+     * The directory defaults to ~/.chessplus/cache and can be changed with -Dchessplus.cache.dir.
+     * The file name carries a hash of the source images, so replacing a PNG invalidates the cache.
+     */
+    private static Path cacheFile(Map<String, byte[]> sources) {
+        if (!Boolean.parseBoolean(System.getProperty("chessplus.cache", "true"))) {
+            return null;
+        }
+        String dir = System.getProperty("chessplus.cache.dir",
+                Paths.get(System.getProperty("user.home"), ".chessplus", "cache").toString());
+        return Paths.get(dir, "atlas-" + CACHE_VERSION + "-" + SQUARE_SIZE + "-" + SPELL_SIZE + "-" + sourceHash(sources) + ".bin");
+    }
+
+    private static String sourceHash(Map<String, byte[]> sources) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            sources.forEach((name, bytes) -> {
+                digest.update(name.getBytes(StandardCharsets.UTF_8));
+                digest.update((byte) 0);
+                digest.update(bytes);
+            });
+            StringBuilder hex = new StringBuilder();
+            for (byte b : digest.digest()) {
+                hex.append(String.format("%02x", b));
+            }
+            //A shortened hash is plenty to tell image sets apart
+            return hex.substring(0, 16);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
         }
     }
 }
@@ -0,0 +1,159 @@
+package org.checkmatecoders.frontend;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Pre-scaled sprites packed into one image in the screen's native format, so drawing a piece
+ * is a plain blit from a single surface. The packed pixels can be written to a cache file and
+ * read back on the next start without decoding or scaling any PNG.
+ */
+public class SpriteAtlas {
+    private static final int CACHE_MAGIC = 0x43505341;
+    private static final int MAX_ROW_WIDTH = 1024;
+
+    private final BufferedImage image;
+    private final Map<String, Rectangle> regions;
+    private final Map<String, Image> sprites = new LinkedHashMap<>();
+
+    private SpriteAtlas(BufferedImage image, Map<String, Rectangle> regions) {
+        this.image = image;
+        this.regions = regions;
+        regions.forEach((name, r) -> sprites.put(name, image.getSubimage(r.x, r.y, r.width, r.height)));
+    }
+
+    public Image get(String name) {
+        return sprites.get(name);
+    }
+
+    public BufferedImage getImage() {
+        return image;
+    }
+
+    /**
+     * Packs the sprites into rows in insertion order, starting a new row when the current one is full.
+     */
+    public static SpriteAtlas pack(Map<String, BufferedImage> images) {
+        Map<String, Rectangle> regions = new LinkedHashMap<>();
+        int x = 0, y = 0, rowHeight = 0, width = 0;
+        for (Map.Entry<String, BufferedImage> e : images.entrySet()) {
+            BufferedImage img = e.getValue();
+            if (x > 0 && x + img.getWidth() > MAX_ROW_WIDTH) {
+                x = 0;
+                y += rowHeight;
+                rowHeight = 0;
+            }
+            regions.put(e.getKey(), new Rectangle(x, y, img.getWidth(), img.getHeight()));
+            x += img.getWidth();
+            rowHeight = Math.max(rowHeight, img.getHeight());
+            width = Math.max(width, x);
+        }
+        BufferedImage atlas = createCompatibleImage(Math.max(width, 1), Math.max(y + rowHeight, 1));
+        Graphics2D g = atlas.createGraphics();
+        g.setComposite(AlphaComposite.Src);
+        for (Map.Entry<String, BufferedImage> e : images.entrySet()) {
+            Rectangle r = regions.get(e.getKey());
+            g.drawImage(e.getValue(), r.x, r.y, null);
+        }
+        g.dispose();
+        return new SpriteAtlas(atlas, regions);
+    }
+
+    /**
+     * Scales an image down to size x size. Halving in steps keeps the quality of
+     * SCALE_SMOOTH, but the result is a ready BufferedImage instead of a lazily rendered one.
+     */
+    public static BufferedImage scale(BufferedImage source, int size) {
+        BufferedImage current = source;
+        int w = source.getWidth();
+        int h = source.getHeight();
+        do {
+            w = Math.max(size, w / 2);
+            h = Math.max(size, h / 2);
+            BufferedImage next = createCompatibleImage(w, h);
+            Graphics2D g = next.createGraphics();
+            g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            g.setComposite(AlphaComposite.Src);
+            g.drawImage(current, 0, 0, w, h, null);
+            g.dispose();
+            current = next;
+        } while (w != size || h != size);
+        return current;
+    }
+
+    public static BufferedImage createCompatibleImage(int width, int height) {
+        if (GraphicsEnvironment.isHeadless()) {
+            return new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+        }
+        return GraphicsEnvironment.getLocalGraphicsEnvironment().getDefaultScreenDevice()
+                .getDefaultConfiguration().createCompatibleImage(width, height, Transparency.TRANSLUCENT);
+    }
+
+    /**
+     * Writes the raw ARGB pixels and the sprite regions, replacing the file atomically.
+     */
+    public void write(Path file) throws IOException {
+        Files.createDirectories(file.getParent());
+        Path tmp = Files.createTempFile(file.getParent(), "atlas", ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+            out.writeInt(CACHE_MAGIC);
+            out.writeInt(regions.size());
+            for (Map.Entry<String, Rectangle> e : regions.entrySet()) {
+                Rectangle r = e.getValue();
+                out.writeUTF(e.getKey());
+                out.writeInt(r.x);
+                out.writeInt(r.y);
+                out.writeInt(r.width);
+                out.writeInt(r.height);
+            }
+            int w = image.getWidth();
+            int h = image.getHeight();
+            out.writeInt(w);
+            out.writeInt(h);
+            ByteBuffer pixels = ByteBuffer.allocate(w * h * 4);
+            pixels.asIntBuffer().put(image.getRGB(0, 0, w, h, null, 0, w));
+            out.write(pixels.array());
+        }
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Reads an atlas written by {@link #write(Path)}, or returns null if the file is missing or unreadable.
+     */
+    public static SpriteAtlas read(Path file) {
+        if (!Files.isRegularFile(file)) {
+            return null;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (in.readInt() != CACHE_MAGIC) {
+                return null;
+            }
+            int count = in.readInt();
+            Map<String, Rectangle> regions = new LinkedHashMap<>();
+            for (int i = 0; i < count; i++) {
+                regions.put(in.readUTF(), new Rectangle(in.readInt(), in.readInt(), in.readInt(), in.readInt()));
+            }
+            int w = in.readInt();
+            int h = in.readInt();
+            int[] pixels = new int[w * h];
+            ByteBuffer.wrap(in.readNBytes(pixels.length * 4)).asIntBuffer().get(pixels);
+            BufferedImage raw = new BufferedImage(w, h, BufferedImage.TYPE_INT_ARGB);
+            raw.setRGB(0, 0, w, h, pixels, 0, w);
+            BufferedImage atlas = createCompatibleImage(w, h);
+            Graphics2D g = atlas.createGraphics();
+            g.setComposite(AlphaComposite.Src);
+            g.drawImage(raw, 0, 0, null);
+            g.dispose();
+            return new SpriteAtlas(atlas, regions);
+        } catch (IOException | RuntimeException e) {
+            return null;
+        }
+    }
+}
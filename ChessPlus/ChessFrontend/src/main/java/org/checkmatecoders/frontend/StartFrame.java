@@ -27,6 +27,19 @@ public class StartFrame extends JFrame implements ActionListener {
         setSize(500,500);
         but.setBounds(150,350,200,75);
         but.setFocusPainted(false);
+        but.setEnabled(false);
+        Resources.load().whenComplete((ignored, error) -> SwingUtilities.invokeLater(() -> {
+            if (error != null) {
+                Throwable cause = error.getCause() != null ? error.getCause() : error;
+                cause.printStackTrace();
+                but.setText("Error");
+                JOptionPane.showMessageDialog(this, "Could not load the game images:\n" + cause.getMessage(),
+                        "Chess+", JOptionPane.ERROR_MESSAGE);
+                return;
+            }
+            but.setEnabled(true);
+            repaint();
+        }));
         setLocationRelativeTo(null);
         setVisible(true);
         setResizable(false);
@@ -62,7 +75,7 @@ public class StartFrame extends JFrame implements ActionListener {
     public void actionPerformed(ActionEvent e) {
         if(e.getSource() == but){
             this.setVisible(false);
-            JFrame f = new JFrame();
+            JFrame f = new JFrame("Chess+");
             f.getContentPane().setBackground(Color.black);
             f.setLayout(new BorderLayout());
             f.setSize(new Dimension(800, 900));
@@ -70,10 +83,15 @@ public class StartFrame extends JFrame implements ActionListener {
             f.setResizable(false);
             f.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
             b = new BoardPanel();
+            if(b.broadcaster != null){
+                //Spectators need the port, which is picked by the OS when started with port 0
+                f.setTitle("Chess+ - broadcasting on port " + b.broadcaster.getPort());
+            }
             //SpellPanel s = new SpellPanel();
 
             //f.add(s, BorderLayout.SOUTH);
             f.add(b, BorderLayout.CENTER);
+            f.add(b.createHistoryControls(), BorderLayout.SOUTH);
 
             f.setVisible(true);
             f.pack();
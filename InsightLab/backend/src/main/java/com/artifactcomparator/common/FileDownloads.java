@@ -0,0 +1,145 @@
+package com.artifactcomparator.common;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+/**
+ * Writes a stored file to the response with validators and byte-range support.
+ *
+ * Stored content never changes for a given sha256, so the hash is a strong ETag: a matching
+ * If-None-Match (or If-Modified-Since) gets 304 with no body. A single Range gets 206; several
+ * ranges are answered with the whole file, which RFC 9110 allows. On Tomcat the body is handed
+ * to the connector's sendfile, otherwise it is pushed with FileChannel.transferTo.
+ */
+public final class FileDownloads {
+
+    private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+    private FileDownloads() {
+    }
+
+    public static void send(HttpServletRequest request,
+                            HttpServletResponse response,
+                            Path file,
+                            String contentType,
+                            String sha256,
+                            long lastModifiedMillis,
+                            String contentDisposition,
+                            CacheControl cacheControl) throws IOException {
+        if (!Files.isRegularFile(file)) {
+            throw new IllegalArgumentException("File not found on disk");
+        }
+        long length = Files.size(file);
+        String etag = sha256 != null ? "\"" + sha256 + "\"" : null;
+
+        response.setHeader(HttpHeaders.CACHE_CONTROL, cacheControl.getHeaderValue());
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+        // checkNotModified writes ETag/Last-Modified and turns the response into a 304 if they match
+        ServletWebRequest webRequest = new ServletWebRequest(request, response);
+        boolean notModified = etag != null
+                ? webRequest.checkNotModified(etag, lastModifiedMillis)
+                : webRequest.checkNotModified(lastModifiedMillis);
+        if (notModified) {
+            return;
+        }
+
+        response.setContentType(contentType != null ? contentType : "application/octet-stream");
+        if (contentDisposition != null) {
+            response.setHeader(HttpHeaders.CONTENT_DISPOSITION, contentDisposition);
+        }
+
+        long start = 0;
+        long end = length - 1;
+        String rangeHeader = request.getHeader(HttpHeaders.RANGE);
+        if (rangeHeader != null && length > 0 && ifRangeMatches(request, etag, lastModifiedMillis)) {
+            List<HttpRange> ranges;
+            try {
+                ranges = HttpRange.parseRanges(rangeHeader);
+            } catch (IllegalArgumentException e) {
+                ranges = List.of();
+            }
+            if (ranges.size() == 1) {
+                HttpRange range = ranges.get(0);
+                long rangeStart = range.getRangeStart(length);
+                if (rangeStart >= length) {
+                    response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + length);
+                    response.setStatus(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+                    return;
+                }
+                start = rangeStart;
+                end = Math.min(range.getRangeEnd(length), length - 1);
+                response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + length);
+            }
+        }
+
+        long count = Math.max(0, end - start + 1);
+        response.setContentLengthLong(count);
+        if ("HEAD".equalsIgnoreCase(request.getMethod()) || count == 0) {
+            return;
+        }
+
+        if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))) {
+            request.setAttribute(SENDFILE_FILENAME, file.toAbsolutePath().toString());
+            request.setAttribute(SENDFILE_START, start);
+            request.setAttribute(SENDFILE_END, start + count);
+            return;
+        }
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            OutputStream out = response.getOutputStream();
+            WritableByteChannel target = Channels.newChannel(out);
+            long position = start;
+            long remaining = count;
+            while (remaining > 0) {
+                long sent = channel.transferTo(position, remaining, target);
+                if (sent <= 0) {
+                    break;
+                }
+                position += sent;
+                remaining -= sent;
+            }
+            out.flush();
+        }
+    }
+
+    public static long millis(java.time.Instant instant) {
+        return instant != null ? instant.toEpochMilli() : -1;
+    }
+
+    /**
+     * If-Range: the range only applies while the client's copy is still current.
+     */
+    private static boolean ifRangeMatches(HttpServletRequest request, String etag, long lastModifiedMillis) {
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        if (ifRange == null) {
+            return true;
+        }
+        if (ifRange.startsWith("\"") || ifRange.startsWith("W/")) {
+            return ifRange.equals(etag);
+        }
+        try {
+            long date = request.getDateHeader(HttpHeaders.IF_RANGE);
+            return date != -1 && lastModifiedMillis / 1000 <= date / 1000;
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+}
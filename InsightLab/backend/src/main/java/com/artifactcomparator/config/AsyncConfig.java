@@ -6,6 +6,7 @@ import org.springframework.scheduling.annotation.EnableAsync;
 import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 
 import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadPoolExecutor;
 
 @Configuration
 @EnableAsync
@@ -21,5 +22,84 @@ public class AsyncConfig {
         executor.initialize();
         return executor;
     }
-}
 
+    /**
+     * Bounded pool for spooling and hashing bundle entries. When the queue is full the
+     * submitting thread runs the entry itself, so a huge bundle never queues unbounded work.
+     */
+    @Bean(name = "artifactIngestExecutor")
+    public Executor artifactIngestExecutor() {
+        int threads = Math.max(2, Math.min(8, Runtime.getRuntime().availableProcessors()));
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setQueueCapacity(threads * 4);
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.setThreadNamePrefix("artifact-ingest-");
+        executor.initialize();
+        return executor;
+    }
+
+    /**
+     * Runs uploaded bundles, one job per thread; each fans its entries out to the ingest pool.
+     * Kept apart from taskExecutor so large bundles never hold up AI generation. Jobs wait in
+     * the queue (the bundle itself is already spooled to disk) instead of being rejected.
+     */
+    @Bean(name = "artifactBundleExecutor")
+    public Executor artifactBundleExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(2);
+        executor.setMaxPoolSize(2);
+        executor.setThreadNamePrefix("artifact-bundle-");
+        executor.initialize();
+        return executor;
+    }
+
+    /**
+     * Workers for the post-upload pipeline (metadata, previews, analysis). The poller never
+     * claims more jobs than this pool has threads, so the queue only absorbs hand-off.
+     */
+    @Bean(name = "artifactProcessingExecutor")
+    public ThreadPoolTaskExecutor artifactProcessingExecutor() {
+        int threads = Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors() / 2));
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setQueueCapacity(threads);
+        executor.setThreadNamePrefix("artifact-processing-");
+        executor.initialize();
+        return executor;
+    }
+
+    /**
+     * Page-range workers for PDF text extraction. Callers block on the ranges they submit, so
+     * a saturated pool makes the caller extract its own range instead of queueing more.
+     */
+    @Bean(name = "pdfTextExecutor")
+    public Executor pdfTextExecutor() {
+        int threads = Math.max(2, Math.min(8, Runtime.getRuntime().availableProcessors()));
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setQueueCapacity(threads * 2);
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.setThreadNamePrefix("pdf-text-");
+        executor.initialize();
+        return executor;
+    }
+
+    /**
+     * Single thread for content index merges and deletes, so neither blocks a request or a
+     * processing worker. Merges are scheduled at most once at a time and deletes are drained
+     * in batches, so the queue stays short.
+     */
+    @Bean(name = "contentIndexExecutor")
+    public Executor contentIndexExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(1);
+        executor.setMaxPoolSize(1);
+        executor.setThreadNamePrefix("content-index-");
+        executor.initialize();
+        return executor;
+    }
+}
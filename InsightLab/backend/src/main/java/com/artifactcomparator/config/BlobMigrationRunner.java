@@ -0,0 +1,28 @@
+package com.artifactcomparator.config;
+
+import com.artifactcomparator.service.BlobMigrationService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * One-off migration of the flat storage dir into the blob store.
+ * Enable with app.artifacts.migrate-to-blobs=true (e.g. --app.artifacts.migrate-to-blobs=true)
+ * for a single start-up; it is safe to run again, already migrated files are skipped.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+@ConditionalOnProperty(name = "app.artifacts.migrate-to-blobs", havingValue = "true")
+public class BlobMigrationRunner implements CommandLineRunner {
+
+    private final BlobMigrationService blobMigrationService;
+
+    @Override
+    public void run(String... args) {
+        log.info("Migrating artifact storage to the blob store");
+        blobMigrationService.migrate();
+    }
+}
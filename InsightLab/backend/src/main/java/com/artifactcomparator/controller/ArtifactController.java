@@ -1,8 +1,11 @@
 package com.artifactcomparator.controller;
 
+import com.artifactcomparator.common.FileDownloads;
 import com.artifactcomparator.dto.AddTagsToArtifactRequest;
 import com.artifactcomparator.dto.ArtifactAnalyticsResponse;
+import com.artifactcomparator.dto.ArtifactBundleJobDTO;
 import com.artifactcomparator.dto.ArtifactResponseDTO;
+import com.artifactcomparator.dto.ArtifactSearchPageDTO;
 import com.artifactcomparator.dto.StudyResponseDTO;
 import com.artifactcomparator.model.Artifact;
 import com.artifactcomparator.model.Study;
@@ -10,19 +13,26 @@ import com.artifactcomparator.model.User;
 import com.artifactcomparator.repository.StudyRepository;
 import com.artifactcomparator.security.CustomUserDetailsService;
 import com.artifactcomparator.service.ArtifactAnalysisService;
+import com.artifactcomparator.service.ArtifactBundleService;
 import com.artifactcomparator.service.ArtifactService;
+import com.artifactcomparator.service.RenditionService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
-import org.springframework.core.io.Resource;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpHeaders;
-import org.springframework.http.MediaType;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.io.IOException;
 import java.net.URLEncoder;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
 import java.util.*;
+import java.util.concurrent.TimeUnit;
 
 @RestController
 @RequestMapping("/api/artifacts")
@@ -32,6 +42,8 @@ public class ArtifactController {
     private final ArtifactService artifactService;
     private final StudyRepository studyRepository;
     private final ArtifactAnalysisService artifactAnalysisService;
+    private final ArtifactBundleService artifactBundleService;
+    private final RenditionService renditionService;
 
     // UC2-1: upload
     @PostMapping
@@ -67,6 +79,40 @@ public class ArtifactController {
         return ResponseEntity.ok(saved);
     }
 
+    // Bulk ZIP ingest: returns immediately with a job that can be polled for progress
+    @PostMapping("/bundles")
+    @PreAuthorize("hasAnyRole('RESEARCHER','ADMIN')")
+    public ResponseEntity<ArtifactBundleJobDTO> uploadBundle(
+            @RequestParam("file") MultipartFile file,
+            @RequestParam(value = "studyId", required = false) Long studyId,
+            @org.springframework.security.core.annotation.AuthenticationPrincipal
+            CustomUserDetailsService.CustomUserPrincipal principal
+    ) {
+        User user = principal.getUser();
+
+        Study study = null;
+        if (studyId != null) {
+            study = studyRepository.findById(studyId)
+                    .orElseThrow(() -> new IllegalArgumentException("Study not found"));
+            if (!study.getResearcher().getId().equals(user.getId())) {
+                throw new IllegalStateException("You can only upload bundles to your own studies");
+            }
+        }
+
+        return ResponseEntity.status(HttpStatus.ACCEPTED)
+                .body(artifactBundleService.startBundle(user, file, study));
+    }
+
+    @GetMapping("/bundles/{jobId}")
+    @PreAuthorize("hasAnyRole('RESEARCHER','ADMIN')")
+    public ResponseEntity<ArtifactBundleJobDTO> getBundleJob(
+            @PathVariable Long jobId,
+            @org.springframework.security.core.annotation.AuthenticationPrincipal
+            CustomUserDetailsService.CustomUserPrincipal principal
+    ) {
+        return ResponseEntity.ok(artifactBundleService.getJob(jobId, principal.getUser()));
+    }
+
     @GetMapping("/mine")
     @PreAuthorize("hasAnyRole('RESEARCHER','ADMIN')")
     public ResponseEntity<List<ArtifactResponseDTO>> mine(
@@ -79,6 +125,10 @@ public class ArtifactController {
 
     // 🔍 UC2-4 / UC2-5: Search artifacts (text + tag filtreleri)
     // Frontend: GET /artifacts/search?query=...&tagIds=1&tagIds=2
+    // Sayfalama: ?limit=...&cursor=... ; sonraki sayfanın cursor'ı X-Next-Cursor header'ında
+    // İçerik araması: ?content=synchronized (kelime), ?content=get* (önek), ?content="open file" (ifade);
+    // varsayılan kapsam kendi artifact'ları, &studyId=... ile o çalışmanın artifact'ları.
+    // content verildiğinde query/tag filtreleri ve cursor kullanılmaz, sonuçlar alaka sırasına göre döner.
     @GetMapping("/search")
     @PreAuthorize("hasAnyRole('RESEARCHER','ADMIN')")
     public ResponseEntity<List<ArtifactResponseDTO>> searchArtifacts(
@@ -88,18 +138,44 @@ public class ArtifactController {
             @RequestParam(value = "tagIds", required = false) List<Long> tagIds,
             @RequestParam(value = "tagIds[]", required = false) List<Long> tagIdsBracket,
 
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam(value = "limit", required = false) Integer limit,
+
+            @RequestParam(value = "content", required = false) String content,
+            @RequestParam(value = "studyId", required = false) Long studyId,
+
             @org.springframework.security.core.annotation.AuthenticationPrincipal
             CustomUserDetailsService.CustomUserPrincipal principal
     ) {
         User user = principal.getUser();
 
+        if (content != null && !content.isBlank()) {
+            try {
+                return ResponseEntity.ok(artifactService.searchContent(content, studyId, limit, user));
+            } catch (IllegalArgumentException e) {
+                // Çok kısa önek (a*) ya da bulunamayan çalışma
+                return ResponseEntity.badRequest().build();
+            }
+        }
+
         // Hangisi doluysa onu kullan
         List<Long> effectiveTagIds = (tagIds != null && !tagIds.isEmpty())
                 ? tagIds
                 : tagIdsBracket;
 
-        List<ArtifactResponseDTO> results = artifactService.searchArtifacts(query, effectiveTagIds, user);
-        return ResponseEntity.ok(results);
+        ArtifactSearchPageDTO page;
+        try {
+            page = artifactService.searchArtifacts(query, effectiveTagIds, cursor, limit, user);
+        } catch (IllegalArgumentException e) {
+            // Bozuk ya da elle değiştirilmiş cursor
+            return ResponseEntity.badRequest().build();
+        }
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .header(HttpHeaders.ACCESS_CONTROL_EXPOSE_HEADERS, "X-Next-Cursor");
+        if (page.getNextCursor() != null) {
+            response.header("X-Next-Cursor", page.getNextCursor());
+        }
+        return response.body(page.getItems());
     }
 
     // UC2-7: Get artifact details by ID (with authorization check)
@@ -139,27 +215,69 @@ public class ArtifactController {
     // Researchers/Admins can download any artifact they own
     // Participants can download artifacts from their evaluation tasks
     @GetMapping("/{id}/download")
-    public ResponseEntity<Resource> download(
+    public void download(
             @PathVariable UUID id,
             @org.springframework.security.core.annotation.AuthenticationPrincipal
-            CustomUserDetailsService.CustomUserPrincipal principal
-    ) {
+            CustomUserDetailsService.CustomUserPrincipal principal,
+            HttpServletRequest request,
+            HttpServletResponse response
+    ) throws IOException {
         User user = principal.getUser();
 
         var result = artifactService.download(id, user);
         Artifact artifact = result.getArtifact();
-        Resource resource = result.getResource();
 
         String encodedFilename = URLEncoder.encode(
                 artifact.getOriginalFilename(), StandardCharsets.UTF_8
         ).replaceAll("\\+", "%20");
 
-        return ResponseEntity.ok()
-                .contentType(MediaType.parseMediaType(artifact.getContentType()))
-                .header(HttpHeaders.CONTENT_DISPOSITION,
-                        "attachment; filename*=UTF-8''" + encodedFilename)
-                .header(HttpHeaders.ACCESS_CONTROL_EXPOSE_HEADERS, "Content-Disposition")
-                .body(resource);
+        // ETag = sha256; a re-download of the same artifact is answered with 304, seeks with 206
+        response.setHeader(HttpHeaders.ACCESS_CONTROL_EXPOSE_HEADERS,
+                "Content-Disposition, ETag, Last-Modified, Content-Range, Accept-Ranges");
+        FileDownloads.send(request, response, result.getPath(),
+                artifact.getContentType(),
+                artifact.getSha256(),
+                FileDownloads.millis(artifact.getCreatedAt()),
+                "attachment; filename*=UTF-8''" + encodedFilename,
+                CacheControl.maxAge(1, TimeUnit.DAYS).cachePrivate());
+    }
+
+    // Thumbnail / PDF first-page preview. Content behind an artifact id never changes, so the
+    // rendition can be cached by the browser for a year; size snaps to the nearest fixed size.
+    @GetMapping("/{id}/thumbnail")
+    public void thumbnail(
+            @PathVariable UUID id,
+            @RequestParam(value = "size", required = false) Integer size,
+            @org.springframework.security.core.annotation.AuthenticationPrincipal
+            CustomUserDetailsService.CustomUserPrincipal principal,
+            HttpServletRequest request,
+            HttpServletResponse response
+    ) throws IOException {
+        User user = principal.getUser();
+
+        var result = artifactService.download(id, user);
+        Artifact artifact = result.getArtifact();
+        if (artifact.getSha256() == null || !RenditionService.supports(artifact.getContentType())) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+
+        int effectiveSize = RenditionService.normalizeSize(size);
+        Path rendition;
+        try {
+            rendition = renditionService.getOrCreate(artifact.getSha256(), result.getPath(),
+                    artifact.getContentType(), effectiveSize);
+        } catch (IllegalArgumentException e) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+
+        FileDownloads.send(request, response, rendition,
+                RenditionService.CONTENT_TYPE,
+                artifact.getSha256() + "-" + effectiveSize,
+                FileDownloads.millis(artifact.getCreatedAt()),
+                null,
+                CacheControl.maxAge(365, TimeUnit.DAYS).cachePrivate().immutable());
     }
 
     // UC2-7: Delete artifact (only owner can delete)
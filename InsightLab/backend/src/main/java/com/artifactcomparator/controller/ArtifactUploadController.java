@@ -0,0 +1,129 @@
+package com.artifactcomparator.controller;
+
+import com.artifactcomparator.dto.ArtifactResponseDTO;
+import com.artifactcomparator.dto.CreateUploadSessionRequest;
+import com.artifactcomparator.dto.ErrorResponse;
+import com.artifactcomparator.dto.UploadSessionDTO;
+import com.artifactcomparator.security.CustomUserDetailsService;
+import com.artifactcomparator.service.ChunkedUploadService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.UUID;
+
+/**
+ * Resumable uploads for large artifacts.
+ *
+ * POST creates a session, each PUT streams one raw (application/octet-stream) chunk at
+ * ?offset=, GET reports how far the server got, and POST /complete turns the file into an artifact.
+ * A PUT at the wrong offset returns 409 with the session, whose receivedBytes is where to resume.
+ * Completing an upload that is not fully received is 409 as well; a bad chunk is 400, an unknown
+ * session 404 and someone else's session 403.
+ */
+@RestController
+@RequestMapping("/api/artifacts/uploads")
+@RequiredArgsConstructor
+public class ArtifactUploadController {
+
+    private final ChunkedUploadService chunkedUploadService;
+
+    @PostMapping
+    @PreAuthorize("hasAnyRole('RESEARCHER','ADMIN')")
+    public ResponseEntity<UploadSessionDTO> createSession(
+            @Valid @RequestBody CreateUploadSessionRequest request,
+            @org.springframework.security.core.annotation.AuthenticationPrincipal
+            CustomUserDetailsService.CustomUserPrincipal principal
+    ) {
+        return ResponseEntity.status(HttpStatus.CREATED)
+                .body(chunkedUploadService.createSession(principal.getUser(), request));
+    }
+
+    @PutMapping("/{sessionId}")
+    @PreAuthorize("hasAnyRole('RESEARCHER','ADMIN')")
+    public ResponseEntity<UploadSessionDTO> uploadChunk(
+            @PathVariable UUID sessionId,
+            @RequestParam("offset") long offset,
+            HttpServletRequest request,
+            @org.springframework.security.core.annotation.AuthenticationPrincipal
+            CustomUserDetailsService.CustomUserPrincipal principal
+    ) throws IOException {
+        try (InputStream in = request.getInputStream()) {
+            return ResponseEntity.ok(
+                    chunkedUploadService.appendChunk(sessionId, offset, in, principal.getUser()));
+        } catch (ChunkedUploadService.OffsetMismatchException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT)
+                    .body(chunkedUploadService.status(sessionId, principal.getUser()));
+        }
+    }
+
+    @GetMapping("/{sessionId}")
+    @PreAuthorize("hasAnyRole('RESEARCHER','ADMIN')")
+    public ResponseEntity<UploadSessionDTO> status(
+            @PathVariable UUID sessionId,
+            @org.springframework.security.core.annotation.AuthenticationPrincipal
+            CustomUserDetailsService.CustomUserPrincipal principal
+    ) {
+        return ResponseEntity.ok(chunkedUploadService.status(sessionId, principal.getUser()));
+    }
+
+    @PostMapping("/{sessionId}/complete")
+    @PreAuthorize("hasAnyRole('RESEARCHER','ADMIN')")
+    public ResponseEntity<ArtifactResponseDTO> complete(
+            @PathVariable UUID sessionId,
+            @org.springframework.security.core.annotation.AuthenticationPrincipal
+            CustomUserDetailsService.CustomUserPrincipal principal
+    ) {
+        return ResponseEntity.ok(chunkedUploadService.complete(sessionId, principal.getUser()));
+    }
+
+    @DeleteMapping("/{sessionId}")
+    @PreAuthorize("hasAnyRole('RESEARCHER','ADMIN')")
+    public ResponseEntity<Void> cancel(
+            @PathVariable UUID sessionId,
+            @org.springframework.security.core.annotation.AuthenticationPrincipal
+            CustomUserDetailsService.CustomUserPrincipal principal
+    ) {
+        chunkedUploadService.cancel(sessionId, principal.getUser());
+        return ResponseEntity.noContent().build();
+    }
+
+    @ExceptionHandler(ChunkedUploadService.SessionNotFoundException.class)
+    public ResponseEntity<ErrorResponse> handleSessionNotFound(ChunkedUploadService.SessionNotFoundException ex) {
+        return ResponseEntity.status(HttpStatus.NOT_FOUND).body(new ErrorResponse(ex.getMessage()));
+    }
+
+    /**
+     * Bad chunk (too large, overruns the declared size) or invalid session request.
+     */
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<ErrorResponse> handleIllegalArgumentException(IllegalArgumentException ex) {
+        return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(new ErrorResponse(ex.getMessage()));
+    }
+
+    @ExceptionHandler(AccessDeniedException.class)
+    public ResponseEntity<ErrorResponse> handleAccessDenied(AccessDeniedException ex) {
+        return ResponseEntity.status(HttpStatus.FORBIDDEN).body(new ErrorResponse(ex.getMessage()));
+    }
+
+    /**
+     * Complete called before every byte arrived, or the artifact is already in the study.
+     */
+    @ExceptionHandler({ ChunkedUploadService.OffsetMismatchException.class,
+            ChunkedUploadService.DuplicateInStudyException.class })
+    public ResponseEntity<ErrorResponse> handleConflict(IllegalStateException ex) {
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(new ErrorResponse(ex.getMessage()));
+    }
+
+    @ExceptionHandler(IllegalStateException.class)
+    public ResponseEntity<ErrorResponse> handleIllegalStateException(IllegalStateException ex) {
+        return ResponseEntity.status(HttpStatus.FORBIDDEN).body(new ErrorResponse(ex.getMessage()));
+    }
+}
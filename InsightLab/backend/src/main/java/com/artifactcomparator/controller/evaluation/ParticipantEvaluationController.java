@@ -1,6 +1,8 @@
 package com.artifactcomparator.controller.evaluation;
 
+import com.artifactcomparator.common.FileDownloads;
 import com.artifactcomparator.dto.evaluation.*;
+import com.artifactcomparator.service.ArtifactService;
 import com.artifactcomparator.service.evaluation.AnnotationService;
 import com.artifactcomparator.service.evaluation.DraftService;
 import com.artifactcomparator.service.evaluation.ImageStorageService;
@@ -8,21 +10,22 @@ import com.artifactcomparator.service.evaluation.ScoringService;
 import com.artifactcomparator.service.evaluation.SubmissionService;
 import com.artifactcomparator.service.evaluation.TaskAssignmentService;
 import com.fasterxml.jackson.databind.JsonNode;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
-import org.springframework.core.io.Resource;
-import org.springframework.http.HttpHeaders;
-import org.springframework.http.MediaType;
-import org.springframework.http.MediaTypeFactory;
+import org.springframework.http.CacheControl;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
 import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.TimeUnit;
 
 @RestController
 @RequestMapping("/api/participant/evaluations")
@@ -174,19 +177,43 @@ public class ParticipantEvaluationController {
     }
 
     @GetMapping("/images/{imageId}")
-    public ResponseEntity<Resource> getEvaluationImage(@PathVariable String imageId) {
+    public void getEvaluationImage(
+            @PathVariable String imageId,
+            HttpServletRequest request,
+            HttpServletResponse response
+    ) throws IOException {
         try {
             UUID uuid = UUID.fromString(imageId);
-            Resource resource = imageStorageService.loadImage(uuid);
-            MediaType mediaType = MediaTypeFactory.getMediaType(resource)
-                    .orElse(MediaType.APPLICATION_OCTET_STREAM);
-
-            return ResponseEntity.ok()
-                    .contentType(mediaType)
-                    .header(HttpHeaders.CACHE_CONTROL, "max-age=3600")
-                    .body(resource);
-        } catch (Exception e) {
-            return ResponseEntity.notFound().build();
+            ArtifactService.StoredFile image = imageStorageService.resolveImage(uuid);
+            FileDownloads.send(request, response, image.path(),
+                    image.contentType() != null ? image.contentType() : "application/octet-stream",
+                    image.sha256(),
+                    FileDownloads.millis(image.lastModified()),
+                    null,
+                    CacheControl.maxAge(1, TimeUnit.HOURS));
+        } catch (IllegalArgumentException e) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+        }
+    }
+
+    @GetMapping("/images/{imageId}/thumbnail")
+    public void getImageThumbnail(
+            @PathVariable String imageId,
+            @RequestParam(value = "size", required = false) Integer size,
+            HttpServletRequest request,
+            HttpServletResponse response
+    ) throws IOException {
+        try {
+            UUID uuid = UUID.fromString(imageId);
+            ArtifactService.StoredFile thumbnail = imageStorageService.resolveThumbnail(uuid, size);
+            FileDownloads.send(request, response, thumbnail.path(),
+                    thumbnail.contentType(),
+                    thumbnail.sha256(),
+                    FileDownloads.millis(thumbnail.lastModified()),
+                    null,
+                    CacheControl.maxAge(365, TimeUnit.DAYS).immutable());
+        } catch (IllegalArgumentException e) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
         }
     }
 
@@ -1,15 +1,19 @@
 package com.artifactcomparator.controller.evaluation;
 
+import com.artifactcomparator.common.FileDownloads;
 import com.artifactcomparator.dto.evaluation.*;
 import com.artifactcomparator.dto.evaluation.SubmissionExportResult;
 import com.artifactcomparator.dto.evaluation.SubmissionReviewDetailDTO;
 import com.artifactcomparator.dto.evaluation.SubmissionReviewSummaryDTO;
+import com.artifactcomparator.service.ArtifactService;
 import com.artifactcomparator.service.evaluation.EvaluationTaskService;
 import com.artifactcomparator.service.evaluation.ImageStorageService;
 import com.artifactcomparator.service.evaluation.SubmissionService;
 import com.artifactcomparator.service.evaluation.TaskTypeService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
-import org.springframework.core.io.Resource;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
@@ -24,6 +28,7 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.TimeUnit;
 
 @RestController
 @RequestMapping("/api/researcher/evaluations")
@@ -201,17 +206,43 @@ public class ResearcherEvaluationController {
     }
 
     @GetMapping("/images/{imageId}")
-    public ResponseEntity<Resource> getImage(@PathVariable String imageId) {
+    public void getImage(
+            @PathVariable String imageId,
+            HttpServletRequest request,
+            HttpServletResponse response
+    ) throws IOException {
         try {
             UUID uuid = UUID.fromString(imageId);
-            Resource resource = imageStorageService.loadImage(uuid);
+            ArtifactService.StoredFile image = imageStorageService.resolveImage(uuid);
+            FileDownloads.send(request, response, image.path(),
+                    image.contentType() != null ? image.contentType() : MediaType.IMAGE_PNG_VALUE,
+                    image.sha256(),
+                    FileDownloads.millis(image.lastModified()),
+                    null,
+                    CacheControl.maxAge(1, TimeUnit.HOURS));
+        } catch (IllegalArgumentException e) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+        }
+    }
 
-            return ResponseEntity.ok()
-                    .contentType(MediaType.IMAGE_PNG)
-                    .header(HttpHeaders.CACHE_CONTROL, "max-age=3600")
-                    .body(resource);
+    @GetMapping("/images/{imageId}/thumbnail")
+    public void getImageThumbnail(
+            @PathVariable String imageId,
+            @RequestParam(value = "size", required = false) Integer size,
+            HttpServletRequest request,
+            HttpServletResponse response
+    ) throws IOException {
+        try {
+            UUID uuid = UUID.fromString(imageId);
+            ArtifactService.StoredFile thumbnail = imageStorageService.resolveThumbnail(uuid, size);
+            FileDownloads.send(request, response, thumbnail.path(),
+                    thumbnail.contentType(),
+                    thumbnail.sha256(),
+                    FileDownloads.millis(thumbnail.lastModified()),
+                    null,
+                    CacheControl.maxAge(365, TimeUnit.DAYS).immutable());
         } catch (IllegalArgumentException e) {
-            return ResponseEntity.notFound().build();
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
         }
     }
 
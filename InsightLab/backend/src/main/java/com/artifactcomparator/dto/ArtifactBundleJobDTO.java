@@ -0,0 +1,20 @@
+package com.artifactcomparator.dto;
+
+import lombok.Data;
+import java.time.LocalDateTime;
+
+@Data
+public class ArtifactBundleJobDTO {
+    private Long id;
+    private Long studyId;
+    private String originalFilename;
+    private String status;
+    private int totalEntries;
+    private int processedEntries;
+    private int createdCount;
+    private int duplicateCount;
+    private int skippedCount;
+    private String errorMessage;
+    private LocalDateTime createdAt;
+    private LocalDateTime updatedAt;
+}
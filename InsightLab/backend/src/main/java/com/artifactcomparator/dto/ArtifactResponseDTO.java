@@ -20,6 +20,9 @@ public class ArtifactResponseDTO {
     private Integer width;
     private Integer height;
     private Integer pageCount;
+
+    // PENDING / PROCESSING until the post-upload pipeline has filled in metadata and previews
+    private String processingStatus;
     private Instant createdAt;
 
     // Opsiyonel: duplicate bilgisi (hash'e göre hesaplanabilir)
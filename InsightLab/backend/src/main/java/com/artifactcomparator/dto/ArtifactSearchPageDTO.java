@@ -0,0 +1,14 @@
+package com.artifactcomparator.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+public class ArtifactSearchPageDTO {
+    private List<ArtifactResponseDTO> items;
+    // Opaque keyset cursor for the next page; null on the last page
+    private String nextCursor;
+}
@@ -0,0 +1,18 @@
+package com.artifactcomparator.dto;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Positive;
+import lombok.Data;
+
+@Data
+public class CreateUploadSessionRequest {
+    @NotBlank
+    private String filename;
+
+    private String contentType;
+
+    @Positive
+    private long totalBytes;
+
+    private Long studyId;
+}
@@ -0,0 +1,16 @@
+package com.artifactcomparator.dto;
+
+import lombok.Data;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+@Data
+public class UploadSessionDTO {
+    private UUID id;
+    private Long studyId;
+    private String originalFilename;
+    private String contentType;
+    private long totalBytes;
+    private long receivedBytes;
+    private LocalDateTime expiresAt;
+}
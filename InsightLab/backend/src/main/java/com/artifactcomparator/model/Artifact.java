@@ -33,6 +33,17 @@ public class Artifact {
     
     @CreationTimestamp
     private Instant createdAt;
+
+    // Post-upload pipeline state (metadata, previews, analysis run after the upload commits)
+    @Enumerated(EnumType.STRING)
+    @Column(name = "processing_status", nullable = false)
+    @Builder.Default
+    private ProcessingStatus processingStatus = ProcessingStatus.PENDING;
+
+    @Column(columnDefinition = "TEXT")
+    private String processingError;
+
+    private Instant processedAt;
     
     // uploadedBy
     @ManyToOne(fetch = FetchType.LAZY)
@@ -67,4 +78,11 @@ public class Artifact {
             tags.remove(tag);
         }
     }
+
+    public enum ProcessingStatus {
+        PENDING,
+        PROCESSING,
+        READY,
+        FAILED
+    }
 }
\ No newline at end of file
@@ -0,0 +1,78 @@
+package com.artifactcomparator.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "artifact_bundle_jobs")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ArtifactBundleJob {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "uploaded_by_id", nullable = false)
+    private User uploadedBy;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "study_id")
+    private Study study;
+
+    @Column(name = "original_filename", nullable = false)
+    private String originalFilename;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private JobStatus status;
+
+    @Column(name = "total_entries", nullable = false)
+    private int totalEntries;
+
+    @Column(name = "processed_entries", nullable = false)
+    private int processedEntries;
+
+    @Column(name = "created_count", nullable = false)
+    private int createdCount;
+
+    @Column(name = "duplicate_count", nullable = false)
+    private int duplicateCount;
+
+    @Column(name = "skipped_count", nullable = false)
+    private int skippedCount;
+
+    @Column(columnDefinition = "TEXT")
+    private String errorMessage;
+
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+        updatedAt = LocalDateTime.now();
+        if (status == null) {
+            status = JobStatus.PENDING;
+        }
+    }
+
+    @PreUpdate
+    protected void onUpdate() {
+        updatedAt = LocalDateTime.now();
+    }
+
+    public enum JobStatus {
+        PENDING,
+        PROCESSING,
+        COMPLETED,
+        FAILED
+    }
+}
@@ -0,0 +1,46 @@
+package com.artifactcomparator.model.evaluation;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Metadata for an image uploaded by a researcher for an evaluation task.
+ * The content itself is a blob addressed by sha256.
+ */
+@Entity
+@Table(name = "evaluation_images")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class EvaluationImage {
+
+    @Id
+    private UUID id;
+
+    @Column(nullable = false, length = 64)
+    private String sha256;
+
+    @Column(name = "content_type")
+    private String contentType;
+
+    @Column(name = "original_filename")
+    private String originalFilename;
+
+    @Column(name = "size_bytes", nullable = false)
+    private long sizeBytes;
+
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+    }
+}
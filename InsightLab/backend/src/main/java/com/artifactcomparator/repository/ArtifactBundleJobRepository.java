@@ -0,0 +1,19 @@
+package com.artifactcomparator.repository;
+
+import com.artifactcomparator.model.ArtifactBundleJob;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+@Repository
+public interface ArtifactBundleJobRepository extends JpaRepository<ArtifactBundleJob, Long> {
+
+    // Progress ticks come from worker threads; a single UPDATE avoids loading the entity each time
+    @Modifying
+    @Transactional
+    @Query("UPDATE ArtifactBundleJob j SET j.processedEntries = :processed, j.updatedAt = CURRENT_TIMESTAMP WHERE j.id = :id")
+    void updateProgress(@Param("id") Long id, @Param("processed") int processed);
+}
@@ -0,0 +1,44 @@
+package com.artifactcomparator.repository;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Indexed artifact search (see V35). Implemented with plain SQL in
+ * {@link ArtifactSearchRepositoryImpl} and mixed into {@link ArtifactRepository}.
+ */
+public interface ArtifactSearchRepository {
+
+    /**
+     * One result row: enough to load the artifact and to resume after it.
+     */
+    record SearchHit(UUID id, double rank, Instant createdAt) {
+
+        public String cursor() {
+            String raw = rank + "|" + createdAt.getEpochSecond() + "|" + createdAt.getNano() + "|" + id;
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+        }
+
+        public static SearchHit fromCursor(String cursor) {
+            try {
+                String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+                String[] parts = raw.split("\\|");
+                return new SearchHit(UUID.fromString(parts[3]), Double.parseDouble(parts[0]),
+                        Instant.ofEpochSecond(Long.parseLong(parts[1]), Long.parseLong(parts[2])));
+            } catch (RuntimeException e) {
+                throw new IllegalArgumentException("Invalid search cursor");
+            }
+        }
+    }
+
+    /**
+     * Artifacts of one owner whose filename or content type contains the term, or whose sha256
+     * starts with it, optionally restricted to artifacts carrying any of the tags. Ordered by
+     * rank (exact filename, filename prefix, trigram similarity), then newest first; pass the
+     * last hit of a page as {@code after} to get the next one.
+     */
+    List<SearchHit> search(Long ownerId, String term, List<Long> tagIds, SearchHit after, int limit);
+}
@@ -0,0 +1,77 @@
+package com.artifactcomparator.repository;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.UUID;
+
+public class ArtifactSearchRepositoryImpl implements ArtifactSearchRepository {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public ArtifactSearchRepositoryImpl(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public List<SearchHit> search(Long ownerId, String term, List<Long> tagIds, SearchHit after, int limit) {
+        String t = term == null ? "" : term.trim().toLowerCase(Locale.ROOT);
+        List<Object> args = new ArrayList<>();
+
+        // The predicates repeat the indexed expressions exactly (lower(col) LIKE '%..%')
+        // so the planner can combine the trigram indexes with the owner index
+        StringBuilder inner = new StringBuilder();
+        if (t.isEmpty()) {
+            inner.append("""
+                    SELECT a.id, a.created_at, 0::float8 AS rank
+                    FROM artifact a
+                    WHERE a.uploaded_by_id = ?""");
+            args.add(ownerId);
+        } else {
+            String escaped = escapeLike(t);
+            inner.append("""
+                    SELECT a.id, a.created_at,
+                           (CASE WHEN lower(a.original_filename) = ? THEN 2
+                                 WHEN lower(a.original_filename) LIKE ? THEN 1
+                                 ELSE 0 END
+                            + similarity(lower(a.original_filename), ?))::float8 AS rank
+                    FROM artifact a
+                    WHERE a.uploaded_by_id = ?
+                      AND (lower(a.original_filename) LIKE ?
+                           OR lower(a.content_type) LIKE ?
+                           OR a.sha256 LIKE ?)""");
+            args.addAll(List.of(t, escaped + "%", t, ownerId, "%" + escaped + "%", "%" + escaped + "%", escaped + "%"));
+        }
+        if (tagIds != null && !tagIds.isEmpty()) {
+            inner.append("\n  AND EXISTS (SELECT 1 FROM artifact_tags at WHERE at.artifact_id = a.id AND at.tag_id IN (")
+                    .append(String.join(", ", Collections.nCopies(tagIds.size(), "?")))
+                    .append("))");
+            args.addAll(tagIds);
+        }
+
+        StringBuilder sql = new StringBuilder("SELECT id, rank, created_at FROM (")
+                .append(inner)
+                .append(") s");
+        if (after != null) {
+            sql.append("\nWHERE (s.rank, s.created_at, s.id) < (?, ?, ?)");
+            args.add(after.rank());
+            args.add(Timestamp.from(after.createdAt()));
+            args.add(after.id());
+        }
+        sql.append("\nORDER BY s.rank DESC, s.created_at DESC, s.id DESC\nLIMIT ?");
+        args.add(limit);
+
+        return jdbcTemplate.query(sql.toString(),
+                (rs, i) -> new SearchHit(rs.getObject(1, UUID.class), rs.getDouble(2),
+                        rs.getTimestamp(3).toInstant()),
+                args.toArray());
+    }
+
+    private static String escapeLike(String term) {
+        return term.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+}
@@ -0,0 +1,15 @@
+package com.artifactcomparator.repository;
+
+import com.artifactcomparator.model.UploadSession;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+@Repository
+public interface UploadSessionRepository extends JpaRepository<UploadSession, UUID> {
+
+    List<UploadSession> findByUpdatedAtBefore(LocalDateTime cutoff);
+}
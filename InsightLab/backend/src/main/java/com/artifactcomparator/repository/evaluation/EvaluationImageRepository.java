@@ -0,0 +1,11 @@
+package com.artifactcomparator.repository.evaluation;
+
+import com.artifactcomparator.model.evaluation.EvaluationImage;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.UUID;
+
+@Repository
+public interface EvaluationImageRepository extends JpaRepository<EvaluationImage, UUID> {
+}
@@ -0,0 +1,34 @@
+package com.artifactcomparator.scheduler;
+
+import com.artifactcomparator.service.ChunkedUploadService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Yarım kalan chunked upload oturumlarını temizler
+ * TTL süresince yeni chunk almayan oturumların part dosyası ve kaydı silinir
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class UploadSessionCleanupScheduler {
+
+    private final ChunkedUploadService chunkedUploadService;
+
+    /**
+     * Her saat başı çalışır
+     */
+    @Scheduled(cron = "0 0 * * * *")
+    public void expireStaleSessions() {
+        try {
+            int expired = chunkedUploadService.expireStale();
+            if (expired > 0) {
+                log.info("Expired {} stale upload sessions", expired);
+            }
+        } catch (Exception e) {
+            log.error("Error while expiring upload sessions", e);
+        }
+    }
+}
@@ -14,13 +14,11 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.reactive.function.client.WebClient;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.nio.file.StandardCopyOption;
-import java.security.MessageDigest;
-import java.security.NoSuchAlgorithmException;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -37,6 +35,8 @@ public class AIArtifactGenerationService {
     private final GeminiApiService geminiApiService;
     private final ObjectMapper objectMapper;
     private final TagRepository tagRepository;
+    private final BlobStore blobStore;
+    private final ArtifactProcessingService artifactProcessingService;
     
     @Value("${app.artifacts.storage-dir}")
     private String storageDir;
@@ -229,35 +229,31 @@ public class AIArtifactGenerationService {
         // Generate filename with extension
         String extension = getFileExtension(draft.getProgrammingLanguage());
         String originalFilename = draft.getName() + "." + extension;
-        String storedFilename = UUID.randomUUID() + "-" + sanitizeFilename(originalFilename);
-        Path filePath = Path.of(storageDir).resolve(storedFilename);
+        Path tempPath = Path.of(storageDir).resolve("temp-" + UUID.randomUUID() + "-" + sanitizeFilename(originalFilename));
+        byte[] content = draft.getContent().getBytes(StandardCharsets.UTF_8);
         
-        // Write content to file
-        try {
-            Files.writeString(filePath, draft.getContent(), StandardCharsets.UTF_8);
-        } catch (IOException e) {
-            throw new RuntimeException("Failed to write artifact file", e);
-        }
-        
-        // Calculate SHA-256 hash
+        // Write content to a temp file, hashing it on the way, then move it into the blob store
         String sha256;
+        String storedFilename;
         try {
-            sha256 = calculateSHA256(filePath);
-        } catch (Exception e) {
-            // Clean up file if hashing fails
+            sha256 = ArtifactFiles.streamToFile(new ByteArrayInputStream(content), tempPath, Long.MAX_VALUE).sha256();
+            storedFilename = blobStore.put(tempPath, sha256, content.length);
+        } catch (IOException e) {
             try {
-                Files.deleteIfExists(filePath);
+                Files.deleteIfExists(tempPath);
             } catch (IOException ignored) {}
-            throw new RuntimeException("Failed to calculate file hash", e);
+            throw new RuntimeException("Failed to write artifact file", e);
         }
+        Path filePath = Path.of(storageDir).resolve(storedFilename);
         
         // Create artifact from draft
         Artifact artifact = Artifact.builder()
                 .originalFilename(originalFilename)
                 .storedFilename(storedFilename)
                 .contentType(getContentType(draft.getProgrammingLanguage()))
-                .sizeBytes(draft.getContent().getBytes(StandardCharsets.UTF_8).length)
+                .sizeBytes(content.length)
                 .sha256(sha256)
+                .processingStatus(Artifact.ProcessingStatus.PENDING)
                 .uploadedBy(researcher)
                 .build();
         
@@ -277,6 +273,7 @@ public class AIArtifactGenerationService {
         artifact.addTag(aiTag);
         
         artifact = artifactRepository.save(artifact);
+        artifactProcessingService.enqueue(artifact.getId());
 
         draft.setStatus(AIArtifactDraft.DraftStatus.APPROVED);
         draftRepository.save(draft);
@@ -291,20 +288,6 @@ public class AIArtifactGenerationService {
         return filename.replaceAll("[^a-zA-Z0-9._-]", "_");
     }
     
-    private String calculateSHA256(Path filePath) throws IOException, NoSuchAlgorithmException {
-        MessageDigest digest = MessageDigest.getInstance("SHA-256");
-        byte[] fileBytes = Files.readAllBytes(filePath);
-        byte[] hashBytes = digest.digest(fileBytes);
-        
-        StringBuilder hexString = new StringBuilder();
-        for (byte b : hashBytes) {
-            String hex = Integer.toHexString(0xff & b);
-            if (hex.length() == 1) hexString.append('0');
-            hexString.append(hex);
-        }
-        return hexString.toString();
-    }
-    
     private String getContentType(String language) {
         return switch (language.toLowerCase()) {
             case "java" -> "text/x-java";
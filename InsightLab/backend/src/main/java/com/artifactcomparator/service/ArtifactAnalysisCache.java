@@ -0,0 +1,155 @@
+package com.artifactcomparator.service;
+
+import com.artifactcomparator.dto.ArtifactAnalyticsResponse;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Two-level cache for analysis results: a small in-memory LRU in front of the
+ * artifact_analysis_cache table (jsonb), both keyed by sha256 + variant + analyser version.
+ *
+ * Concurrent misses for the same key share one load (single-flight), so a burst of requests
+ * for a freshly uploaded artifact parses the file once. Results flagged as not cacheable
+ * (analysis errors) are returned but never stored.
+ */
+@Component
+@Slf4j
+public class ArtifactAnalysisCache {
+
+    private static final TypeReference<List<ArtifactAnalyticsResponse.MetricGroup>> GROUPS =
+            new TypeReference<>() {};
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final Map<Key, List<ArtifactAnalyticsResponse.MetricGroup>> memory;
+    private final ConcurrentHashMap<Key, CompletableFuture<List<ArtifactAnalyticsResponse.MetricGroup>>> inFlight =
+            new ConcurrentHashMap<>();
+
+    public ArtifactAnalysisCache(JdbcTemplate jdbcTemplate,
+                                 @Value("${app.artifacts.analysis-cache-size:1000}") int maxEntries) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.memory = Collections.synchronizedMap(new LinkedHashMap<>(256, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, List<ArtifactAnalyticsResponse.MetricGroup>> eldest) {
+                return size() > maxEntries;
+            }
+        });
+    }
+
+    private record Key(String sha256, String variant, int version) {}
+
+    public record Computed(List<ArtifactAnalyticsResponse.MetricGroup> groups, boolean cacheable) {}
+
+    public List<ArtifactAnalyticsResponse.MetricGroup> get(String sha256, String variant, int version,
+                                                           Supplier<Computed> compute) {
+        Key key = new Key(sha256, variant, version);
+        List<ArtifactAnalyticsResponse.MetricGroup> cached = memory.get(key);
+        if (cached != null) {
+            return cached;
+        }
+
+        CompletableFuture<List<ArtifactAnalyticsResponse.MetricGroup>> mine = new CompletableFuture<>();
+        CompletableFuture<List<ArtifactAnalyticsResponse.MetricGroup>> running = inFlight.putIfAbsent(key, mine);
+        if (running != null) {
+            try {
+                return running.join();
+            } catch (CompletionException e) {
+                throw e.getCause() instanceof RuntimeException re ? re : e;
+            }
+        }
+        try {
+            List<ArtifactAnalyticsResponse.MetricGroup> groups = load(key);
+            boolean cacheable = groups != null;
+            if (groups == null) {
+                Computed computed = compute.get();
+                groups = computed.groups();
+                cacheable = computed.cacheable();
+                if (cacheable) {
+                    store(key, groups);
+                }
+            }
+            if (cacheable && groups != null) {
+                memory.put(key, groups);
+            }
+            mine.complete(groups);
+            return groups;
+        } catch (RuntimeException e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, mine);
+        }
+    }
+
+    /**
+     * Drops every result computed by another analyser version, so a version bump leaves no stale rows.
+     */
+    public void purgeOtherVersions(int currentVersion) {
+        int removed = jdbcTemplate.update(
+                "DELETE FROM artifact_analysis_cache WHERE analyzer_version <> ?", currentVersion);
+        if (removed > 0) {
+            log.info("Removed {} cached analyses from older analyser versions", removed);
+        }
+    }
+
+    public void evict(String sha256) {
+        synchronized (memory) {
+            memory.keySet().removeIf(k -> k.sha256().equals(sha256));
+        }
+        jdbcTemplate.update("DELETE FROM artifact_analysis_cache WHERE sha256 = ?", sha256);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onStartup() {
+        try {
+            purgeOtherVersions(ArtifactAnalysisService.ANALYZER_VERSION);
+        } catch (Exception e) {
+            log.warn("Could not purge old analysis cache rows: {}", e.getMessage());
+        }
+    }
+
+    private List<ArtifactAnalyticsResponse.MetricGroup> load(Key key) {
+        List<String> rows = jdbcTemplate.queryForList("""
+                SELECT metric_groups::text FROM artifact_analysis_cache
+                WHERE sha256 = ? AND variant = ? AND analyzer_version = ?
+                """, String.class, key.sha256(), key.variant(), key.version());
+        if (rows.isEmpty()) {
+            return null;
+        }
+        try {
+            return objectMapper.readValue(rows.get(0), GROUPS);
+        } catch (JsonProcessingException e) {
+            log.warn("Ignoring unreadable cached analysis for {}: {}", key.sha256(), e.getMessage());
+            return null;
+        }
+    }
+
+    private void store(Key key, List<ArtifactAnalyticsResponse.MetricGroup> groups) {
+        try {
+            jdbcTemplate.update("""
+                    INSERT INTO artifact_analysis_cache (sha256, variant, analyzer_version, metric_groups)
+                    VALUES (?, ?, ?, ?::jsonb)
+                    ON CONFLICT (sha256, variant, analyzer_version) DO NOTHING
+                    """, key.sha256(), key.variant(), key.version(), objectMapper.writeValueAsString(groups));
+        } catch (Exception e) {
+            // A failed write only costs a recomputation later
+            log.warn("Failed to store analysis for {}: {}", key.sha256(), e.getMessage());
+        }
+    }
+}
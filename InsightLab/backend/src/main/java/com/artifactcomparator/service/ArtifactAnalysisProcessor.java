@@ -0,0 +1,29 @@
+package com.artifactcomparator.service;
+
+import com.artifactcomparator.model.Artifact;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.nio.file.Path;
+
+/**
+ * Warms the analysis cache so the first analytics request is a cache hit.
+ */
+@Component
+@RequiredArgsConstructor
+public class ArtifactAnalysisProcessor implements ArtifactProcessor {
+
+    public static final String JOB_TYPE = "ANALYSIS";
+
+    private final ArtifactAnalysisService artifactAnalysisService;
+
+    @Override
+    public String jobType() {
+        return JOB_TYPE;
+    }
+
+    @Override
+    public void process(Artifact artifact, Path file) {
+        artifactAnalysisService.precompute(artifact, file);
+    }
+}
@@ -10,21 +10,20 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.dataformat.yaml.YAMLFactory;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.apache.pdfbox.pdmodel.PDDocument;
-import org.apache.pdfbox.text.PDFTextStripper;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import javax.imageio.ImageIO;
 import java.awt.image.BufferedImage;
 import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.security.MessageDigest;
 import java.time.Instant;
 import java.util.*;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 @Service
 @RequiredArgsConstructor
@@ -33,11 +32,19 @@ public class ArtifactAnalysisService {
 
     private final ArtifactRepository artifactRepository;
     private final ArtifactService artifactService;
+    private final ArtifactAnalysisCache analysisCache;
+    private final PdfTextService pdfTextService;
+
+    /**
+     * Bump whenever an analyser changes its output; cached results of other versions are ignored and purged.
+     */
+    public static final int ANALYZER_VERSION = 4;
 
     @Value("${app.artifacts.storage-dir}")
     private String storageDir;
 
-    private static final Set<String> CODE_EXTENSIONS = Set.of("java", "js", "ts", "py", "cpp", "c", "cs", "go");
+    private static final Set<String> CODE_EXTENSIONS = Set.of(
+            "java", "js", "jsx", "ts", "tsx", "py", "cpp", "hpp", "c", "h", "cs", "go", "kt", "scala", "swift", "rb", "sh");
     private static final Set<String> JSON_EXTENSIONS = Set.of("json", "yaml", "yml");
     private static final Set<String> TEXT_EXTENSIONS = Set.of("txt", "md", "log");
     private static final Set<String> IMAGE_EXTENSIONS = Set.of("png", "jpg", "jpeg", "gif");
@@ -53,27 +60,78 @@ public class ArtifactAnalysisService {
         Artifact artifact = artifactRepository.findById(artifactId)
                 .orElseThrow(() -> new IllegalArgumentException("Artifact not found"));
 
+        String extension = extractExtension(artifact.getOriginalFilename());
+        FileCategory category = detectCategory(extension);
+
+        // Same bytes + same extension/content type => same result, whoever uploaded it
+        List<ArtifactAnalyticsResponse.MetricGroup> groups = artifact.getSha256() != null
+                ? analysisCache.get(artifact.getSha256(), cacheVariant(artifact, extension), ANALYZER_VERSION,
+                        () -> computeGroups(artifact, resolveFile(artifact), extension, category))
+                : computeGroups(artifact, resolveFile(artifact), extension, category).groups();
+
+        return ArtifactAnalyticsResponse.builder()
+                .artifactId(artifactId)
+                .originalFilename(artifact.getOriginalFilename())
+                .extension(extension)
+                .contentType(artifact.getContentType())
+                .detectedCategory(category.name())
+                .sizeBytes(artifact.getSizeBytes())
+                .uploadedAt(Optional.ofNullable(artifact.getCreatedAt()).orElse(Instant.EPOCH))
+                .metricGroups(groups)
+                .build();
+    }
+
+    /**
+     * Computes and caches the analysis ahead of the first request (post-upload pipeline).
+     * A failed analysis throws, so the processing job is retried.
+     */
+    public void precompute(Artifact artifact, Path filePath) {
+        if (artifact.getSha256() == null) {
+            return;
+        }
+        String extension = extractExtension(artifact.getOriginalFilename());
+        FileCategory category = detectCategory(extension);
+        analysisCache.get(artifact.getSha256(), cacheVariant(artifact, extension), ANALYZER_VERSION, () -> {
+            try {
+                return new ArtifactAnalysisCache.Computed(analyze(artifact, filePath, extension, category), true);
+            } catch (Exception e) {
+                throw new IllegalStateException("Failed to analyze artifact " + artifact.getId(), e);
+            }
+        });
+    }
+
+    private Path resolveFile(Artifact artifact) {
         Path filePath = Path.of(storageDir).resolve(artifact.getStoredFilename());
         if (!Files.exists(filePath)) {
             throw new IllegalArgumentException("Artifact file is missing on disk");
         }
+        return filePath;
+    }
 
-        String extension = extractExtension(artifact.getOriginalFilename());
-        FileCategory category = detectCategory(extension);
+    private static String cacheVariant(Artifact artifact, String extension) {
+        return extension + "|" + Optional.ofNullable(artifact.getContentType()).orElse("");
+    }
+
+    private List<ArtifactAnalyticsResponse.MetricGroup> analyze(Artifact artifact, Path filePath,
+                                                                String extension, FileCategory category) throws Exception {
+        return switch (category) {
+            case CODE -> analyzeCode(filePath, extension);
+            case JSON -> analyzeJsonOrYaml(filePath, extension);
+            case TEXT -> analyzeText(filePath);
+            case IMAGE -> analyzeImage(filePath, artifact);
+            case PDF -> analyzePdf(filePath, artifact);
+            default -> analyzeBinary(filePath, artifact);
+        };
+    }
 
-        List<ArtifactAnalyticsResponse.MetricGroup> groups;
+    private ArtifactAnalysisCache.Computed computeGroups(Artifact artifact, Path filePath,
+                                                         String extension, FileCategory category) {
         try {
-            switch (category) {
-                case CODE -> groups = analyzeCode(filePath, extension);
-                case JSON -> groups = analyzeJsonOrYaml(filePath, extension);
-                case TEXT -> groups = analyzeText(filePath);
-                case IMAGE -> groups = analyzeImage(filePath, artifact);
-                case PDF -> groups = analyzePdf(filePath, artifact);
-                default -> groups = analyzeBinary(filePath, artifact);
-            }
+            return new ArtifactAnalysisCache.Computed(analyze(artifact, filePath, extension, category), true);
         } catch (Exception ex) {
-            log.error("Failed to analyze artifact {}: {}", artifactId, ex.getMessage(), ex);
-            groups = List.of(
+            log.error("Failed to analyze artifact {}: {}", artifact.getId(), ex.getMessage(), ex);
+            // Hata sonucu cache'lenmez; bir sonraki istek tekrar dener
+            return new ArtifactAnalysisCache.Computed(List.of(
                     ArtifactAnalyticsResponse.MetricGroup.builder()
                             .key("analysisError")
                             .title("Analysis Error")
@@ -85,44 +143,25 @@ public class ArtifactAnalysisService {
                                             .build()
                             ))
                             .build()
-            );
+            ), false);
         }
-
-        return ArtifactAnalyticsResponse.builder()
-                .artifactId(artifactId)
-                .originalFilename(artifact.getOriginalFilename())
-                .extension(extension)
-                .contentType(artifact.getContentType())
-                .detectedCategory(category.name())
-                .sizeBytes(artifact.getSizeBytes())
-                .uploadedAt(Optional.ofNullable(artifact.getCreatedAt()).orElse(Instant.EPOCH))
-                .metricGroups(groups)
-                .build();
     }
 
     private List<ArtifactAnalyticsResponse.MetricGroup> analyzeCode(Path filePath, String extension) throws IOException {
-        String content = Files.readString(filePath);
-        String[] lines = content.split("\\R");
-        int loc = lines.length;
-        int sloc = (int) Arrays.stream(lines).filter(line -> !line.isBlank()).count();
-        long commentLines = Arrays.stream(lines)
-                .map(String::trim)
-                .filter(line -> line.startsWith("//")
-                        || line.startsWith("#")
-                        || line.startsWith("/*")
-                        || line.startsWith("*")
-                        || line.startsWith("--"))
-                .count();
-
-        double commentRatio = loc == 0 ? 0d : (double) commentLines / loc;
-
-        int functionCount = countRegex(content, "(?m)^\\s*(public|private|protected)?\\s*(static\\s+)?[\\w<>\\[\\]]+\\s+[a-zA-Z0-9_]+\\s*\\(")
-                + countRegex(content, "\\bfunction\\s+[a-zA-Z0-9_]+\\s*\\(")
-                + countRegex(content, "\\bdef\\s+[a-zA-Z0-9_]+\\s*\\(");
-        int classCount = countRegex(content, "\\bclass\\s+[A-Z_a-z0-9]+");
-        int importCount = countRegex(content, "\\b(import|using|#include)\\b");
-        int nestingDepth = estimateNestingDepth(content);
-        int cyclomatic = estimateCyclomaticComplexity(content);
+        // Single streaming pass; large sources are never loaded into memory as a whole
+        CodeMetrics.Result m;
+        try (Reader reader = new InputStreamReader(Files.newInputStream(filePath), StandardCharsets.UTF_8)) {
+            m = CodeMetrics.scan(reader, CodeMetrics.Language.forExtension(extension));
+        }
+        int loc = m.loc();
+        int sloc = m.sloc();
+        double commentRatio = loc == 0 ? 0d : (double) m.commentLines() / loc;
+
+        int functionCount = m.functions();
+        int classCount = m.classes();
+        int importCount = m.imports();
+        int nestingDepth = m.maxNesting();
+        int cyclomatic = m.cyclomatic();
         int cognitive = cyclomatic + Math.max(0, nestingDepth - 1);
 
         List<String> codeSmells = new ArrayList<>();
@@ -131,14 +170,14 @@ public class ArtifactAnalysisService {
         if (commentRatio < 0.05) codeSmells.add("Sparse comments – document complex logic.");
 
         List<String> solidHints = new ArrayList<>();
-        if (content.contains("switch") && content.contains("instanceof")) {
+        if (m.usesSwitch() && m.usesInstanceof()) {
             solidHints.add("Possible Open/Closed violation – consider polymorphism.");
         }
-        if (content.contains("new ") && content.contains("HttpClient")) {
+        if (m.usesNew() && m.usesHttpClient()) {
             solidHints.add("Consider dependency inversion for external resources.");
         }
 
-        List<String> securityWarnings = detectSecurityConcerns(content);
+        List<String> securityWarnings = m.securityWarnings();
 
         List<String> couplingHints = new ArrayList<>();
         if (importCount > 20) couplingHints.add("High import count – check module boundaries.");
@@ -273,16 +312,14 @@ public class ArtifactAnalysisService {
         );
     }
 
-    private List<ArtifactAnalyticsResponse.MetricGroup> analyzePdf(Path filePath, Artifact artifact) throws IOException {
-        int pageCount;
-        String extractedText;
-        try (PDDocument document = PDDocument.load(filePath.toFile())) {
-            pageCount = document.getNumberOfPages();
-            PDFTextStripper stripper = new PDFTextStripper();
-            configurePdfStripper(stripper);
-            extractedText = stripper.getText(document);
-        }
-        int wordCount = extractedText == null ? 0 : extractedText.trim().isEmpty() ? 0 : extractedText.trim().split("\\s+").length;
+    private List<ArtifactAnalyticsResponse.MetricGroup> analyzePdf(Path filePath, Artifact artifact) throws Exception {
+        // Page-by-page extraction, cached per page for indexing. Legacy files without a hash are
+        // not cached: nothing would ever evict text stored under a hash no artifact carries.
+        PdfTextService.Summary text = artifact.getSha256() != null
+                ? pdfTextService.extract(artifact.getSha256(), filePath)
+                : pdfTextService.summarize(filePath);
+        int pageCount = text.pageCount();
+        int wordCount = text.wordCount();
         return List.of(
                 ArtifactAnalyticsResponse.MetricGroup.builder()
                         .key("pdfMetrics")
@@ -329,61 +366,6 @@ public class ArtifactAnalysisService {
                 .build();
     }
 
-    private int countRegex(String content, String regex) {
-        Matcher matcher = Pattern.compile(regex).matcher(content);
-        int count = 0;
-        while (matcher.find()) {
-            count++;
-        }
-        return count;
-    }
-
-    private int estimateNestingDepth(String content) {
-        int depth = 0;
-        int max = 0;
-        for (char c : content.toCharArray()) {
-            if (c == '{' || c == '(' || c == '[') {
-                depth++;
-                max = Math.max(max, depth);
-            } else if (c == '}' || c == ')' || c == ']') {
-                depth = Math.max(0, depth - 1);
-            }
-        }
-        return max;
-    }
-
-    private int estimateCyclomaticComplexity(String content) {
-        String normalized = content.replace("\n", " ").toLowerCase(Locale.ROOT);
-        String[] tokens = {" if ", " for ", " while ", " case ", " catch ", "&&", "||", "?", " else if "};
-        int complexity = 1;
-        for (String token : tokens) {
-            complexity += countOccurrences(normalized, token);
-        }
-        return complexity;
-    }
-
-    private int countOccurrences(String source, String token) {
-        int index = 0;
-        int count = 0;
-        while (index != -1) {
-            index = source.indexOf(token, index);
-            if (index != -1) {
-                count++;
-                index += token.length();
-            }
-        }
-        return count;
-    }
-
-    private List<String> detectSecurityConcerns(String content) {
-        List<String> warnings = new ArrayList<>();
-        if (content.matches("(?s).*password\\s*=.*")) warnings.add("Potential hardcoded password.");
-        if (content.matches("(?s).*secret\\s*=.*")) warnings.add("Secret token detected.");
-        if (content.contains("eval(") || content.contains("exec(")) warnings.add("Dynamic code execution detected.");
-        if (content.contains("System.exit")) warnings.add("System exit calls found – disrupts flow.");
-        return warnings;
-    }
-
     private String summarizeTopWords(String[] words) {
         if (words.length == 0) return "";
         Set<String> stopWords = Set.of("the", "and", "or", "to", "a", "of", "in", "is", "on", "for", "it", "with");
@@ -520,12 +502,6 @@ public class ArtifactAnalysisService {
         return sb.toString();
     }
 
-    private void configurePdfStripper(PDFTextStripper stripper) {
-        stripper.setSortByPosition(true);
-        stripper.setStartPage(1);
-        stripper.setEndPage(Integer.MAX_VALUE);
-    }
-
     private enum FileCategory {
         CODE,
         JSON,
@@ -0,0 +1,388 @@
+package com.artifactcomparator.service;
+
+import com.artifactcomparator.dto.ArtifactBundleJobDTO;
+import com.artifactcomparator.model.ArtifactBundleJob;
+import com.artifactcomparator.model.Study;
+import com.artifactcomparator.model.Tag;
+import com.artifactcomparator.model.User;
+import com.artifactcomparator.repository.ArtifactBundleJobRepository;
+import com.artifactcomparator.repository.ArtifactRepository;
+import com.artifactcomparator.repository.TagRepository;
+import com.artifactcomparator.repository.UserRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * Bulk ZIP ingestion. Entries are spooled and hashed in parallel on a bounded pool,
+ * duplicates are resolved with one IN query per chunk of hashes, and the new artifacts,
+ * their tag links and study assignments go in as JDBC batches. Progress is tracked in
+ * artifact_bundle_jobs so the client can poll it.
+ */
+@Service
+@Slf4j
+public class ArtifactBundleService {
+
+    private static final int BATCH_SIZE = 500;
+    private static final int LOOKUP_CHUNK = 1000;
+    private static final int PROGRESS_EVERY = 50;
+
+    private final ArtifactBundleJobRepository jobRepository;
+    private final ArtifactRepository artifactRepository;
+    private final TagRepository tagRepository;
+    private final UserRepository userRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final BlobStore blobStore;
+    private final ArtifactProcessingService artifactProcessingService;
+    private final TransactionTemplate transactionTemplate;
+    private final Executor jobExecutor;
+    private final Executor ingestExecutor;
+
+    @Value("${app.artifacts.storage-dir}")
+    private String storageDir;
+
+    @Value("${app.artifacts.max-size}")
+    private long maxSize;
+
+    public ArtifactBundleService(ArtifactBundleJobRepository jobRepository,
+                                 ArtifactRepository artifactRepository,
+                                 TagRepository tagRepository,
+                                 UserRepository userRepository,
+                                 JdbcTemplate jdbcTemplate,
+                                 BlobStore blobStore,
+                                 ArtifactProcessingService artifactProcessingService,
+                                 PlatformTransactionManager transactionManager,
+                                 @Qualifier("artifactBundleExecutor") Executor jobExecutor,
+                                 @Qualifier("artifactIngestExecutor") Executor ingestExecutor) {
+        this.jobRepository = jobRepository;
+        this.artifactRepository = artifactRepository;
+        this.tagRepository = tagRepository;
+        this.userRepository = userRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.blobStore = blobStore;
+        this.artifactProcessingService = artifactProcessingService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.jobExecutor = jobExecutor;
+        this.ingestExecutor = ingestExecutor;
+    }
+
+    /**
+     * Spools the uploaded ZIP to disk and starts processing it in the background.
+     * Not transactional on purpose: the job row must be committed before the worker looks it up.
+     */
+    public ArtifactBundleJobDTO startBundle(User user, MultipartFile file, Study studyOpt) {
+        String name = Optional.ofNullable(file.getOriginalFilename()).orElse("bundle.zip");
+        if (file.isEmpty()) {
+            throw new IllegalArgumentException("Empty file: " + name);
+        }
+        if (!"zip".equals(ArtifactFiles.extension(name))
+                && !"application/zip".equalsIgnoreCase(file.getContentType())) {
+            throw new IllegalArgumentException(name + " is not a ZIP bundle");
+        }
+
+        Path spooled = Path.of(storageDir).resolve("bundle-" + UUID.randomUUID() + ".zip");
+        try {
+            Files.createDirectories(spooled.getParent());
+            try (InputStream in = file.getInputStream()) {
+                Files.copy(in, spooled);
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Failed saving bundle " + name, e);
+        }
+
+        ArtifactBundleJob job = jobRepository.save(ArtifactBundleJob.builder()
+                .uploadedBy(user)
+                .study(studyOpt)
+                .originalFilename(name)
+                .status(ArtifactBundleJob.JobStatus.PENDING)
+                .build());
+
+        Long jobId = job.getId();
+        Long userId = user.getId();
+        Long studyId = studyOpt != null ? studyOpt.getId() : null;
+        jobExecutor.execute(() -> processBundle(jobId, userId, studyId, spooled));
+
+        return toDto(job, studyId);
+    }
+
+    @Transactional(readOnly = true)
+    public ArtifactBundleJobDTO getJob(Long jobId, User user) {
+        ArtifactBundleJob job = jobRepository.findById(jobId)
+                .orElseThrow(() -> new IllegalArgumentException("Bundle job not found"));
+        if (user.getRole() != User.Role.ADMIN && !job.getUploadedBy().getId().equals(user.getId())) {
+            throw new AccessDeniedException("Access denied");
+        }
+        return toDto(job, job.getStudy() != null ? job.getStudy().getId() : null);
+    }
+
+    private record Spooled(String name, String contentType, Path tempPath, String sha256, long sizeBytes) {}
+
+    private record NewArtifact(UUID id, Spooled file, String storedName) {}
+
+    void processBundle(Long jobId, Long userId, Long studyId, Path bundle) {
+        List<CompletableFuture<Spooled>> futures = new ArrayList<>();
+        try (ZipFile zip = new ZipFile(bundle.toFile())) {
+            List<ZipEntry> candidates = new ArrayList<>();
+            int skipped = 0;
+            for (Enumeration<? extends ZipEntry> e = zip.entries(); e.hasMoreElements(); ) {
+                ZipEntry entry = e.nextElement();
+                if (entry.isDirectory()) {
+                    continue;
+                }
+                String entryName = Paths.get(entry.getName()).getFileName().toString();
+                if (!ArtifactFiles.ALLOWED_EXTENSIONS.contains(ArtifactFiles.extension(entryName))
+                        || entry.getSize() > maxSize) {
+                    skipped++;
+                    continue;
+                }
+                candidates.add(entry);
+            }
+
+            int total = candidates.size();
+            int initialSkipped = skipped;
+            updateJob(jobId, job -> {
+                job.setStatus(ArtifactBundleJob.JobStatus.PROCESSING);
+                job.setTotalEntries(total);
+                job.setSkippedCount(initialSkipped);
+            });
+
+            // STEP 1: Entry'leri paralel olarak temp'e yaz + hash'le
+            AtomicInteger done = new AtomicInteger();
+            for (ZipEntry entry : candidates) {
+                futures.add(CompletableFuture.supplyAsync(() -> {
+                    try {
+                        return spool(zip, entry);
+                    } finally {
+                        int n = done.incrementAndGet();
+                        if (n % PROGRESS_EVERY == 0) {
+                            jobRepository.updateProgress(jobId, n);
+                        }
+                    }
+                }, ingestExecutor));
+            }
+            // Biri hata verse bile hepsini bekle: zip kapanmadan önce hiçbir worker çalışıyor olmamalı
+            CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).handle((r, e) -> null).join();
+            List<Spooled> spooled = new ArrayList<>(total);
+            for (CompletableFuture<Spooled> f : futures) {
+                Spooled s = f.join();
+                if (s != null) {
+                    spooled.add(s);
+                } else {
+                    skipped++;
+                }
+            }
+
+            // STEP 2: Duplicate'ler – önce bundle içi, sonra tek IN sorgusu
+            Map<String, Spooled> unique = new LinkedHashMap<>();
+            int duplicates = 0;
+            for (Spooled s : spooled) {
+                if (unique.putIfAbsent(s.sha256(), s) != null) {
+                    duplicates++;
+                }
+            }
+            Map<String, UUID> existing = findExistingHashes(unique.keySet());
+            duplicates += existing.size();
+            unique.keySet().removeAll(existing.keySet());
+            // Zaten var olan artifact'lar da bundle'ın study'sine bağlanır
+            List<UUID> existingIds = new ArrayList<>(new LinkedHashSet<>(existing.values()));
+
+            // STEP 3: Blob'lar ve satırlar tek transaction içinde; rollback olursa yeni blob'lar silinir
+            List<NewArtifact> created = new ArrayList<>(unique.size());
+            for (Spooled s : unique.values()) {
+                created.add(new NewArtifact(UUID.randomUUID(), s, BlobStore.relativePath(s.sha256())));
+            }
+            transactionTemplate.executeWithoutResult(status -> insertAll(created, existingIds, userId, studyId));
+
+            int finalSkipped = skipped;
+            int finalDuplicates = duplicates;
+            updateJob(jobId, job -> {
+                job.setStatus(ArtifactBundleJob.JobStatus.COMPLETED);
+                job.setProcessedEntries(total);
+                job.setCreatedCount(created.size());
+                job.setDuplicateCount(finalDuplicates);
+                job.setSkippedCount(finalSkipped);
+            });
+            log.info("Bundle job {} finished: {} created, {} duplicates, {} skipped",
+                    jobId, created.size(), finalDuplicates, finalSkipped);
+        } catch (Exception e) {
+            log.error("Bundle job {} failed: {}", jobId, e.getMessage(), e);
+            updateJob(jobId, job -> {
+                job.setStatus(ArtifactBundleJob.JobStatus.FAILED);
+                job.setErrorMessage(e.getMessage());
+            });
+        } finally {
+            // Taşınmamış temp dosyaları ve bundle'ın kendisini temizle (başarısız job'larda da)
+            for (CompletableFuture<Spooled> f : futures) {
+                Spooled s = f.handle((result, error) -> result).join();
+                if (s != null) {
+                    try { Files.deleteIfExists(s.tempPath()); } catch (IOException ignored) {}
+                }
+            }
+            try { Files.deleteIfExists(bundle); } catch (IOException ignored) {}
+        }
+    }
+
+    /**
+     * Streams one entry to a temp file, hashing it on the way. Metadata is left to the
+     * post-upload pipeline. Returns null when the entry turns out to be larger than the limit.
+     */
+    private Spooled spool(ZipFile zip, ZipEntry entry) {
+        String name = Paths.get(entry.getName()).getFileName().toString();
+        String contentType = ArtifactFiles.guessContentType(ArtifactFiles.extension(name));
+        Path temp = Path.of(storageDir).resolve("temp-" + UUID.randomUUID() + "-" + ArtifactFiles.sanitize(name));
+        try (InputStream in = zip.getInputStream(entry)) {
+            ArtifactFiles.StreamedFile streamed = ArtifactFiles.streamToFile(in, temp, maxSize);
+            return new Spooled(name, contentType, temp, streamed.sha256(), streamed.sizeBytes());
+        } catch (IllegalArgumentException e) {
+            try { Files.deleteIfExists(temp); } catch (IOException ignored) {}
+            return null;
+        } catch (IOException e) {
+            try { Files.deleteIfExists(temp); } catch (IOException ignored) {}
+            throw new RuntimeException("Failed reading " + name + " from bundle", e);
+        }
+    }
+
+    private Map<String, UUID> findExistingHashes(Collection<String> hashes) {
+        Map<String, UUID> existing = new LinkedHashMap<>();
+        List<String> all = new ArrayList<>(hashes);
+        for (int i = 0; i < all.size(); i += LOOKUP_CHUNK) {
+            List<String> chunk = all.subList(i, Math.min(all.size(), i + LOOKUP_CHUNK));
+            for (Object[] row : artifactRepository.findIdsBySha256In(chunk)) {
+                existing.putIfAbsent((String) row[0], (UUID) row[1]);
+            }
+        }
+        return existing;
+    }
+
+    private void insertAll(List<NewArtifact> created, List<UUID> existingIds, Long userId, Long studyId) {
+        Timestamp now = Timestamp.from(Instant.now());
+        if (!created.isEmpty()) {
+            insertArtifacts(created, userId, now);
+        }
+        if (studyId != null) {
+            List<UUID> linked = new ArrayList<>(created.size() + existingIds.size());
+            created.forEach(a -> linked.add(a.id()));
+            linked.addAll(existingIds);
+            linkToStudy(linked, studyId, now);
+        }
+    }
+
+    private void insertArtifacts(List<NewArtifact> created, Long userId, Timestamp now) {
+
+        try {
+            blobStore.putAll(created.stream()
+                    .map(a -> new BlobStore.PendingBlob(a.file().tempPath(), a.file().sha256(), a.file().sizeBytes()))
+                    .toList(), BATCH_SIZE);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed moving bundle entries into the blob store", e);
+        }
+
+        jdbcTemplate.batchUpdate("""
+                INSERT INTO artifact (id, original_filename, stored_filename, content_type, size_bytes, sha256,
+                                      processing_status, uploaded_by_id, study_id, created_at)
+                VALUES (?, ?, ?, ?, ?, ?, 'PENDING', ?, ?, ?)
+                """, created, BATCH_SIZE, (ps, a) -> {
+            Spooled s = a.file();
+            ps.setObject(1, a.id());
+            ps.setString(2, s.name());
+            ps.setString(3, a.storedName());
+            ps.setString(4, s.contentType());
+            ps.setLong(5, s.sizeBytes());
+            ps.setString(6, s.sha256());
+            ps.setLong(7, userId);
+            ps.setObject(8, studyId, Types.BIGINT);
+            ps.setTimestamp(9, now);
+        });
+        artifactProcessingService.enqueueAll(created.stream().map(NewArtifact::id).toList());
+
+        // UC2-5: "user-created" tag'i bundle başına bir kez çözülür
+        Tag userCreated = resolveUserCreatedTag(userId);
+        jdbcTemplate.batchUpdate("INSERT INTO artifact_tags (artifact_id, tag_id) VALUES (?, ?)",
+                created, BATCH_SIZE, (ps, a) -> {
+                    ps.setObject(1, a.id());
+                    ps.setLong(2, userCreated.getId());
+                });
+
+    }
+
+    /**
+     * Appends the artifacts to the study in order; ones the study already contains stay where they are.
+     */
+    private void linkToStudy(List<UUID> artifactIds, Long studyId, Timestamp now) {
+        if (artifactIds.isEmpty()) {
+            return;
+        }
+        Integer maxOrder = jdbcTemplate.queryForObject(
+                "SELECT COALESCE(MAX(display_order), -1) FROM study_artifacts WHERE study_id = ?",
+                Integer.class, studyId);
+        int firstOrder = (maxOrder != null ? maxOrder : -1) + 1;
+        List<Object[]> rows = new ArrayList<>(artifactIds.size());
+        for (int i = 0; i < artifactIds.size(); i++) {
+            rows.add(new Object[] { studyId, artifactIds.get(i), firstOrder + i, now });
+        }
+        jdbcTemplate.batchUpdate("""
+                INSERT INTO study_artifacts (study_id, artifact_id, display_order, added_at) VALUES (?, ?, ?, ?)
+                ON CONFLICT (study_id, artifact_id) DO NOTHING
+                """, rows);
+    }
+
+    private Tag resolveUserCreatedTag(Long userId) {
+        List<Tag> tags = tagRepository.findByName("user-created");
+        if (!tags.isEmpty()) {
+            return tags.get(0);
+        }
+        return tagRepository.save(Tag.builder()
+                .name("user-created")
+                .color("#22C55E")
+                .description("Automatically assigned to artifacts uploaded manually by a user.")
+                .createdBy(userRepository.getReferenceById(userId))
+                .build());
+    }
+
+    private void updateJob(Long jobId, java.util.function.Consumer<ArtifactBundleJob> change) {
+        transactionTemplate.executeWithoutResult(status -> jobRepository.findById(jobId).ifPresent(job -> {
+            change.accept(job);
+            jobRepository.save(job);
+        }));
+    }
+
+    private ArtifactBundleJobDTO toDto(ArtifactBundleJob job, Long studyId) {
+        ArtifactBundleJobDTO dto = new ArtifactBundleJobDTO();
+        dto.setId(job.getId());
+        dto.setStudyId(studyId);
+        dto.setOriginalFilename(job.getOriginalFilename());
+        dto.setStatus(job.getStatus().name());
+        dto.setTotalEntries(job.getTotalEntries());
+        dto.setProcessedEntries(job.getProcessedEntries());
+        dto.setCreatedCount(job.getCreatedCount());
+        dto.setDuplicateCount(job.getDuplicateCount());
+        dto.setSkippedCount(job.getSkippedCount());
+        dto.setErrorMessage(job.getErrorMessage());
+        dto.setCreatedAt(job.getCreatedAt());
+        dto.setUpdatedAt(job.getUpdatedAt());
+        return dto;
+    }
+}
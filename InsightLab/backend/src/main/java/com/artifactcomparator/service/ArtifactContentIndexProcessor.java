@@ -0,0 +1,123 @@
+package com.artifactcomparator.service;
+
+import com.artifactcomparator.model.Artifact;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Adds the text of code, text and PDF artifacts to the content index. PDF text comes from
+ * the per-page cache, so a PDF is parsed once for analysis and indexing together.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ArtifactContentIndexProcessor implements ArtifactProcessor {
+
+    public static final String JOB_TYPE = "CONTENT_INDEX";
+
+    private static final Set<String> TEXT_EXTENSIONS = Set.of(
+            "java", "js", "jsx", "ts", "tsx", "py", "rb", "go", "c", "cpp", "h", "hpp", "cs", "kt",
+            "swift", "scala", "rs", "sh", "txt", "md", "log", "csv", "json", "yaml", "yml");
+
+    private final ContentIndex contentIndex;
+    private final PdfTextService pdfTextService;
+    private final JdbcTemplate jdbcTemplate;
+
+    @Value("${app.artifacts.content-index.max-bytes-per-artifact:20971520}")
+    private long maxBytesPerArtifact;
+
+    @Value("${app.artifacts.processing.max-attempts:5}")
+    private int maxAttempts;
+
+    @Override
+    public String jobType() {
+        return JOB_TYPE;
+    }
+
+    @Override
+    public void process(Artifact artifact, Path file) throws IOException {
+        String name = artifact.getOriginalFilename() == null ? "" : artifact.getOriginalFilename();
+        int dot = name.lastIndexOf('.');
+        String extension = dot >= 0 ? name.substring(dot + 1).toLowerCase(Locale.ROOT) : "";
+        String contentType = artifact.getContentType() == null ? "" : artifact.getContentType();
+
+        ContentIndex.Document doc = contentIndex.newDocument(artifact.getId(), artifact.getUploadedBy().getId());
+        if ("pdf".equals(extension) || "application/pdf".equals(contentType)) {
+            if (artifact.getSha256() == null) {
+                return;
+            }
+            pdfTextService.extract(artifact.getSha256(), file);
+            pdfTextService.forEachPage(artifact.getSha256(), (page, text) -> doc.addText(text));
+        } else if (TEXT_EXTENSIONS.contains(extension) || contentType.startsWith("text/")) {
+            // Only the head of very large files is indexed
+            try (InputStream in = Files.newInputStream(file);
+                 Reader reader = new InputStreamReader(limited(in), StandardCharsets.UTF_8)) {
+                doc.addText(reader);
+            }
+        } else {
+            return;
+        }
+        contentIndex.add(doc);
+    }
+
+    private InputStream limited(InputStream in) {
+        return new InputStream() {
+            private long remaining = maxBytesPerArtifact;
+
+            @Override
+            public int read() throws IOException {
+                if (remaining <= 0) return -1;
+                int b = in.read();
+                if (b >= 0) remaining--;
+                return b;
+            }
+
+            @Override
+            public int read(byte[] buf, int off, int len) throws IOException {
+                if (remaining <= 0) return -1;
+                int n = in.read(buf, off, (int) Math.min(len, remaining));
+                if (n > 0) remaining -= n;
+                return n;
+            }
+        };
+    }
+
+    /**
+     * A new (or wiped) index directory means nothing is indexed yet: queue every artifact.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfill() {
+        if (!contentIndex.isCreatedFresh()) {
+            return;
+        }
+        int reset = jdbcTemplate.update("""
+                UPDATE artifact_processing_jobs
+                SET status = 'PENDING', attempts = 0, error_message = NULL,
+                    next_attempt_at = CURRENT_TIMESTAMP, updated_at = CURRENT_TIMESTAMP
+                WHERE job_type = ?
+                """, JOB_TYPE);
+        int queued = jdbcTemplate.update("""
+                INSERT INTO artifact_processing_jobs (artifact_id, job_type, max_attempts)
+                SELECT a.id, ?, ? FROM artifact a
+                ON CONFLICT (artifact_id, job_type) DO NOTHING
+                """, JOB_TYPE, maxAttempts);
+        if (reset + queued > 0) {
+            log.info("Queued {} artifacts for content indexing", reset + queued);
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package com.artifactcomparator.service;
+
+import org.apache.pdfbox.io.MemoryUsageSetting;
+import org.apache.pdfbox.pdmodel.PDDocument;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * File helpers shared by the single-file upload and the bundle ingest paths.
+ */
+public final class ArtifactFiles {
+
+    // Uzantı bazlı whitelist (mock artifact'lere göre geniş)
+    public static final Set<String> ALLOWED_EXTENSIONS = Set.of(
+            "json", "md", "zip", "png", "jpg", "jpeg", "webp",
+            "csv", "txt", "diff", "pkl", "java", "js", "jsx",
+            "ts", "tsx", "py", "rb", "go", "c", "cpp", "h",
+            "hpp", "cs", "kt", "swift", "scala", "rs", "sh", "pdf"
+    );
+
+    private ArtifactFiles() {
+    }
+
+    public record StreamedFile(String sha256, long sizeBytes) {}
+
+    public static String extension(String filename) {
+        if (filename == null || !filename.contains(".")) return "";
+        return filename.substring(filename.lastIndexOf('.') + 1).toLowerCase(Locale.ROOT);
+    }
+
+    public static String sanitize(String name) {
+        return name.replaceAll("[^a-zA-Z0-9._-]", "_");
+    }
+
+    public static String guessContentType(String ext) {
+        if (ext == null) return "application/octet-stream";
+        switch (ext) {
+            case "png": return "image/png";
+            case "jpg":
+            case "jpeg": return "image/jpeg";
+            case "webp": return "image/webp";
+            case "gif": return "image/gif";
+            case "pdf": return "application/pdf";
+            case "json": return "application/json";
+            case "csv": return "text/csv";
+            case "md": return "text/markdown";
+            case "txt":
+            case "diff":
+            case "java": return "text/plain";
+            case "zip": return "application/zip";
+            default: return "application/octet-stream";
+        }
+    }
+
+    public static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    /**
+     * Copies the stream to target while hashing it, so the upload is written once and never re-read.
+     * Throws IllegalArgumentException as soon as more than maxBytes have been read.
+     */
+    public static StreamedFile streamToFile(InputStream in, Path target, long maxBytes) throws IOException {
+        MessageDigest md = sha256();
+        long total = 0;
+        try (OutputStream out = Files.newOutputStream(target, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+            byte[] buf = new byte[64 * 1024];
+            int r;
+            while ((r = in.read(buf)) != -1) {
+                total += r;
+                if (total > maxBytes) {
+                    throw new IllegalArgumentException("exceeds max size");
+                }
+                md.update(buf, 0, r);
+                out.write(buf, 0, r);
+            }
+        }
+        return new StreamedFile(HexFormat.of().formatHex(md.digest()), total);
+    }
+
+    /**
+     * Reads width and height from the image header without decoding any pixels.
+     */
+    public static int[] readImageSize(Path path) throws IOException {
+        try (ImageInputStream iis = ImageIO.createImageInputStream(path.toFile())) {
+            if (iis == null) return null;
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(iis);
+            if (!readers.hasNext()) return null;
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(iis, true, true);
+                return new int[] { reader.getWidth(0), reader.getHeight(0) };
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    /**
+     * PDFBox parses objects lazily, so reading /Count from the page tree only touches the
+     * trailer, the catalog and the root Pages node. Scratch buffers go to a temp file instead of the heap.
+     */
+    public static int readPdfPageCount(Path path) throws IOException {
+        try (PDDocument doc = PDDocument.load(path.toFile(), MemoryUsageSetting.setupTempFileOnly())) {
+            return doc.getNumberOfPages();
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package com.artifactcomparator.service;
+
+import com.artifactcomparator.model.Artifact;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.nio.file.Path;
+import java.sql.Types;
+
+/**
+ * Image dimensions (from the header) and PDF page count (from the page tree).
+ */
+@Component
+@RequiredArgsConstructor
+public class ArtifactMetadataProcessor implements ArtifactProcessor {
+
+    public static final String JOB_TYPE = "METADATA";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    public String jobType() {
+        return JOB_TYPE;
+    }
+
+    @Override
+    public void process(Artifact artifact, Path file) throws Exception {
+        String contentType = artifact.getContentType();
+        Integer width = null, height = null, pages = null;
+        if (contentType != null && contentType.startsWith("image/")) {
+            int[] size = ArtifactFiles.readImageSize(file);
+            if (size != null) {
+                width = size[0];
+                height = size[1];
+            }
+        } else if ("application/pdf".equals(contentType)) {
+            pages = ArtifactFiles.readPdfPageCount(file);
+        } else {
+            return;
+        }
+
+        jdbcTemplate.update("UPDATE artifact SET width = ?, height = ?, page_count = ? WHERE id = ?",
+                new Object[] { width, height, pages, artifact.getId() },
+                new int[] { Types.INTEGER, Types.INTEGER, Types.INTEGER, Types.OTHER });
+    }
+}
@@ -0,0 +1,353 @@
+package com.artifactcomparator.service;
+
+import com.artifactcomparator.model.Artifact;
+import com.artifactcomparator.repository.ArtifactRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Post-upload pipeline. Uploads only write, hash and insert the artifact; in the same
+ * transaction they enqueue one artifact_processing_jobs row per {@link ArtifactProcessor}.
+ *
+ * A poller claims due jobs with FOR UPDATE SKIP LOCKED (so several instances can share the
+ * queue) and hands them to a bounded pool; it never claims more jobs than there are free
+ * workers. Failed attempts are retried with exponential backoff. Running jobs refresh locked_at
+ * as a heartbeat, and jobs whose heartbeat stopped (the worker died) are put back after a
+ * timeout; a job only finishes the attempt it claimed, so a late worker cannot overwrite a newer
+ * one. artifact.processing_status is recomputed from the artifact's jobs whenever one of them
+ * finishes.
+ */
+@Service
+@Slf4j
+public class ArtifactProcessingService {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ArtifactRepository artifactRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final ThreadPoolTaskExecutor executor;
+    private final ObjectProvider<ArtifactProcessor> processorProvider;
+    private volatile Map<String, ArtifactProcessor> processors;
+    private final Semaphore freeWorkers;
+    private final Map<Long, ClaimedJob> running = new ConcurrentHashMap<>();
+
+    @Value("${app.artifacts.storage-dir}")
+    private String storageDir;
+
+    @Value("${app.artifacts.processing.max-attempts:5}")
+    private int maxAttempts;
+
+    @Value("${app.artifacts.processing.retry-base-seconds:30}")
+    private long retryBaseSeconds;
+
+    @Value("${app.artifacts.processing.stuck-after-minutes:15}")
+    private long stuckAfterMinutes;
+
+    public ArtifactProcessingService(JdbcTemplate jdbcTemplate,
+                                     ArtifactRepository artifactRepository,
+                                     PlatformTransactionManager transactionManager,
+                                     @Qualifier("artifactProcessingExecutor") ThreadPoolTaskExecutor executor,
+                                     ObjectProvider<ArtifactProcessor> processorProvider) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.artifactRepository = artifactRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.executor = executor;
+        this.processorProvider = processorProvider;
+        this.freeWorkers = new Semaphore(executor.getMaxPoolSize());
+    }
+
+    /**
+     * Processors are looked up on first use: some of them (analysis) depend on services that
+     * enqueue jobs themselves, which would otherwise be a constructor cycle.
+     */
+    private Map<String, ArtifactProcessor> processors() {
+        Map<String, ArtifactProcessor> map = processors;
+        if (map == null) {
+            map = processorProvider.orderedStream()
+                    .collect(Collectors.toMap(ArtifactProcessor::jobType, Function.identity(),
+                            (a, b) -> { throw new IllegalStateException("Duplicate job type " + a.jobType()); },
+                            LinkedHashMap::new));
+            processors = map;
+        }
+        return map;
+    }
+
+    private record ClaimedJob(long id, UUID artifactId, String jobType, int attempts, int maxAttempts) {}
+
+    /**
+     * Queues every pipeline step for the artifact. Meant to run inside the transaction that
+     * inserts the artifact, so the jobs become visible exactly when the artifact does.
+     */
+    public void enqueue(UUID artifactId) {
+        enqueueAll(List.of(artifactId));
+    }
+
+    public void enqueueAll(Collection<UUID> artifactIds) {
+        Map<String, ArtifactProcessor> all = processors();
+        if (artifactIds.isEmpty() || all.isEmpty()) {
+            return;
+        }
+        List<Object[]> rows = new ArrayList<>(artifactIds.size() * all.size());
+        for (UUID id : artifactIds) {
+            for (String type : all.keySet()) {
+                rows.add(new Object[] { id, type, maxAttempts });
+            }
+        }
+        jdbcTemplate.batchUpdate("""
+                INSERT INTO artifact_processing_jobs (artifact_id, job_type, max_attempts)
+                VALUES (?, ?, ?)
+                ON CONFLICT (artifact_id, job_type) DO NOTHING
+                """, rows);
+    }
+
+    @Scheduled(fixedDelayString = "${app.artifacts.processing.poll-interval-ms:1000}")
+    public void poll() {
+        int free = freeWorkers.availablePermits();
+        if (free == 0) {
+            return;
+        }
+        List<ClaimedJob> jobs;
+        try {
+            jobs = claim(free);
+        } catch (Exception e) {
+            log.error("Failed to claim artifact processing jobs: {}", e.getMessage());
+            return;
+        }
+        for (ClaimedJob job : jobs) {
+            freeWorkers.acquireUninterruptibly();
+            try {
+                executor.execute(() -> {
+                    try {
+                        run(job);
+                    } finally {
+                        freeWorkers.release();
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                freeWorkers.release();
+                jdbcTemplate.update("""
+                        UPDATE artifact_processing_jobs
+                        SET status = 'PENDING', attempts = attempts - 1, locked_at = NULL, updated_at = CURRENT_TIMESTAMP
+                        WHERE id = ?
+                        """, job.id());
+            }
+        }
+    }
+
+    /**
+     * Keeps locked_at of this instance's running jobs fresh, so only jobs whose worker is gone
+     * look stuck, however long a large PDF or bundle takes.
+     */
+    @Scheduled(fixedDelayString = "${app.artifacts.processing.heartbeat-interval-ms:60000}")
+    public void heartbeat() {
+        List<ClaimedJob> jobs = List.copyOf(running.values());
+        if (jobs.isEmpty()) {
+            return;
+        }
+        try {
+            jdbcTemplate.batchUpdate("""
+                    UPDATE artifact_processing_jobs SET locked_at = CURRENT_TIMESTAMP
+                    WHERE id = ? AND attempts = ? AND status = 'PROCESSING'
+                    """, jobs, jobs.size(), (ps, job) -> {
+                ps.setLong(1, job.id());
+                ps.setInt(2, job.attempts());
+            });
+        } catch (Exception e) {
+            log.error("Failed to refresh artifact processing heartbeats: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Puts back jobs whose worker disappeared (e.g. the instance was restarted mid-job). A job
+     * that has used up its attempts fails instead, so an artifact that kills its worker every
+     * time (out of memory, a native crash) is not retried forever.
+     */
+    @Scheduled(fixedDelayString = "${app.artifacts.processing.recover-interval-ms:60000}")
+    public void recoverStuckJobs() {
+        List<ClaimedJob> exhausted = jdbcTemplate.query("""
+                SELECT id, artifact_id, job_type, attempts, max_attempts FROM artifact_processing_jobs
+                WHERE status = 'PROCESSING'
+                  AND locked_at < CURRENT_TIMESTAMP - make_interval(mins => ?)
+                  AND attempts >= max_attempts
+                """,
+                (rs, i) -> new ClaimedJob(rs.getLong(1), rs.getObject(2, UUID.class), rs.getString(3),
+                        rs.getInt(4), rs.getInt(5)),
+                (int) stuckAfterMinutes);
+        int failed = 0;
+        for (ClaimedJob job : exhausted) {
+            if (failStuck(job)) {
+                failed++;
+                log.error("Artifact {} {} failed permanently: worker stopped responding on attempt {}",
+                        job.artifactId(), job.jobType(), job.attempts());
+            }
+        }
+
+        int recovered = jdbcTemplate.update("""
+                UPDATE artifact_processing_jobs
+                SET status = 'PENDING', locked_at = NULL, updated_at = CURRENT_TIMESTAMP
+                WHERE status = 'PROCESSING'
+                  AND locked_at < CURRENT_TIMESTAMP - make_interval(mins => ?)
+                  AND attempts < max_attempts
+                """, (int) stuckAfterMinutes);
+        if (recovered > 0 || failed > 0) {
+            log.warn("Re-queued {} and failed {} stuck artifact processing jobs", recovered, failed);
+        }
+    }
+
+    /**
+     * Same locking order as {@link #finish}; the job is only failed if it is still stuck, in case
+     * its worker finished after all.
+     */
+    private boolean failStuck(ClaimedJob job) {
+        Boolean updated = transactionTemplate.execute(tx -> {
+            List<Integer> locked = jdbcTemplate.queryForList(
+                    "SELECT 1 FROM artifact WHERE id = ? FOR UPDATE", Integer.class, job.artifactId());
+            if (locked.isEmpty()) {
+                return false;
+            }
+            int changed = jdbcTemplate.update("""
+                    UPDATE artifact_processing_jobs
+                    SET status = 'FAILED', error_message = ?, locked_at = NULL, updated_at = CURRENT_TIMESTAMP
+                    WHERE id = ? AND status = 'PROCESSING'
+                      AND locked_at < CURRENT_TIMESTAMP - make_interval(mins => ?)
+                    """, "Worker stopped responding after " + job.attempts() + " attempts",
+                    job.id(), (int) stuckAfterMinutes);
+            if (changed == 0) {
+                return false;
+            }
+            refreshArtifactStatus(job.artifactId());
+            return true;
+        });
+        return Boolean.TRUE.equals(updated);
+    }
+
+    private List<ClaimedJob> claim(int limit) {
+        return jdbcTemplate.query("""
+                UPDATE artifact_processing_jobs j
+                SET status = 'PROCESSING', attempts = j.attempts + 1,
+                    locked_at = CURRENT_TIMESTAMP, updated_at = CURRENT_TIMESTAMP
+                WHERE j.id IN (
+                    SELECT id FROM artifact_processing_jobs
+                    WHERE status = 'PENDING' AND next_attempt_at <= CURRENT_TIMESTAMP
+                    ORDER BY next_attempt_at
+                    LIMIT ?
+                    FOR UPDATE SKIP LOCKED)
+                RETURNING j.id, j.artifact_id, j.job_type, j.attempts, j.max_attempts
+                """,
+                (rs, i) -> new ClaimedJob(rs.getLong(1), rs.getObject(2, UUID.class), rs.getString(3),
+                        rs.getInt(4), rs.getInt(5)),
+                limit);
+    }
+
+    private void run(ClaimedJob job) {
+        running.put(job.id(), job);
+        try {
+            process(job);
+        } finally {
+            running.remove(job.id());
+        }
+    }
+
+    private void process(ClaimedJob job) {
+        ArtifactProcessor processor = processors().get(job.jobType());
+        if (processor == null) {
+            finish(job, "FAILED", "No processor for job type " + job.jobType(), 0);
+            return;
+        }
+
+        Optional<Artifact> artifact = artifactRepository.findById(job.artifactId());
+        if (artifact.isEmpty()) {
+            // Artifact deleted in the meantime; the FK cascade removes the job with it
+            return;
+        }
+
+        jdbcTemplate.update("""
+                UPDATE artifact SET processing_status = 'PROCESSING'
+                WHERE id = ? AND processing_status = 'PENDING'
+                """, job.artifactId());
+
+        try {
+            Path file = Path.of(storageDir).resolve(artifact.get().getStoredFilename());
+            if (!Files.isRegularFile(file)) {
+                throw new IllegalStateException("Artifact file is missing on disk");
+            }
+            processor.process(artifact.get(), file);
+            finish(job, "COMPLETED", null, 0);
+        } catch (Exception e) {
+            String error = e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName();
+            if (job.attempts() >= job.maxAttempts()) {
+                log.error("Artifact {} {} failed permanently after {} attempts: {}",
+                        job.artifactId(), job.jobType(), job.attempts(), error);
+                finish(job, "FAILED", error, 0);
+            } else {
+                long delay = Math.min(3600, retryBaseSeconds << Math.min(job.attempts() - 1, 16));
+                log.warn("Artifact {} {} attempt {} failed, retrying in {}s: {}",
+                        job.artifactId(), job.jobType(), job.attempts(), delay, error);
+                finish(job, "PENDING", error, delay);
+            }
+        }
+    }
+
+    private void finish(ClaimedJob job, String status, String error, long retryDelaySeconds) {
+        transactionTemplate.executeWithoutResult(tx -> {
+            // Lock the artifact row first so two jobs of the same artifact finishing together
+            // cannot both read the other as still running
+            List<Integer> locked = jdbcTemplate.queryForList(
+                    "SELECT 1 FROM artifact WHERE id = ? FOR UPDATE", Integer.class, job.artifactId());
+            if (locked.isEmpty()) {
+                return;
+            }
+            // Only the attempt this worker claimed; a recovered job may be running again elsewhere
+            int changed = jdbcTemplate.update("""
+                    UPDATE artifact_processing_jobs
+                    SET status = ?, error_message = ?, locked_at = NULL,
+                        next_attempt_at = CURRENT_TIMESTAMP + make_interval(secs => ?),
+                        updated_at = CURRENT_TIMESTAMP
+                    WHERE id = ? AND attempts = ? AND status = 'PROCESSING'
+                    """, status, error, (double) retryDelaySeconds, job.id(), job.attempts());
+            if (changed == 0) {
+                log.warn("Artifact {} {} attempt {} finished after it was taken over; result dropped",
+                        job.artifactId(), job.jobType(), job.attempts());
+                return;
+            }
+            refreshArtifactStatus(job.artifactId());
+        });
+    }
+
+    private void refreshArtifactStatus(UUID artifactId) {
+        jdbcTemplate.update("""
+                WITH s AS (
+                    SELECT bool_or(status = 'FAILED') AS failed,
+                           bool_or(status IN ('PENDING', 'PROCESSING')) AS running,
+                           string_agg(CASE WHEN status = 'FAILED' THEN job_type || ': ' || error_message END, '; ') AS errors
+                    FROM artifact_processing_jobs
+                    WHERE artifact_id = ?
+                )
+                UPDATE artifact a
+                SET processing_status = CASE
+                        WHEN s.failed THEN 'FAILED'
+                        WHEN s.running THEN 'PROCESSING'
+                        ELSE 'READY' END,
+                    processing_error = s.errors,
+                    processed_at = CASE WHEN s.running THEN a.processed_at ELSE CURRENT_TIMESTAMP END
+                FROM s
+                WHERE a.id = ?
+                """, artifactId, artifactId);
+    }
+}
@@ -0,0 +1,20 @@
+package com.artifactcomparator.service;
+
+import com.artifactcomparator.model.Artifact;
+
+import java.nio.file.Path;
+
+/**
+ * One step of the post-upload pipeline. Every processor bean gets a job per new artifact;
+ * steps that do not apply to the artifact's type should simply return.
+ * Throwing marks the attempt as failed and the job is retried with backoff.
+ */
+public interface ArtifactProcessor {
+
+    /**
+     * Stored in artifact_processing_jobs.job_type; must stay stable across releases.
+     */
+    String jobType();
+
+    void process(Artifact artifact, Path file) throws Exception;
+}
@@ -0,0 +1,32 @@
+package com.artifactcomparator.service;
+
+import com.artifactcomparator.model.Artifact;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.nio.file.Path;
+
+/**
+ * Pre-generates thumbnails / PDF first-page previews so the first list view is already cached.
+ */
+@Component
+@RequiredArgsConstructor
+public class ArtifactRenditionProcessor implements ArtifactProcessor {
+
+    public static final String JOB_TYPE = "RENDITIONS";
+
+    private final RenditionService renditionService;
+
+    @Override
+    public String jobType() {
+        return JOB_TYPE;
+    }
+
+    @Override
+    public void process(Artifact artifact, Path file) throws Exception {
+        if (artifact.getSha256() == null) {
+            return;
+        }
+        renditionService.generateAll(artifact.getSha256(), file, artifact.getContentType());
+    }
+}
@@ -4,6 +4,7 @@ import java.util.zip.ZipInputStream;
 import java.util.zip.ZipEntry;
 
 import com.artifactcomparator.dto.ArtifactResponseDTO;
+import com.artifactcomparator.dto.ArtifactSearchPageDTO;
 import com.artifactcomparator.dto.StudyResponseDTO;
 import com.artifactcomparator.dto.TagDTO;
 import com.artifactcomparator.model.Artifact;
@@ -20,26 +21,25 @@ import com.artifactcomparator.repository.StudyEnrollmentRepository;
 import com.artifactcomparator.repository.TagRepository;
 import com.artifactcomparator.repository.ReviewerAssignmentRepository;
 import lombok.RequiredArgsConstructor;
-import com.itextpdf.kernel.pdf.PdfDocument;
-import com.itextpdf.kernel.pdf.PdfReader;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.core.io.Resource;
 import org.springframework.core.io.UrlResource;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 import org.springframework.web.multipart.MultipartFile;
 import org.springframework.security.access.AccessDeniedException;
 
-import javax.imageio.ImageIO;
-import java.awt.image.BufferedImage;
 import java.io.*;
 import java.nio.file.*;
-import java.security.MessageDigest;
 import java.util.*;
 import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
+@Slf4j
 public class ArtifactService {
 
     private final ArtifactRepository artifactRepository;
@@ -48,6 +48,9 @@ public class ArtifactService {
     private final StudyEnrollmentRepository studyEnrollmentRepository;
     private final TagRepository tagRepository;  // UC2-5: Add TagRepository
     private final ReviewerAssignmentRepository reviewerAssignmentRepository;
+    private final BlobStore blobStore;
+    private final ArtifactProcessingService artifactProcessingService;
+    private final ContentIndex contentIndex;
 
     @Value("${app.artifacts.storage-dir}")
     private String storageDir;
@@ -58,6 +61,12 @@ public class ArtifactService {
     @Value("${app.artifacts.max-size}")
     private long maxSize;
 
+    @Value("${app.artifacts.search.page-size:100}")
+    private int searchPageSize;
+
+    @Value("${app.artifacts.search.max-page-size:500}")
+    private int searchMaxPageSize;
+
     private Set<String> allowed() {
         return Arrays.stream(allowedTypesCsv.split(","))
                 .map(String::trim).filter(s -> !s.isBlank())
@@ -69,13 +78,7 @@ public class ArtifactService {
         ensureStorage();
         var allowedMime = allowed();  // application.properties -> app.artifacts.allowed-types
 
-        // Uzantı bazlı whitelist (mock artifact'lere göre geniş)
-        final Set<String> allowedExtensions = Set.of(
-                "json", "md", "zip", "png", "jpg", "jpeg", "webp",
-                "csv", "txt", "diff", "pkl", "java", "js", "jsx",
-                "ts", "tsx", "py", "rb", "go", "c", "cpp", "h",
-                "hpp", "cs", "kt", "swift", "scala", "rs", "sh", "pdf"
-        );
+        final Set<String> allowedExtensions = ArtifactFiles.ALLOWED_EXTENSIONS;
 
         // ✅ NEW: Study içindeki mevcut artifact ID'lerini çek (asıl duplicate kontrol burada)
         final Set<UUID> existingStudyArtifactIds = new HashSet<>();
@@ -136,21 +139,30 @@ public class ArtifactService {
                         Long entrySize = entry.getSize(); // -1 olabilir
                         if (entrySize != null && entrySize > maxSize) {
                             // Çok büyük dosyayı atla
+                            log.warn("Skipping {} in {}: exceeds max size", entryName, originalName);
                             continue;
                         }
 
                         // contentType tahmini: uzantıya göre grov bir karar
-                        String entryCt = guessContentTypeFromExtension(entryExt);
-
-                        ArtifactResponseDTO dto = storeSingleFileFromStream(
-                                user,
-                                studyOpt,
-                                entryName,
-                                entryCt,
-                                entrySize != null && entrySize > 0 ? entrySize : 0L,
-                                zis,
-                                allowedMime
-                        );
+                        String entryCt = ArtifactFiles.guessContentType(entryExt);
+
+                        ArtifactResponseDTO dto;
+                        try {
+                            dto = storeSingleFileFromStream(
+                                    user,
+                                    studyOpt,
+                                    entryName,
+                                    entryCt,
+                                    entrySize != null && entrySize > 0 ? entrySize : 0L,
+                                    zis,
+                                    allowedMime
+                            );
+                        } catch (TooLargeException e) {
+                            // Boyutu önceden bilinmeyen entry de aynı şekilde atlanır;
+                            // kalan kısmı getNextEntry() okumadan geçer
+                            log.warn("Skipping {} in {}: exceeds max size", entryName, originalName);
+                            continue;
+                        }
                         if (studyOpt != null && Boolean.TRUE.equals(dto.getDuplicate())) {
                             if (dto.getId() != null && existingStudyArtifactIds.contains(dto.getId())) {
                                 throw new IllegalStateException(
@@ -209,22 +221,9 @@ public class ArtifactService {
         return saved;
     }
 
-    private String guessContentTypeFromExtension(String ext) {
-        if (ext == null) return "application/octet-stream";
-        switch (ext) {
-            case "png": return "image/png";
-            case "jpg":
-            case "jpeg": return "image/jpeg";
-            case "webp": return "image/webp";
-            case "pdf": return "application/pdf";
-            case "json": return "application/json";
-            case "csv": return "text/csv";
-            case "md": return "text/markdown";
-            case "txt":
-            case "diff":
-            case "java": return "text/plain";
-            case "zip": return "application/zip";
-            default: return "application/octet-stream";
+    private static final class TooLargeException extends IllegalArgumentException {
+        TooLargeException(String filename) {
+            super(filename + " exceeds max size");
         }
     }
 
@@ -237,27 +236,55 @@ public class ArtifactService {
         InputStream in,
         Set<String> allowedMime
     ) {
-        // STEP 1: Temp'e kaydet
+        // STEP 1: Temp'e yazarken SHA-256 ve boyutu tek geçişte hesapla
         String safeName = (originalFilename != null) ? originalFilename : "unnamed";
-        String tempName = "temp-" + UUID.randomUUID() + "-" + sanitize(safeName);
+        String tempName = "temp-" + UUID.randomUUID() + "-" + ArtifactFiles.sanitize(safeName);
         Path tempPath = Path.of(storageDir).resolve(tempName);
 
+        String sha256;
         try {
-            Files.copy(in, tempPath, StandardCopyOption.REPLACE_EXISTING);
+            ArtifactFiles.StreamedFile streamed = ArtifactFiles.streamToFile(in, tempPath, maxSize);
+            sha256 = streamed.sha256();
+            sizeBytes = streamed.sizeBytes();
+        } catch (IllegalArgumentException e) {
+            try { Files.deleteIfExists(tempPath); } catch (IOException ignored) {}
+            throw new TooLargeException(safeName);
         } catch (IOException e) {
+            try { Files.deleteIfExists(tempPath); } catch (IOException ignored) {}
             throw new RuntimeException("Failed saving " + safeName, e);
         }
 
-        // STEP 2: SHA-256 hesapla
-        String sha256;
-        try {
-            sha256 = sha256Hex(tempPath);
-        } catch (Exception e) {
-            try { Files.deleteIfExists(tempPath); } catch (IOException ignored) {}
-            throw new RuntimeException("Failed hashing " + safeName, e);
-        }
+        return storeSpooledFile(user, studyOpt, safeName, contentType, tempPath, sha256, sizeBytes);
+    }
 
-        // STEP 3: Duplicate kontrolü
+    /**
+     * Creates an artifact from a file that is already fully written and hashed, e.g. a finished
+     * chunked upload session. The temp file is moved into the blob store or deleted if it is a duplicate.
+     */
+    @Transactional
+    public ArtifactResponseDTO createFromSpooledFile(
+        User user,
+        Study studyOpt,
+        String originalFilename,
+        String contentType,
+        Path tempPath,
+        String sha256,
+        long sizeBytes
+    ) {
+        String safeName = (originalFilename != null) ? originalFilename : "unnamed";
+        return storeSpooledFile(user, studyOpt, safeName, contentType, tempPath, sha256, sizeBytes);
+    }
+
+    private ArtifactResponseDTO storeSpooledFile(
+        User user,
+        Study studyOpt,
+        String safeName,
+        String contentType,
+        Path tempPath,
+        String sha256,
+        long sizeBytes
+    ) {
+        // STEP 2: Duplicate kontrolü
         Optional<Artifact> existingArtifact = artifactRepository.findBySha256(sha256);
         if (existingArtifact.isPresent()) {
             try { Files.deleteIfExists(tempPath); } catch (IOException ignored) {}
@@ -267,43 +294,23 @@ public class ArtifactService {
             return dto;
         }
 
-        // STEP 4: Final isme taşı
-        String storedName = UUID.randomUUID() + "-" + sanitize(safeName);
-        Path finalPath = Path.of(storageDir).resolve(storedName);
-
+        // STEP 3: Blob store'a taşı (blobs/ab/cd/sha256, sadece rename); referans bu transaction'da alınır
+        String storedName;
         try {
-            Files.move(tempPath, finalPath, StandardCopyOption.REPLACE_EXISTING);
+            storedName = blobStore.put(tempPath, sha256, sizeBytes);
         } catch (IOException e) {
             try { Files.deleteIfExists(tempPath); } catch (IOException ignored) {}
             throw new RuntimeException("Failed moving file " + safeName, e);
         }
 
-        // STEP 5: Metadata (görsel boyutu / pdf sayfa sayısı)
-        Integer width = null, height = null, pages = null;
-        try {
-            if (contentType != null && contentType.startsWith("image/")) {
-                BufferedImage img = ImageIO.read(finalPath.toFile());
-                if (img != null) {
-                    width = img.getWidth();
-                    height = img.getHeight();
-                }
-            } else if ("application/pdf".equals(contentType)) {
-                try (PdfDocument pdfDoc = new PdfDocument(new PdfReader(finalPath.toFile()))) {
-                    pages = pdfDoc.getNumberOfPages();
-                }
-            }
-        } catch (Exception ignored) {}
-
-        // STEP 6: DB'ye kaydet
+        // STEP 4: DB'ye kaydet (metadata/preview/analiz commit sonrası pipeline'da hesaplanır)
         Artifact a = Artifact.builder()
                 .originalFilename(safeName)
                 .storedFilename(storedName)
                 .contentType(contentType != null ? contentType : "application/octet-stream")
                 .sizeBytes(sizeBytes)
                 .sha256(sha256)
-                .width(width)
-                .height(height)
-                .pageCount(pages)
+                .processingStatus(Artifact.ProcessingStatus.PENDING)
                 .uploadedBy(user)
                 .study(studyOpt)
                 .build();
@@ -325,6 +332,7 @@ public class ArtifactService {
 
         a.addTag(userCreated);
         Artifact savedEnt = artifactRepository.save(a);
+        artifactProcessingService.enqueue(savedEnt.getId());
 
         ArtifactResponseDTO dto = toDto(savedEnt);
         dto.setDuplicate(false);
@@ -425,12 +433,23 @@ public class ArtifactService {
         try {
             org.springframework.core.io.Resource resource =
                     new org.springframework.core.io.UrlResource(filePath.toUri());
-            return new DownloadResult(artifact, resource);
+            return new DownloadResult(artifact, resource, filePath);
         } catch (Exception e) {
             throw new RuntimeException("Failed to load file", e);
         }
     }
 
+    /**
+     * Internal helper like {@link #getArtifactContent(UUID)}, for callers that stream the file themselves.
+     */
+    @Transactional(readOnly = true)
+    public StoredFile getStoredFile(UUID id) {
+        Artifact artifact = artifactRepository.findById(id)
+                .orElseThrow(() -> new IllegalArgumentException("Artifact not found"));
+        return new StoredFile(Path.of(storageDir).resolve(artifact.getStoredFilename()),
+                artifact.getContentType(), artifact.getSha256(), artifact.getCreatedAt());
+    }
+
     /**
      * Internal helper: load artifact content as a Resource without user checks.
      * Used by services that need direct access to study artifacts (e.g., evaluation builder, snapshot viewer).
@@ -469,7 +488,15 @@ public class ArtifactService {
             throw new IllegalArgumentException("Access denied");
         }
 
-        // Try to delete the physical file first (if present)
+        // Blob'lar referans sayılır; dosya son referansla birlikte commit sonrası silinir
+        removeFromContentIndexAfterCommit(artifact.getId());
+        if (BlobStore.isBlobPath(artifact.getStoredFilename())) {
+            artifactRepository.delete(artifact);
+            blobStore.release(artifact.getSha256());
+            return;
+        }
+
+        // Migrate edilmemiş eski düz dosya: önce dosyayı sil (if present)
         Path filePath = Path.of(storageDir).resolve(artifact.getStoredFilename());
         try {
             Files.deleteIfExists(filePath);
@@ -480,6 +507,23 @@ public class ArtifactService {
 
         // Remove DB row
         artifactRepository.delete(artifact);
+        if (artifact.getSha256() != null) {
+            // Önizlemeler ve analiz cache'i sha256 ile tutulur; eski düz dosyalarda da temizlenmeli
+            blobStore.releaseLegacy(artifact.getSha256());
+        }
+    }
+
+    private void removeFromContentIndexAfterCommit(UUID artifactId) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    contentIndex.delete(artifactId);
+                }
+            });
+        } else {
+            contentIndex.delete(artifactId);
+        }
     }
 
     @lombok.Data
@@ -487,8 +531,14 @@ public class ArtifactService {
     public static class DownloadResult {
         private Artifact artifact;
         private org.springframework.core.io.Resource resource;
+        private Path path;
     }
 
+    /**
+     * On-disk location plus the fields needed for HTTP validators (ETag = sha256).
+     */
+    public record StoredFile(Path path, String contentType, String sha256, java.time.Instant lastModified) {}
+
     private void ensureStorage() {
         try {
             Files.createDirectories(Path.of(storageDir));
@@ -497,22 +547,6 @@ public class ArtifactService {
         }
     }
 
-    private static String sanitize(String name) {
-        return name.replaceAll("[^a-zA-Z0-9._-]", "_");
-    }
-
-    private static String sha256Hex(Path path) throws Exception {
-        MessageDigest md = MessageDigest.getInstance("SHA-256");
-        try (InputStream is = Files.newInputStream(path)) {
-            byte[] buf = new byte[8192];
-            int r;
-            while ((r = is.read(buf)) > 0) md.update(buf, 0, r);
-        }
-        StringBuilder sb = new StringBuilder();
-        for (byte b : md.digest()) sb.append(String.format("%02x", b));
-        return sb.toString();
-    }
-
     /**
      * DTO mapper – SHA-256 BİLGİSİNİ BİLİNÇLİ OLARAK EKLEMİYORUZ.
      */
@@ -543,6 +577,7 @@ public class ArtifactService {
                 .width(a.getWidth())
                 .height(a.getHeight())
                 .pageCount(a.getPageCount())
+                .processingStatus(a.getProcessingStatus() != null ? a.getProcessingStatus().name() : null)
                 .createdAt(a.getCreatedAt())
                 .tags(tagDTOs)
                 .build();
@@ -593,34 +628,36 @@ public class ArtifactService {
         return toDto(updated);
     }
 
-    // UC2-5 / UC2-4: Search and filter artifacts (4 senaryoyu da yönetir)
+    // UC2-5 / UC2-4: Search and filter artifacts (text ve/veya tag; boşsa tüm artifact'lar)
     @Transactional(readOnly = true)
-    public List<ArtifactResponseDTO> searchArtifacts(String rawSearchTerm, List<Long> tagIds, User user) {
+    public ArtifactSearchPageDTO searchArtifacts(String rawSearchTerm, List<Long> tagIds,
+                                                 String cursor, Integer requestedLimit, User user) {
         String searchTerm = (rawSearchTerm == null) ? "" : rawSearchTerm.trim();
-        boolean hasText = !searchTerm.isEmpty();
-        boolean hasTags = tagIds != null && !tagIds.isEmpty();
-
-        List<Artifact> artifacts;
-
-        // 1) Text yok, tag yok -> tüm artifact'lar
-        if (!hasText && !hasTags) {
-            artifacts = artifactRepository.findByUploadedByOrderByCreatedAtDesc(user);
-
-        // 2) Sadece text var
-        } else if (hasText && !hasTags) {
-            artifacts = artifactRepository.searchByTerm(searchTerm, user);
-
-        // 3) Sadece tag var
-        } else if (!hasText && hasTags) {
-            artifacts = artifactRepository.findByTagIdsAndUploadedBy(tagIds, user);
-
-        // 4) Text + tag var
-        } else {
-            artifacts = artifactRepository.searchByTermAndTags(searchTerm, tagIds, user);
+        int limit = Math.min(searchMaxPageSize,
+                requestedLimit == null || requestedLimit <= 0 ? searchPageSize : requestedLimit);
+        ArtifactRepository.SearchHit after = (cursor == null || cursor.isBlank())
+                ? null
+                : ArtifactRepository.SearchHit.fromCursor(cursor);
+
+        // One extra row tells whether there is a next page
+        List<ArtifactRepository.SearchHit> hits =
+                artifactRepository.search(user.getId(), searchTerm, tagIds, after, limit + 1);
+        boolean hasMore = hits.size() > limit;
+        if (hasMore) {
+            hits = hits.subList(0, limit);
         }
 
+        Map<UUID, Artifact> byId = artifactRepository.findAllById(
+                        hits.stream().map(ArtifactRepository.SearchHit::id).toList())
+                .stream()
+                .collect(Collectors.toMap(Artifact::getId, a -> a));
+        List<Artifact> artifacts = hits.stream()
+                .map(hit -> byId.get(hit.id()))
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+
         // Ek: Kullanıcı direkt ID (UUID) yapıştırırsa, onu da deneyelim
-        if ((artifacts == null || artifacts.isEmpty()) && hasText) {
+        if (artifacts.isEmpty() && after == null && !searchTerm.isEmpty()) {
             try {
                 UUID artifactId = UUID.fromString(searchTerm);
 
@@ -635,8 +672,43 @@ public class ArtifactService {
             }
         }
 
+        List<ArtifactResponseDTO> items = artifacts.stream()
+                .map(this::toDto)
+                .collect(Collectors.toList());
+        return new ArtifactSearchPageDTO(items, hasMore ? hits.get(hits.size() - 1).cursor() : null);
+    }
 
-        return artifacts.stream()
+    // Artifact içeriğinde arama (kod, metin, PDF metni): kendi artifact'ları ya da bir çalışmanın artifact'ları
+    @Transactional(readOnly = true)
+    public List<ArtifactResponseDTO> searchContent(String query, Long studyId, Integer requestedLimit, User user) {
+        int limit = Math.min(searchMaxPageSize,
+                requestedLimit == null || requestedLimit <= 0 ? searchPageSize : requestedLimit);
+
+        ContentIndex.Scope scope;
+        if (studyId != null) {
+            Study study = studyRepository.findById(studyId)
+                    .orElseThrow(() -> new IllegalArgumentException("Study not found"));
+            if (!study.getResearcher().getId().equals(user.getId())) {
+                throw new AccessDeniedException("You can only search artifacts of your own studies");
+            }
+            Set<UUID> studyArtifactIds = studyArtifactRepository.findByStudyIdOrderByDisplayOrderAsc(studyId).stream()
+                    .map(sa -> sa.getArtifact().getId())
+                    .collect(Collectors.toSet());
+            scope = ContentIndex.Scope.artifacts(studyArtifactIds);
+        } else {
+            scope = ContentIndex.Scope.owner(user.getId());
+        }
+
+        List<ContentIndex.Hit> hits = contentIndex.search(query, scope, limit);
+
+        // Index silinen artifact'ları commit sonrası düşer; veritabanında olmayanları atla
+        Map<UUID, Artifact> byId = artifactRepository.findAllById(
+                        hits.stream().map(ContentIndex.Hit::artifactId).toList())
+                .stream()
+                .collect(Collectors.toMap(Artifact::getId, a -> a));
+        return hits.stream()
+                .map(hit -> byId.get(hit.artifactId()))
+                .filter(Objects::nonNull)
                 .map(this::toDto)
                 .collect(Collectors.toList());
     }
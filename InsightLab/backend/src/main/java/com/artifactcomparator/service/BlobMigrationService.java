@@ -0,0 +1,173 @@
+package com.artifactcomparator.service;
+
+import com.artifactcomparator.model.Artifact;
+import com.artifactcomparator.model.evaluation.EvaluationImage;
+import com.artifactcomparator.repository.ArtifactRepository;
+import com.artifactcomparator.repository.evaluation.EvaluationImageRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.util.HexFormat;
+import java.util.Locale;
+import java.util.UUID;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Moves files from the old flat storage layout into the blob store.
+ *
+ * Each file is hashed, hard-linked (or copied) into blobs/, and the DB row is updated in its
+ * own transaction; only after that commits is the old file removed, so the tool can be stopped
+ * and re-run at any point. Artifacts already under blobs/ and images that already have an
+ * evaluation_images row are skipped.
+ */
+@Service
+@Slf4j
+public class BlobMigrationService {
+
+    private static final int PAGE_SIZE = 500;
+    // Evaluation images were stored as {uuid}{ext}, artifacts as {uuid}-{name}
+    private static final Pattern LEGACY_IMAGE = Pattern.compile(
+            "^([0-9a-f]{8}-[0-9a-f]{4}-[0-9a-f]{4}-[0-9a-f]{4}-[0-9a-f]{12})(\\.(png|jpg|jpeg|gif|webp))?$");
+
+    private final ArtifactRepository artifactRepository;
+    private final EvaluationImageRepository evaluationImageRepository;
+    private final BlobStore blobStore;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${app.artifacts.storage-dir}")
+    private String storageDir;
+
+    public BlobMigrationService(ArtifactRepository artifactRepository,
+                                EvaluationImageRepository evaluationImageRepository,
+                                BlobStore blobStore,
+                                PlatformTransactionManager transactionManager) {
+        this.artifactRepository = artifactRepository;
+        this.evaluationImageRepository = evaluationImageRepository;
+        this.blobStore = blobStore;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    public record Result(int artifactsMoved, int imagesMoved, int missing, int failed) {}
+
+    public Result migrate() {
+        int[] artifactStats = migrateArtifacts();
+        int[] imageStats = migrateEvaluationImages();
+        Result result = new Result(artifactStats[0], imageStats[0],
+                artifactStats[1], artifactStats[2] + imageStats[1]);
+        log.info("Blob migration finished: {}", result);
+        return result;
+    }
+
+    private int[] migrateArtifacts() {
+        int moved = 0, missing = 0, failed = 0;
+        int page = 0;
+        Page<Artifact> batch;
+        do {
+            batch = artifactRepository.findAll(PageRequest.of(page++, PAGE_SIZE, Sort.by("id")));
+            for (Artifact artifact : batch) {
+                if (BlobStore.isBlobPath(artifact.getStoredFilename())) {
+                    continue;
+                }
+                Path legacy = Path.of(storageDir).resolve(artifact.getStoredFilename());
+                if (!Files.isRegularFile(legacy)) {
+                    log.warn("Artifact {} has no file on disk: {}", artifact.getId(), legacy);
+                    missing++;
+                    continue;
+                }
+                try {
+                    String sha256 = hash(legacy);
+                    long size = Files.size(legacy);
+                    UUID id = artifact.getId();
+                    transactionTemplate.executeWithoutResult(status -> {
+                        String storedName = linkOrFail(legacy, sha256, size);
+                        Artifact fresh = artifactRepository.findById(id).orElseThrow();
+                        fresh.setStoredFilename(storedName);
+                        fresh.setSha256(sha256);
+                        artifactRepository.save(fresh);
+                    });
+                    Files.deleteIfExists(legacy);
+                    moved++;
+                } catch (Exception e) {
+                    log.error("Failed to migrate artifact {}: {}", artifact.getId(), e.getMessage());
+                    failed++;
+                }
+            }
+            log.info("Blob migration: {} artifacts moved so far", moved);
+        } while (batch.hasNext());
+        return new int[] { moved, missing, failed };
+    }
+
+    private int[] migrateEvaluationImages() {
+        int moved = 0, failed = 0;
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(Path.of(storageDir), Files::isRegularFile)) {
+            for (Path file : files) {
+                Matcher m = LEGACY_IMAGE.matcher(file.getFileName().toString().toLowerCase(Locale.ROOT));
+                if (!m.matches()) {
+                    continue;
+                }
+                UUID imageId = UUID.fromString(m.group(1));
+                if (evaluationImageRepository.existsById(imageId)) {
+                    continue;
+                }
+                try {
+                    String sha256 = hash(file);
+                    long size = Files.size(file);
+                    String ext = m.group(3);
+                    transactionTemplate.executeWithoutResult(status -> {
+                        linkOrFail(file, sha256, size);
+                        evaluationImageRepository.save(EvaluationImage.builder()
+                                .id(imageId)
+                                .sha256(sha256)
+                                .contentType(ext == null ? "image/png"
+                                        : ArtifactFiles.guessContentType(ext))
+                                .originalFilename(file.getFileName().toString())
+                                .sizeBytes(size)
+                                .build());
+                    });
+                    Files.deleteIfExists(file);
+                    moved++;
+                } catch (Exception e) {
+                    log.error("Failed to migrate evaluation image {}: {}", file, e.getMessage());
+                    failed++;
+                }
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Cannot list storage dir: " + storageDir, e);
+        }
+        return new int[] { moved, failed };
+    }
+
+    private String linkOrFail(Path file, String sha256, long size) {
+        try {
+            return blobStore.link(file, sha256, size);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static String hash(Path file) throws IOException {
+        MessageDigest md = ArtifactFiles.sha256();
+        try (InputStream in = Files.newInputStream(file)) {
+            byte[] buf = new byte[64 * 1024];
+            int r;
+            while ((r = in.read(buf)) != -1) {
+                md.update(buf, 0, r);
+            }
+        }
+        return HexFormat.of().formatHex(md.digest());
+    }
+}
@@ -0,0 +1,251 @@
+package com.artifactcomparator.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.nio.file.*;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Content-addressed file store under {storage-dir}/blobs/ab/cd/{sha256}. The two shard levels
+ * keep every directory small, identical content is stored once, and the blobs table counts how
+ * many artifacts and evaluation images point at each file so the last release can delete it.
+ *
+ * Stored paths are relative to the storage dir, so they can be kept in Artifact.storedFilename
+ * and resolved exactly like the old flat names.
+ *
+ * Every change to a blob's file happens while the transaction holds the lock on its row: put()
+ * takes it with the upsert of the reference before the file becomes reachable, and the cleanup
+ * after a release or rollback inserts a placeholder row (or waits for the uncommitted one) before
+ * it re-checks the count and deletes the file. So a concurrent upload of the same content can
+ * never lose its file, and a rolled-back put leaves no orphan behind. Row locks live in the
+ * tuples, so a bundle with thousands of files does not fill the lock table.
+ */
+@Service
+@Slf4j
+public class BlobStore {
+
+    public static final String PREFIX = "blobs/";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final RenditionService renditionService;
+    private final ArtifactAnalysisCache analysisCache;
+    private final PdfTextService pdfTextService;
+    private final TransactionTemplate cleanupTransaction;
+
+    @Value("${app.artifacts.storage-dir}")
+    private String storageDir;
+
+    public BlobStore(JdbcTemplate jdbcTemplate,
+                     RenditionService renditionService,
+                     ArtifactAnalysisCache analysisCache,
+                     PdfTextService pdfTextService,
+                     PlatformTransactionManager transactionManager) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.renditionService = renditionService;
+        this.analysisCache = analysisCache;
+        this.pdfTextService = pdfTextService;
+        // Commit/rollback callback'lerinden çağrılır, kendi transaction'ı olmalı
+        this.cleanupTransaction = new TransactionTemplate(transactionManager);
+        this.cleanupTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    /**
+     * A fully written and hashed temp file waiting to be stored.
+     */
+    public record PendingBlob(Path tempFile, String sha256, long sizeBytes) {}
+
+    public static boolean isBlobPath(String storedFilename) {
+        return storedFilename != null && storedFilename.startsWith(PREFIX);
+    }
+
+    public static String relativePath(String sha256) {
+        return PREFIX + sha256.substring(0, 2) + "/" + sha256.substring(2, 4) + "/" + sha256;
+    }
+
+    public Path path(String sha256) {
+        return Path.of(storageDir).resolve(relativePath(sha256));
+    }
+
+    /**
+     * Takes a reference on the content and moves the temp file into the store, returning its
+     * relative path. If the content is already stored the temp file is simply dropped. Must run
+     * inside the transaction that saves the referencing row: the reference and the lock last
+     * until it ends, and a rollback deletes the file again unless something else uses it.
+     */
+    public String put(Path tempFile, String sha256, long sizeBytes) throws IOException {
+        putAll(List.of(new PendingBlob(tempFile, sha256, sizeBytes)), 1);
+        return relativePath(sha256);
+    }
+
+    /**
+     * {@link #put} for many files at once, with the references taken as one batch.
+     */
+    public void putAll(List<PendingBlob> blobs, int batchSize) throws IOException {
+        requireTransaction();
+        // Rows are locked in hash order, so two bundles sharing content cannot deadlock
+        List<PendingBlob> sorted = blobs.stream().sorted(Comparator.comparing(PendingBlob::sha256)).toList();
+        registerRollbackCleanup(sorted.stream().map(PendingBlob::sha256).toList());
+        jdbcTemplate.batchUpdate("""
+                INSERT INTO blobs (sha256, size_bytes, ref_count) VALUES (?, ?, 1)
+                ON CONFLICT (sha256) DO UPDATE SET ref_count = blobs.ref_count + 1
+                """, sorted, batchSize, (ps, b) -> {
+            ps.setString(1, b.sha256());
+            ps.setLong(2, b.sizeBytes());
+        });
+        for (PendingBlob blob : blobs) {
+            moveIntoStore(blob.tempFile(), blob.sha256());
+        }
+    }
+
+    private void moveIntoStore(Path tempFile, String sha256) throws IOException {
+        Path target = path(sha256);
+        if (Files.exists(target)) {
+            Files.deleteIfExists(tempFile);
+            return;
+        }
+        Files.createDirectories(target.getParent());
+        try {
+            Files.move(tempFile, target, StandardCopyOption.ATOMIC_MOVE);
+        } catch (FileAlreadyExistsException e) {
+            // Aynı içerik paralel olarak yazıldı
+            Files.deleteIfExists(tempFile);
+        }
+    }
+
+    /**
+     * Like {@link #put}, but stores an existing file without moving it: a hard link when the file
+     * system allows it, a copy otherwise. Used by the migration so the old file stays valid until
+     * the DB commits.
+     */
+    public String link(Path existing, String sha256, long sizeBytes) throws IOException {
+        requireTransaction();
+        registerRollbackCleanup(List.of(sha256));
+        retain(sha256, sizeBytes);
+        Path target = path(sha256);
+        if (!Files.exists(target)) {
+            Files.createDirectories(target.getParent());
+            try {
+                Files.createLink(target, existing);
+            } catch (FileAlreadyExistsException e) {
+                // başka bir kayıt aynı içeriği zaten taşıdı
+            } catch (IOException | UnsupportedOperationException e) {
+                Path tmp = Files.createTempFile(target.getParent(), "link", ".tmp");
+                Files.copy(existing, tmp, StandardCopyOption.REPLACE_EXISTING);
+                try {
+                    Files.move(tmp, target, StandardCopyOption.ATOMIC_MOVE);
+                } catch (FileAlreadyExistsException ignored) {
+                    Files.deleteIfExists(tmp);
+                }
+            }
+        }
+        return relativePath(sha256);
+    }
+
+    private void retain(String sha256, long sizeBytes) {
+        jdbcTemplate.update("""
+                INSERT INTO blobs (sha256, size_bytes, ref_count) VALUES (?, ?, 1)
+                ON CONFLICT (sha256) DO UPDATE SET ref_count = blobs.ref_count + 1
+                """, sha256, sizeBytes);
+    }
+
+    /**
+     * Drops one reference. When it was the last one the row goes immediately and the file is
+     * deleted after the surrounding transaction commits, so a rollback never loses content.
+     */
+    public void release(String sha256) {
+        requireTransaction();
+        jdbcTemplate.update("UPDATE blobs SET ref_count = ref_count - 1 WHERE sha256 = ?", sha256);
+        int removed = jdbcTemplate.update("DELETE FROM blobs WHERE sha256 = ? AND ref_count <= 0", sha256);
+        if (removed == 0) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                deleteIfUnreferenced(sha256);
+            }
+        });
+    }
+
+    /**
+     * For an artifact still stored as a legacy flat file. Its renditions and cached analysis are
+     * keyed by content hash like a blob's, so after commit they go as well unless another
+     * artifact or blob still has the same content.
+     */
+    public void releaseLegacy(String sha256) {
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                deleteIfUnreferenced(sha256);
+            }
+        });
+    }
+
+    /**
+     * The row locks that guard the files only last as long as the surrounding transaction.
+     */
+    private static void requireTransaction() {
+        if (!TransactionSynchronizationManager.isActualTransactionActive()) {
+            throw new IllegalStateException("Blob references must be changed inside a transaction");
+        }
+    }
+
+    private void registerRollbackCleanup(List<String> hashes) {
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status == STATUS_ROLLED_BACK) {
+                    hashes.stream().distinct().forEach(BlobStore.this::deleteIfUnreferenced);
+                }
+            }
+        });
+    }
+
+    private void deleteIfUnreferenced(String sha256) {
+        Boolean unused;
+        try {
+            unused = cleanupTransaction.execute(status -> {
+                // Satır yoksa yer tutucu eklenir: commit edilmemiş bir put'u bekler, yenisini de
+                // dosya silinene kadar bekletir
+                jdbcTemplate.update("""
+                        INSERT INTO blobs (sha256, size_bytes, ref_count) VALUES (?, 0, 0)
+                        ON CONFLICT (sha256) DO NOTHING
+                        """, sha256);
+                // Aynı içerik bu arada tekrar yüklendiyse dosyayı bırak
+                Integer refs = jdbcTemplate.queryForObject(
+                        "SELECT ref_count FROM blobs WHERE sha256 = ? FOR UPDATE", Integer.class, sha256);
+                if (refs != null && refs > 0) {
+                    return false;
+                }
+                try {
+                    Files.deleteIfExists(path(sha256));
+                } catch (IOException e) {
+                    log.warn("Failed to delete blob {}: {}", sha256, e.getMessage());
+                }
+                jdbcTemplate.update("DELETE FROM blobs WHERE sha256 = ? AND ref_count <= 0", sha256);
+                // Migrate edilmemiş bir artifact aynı içeriğe sahipse türetilmiş veriler kalır
+                return !Boolean.TRUE.equals(jdbcTemplate.queryForObject(
+                        "SELECT EXISTS (SELECT 1 FROM artifact WHERE sha256 = ?)", Boolean.class, sha256));
+            });
+        } catch (RuntimeException e) {
+            // Commit zaten oldu; dosya en kötü ihtimalle yetim kalır
+            log.warn("Failed to clean up blob {}: {}", sha256, e.getMessage());
+            return;
+        }
+        if (Boolean.TRUE.equals(unused)) {
+            renditionService.deleteAll(sha256);
+            analysisCache.evict(sha256);
+            pdfTextService.evict(sha256);
+        }
+    }
+}
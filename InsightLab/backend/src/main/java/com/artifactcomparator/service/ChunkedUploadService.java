@@ -0,0 +1,466 @@
+package com.artifactcomparator.service;
+
+import com.artifactcomparator.dto.ArtifactResponseDTO;
+import com.artifactcomparator.dto.CreateUploadSessionRequest;
+import com.artifactcomparator.dto.UploadSessionDTO;
+import com.artifactcomparator.model.Study;
+import com.artifactcomparator.model.UploadSession;
+import com.artifactcomparator.model.User;
+import com.artifactcomparator.repository.StudyArtifactRepository;
+import com.artifactcomparator.repository.StudyRepository;
+import com.artifactcomparator.repository.UploadSessionRepository;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Collectors;
+
+/**
+ * Resumable uploads: a session owns one partial file under {storage-dir}/uploads and chunks are
+ * appended to it at the offset the server last acknowledged.
+ *
+ * Each chunk is hashed as it is written, so finalising only has to move the file into the blob
+ * store. The running digest lives in memory; if it is lost (restart, or a chunk was rewritten)
+ * the finished file is hashed once more at finalise time. The DB offset is never trusted beyond
+ * what is actually on disk, so a crash between the write and the row update is harmless.
+ * Finalising creates the artifact, assigns it to the study and closes the session in one
+ * transaction from a link to the part file, so a failed finalise can simply be retried.
+ */
+@Service
+@Slf4j
+public class ChunkedUploadService {
+
+    private final UploadSessionRepository uploadSessionRepository;
+    private final StudyRepository studyRepository;
+    private final StudyArtifactRepository studyArtifactRepository;
+    private final ArtifactService artifactService;
+    private final TransactionTemplate transactionTemplate;
+
+    private final Map<UUID, SessionState> states = new ConcurrentHashMap<>();
+
+    @Value("${app.artifacts.storage-dir}")
+    private String storageDir;
+
+    @Value("${app.artifacts.allowed-types}")
+    private String allowedTypesCsv;
+
+    @Value("${app.artifacts.max-size}")
+    private long maxSize;
+
+    @Value("${app.artifacts.upload-chunk-max-size:16777216}")
+    private long maxChunkSize;
+
+    @Value("${app.artifacts.upload-session-ttl-hours:24}")
+    private long sessionTtlHours;
+
+    public ChunkedUploadService(UploadSessionRepository uploadSessionRepository,
+                                StudyRepository studyRepository,
+                                StudyArtifactRepository studyArtifactRepository,
+                                ArtifactService artifactService,
+                                PlatformTransactionManager transactionManager) {
+        this.uploadSessionRepository = uploadSessionRepository;
+        this.studyRepository = studyRepository;
+        this.studyArtifactRepository = studyArtifactRepository;
+        this.artifactService = artifactService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * Thrown when a chunk does not start where the session currently ends; the client should
+     * resume from {@link #getExpectedOffset()}.
+     */
+    @Getter
+    public static class OffsetMismatchException extends IllegalStateException {
+        private final long expectedOffset;
+
+        public OffsetMismatchException(long expectedOffset) {
+            super("Chunk must start at offset " + expectedOffset);
+            this.expectedOffset = expectedOffset;
+        }
+    }
+
+    /**
+     * No upload session with that id (never created, completed, cancelled or expired).
+     */
+    public static class SessionNotFoundException extends IllegalArgumentException {
+        public SessionNotFoundException() {
+            super("Upload session not found");
+        }
+    }
+
+    private static final class SessionState {
+        final ReentrantLock lock = new ReentrantLock();
+        MessageDigest digest;
+        long digestedBytes;
+    }
+
+    public static class DuplicateInStudyException extends IllegalStateException {
+        DuplicateInStudyException(String filename) {
+            super("This study already contains this artifact (duplicate upload is not allowed): " + filename);
+        }
+    }
+
+    public UploadSessionDTO createSession(User user, CreateUploadSessionRequest request) {
+        String name = request.getFilename();
+        if (name == null || name.isBlank()) {
+            throw new IllegalArgumentException("Filename is required");
+        }
+        if (request.getTotalBytes() <= 0) {
+            throw new IllegalArgumentException("Empty file: " + name);
+        }
+        if (request.getTotalBytes() > maxSize) {
+            throw new IllegalArgumentException(name + " exceeds max size");
+        }
+
+        String ext = ArtifactFiles.extension(name);
+        String ct = request.getContentType() != null && !request.getContentType().isBlank()
+                ? request.getContentType()
+                : ArtifactFiles.guessContentType(ext);
+        if (!allowedMime().contains(ct) && !ArtifactFiles.ALLOWED_EXTENSIONS.contains(ext)) {
+            throw new IllegalArgumentException(name + " has unsupported type. contentType=" + ct + ", ext=" + ext);
+        }
+
+        Study study = null;
+        if (request.getStudyId() != null) {
+            study = studyRepository.findById(request.getStudyId())
+                    .orElseThrow(() -> new IllegalArgumentException("Study not found"));
+            if (!study.getResearcher().getId().equals(user.getId())) {
+                throw new IllegalStateException("You can only upload artifacts to your own studies");
+            }
+        }
+
+        UploadSession session = uploadSessionRepository.save(UploadSession.builder()
+                .id(UUID.randomUUID())
+                .uploadedBy(user)
+                .study(study)
+                .originalFilename(name)
+                .contentType(ct)
+                .totalBytes(request.getTotalBytes())
+                .receivedBytes(0)
+                .build());
+
+        try {
+            Files.createDirectories(uploadsDir());
+            Files.deleteIfExists(partPath(session.getId()));
+            Files.createFile(partPath(session.getId()));
+        } catch (IOException e) {
+            uploadSessionRepository.delete(session);
+            throw new RuntimeException("Failed to create upload session for " + name, e);
+        }
+
+        SessionState state = new SessionState();
+        state.digest = ArtifactFiles.sha256();
+        states.put(session.getId(), state);
+        return toDto(session);
+    }
+
+    public UploadSessionDTO status(UUID sessionId, User user) {
+        return toDto(loadOwned(sessionId, user));
+    }
+
+    /**
+     * Appends one chunk. The body is streamed straight into the part file; the request is
+     * rejected if it does not start at the acknowledged offset, overruns the declared size or
+     * is larger than the chunk limit, and in those cases nothing past the offset is kept.
+     */
+    public UploadSessionDTO appendChunk(UUID sessionId, long offset, InputStream in, User user) {
+        SessionState state = lockState(sessionId, user);
+        try {
+            UploadSession session = loadOwned(sessionId, user);
+            Path part = partPath(sessionId);
+            if (!Files.exists(part)) {
+                throw new IllegalArgumentException("Upload session has no data file; start a new upload");
+            }
+
+            long committed = Math.min(session.getReceivedBytes(), Files.size(part));
+            if (offset != committed) {
+                syncOffset(session, committed);
+                throw new OffsetMismatchException(committed);
+            }
+
+            long limit = Math.min(maxChunkSize, session.getTotalBytes() - offset);
+            boolean hashing = state.digest != null && state.digestedBytes == offset;
+            if (!hashing) {
+                state.digest = null;
+            }
+
+            long written = 0;
+            try (FileChannel channel = FileChannel.open(part, StandardOpenOption.WRITE)) {
+                // Anything past the acknowledged offset is a leftover from an interrupted chunk
+                channel.truncate(offset);
+                channel.position(offset);
+
+                byte[] buf = new byte[64 * 1024];
+                ByteBuffer bb = ByteBuffer.wrap(buf);
+                int r;
+                while ((r = in.read(buf)) != -1) {
+                    if (written + r > limit) {
+                        channel.truncate(offset);
+                        throw new IllegalArgumentException(written + r > maxChunkSize
+                                ? "Chunk exceeds max chunk size of " + maxChunkSize + " bytes"
+                                : "Chunk overruns the declared file size");
+                    }
+                    bb.clear().limit(r);
+                    while (bb.hasRemaining()) {
+                        channel.write(bb);
+                    }
+                    if (hashing) {
+                        state.digest.update(buf, 0, r);
+                    }
+                    written += r;
+                }
+            } catch (IOException e) {
+                truncateQuietly(part, offset);
+                state.digest = null;
+                throw new RuntimeException("Failed writing chunk for upload " + sessionId, e);
+            } catch (RuntimeException e) {
+                state.digest = null;
+                throw e;
+            }
+
+            if (hashing) {
+                state.digestedBytes = offset + written;
+            }
+            session.setReceivedBytes(offset + written);
+            return toDto(uploadSessionRepository.save(session));
+        } catch (IOException e) {
+            throw new RuntimeException("Failed reading upload " + sessionId, e);
+        } finally {
+            unlockState(sessionId, state);
+        }
+    }
+
+    /**
+     * Hands the completed part file to the normal artifact creation path and closes the session.
+     */
+    public ArtifactResponseDTO complete(UUID sessionId, User user) {
+        SessionState state = lockState(sessionId, user);
+        Path spooled = uploadsDir().resolve(sessionId + ".final");
+        try {
+            UploadSession session = loadOwned(sessionId, user);
+            Path part = partPath(sessionId);
+            long onDisk = Files.exists(part) ? Files.size(part) : -1;
+            if (session.getReceivedBytes() != session.getTotalBytes() || onDisk != session.getTotalBytes()) {
+                throw new OffsetMismatchException(Math.max(0, Math.min(session.getReceivedBytes(), onDisk)));
+            }
+
+            String sha256;
+            if (state.digest != null && state.digestedBytes == session.getTotalBytes()) {
+                sha256 = HexFormat.of().formatHex(state.digest.digest());
+            } else {
+                log.info("Re-hashing upload {} at finalise; running digest was not available", sessionId);
+                sha256 = hash(part);
+            }
+            state.digest = null;
+
+            // The blob store consumes the link; the part file survives a rollback for the retry
+            linkOrCopy(part, spooled);
+            ArtifactResponseDTO dto;
+            try {
+                dto = transactionTemplate.execute(status -> finalise(session, spooled, sha256, user));
+            } catch (DuplicateInStudyException e) {
+                discard(session);
+                throw e;
+            }
+            truncateQuietly(part, -1);
+            return dto;
+        } catch (IOException e) {
+            throw new RuntimeException("Failed finalising upload " + sessionId, e);
+        } finally {
+            truncateQuietly(spooled, -1);
+            unlockState(sessionId, state);
+        }
+    }
+
+    private ArtifactResponseDTO finalise(UploadSession session, Path spooled, String sha256, User user) {
+        Study study = null;
+        if (session.getStudy() != null) {
+            study = studyRepository.findById(session.getStudy().getId())
+                    .orElseThrow(() -> new IllegalArgumentException("Study not found"));
+        }
+
+        ArtifactResponseDTO dto = artifactService.createFromSpooledFile(
+                user, study, session.getOriginalFilename(), session.getContentType(),
+                spooled, sha256, session.getTotalBytes());
+
+        // Same rules as the multipart upload: a duplicate already in the study is an error,
+        // a new artifact is assigned to it
+        if (study != null) {
+            if (Boolean.TRUE.equals(dto.getDuplicate())) {
+                if (studyArtifactRepository.existsByStudyIdAndArtifactId(study.getId(), dto.getId())) {
+                    throw new DuplicateInStudyException(session.getOriginalFilename());
+                }
+            } else {
+                artifactService.assignToStudy(dto.getId(), study.getId(), user, null);
+            }
+        }
+
+        uploadSessionRepository.delete(session);
+        return dto;
+    }
+
+    private static void linkOrCopy(Path source, Path target) throws IOException {
+        Files.deleteIfExists(target);
+        try {
+            Files.createLink(target, source);
+        } catch (IOException | UnsupportedOperationException e) {
+            Files.copy(source, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    public void cancel(UUID sessionId, User user) {
+        SessionState state = lockState(sessionId, user);
+        try {
+            UploadSession session = loadOwned(sessionId, user);
+            discard(session);
+        } finally {
+            unlockState(sessionId, state);
+        }
+    }
+
+    /**
+     * Removes sessions that have not received a chunk within the TTL. Sessions that are busy
+     * right now are left for the next run.
+     */
+    public int expireStale() {
+        LocalDateTime cutoff = LocalDateTime.now().minusHours(sessionTtlHours);
+        List<UploadSession> stale = uploadSessionRepository.findByUpdatedAtBefore(cutoff);
+        int expired = 0;
+        for (UploadSession session : stale) {
+            SessionState state = states.computeIfAbsent(session.getId(), id -> new SessionState());
+            if (!state.lock.tryLock()) {
+                continue;
+            }
+            try {
+                discard(session);
+                expired++;
+            } catch (Exception e) {
+                log.warn("Failed to expire upload session {}: {}", session.getId(), e.getMessage());
+            } finally {
+                state.lock.unlock();
+            }
+        }
+        return expired;
+    }
+
+    private void discard(UploadSession session) {
+        truncateQuietly(partPath(session.getId()), -1);
+        uploadSessionRepository.delete(session);
+        states.remove(session.getId());
+    }
+
+    /**
+     * Locks the in-memory state of a session. Ownership is checked first, so unknown or foreign
+     * session ids never add entries to the map.
+     */
+    private SessionState lockState(UUID sessionId, User user) {
+        loadOwned(sessionId, user);
+        SessionState state = states.computeIfAbsent(sessionId, id -> new SessionState());
+        state.lock.lock();
+        return state;
+    }
+
+    /**
+     * Drops the state as well if the session is gone by now, whichever path removed it.
+     */
+    private void unlockState(UUID sessionId, SessionState state) {
+        try {
+            if (!uploadSessionRepository.existsById(sessionId)) {
+                states.remove(sessionId, state);
+            }
+        } finally {
+            state.lock.unlock();
+        }
+    }
+
+    private UploadSession loadOwned(UUID sessionId, User user) {
+        UploadSession session = uploadSessionRepository.findById(sessionId)
+                .orElseThrow(SessionNotFoundException::new);
+        if (!session.getUploadedBy().getId().equals(user.getId())) {
+            throw new AccessDeniedException("Access denied");
+        }
+        return session;
+    }
+
+    private void syncOffset(UploadSession session, long committed) {
+        if (session.getReceivedBytes() != committed) {
+            session.setReceivedBytes(committed);
+            uploadSessionRepository.save(session);
+        }
+    }
+
+    private Set<String> allowedMime() {
+        return Arrays.stream(allowedTypesCsv.split(","))
+                .map(String::trim).filter(s -> !s.isBlank())
+                .collect(Collectors.toSet());
+    }
+
+    private Path uploadsDir() {
+        return Path.of(storageDir).resolve("uploads");
+    }
+
+    private Path partPath(UUID sessionId) {
+        return uploadsDir().resolve(sessionId + ".part");
+    }
+
+    // length < 0 deletes the file
+    private static void truncateQuietly(Path part, long length) {
+        try {
+            if (length < 0) {
+                Files.deleteIfExists(part);
+            } else if (Files.exists(part)) {
+                try (FileChannel channel = FileChannel.open(part, StandardOpenOption.WRITE)) {
+                    channel.truncate(length);
+                }
+            }
+        } catch (IOException ignored) {}
+    }
+
+    private static String hash(Path file) throws IOException {
+        MessageDigest md = ArtifactFiles.sha256();
+        try (InputStream in = Files.newInputStream(file)) {
+            byte[] buf = new byte[64 * 1024];
+            int r;
+            while ((r = in.read(buf)) != -1) {
+                md.update(buf, 0, r);
+            }
+        }
+        return HexFormat.of().formatHex(md.digest());
+    }
+
+    private UploadSessionDTO toDto(UploadSession session) {
+        UploadSessionDTO dto = new UploadSessionDTO();
+        dto.setId(session.getId());
+        dto.setStudyId(session.getStudy() != null ? session.getStudy().getId() : null);
+        dto.setOriginalFilename(session.getOriginalFilename());
+        dto.setContentType(session.getContentType());
+        dto.setTotalBytes(session.getTotalBytes());
+        dto.setReceivedBytes(session.getReceivedBytes());
+        if (session.getUpdatedAt() != null) {
+            dto.setExpiresAt(session.getUpdatedAt().plusHours(sessionTtlHours));
+        }
+        return dto;
+    }
+}
@@ -0,0 +1,553 @@
+package com.artifactcomparator.service;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Source code metrics computed in one pass over a Reader with a small hand-written lexer.
+ *
+ * The lexer knows just enough of each language family to tell code from comments and string
+ * literals, so keywords inside strings or comments are not counted. Memory is a fixed read
+ * buffer plus a bounded paren stack; the file is never held as a String or split into lines.
+ *
+ * Functions are counted by keyword where the language has one (def, func, fun) and otherwise
+ * by the "name(...) ... {" shape, skipping control statements and anonymous classes. Nesting is
+ * the maximum brace depth, or the indentation depth for Python.
+ */
+public final class CodeMetrics {
+
+    private static final int BUFFER_SIZE = 16 * 1024;
+    private static final int MAX_IDENTIFIER = 128;
+    private static final int MAX_PAREN_STACK = 256;
+    private static final int MAX_INDENT_LEVELS = 128;
+
+    private static final Set<String> DECISION_KEYWORDS = Set.of(
+            "if", "for", "while", "case", "catch", "foreach", "elif", "except");
+    private static final Set<String> WORD_OPERATORS = Set.of("and", "or");
+    private static final Set<String> CLASS_KEYWORDS = Set.of("class", "interface", "struct", "enum", "trait");
+    private static final Set<String> CONTROL_KEYWORDS = Set.of(
+            "if", "for", "while", "switch", "catch", "synchronized", "using", "lock", "foreach", "fixed",
+            "return", "sizeof", "typeof", "with", "else", "do", "try", "when", "match", "new", "await",
+            "yield", "throw", "in", "of", "case", "default", "elif", "until", "unless");
+
+    private CodeMetrics() {
+    }
+
+    public enum Language {
+        // C, C++, C#: '#' at line start is a preprocessor directive
+        C_FAMILY(false, true, false, false, true, true, Set.of()),
+        // Java, JavaScript, TypeScript; Java text blocks are triple-quoted
+        CURLY(false, false, true, true, true, true, Set.of()),
+        // Go, Kotlin, Scala, Swift: C comments, functions introduced by a keyword, triple-quoted raw strings
+        KEYWORD_FUNCTIONS(false, false, true, true, false, true, Set.of("func", "fun", "def")),
+        PYTHON(true, false, true, false, false, false, Set.of("def")),
+        // Ruby, shell
+        SCRIPT(true, false, false, true, false, false, Set.of("def", "function"));
+
+        final boolean hashComments;
+        final boolean preprocessor;
+        final boolean tripleQuotes;
+        final boolean backtickStrings;
+        final boolean braceFunctions;
+        final boolean ternaryDecisions;
+        final Set<String> functionKeywords;
+
+        Language(boolean hashComments, boolean preprocessor, boolean tripleQuotes, boolean backtickStrings,
+                 boolean braceFunctions, boolean ternaryDecisions, Set<String> functionKeywords) {
+            this.hashComments = hashComments;
+            this.preprocessor = preprocessor;
+            this.tripleQuotes = tripleQuotes;
+            this.backtickStrings = backtickStrings;
+            this.braceFunctions = braceFunctions;
+            this.ternaryDecisions = ternaryDecisions;
+            this.functionKeywords = functionKeywords;
+        }
+
+        public static Language forExtension(String extension) {
+            if (extension == null) return CURLY;
+            return switch (extension.toLowerCase(Locale.ROOT)) {
+                case "c", "h", "cpp", "hpp", "cc", "cs" -> C_FAMILY;
+                case "go", "kt", "scala", "swift" -> KEYWORD_FUNCTIONS;
+                case "py" -> PYTHON;
+                case "rb", "sh" -> SCRIPT;
+                default -> CURLY;
+            };
+        }
+    }
+
+    public record Result(int loc,
+                         int sloc,
+                         int commentLines,
+                         int functions,
+                         int classes,
+                         int imports,
+                         int maxNesting,
+                         int cyclomatic,
+                         boolean usesSwitch,
+                         boolean usesInstanceof,
+                         boolean usesNew,
+                         boolean usesHttpClient,
+                         List<String> securityWarnings) {}
+
+    public static Result scan(Reader reader, Language language) throws IOException {
+        return new Scanner(reader, language).run();
+    }
+
+    private enum State { CODE, LINE_COMMENT, BLOCK_COMMENT, STRING, TRIPLE_STRING, RAW_STRING, DIRECTIVE }
+
+    private enum Token { NONE, IDENT, SYMBOL, OTHER }
+
+    private static final class Scanner {
+        private final Reader reader;
+        private final Language lang;
+        private final char[] buf = new char[BUFFER_SIZE];
+        private int pos;
+        private int len;
+
+        private State state = State.CODE;
+        private char quote;
+
+        // Per-line flags
+        private boolean lineNonBlank;
+        private boolean lineHasCode;
+        private boolean lineHasComment;
+        private boolean lineStart = true;
+        private int lineChars;
+        private int indent;
+
+        // Counters
+        private int loc, sloc, commentLines, functions, classes, imports, maxNesting, cyclomatic = 1;
+        private boolean usesSwitch, usesInstanceof, usesNew, usesHttpClient;
+        private boolean hardcodedPassword, secretToken, dynamicExec, systemExit;
+
+        // Token context
+        private final StringBuilder ident = new StringBuilder(32);
+        private final StringBuilder directive = new StringBuilder(16);
+        private boolean directiveRead;
+        private Token prevToken = Token.NONE;
+        private char prevSymbol;
+        private String prevIdent = "";
+        private String identBeforeDot = "";
+        private boolean prevIdentAfterNew;
+        private boolean afterClassKeyword;
+        private boolean afterImportKeyword;
+        private boolean afterUsingDirective;
+        private boolean inImportGroup;
+        private boolean secretPending;
+        private boolean passwordPending;
+
+        // Structure
+        private int braceDepth;
+        private int parenDepth;
+        private int parenOverflow;
+        private final Deque<String> parens = new ArrayDeque<>();
+        private String functionCandidate;
+        private final int[] indents = new int[MAX_INDENT_LEVELS];
+        private int indentTop;
+
+        Scanner(Reader reader, Language lang) {
+            this.reader = reader;
+            this.lang = lang;
+        }
+
+        private int read() throws IOException {
+            if (pos == len) {
+                len = reader.read(buf, 0, buf.length);
+                pos = 0;
+                if (len <= 0) {
+                    len = 0;
+                    return -1;
+                }
+            }
+            return buf[pos++];
+        }
+
+        private int peek() throws IOException {
+            if (pos == len) {
+                len = reader.read(buf, 0, buf.length);
+                pos = 0;
+                if (len <= 0) {
+                    len = 0;
+                    return -1;
+                }
+            }
+            return buf[pos];
+        }
+
+        Result run() throws IOException {
+            int c;
+            while ((c = read()) != -1) {
+                if (c == '\r') {
+                    if (peek() == '\n') read();
+                    endLine();
+                    continue;
+                }
+                if (c == '\n') {
+                    endLine();
+                    continue;
+                }
+                lineChars++;
+                boolean blank = Character.isWhitespace(c);
+                if (!blank) lineNonBlank = true;
+
+                switch (state) {
+                    case LINE_COMMENT -> {
+                        if (!blank) lineHasComment = true;
+                    }
+                    case BLOCK_COMMENT -> {
+                        if (!blank) lineHasComment = true;
+                        if (c == '*' && peek() == '/') {
+                            read();
+                            state = State.CODE;
+                        }
+                    }
+                    case STRING -> {
+                        lineHasCode = true;
+                        if (c == '\\') {
+                            skipEscaped();
+                        } else if (c == quote) {
+                            state = State.CODE;
+                        }
+                    }
+                    case TRIPLE_STRING -> {
+                        lineHasCode = true;
+                        if (c == '\\') {
+                            skipEscaped();
+                        } else if (c == quote && peek() == quote) {
+                            read();
+                            if (peek() == quote) {
+                                read();
+                                state = State.CODE;
+                            }
+                        }
+                    }
+                    case RAW_STRING -> {
+                        lineHasCode = true;
+                        if (c == '\\') {
+                            skipEscaped();
+                        } else if (c == '`') {
+                            state = State.CODE;
+                        }
+                    }
+                    case DIRECTIVE -> directive((char) c);
+                    case CODE -> code((char) c, blank);
+                }
+            }
+            if (lineChars > 0 || loc == 0) {
+                endLine();
+            }
+            return result();
+        }
+
+        private void skipEscaped() throws IOException {
+            int next = peek();
+            if (next != -1 && next != '\n' && next != '\r') {
+                read();
+            }
+        }
+
+        private void endLine() {
+            loc++;
+            if (lineNonBlank) sloc++;
+            if (lineHasComment && !lineHasCode) commentLines++;
+            lineNonBlank = lineHasCode = lineHasComment = false;
+            lineStart = true;
+            lineChars = 0;
+            indent = 0;
+            // Line comments, directives and ordinary string literals end at the line break
+            if (state == State.LINE_COMMENT || state == State.STRING || state == State.DIRECTIVE) {
+                state = State.CODE;
+            }
+        }
+
+        private void code(char c, boolean blank) throws IOException {
+            if (blank) {
+                if (lineStart) indent += c == '\t' ? 4 : 1;
+                return;
+            }
+
+            // Comments
+            if (lang.hashComments && c == '#') {
+                state = State.LINE_COMMENT;
+                lineHasComment = true;
+                lineStart = false;
+                return;
+            }
+            if (!lang.hashComments && c == '/') {
+                int next = peek();
+                if (next == '/') {
+                    read();
+                    state = State.LINE_COMMENT;
+                    lineHasComment = true;
+                    lineStart = false;
+                    return;
+                }
+                if (next == '*') {
+                    read();
+                    state = State.BLOCK_COMMENT;
+                    lineHasComment = true;
+                    lineStart = false;
+                    return;
+                }
+            }
+
+            lineHasCode = true;
+            if (lineStart) {
+                lineStart = false;
+                if (lang.preprocessor && c == '#') {
+                    state = State.DIRECTIVE;
+                    directive.setLength(0);
+                    directiveRead = false;
+                    return;
+                }
+                if (lang == Language.PYTHON && parenDepth == 0) {
+                    indentTo(indent);
+                }
+            }
+
+            // String literals
+            if (c == '"' || c == '\'') {
+                startString(c);
+                return;
+            }
+            if (c == '`' && lang.backtickStrings) {
+                state = State.RAW_STRING;
+                onOtherToken();
+                return;
+            }
+
+            if (Character.isJavaIdentifierStart(c)) {
+                ident.setLength(0);
+                ident.append(c);
+                int next;
+                while ((next = peek()) != -1 && Character.isJavaIdentifierPart((char) next)) {
+                    read();
+                    if (ident.length() < MAX_IDENTIFIER) ident.append((char) next);
+                }
+                onIdentifier(ident.toString());
+                return;
+            }
+            if (Character.isDigit(c)) {
+                int next;
+                while ((next = peek()) != -1 && (Character.isLetterOrDigit((char) next) || next == '.' || next == '_')) {
+                    read();
+                }
+                onOtherToken();
+                return;
+            }
+            onSymbol(c);
+        }
+
+        private void startString(char c) throws IOException {
+            if (inImportGroup) imports++;
+            if (lang.tripleQuotes && peek() == c) {
+                read();
+                if (peek() == c) {
+                    read();
+                    quote = c;
+                    state = State.TRIPLE_STRING;
+                }
+                // else: empty string literal, already consumed
+                onOtherToken();
+                return;
+            }
+            quote = c;
+            state = State.STRING;
+            onOtherToken();
+        }
+
+        private void directive(char c) {
+            if (directiveRead) return;
+            if (Character.isLetter(c)) {
+                if (directive.length() < 16) directive.append(c);
+                return;
+            }
+            if (directive.length() > 0) {
+                String word = directive.toString();
+                if (word.equals("include") || word.equals("import")) imports++;
+                directiveRead = true;
+            }
+        }
+
+        private void indentTo(int width) {
+            while (indentTop > 0 && indents[indentTop] > width) indentTop--;
+            if (width > indents[indentTop] && indentTop < MAX_INDENT_LEVELS - 1) {
+                indents[++indentTop] = width;
+            }
+            maxNesting = Math.max(maxNesting, indentTop);
+        }
+
+        private void onIdentifier(String id) {
+            boolean afterDot = prevToken == Token.SYMBOL && prevSymbol == '.';
+
+            if (afterClassKeyword) {
+                afterClassKeyword = false;
+                if (CLASS_KEYWORDS.contains(id)) {
+                    // "enum class Foo": count the type once
+                    afterClassKeyword = true;
+                } else {
+                    classes++;
+                }
+            }
+            if (afterImportKeyword) {
+                afterImportKeyword = false;
+                imports++;
+            }
+            if (afterUsingDirective) {
+                afterUsingDirective = false;
+                if (!id.equals("var")) imports++;
+            }
+            secretPending = passwordPending = false;
+
+            if (!afterDot) {
+                if (DECISION_KEYWORDS.contains(id)) cyclomatic++;
+                if ((lang == Language.PYTHON || lang == Language.SCRIPT) && WORD_OPERATORS.contains(id)) cyclomatic++;
+                if (CLASS_KEYWORDS.contains(id)) afterClassKeyword = true;
+                if (lang.functionKeywords.contains(id)) functions++;
+                switch (id) {
+                    case "import" -> afterImportKeyword = true;
+                    case "require" -> {
+                        if (lang == Language.SCRIPT) imports++;
+                    }
+                    case "using" -> {
+                        // A directive starts a statement; "using (...)" and "using var" are statements
+                        boolean statementStart = prevToken == Token.NONE || prevToken == Token.SYMBOL
+                                && (prevSymbol == ';' || prevSymbol == '{' || prevSymbol == '}');
+                        afterUsingDirective = lang == Language.C_FAMILY && statementStart;
+                    }
+                    case "switch" -> usesSwitch = true;
+                    case "instanceof" -> usesInstanceof = true;
+                    case "new" -> usesNew = true;
+                    default -> { }
+                }
+            }
+            if (id.contains("HttpClient")) usesHttpClient = true;
+            if (afterDot && id.equals("exit") && identBeforeDot.equals("System")) systemExit = true;
+
+            String lower = id.toLowerCase(Locale.ROOT);
+            if (lower.endsWith("password") || lower.endsWith("passwd")) passwordPending = true;
+            if (lower.endsWith("secret")) secretPending = true;
+
+            prevIdentAfterNew = prevToken == Token.IDENT && prevIdent.equals("new");
+            prevIdent = id;
+            prevToken = Token.IDENT;
+        }
+
+        private void onOtherToken() {
+            afterClassKeyword = false;
+            if (afterImportKeyword) {
+                // import "fmt" / import 'x' / import * as y
+                afterImportKeyword = false;
+                imports++;
+            }
+            afterUsingDirective = false;
+            secretPending = passwordPending = false;
+            functionCandidate = null;
+            prevToken = Token.OTHER;
+        }
+
+        private void onSymbol(char c) throws IOException {
+            afterClassKeyword = false;
+            if (afterImportKeyword) {
+                afterImportKeyword = false;
+                if (c == '(' && lang == Language.KEYWORD_FUNCTIONS) {
+                    // Go: import ( "a" "b" ) counts each path
+                    inImportGroup = true;
+                } else {
+                    imports++;
+                }
+            }
+            afterUsingDirective = false;
+
+            if (c == '=' || c == ':') {
+                boolean assignment = c == ':' || peek() != '=';
+                if (assignment && passwordPending) hardcodedPassword = true;
+                if (assignment && secretPending) secretToken = true;
+            }
+            secretPending = passwordPending = false;
+
+            switch (c) {
+                case '{' -> {
+                    if (lang.braceFunctions && functionCandidate != null) functions++;
+                    functionCandidate = null;
+                    braceDepth++;
+                    if (lang != Language.PYTHON) maxNesting = Math.max(maxNesting, braceDepth);
+                }
+                case '}' -> {
+                    braceDepth = Math.max(0, braceDepth - 1);
+                    functionCandidate = null;
+                }
+                case '(' -> {
+                    String name = prevToken == Token.IDENT && !prevIdentAfterNew ? prevIdent : "";
+                    if ((name.equals("eval") || name.equals("exec"))) dynamicExec = true;
+                    if (parens.size() < MAX_PAREN_STACK) parens.push(name);
+                    else parenOverflow++;
+                    parenDepth++;
+                    functionCandidate = null;
+                }
+                case ')' -> {
+                    String name;
+                    if (parenOverflow > 0) {
+                        parenOverflow--;
+                        name = "";
+                    } else {
+                        name = parens.isEmpty() ? "" : parens.pop();
+                    }
+                    parenDepth = Math.max(0, parenDepth - 1);
+                    if (inImportGroup) inImportGroup = false;
+                    functionCandidate = !name.isEmpty() && !CONTROL_KEYWORDS.contains(name) ? name : null;
+                }
+                case '&' -> {
+                    if (peek() == '&') {
+                        read();
+                        cyclomatic++;
+                    }
+                }
+                case '|' -> {
+                    if (peek() == '|') {
+                        read();
+                        cyclomatic++;
+                        functionCandidate = null;
+                    }
+                }
+                case '?' -> {
+                    int next = peek();
+                    if (next == '.' || next == '?') {
+                        read();
+                    } else if (lang.ternaryDecisions) {
+                        cyclomatic++;
+                    }
+                }
+                case '=' -> {
+                    if (peek() == '>') read();
+                    functionCandidate = null;
+                }
+                // Allowed between ")" and "{" of a definition: throws lists, return types, qualifiers
+                case ',', '.', ':', '<', '>', '[', ']', '*', '-', '@' -> { }
+                default -> functionCandidate = null;
+            }
+
+            if (c == '.') {
+                identBeforeDot = prevToken == Token.IDENT ? prevIdent : "";
+            }
+            prevSymbol = c;
+            prevToken = Token.SYMBOL;
+        }
+
+        private Result result() {
+            List<String> warnings = new ArrayList<>();
+            if (hardcodedPassword) warnings.add("Potential hardcoded password.");
+            if (secretToken) warnings.add("Secret token detected.");
+            if (dynamicExec) warnings.add("Dynamic code execution detected.");
+            if (systemExit) warnings.add("System exit calls found – disrupts flow.");
+            return new Result(loc, sloc, commentLines, functions, classes, imports, maxNesting, cyclomatic,
+                    usesSwitch, usesInstanceof, usesNew, usesHttpClient, warnings);
+        }
+    }
+}
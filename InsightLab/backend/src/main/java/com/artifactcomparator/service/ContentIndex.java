@@ -0,0 +1,705 @@
+package com.artifactcomparator.service;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Embedded inverted index over artifact content (source code, text files, extracted PDF text).
+ *
+ * The index is a set of immutable segment files under {storage-dir}/index, listed in a small
+ * manifest. Every indexed artifact is written as a new segment and segments of similar size
+ * are merged in groups of {@value #MERGE_FACTOR}, so the number of files stays logarithmic.
+ * Deletes are tombstones (artifact id + generation) that hide the document in every segment
+ * older than the tombstone; merges drop tombstoned documents for good. Re-indexing an
+ * artifact is a tombstone plus a new segment.
+ *
+ * Writers are serialised; readers work on an immutable snapshot of segments and tombstones,
+ * so searches never wait for indexing or merging. Merges and deletes run on a background
+ * thread: a merge builds its segment from a snapshot and only takes the write lock to publish
+ * it, and deletes are queued and recorded in batches. Segment files and the manifest are synced
+ * to disk before they are renamed into place. An unreadable index is wiped and rebuilt.
+ */
+@Component
+@Slf4j
+public class ContentIndex {
+
+    public static final int MAX_TOKEN_LENGTH = 64;
+
+    private static final int MERGE_FACTOR = 10;
+    private static final long MAX_MERGED_BYTES = 1L << 30;
+    private static final int MAX_PREFIX_EXPANSION = 1024;
+    private static final int MIN_PREFIX_LENGTH = 2;
+    private static final String MANIFEST = "manifest";
+
+    @Value("${app.artifacts.storage-dir}")
+    private String storageDir;
+
+    @Value("${app.artifacts.content-index.max-tokens-per-artifact:2000000}")
+    private int maxTokensPerArtifact;
+
+    private final Executor background;
+    private final AtomicBoolean mergeScheduled = new AtomicBoolean();
+    private final Queue<UUID> pendingDeletes = new ConcurrentLinkedQueue<>();
+
+    private Path dir;
+    private final Object writeLock = new Object();
+    private long nextGeneration = 1;
+    private boolean createdFresh;
+    private volatile Snapshot snapshot = new Snapshot(List.of(), Map.of());
+
+    private record Snapshot(List<ContentIndexSegment> segments, Map<UUID, Long> tombstones) {
+
+        boolean isLive(ContentIndexSegment segment, int doc) {
+            Long deletedAt = tombstones.get(segment.docIds[doc]);
+            return deletedAt == null || deletedAt < segment.generation;
+        }
+    }
+
+    /**
+     * Owner-only or explicit-artifact-set scope. A document matches if either applies.
+     */
+    public record Scope(Long ownerId, Set<UUID> artifactIds) {
+
+        public static Scope owner(Long ownerId) {
+            return new Scope(ownerId, null);
+        }
+
+        public static Scope artifacts(Set<UUID> artifactIds) {
+            return new Scope(null, artifactIds);
+        }
+
+        boolean matches(UUID id, long owner) {
+            return (ownerId != null && ownerId == owner) || (artifactIds != null && artifactIds.contains(id));
+        }
+    }
+
+    public record Hit(UUID artifactId, double score) {}
+
+    public ContentIndex(@Qualifier("contentIndexExecutor") Executor background) {
+        this.background = background;
+    }
+
+    @PostConstruct
+    void open() throws IOException {
+        dir = Path.of(storageDir).resolve("index");
+        Files.createDirectories(dir);
+        Path manifest = dir.resolve(MANIFEST);
+        createdFresh = !Files.exists(manifest);
+
+        if (!createdFresh) {
+            try {
+                load(manifest);
+            } catch (IOException | RuntimeException e) {
+                // Everything in here can be rebuilt from the artifacts, so start over instead of failing start-up
+                log.warn("Content index is unreadable, rebuilding it: {}", e.toString());
+                createdFresh = true;
+            }
+        }
+        if (createdFresh) {
+            nextGeneration = 1;
+            snapshot = new Snapshot(List.of(), Map.of());
+            removeStrayFiles();
+            // Later start-ups find a manifest and do not queue every artifact again
+            publish(new ArrayList<>(), new HashMap<>());
+        } else {
+            removeStrayFiles();
+        }
+        log.info("Content index opened with {} segments", snapshot.segments().size());
+    }
+
+    private void load(Path manifest) throws IOException {
+        long next = 1;
+        List<ContentIndexSegment> segments = new ArrayList<>();
+        Map<UUID, Long> tombstones = new HashMap<>();
+        for (String line : Files.readAllLines(manifest, StandardCharsets.UTF_8)) {
+            String[] parts = line.trim().split(" ");
+            switch (parts[0]) {
+                case "next" -> next = Long.parseLong(parts[1]);
+                case "segment" -> {
+                    long gen = Long.parseLong(parts[1]);
+                    segments.add(ContentIndexSegment.open(gen, segmentPath(gen)));
+                }
+                case "delete" -> tombstones.put(UUID.fromString(parts[1]), Long.parseLong(parts[2]));
+                default -> { }
+            }
+        }
+        segments.sort(Comparator.comparingLong(s -> s.generation));
+        nextGeneration = next;
+        snapshot = new Snapshot(List.copyOf(segments), Map.copyOf(tombstones));
+    }
+
+    /**
+     * True when the index directory had no manifest at start-up or was unreadable and wiped,
+     * i.e. existing artifacts still have to be indexed.
+     */
+    public boolean isCreatedFresh() {
+        return createdFresh;
+    }
+
+    // ------------------------------------------------------------------
+    // Writing
+    // ------------------------------------------------------------------
+
+    /**
+     * Collects the tokens of one artifact before it is added.
+     */
+    public final class Document {
+        private final UUID artifactId;
+        private final long ownerId;
+        private final Map<String, IntList> positions = new HashMap<>();
+        private int position;
+
+        private Document(UUID artifactId, long ownerId) {
+            this.artifactId = artifactId;
+            this.ownerId = ownerId;
+        }
+
+        public void addText(Reader reader) throws IOException {
+            tokenize(reader, this::accept);
+            // Keep phrases from matching across separately added parts (e.g. PDF pages)
+            position++;
+        }
+
+        public void addText(String text) {
+            try {
+                addText(new StringReader(text));
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        private boolean accept(String token) {
+            if (position >= maxTokensPerArtifact) {
+                return false;
+            }
+            positions.computeIfAbsent(token, t -> new IntList()).add(position++);
+            return true;
+        }
+    }
+
+    public Document newDocument(UUID artifactId, long ownerId) {
+        return new Document(artifactId, ownerId);
+    }
+
+    /**
+     * Adds or replaces the artifact's document.
+     */
+    public void add(Document doc) throws IOException {
+        TreeMap<String, List<ContentIndexSegment.Posting>> terms = new TreeMap<>();
+        doc.positions.forEach((term, list) ->
+                terms.put(term, List.of(new ContentIndexSegment.Posting(0, list.toArray()))));
+
+        synchronized (writeLock) {
+            Snapshot snap = snapshot;
+            Map<UUID, Long> tombstones = new HashMap<>(snap.tombstones());
+            if (containsLive(snap, doc.artifactId)) {
+                tombstones.put(doc.artifactId, nextGeneration++);
+            }
+            long gen = nextGeneration++;
+            Path file = segmentPath(gen);
+            ContentIndexSegment.write(file, new ContentIndexSegment.Source(
+                    new UUID[] { doc.artifactId }, new long[] { doc.ownerId }, terms.entrySet().iterator()));
+
+            List<ContentIndexSegment> segments = new ArrayList<>(snap.segments());
+            segments.add(ContentIndexSegment.open(gen, file));
+            publish(segments, tombstones);
+        }
+        scheduleMerge();
+    }
+
+    /**
+     * Queues a tombstone for the artifact; it is recorded in the background.
+     */
+    public void delete(UUID artifactId) {
+        pendingDeletes.add(artifactId);
+        background.execute(this::applyDeletes);
+    }
+
+    private void applyDeletes() {
+        synchronized (writeLock) {
+            Snapshot snap = snapshot;
+            Map<UUID, Long> tombstones = new HashMap<>(snap.tombstones());
+            int count = 0;
+            UUID artifactId;
+            while ((artifactId = pendingDeletes.poll()) != null) {
+                if (containsLive(snap, artifactId)) {
+                    tombstones.put(artifactId, nextGeneration++);
+                    count++;
+                }
+            }
+            if (count == 0) {
+                return;
+            }
+            try {
+                publish(new ArrayList<>(snap.segments()), tombstones);
+            } catch (IOException e) {
+                // Searches re-check artifacts against the database, so a missed delete is only cosmetic
+                log.warn("Failed to record {} content index deletes: {}", count, e.getMessage());
+            }
+        }
+    }
+
+    private static boolean containsLive(Snapshot snap, UUID artifactId) {
+        for (ContentIndexSegment segment : snap.segments()) {
+            int doc = segment.findDoc(artifactId);
+            if (doc >= 0 && snap.isLive(segment, doc)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Writes the manifest first, then makes the new state visible to readers.
+     */
+    private void publish(List<ContentIndexSegment> segments, Map<UUID, Long> tombstones) throws IOException {
+        // A tombstone older than every segment cannot hide anything any more
+        long oldest = segments.stream().mapToLong(s -> s.generation).min().orElse(Long.MAX_VALUE);
+        tombstones.values().removeIf(gen -> gen < oldest);
+
+        StringBuilder sb = new StringBuilder();
+        sb.append("next ").append(nextGeneration).append('\n');
+        for (ContentIndexSegment segment : segments) {
+            sb.append("segment ").append(segment.generation).append('\n');
+        }
+        tombstones.forEach((id, gen) -> sb.append("delete ").append(id).append(' ').append(gen).append('\n'));
+
+        Path tmp = dir.resolve(MANIFEST + ".tmp");
+        try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            ByteBuffer bytes = StandardCharsets.UTF_8.encode(sb.toString());
+            while (bytes.hasRemaining()) {
+                channel.write(bytes);
+            }
+            channel.force(true);
+        }
+        Files.move(tmp, dir.resolve(MANIFEST), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        syncDirectory();
+        snapshot = new Snapshot(List.copyOf(segments), Map.copyOf(tombstones));
+    }
+
+    /**
+     * Makes the renames in the index directory durable. Not every platform can open a
+     * directory; there the rename is as durable as the OS makes it.
+     */
+    private void syncDirectory() {
+        try (FileChannel channel = FileChannel.open(dir, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException e) {
+            log.debug("Could not sync content index directory: {}", e.getMessage());
+        }
+    }
+
+    private void scheduleMerge() {
+        if (mergeScheduled.compareAndSet(false, true)) {
+            background.execute(this::mergeWhileNeeded);
+        }
+    }
+
+    private void mergeWhileNeeded() {
+        try {
+            List<ContentIndexSegment> group;
+            while ((group = pickMerge(snapshot.segments())) != null) {
+                merge(group);
+            }
+        } catch (IOException | RuntimeException e) {
+            // The segments stay as they are; the next add tries again
+            log.warn("Content index merge failed: {}", e.getMessage());
+        } finally {
+            mergeScheduled.set(false);
+        }
+    }
+
+    /**
+     * Segments are bucketed by order of magnitude of their document count; the first bucket
+     * that holds MERGE_FACTOR segments is merged into one segment of the next bucket.
+     */
+    private static List<ContentIndexSegment> pickMerge(List<ContentIndexSegment> segments) throws IOException {
+        Map<Integer, List<ContentIndexSegment>> levels = new TreeMap<>();
+        for (ContentIndexSegment segment : segments) {
+            int level = 0;
+            for (long n = segment.docCount(); n >= MERGE_FACTOR; n /= MERGE_FACTOR) {
+                level++;
+            }
+            levels.computeIfAbsent(level, l -> new ArrayList<>()).add(segment);
+        }
+        for (List<ContentIndexSegment> level : levels.values()) {
+            if (level.size() < MERGE_FACTOR) {
+                continue;
+            }
+            List<ContentIndexSegment> group = level.subList(0, MERGE_FACTOR);
+            long bytes = 0;
+            for (ContentIndexSegment segment : group) {
+                bytes += Files.size(segment.file);
+            }
+            if (bytes <= MAX_MERGED_BYTES) {
+                return group;
+            }
+        }
+        return null;
+    }
+
+    private record LiveDoc(UUID id, long owner, int part, int local) {}
+
+    /**
+     * Runs on the background thread only, so the parts cannot be merged away by anyone else.
+     */
+    private void merge(List<ContentIndexSegment> parts) throws IOException {
+        Snapshot snap;
+        long gen;
+        synchronized (writeLock) {
+            // Taken together: every tombstone the snapshot lacks is newer than the merged segment
+            // and still hides its documents
+            snap = snapshot;
+            gen = nextGeneration++;
+        }
+
+        // New local ids: live documents of all parts, sorted by artifact id
+        List<LiveDoc> live = new ArrayList<>();
+        int[][] remap = new int[parts.size()][];
+        for (int p = 0; p < parts.size(); p++) {
+            ContentIndexSegment segment = parts.get(p);
+            remap[p] = new int[segment.docCount()];
+            Arrays.fill(remap[p], -1);
+            for (int d = 0; d < segment.docCount(); d++) {
+                if (snap.isLive(segment, d)) {
+                    live.add(new LiveDoc(segment.docIds[d], segment.owners[d], p, d));
+                }
+            }
+        }
+        live.sort(Comparator.comparing(LiveDoc::id));
+        UUID[] ids = new UUID[live.size()];
+        long[] owners = new long[live.size()];
+        for (int i = 0; i < live.size(); i++) {
+            LiveDoc doc = live.get(i);
+            ids[i] = doc.id();
+            owners[i] = doc.owner();
+            remap[doc.part()][doc.local()] = i;
+        }
+
+        Path file = segmentPath(gen);
+        ContentIndexSegment.write(file, new ContentIndexSegment.Source(ids, owners, new MergedTerms(parts, remap)));
+        ContentIndexSegment merged = ContentIndexSegment.open(gen, file);
+
+        synchronized (writeLock) {
+            Snapshot current = snapshot;
+            List<ContentIndexSegment> segments = new ArrayList<>(current.segments());
+            segments.removeAll(parts);
+            segments.add(merged);
+            segments.sort(Comparator.comparingLong(s -> s.generation));
+            publish(segments, new HashMap<>(current.tombstones()));
+        }
+        for (ContentIndexSegment part : parts) {
+            // Open snapshots keep reading the mapping; the file itself is no longer listed
+            Files.deleteIfExists(part.file);
+        }
+        log.debug("Merged {} content index segments into {} ({} documents)", parts.size(), gen, ids.length);
+    }
+
+    /**
+     * K-way merge of the parts' term dictionaries; postings are remapped to the new doc ids,
+     * dropped documents are skipped and terms left without postings are omitted.
+     */
+    private static final class MergedTerms implements Iterator<Map.Entry<String, List<ContentIndexSegment.Posting>>> {
+        private final List<ContentIndexSegment> parts;
+        private final int[][] remap;
+        private final int[] cursor;
+        private final PriorityQueue<Integer> queue;
+        private Map.Entry<String, List<ContentIndexSegment.Posting>> next;
+
+        MergedTerms(List<ContentIndexSegment> parts, int[][] remap) {
+            this.parts = parts;
+            this.remap = remap;
+            this.cursor = new int[parts.size()];
+            this.queue = new PriorityQueue<>(Comparator.comparing((Integer p) -> parts.get(p).term(cursor[p])));
+            for (int p = 0; p < parts.size(); p++) {
+                if (parts.get(p).termCount() > 0) queue.add(p);
+            }
+            advance();
+        }
+
+        private void advance() {
+            next = null;
+            while (next == null && !queue.isEmpty()) {
+                String term = parts.get(queue.peek()).term(cursor[queue.peek()]);
+                List<ContentIndexSegment.Posting> postings = new ArrayList<>();
+                while (!queue.isEmpty() && parts.get(queue.peek()).term(cursor[queue.peek()]).equals(term)) {
+                    int p = queue.poll();
+                    for (ContentIndexSegment.Posting posting : parts.get(p).postings(cursor[p])) {
+                        int doc = remap[p][posting.doc()];
+                        if (doc >= 0) {
+                            postings.add(new ContentIndexSegment.Posting(doc, posting.positions()));
+                        }
+                    }
+                    if (++cursor[p] < parts.get(p).termCount()) {
+                        queue.add(p);
+                    }
+                }
+                if (!postings.isEmpty()) {
+                    postings.sort(Comparator.comparingInt(ContentIndexSegment.Posting::doc));
+                    next = Map.entry(term, postings);
+                }
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next != null;
+        }
+
+        @Override
+        public Map.Entry<String, List<ContentIndexSegment.Posting>> next() {
+            if (next == null) throw new NoSuchElementException();
+            Map.Entry<String, List<ContentIndexSegment.Posting>> current = next;
+            advance();
+            return current;
+        }
+    }
+
+    private Path segmentPath(long generation) {
+        return dir.resolve("seg-" + generation + ".cix");
+    }
+
+    private void removeStrayFiles() throws IOException {
+        Set<Path> listed = new HashSet<>();
+        for (ContentIndexSegment segment : snapshot.segments()) {
+            listed.add(segment.file);
+        }
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(dir)) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                if (!name.equals(MANIFEST) && !listed.contains(file)) {
+                    // Leftovers of a crash between writing a segment and the manifest
+                    Files.deleteIfExists(file);
+                }
+            }
+        }
+    }
+
+    // ------------------------------------------------------------------
+    // Searching
+    // ------------------------------------------------------------------
+
+    private sealed interface Clause permits TermClause, PrefixClause, PhraseClause {}
+
+    private record TermClause(String term) implements Clause {}
+
+    private record PrefixClause(String prefix) implements Clause {}
+
+    private record PhraseClause(List<String> terms) implements Clause {}
+
+    /**
+     * All clauses must match: bare words are terms, {@code word*} is a prefix and
+     * {@code "several words"} is a phrase. Results are ranked by tf-idf.
+     */
+    public List<Hit> search(String query, Scope scope, int limit) {
+        List<Clause> clauses = parse(query);
+        if (clauses.isEmpty()) {
+            return List.of();
+        }
+        Snapshot snap = snapshot;
+        List<Hit> hits = new ArrayList<>();
+        for (ContentIndexSegment segment : snap.segments()) {
+            Map<Integer, Double> scores = null;
+            for (Clause clause : clauses) {
+                Map<Integer, Double> matched = evaluate(segment, clause);
+                if (scores == null) {
+                    scores = matched;
+                } else {
+                    Map<Integer, Double> joined = new HashMap<>();
+                    for (Map.Entry<Integer, Double> e : scores.entrySet()) {
+                        Double other = matched.get(e.getKey());
+                        if (other != null) joined.put(e.getKey(), e.getValue() + other);
+                    }
+                    scores = joined;
+                }
+                if (scores.isEmpty()) break;
+            }
+            for (Map.Entry<Integer, Double> e : scores.entrySet()) {
+                int doc = e.getKey();
+                if (snap.isLive(segment, doc) && scope.matches(segment.docIds[doc], segment.owners[doc])) {
+                    hits.add(new Hit(segment.docIds[doc], e.getValue()));
+                }
+            }
+        }
+        hits.sort(Comparator.comparingDouble(Hit::score).reversed().thenComparing(Hit::artifactId));
+        return hits.size() > limit ? List.copyOf(hits.subList(0, limit)) : hits;
+    }
+
+    private static Map<Integer, Double> evaluate(ContentIndexSegment segment, Clause clause) {
+        Map<Integer, Double> scores = new HashMap<>();
+        if (clause instanceof TermClause t) {
+            int index = segment.findTerm(t.term());
+            if (index >= 0) addScores(segment, index, scores);
+        } else if (clause instanceof PrefixClause p) {
+            int[] range = segment.prefixRange(p.prefix());
+            int to = Math.min(range[1], range[0] + MAX_PREFIX_EXPANSION);
+            for (int index = range[0]; index < to; index++) {
+                addScores(segment, index, scores);
+            }
+        } else if (clause instanceof PhraseClause p) {
+            List<Map<Integer, int[]>> perTerm = new ArrayList<>();
+            for (String term : p.terms()) {
+                int index = segment.findTerm(term);
+                if (index < 0) return scores;
+                Map<Integer, int[]> byDoc = new HashMap<>();
+                for (ContentIndexSegment.Posting posting : segment.postings(index)) {
+                    byDoc.put(posting.doc(), posting.positions());
+                }
+                perTerm.add(byDoc);
+            }
+            double idf = Math.log(1 + (double) segment.docCount() / perTerm.get(0).size());
+            for (Map.Entry<Integer, int[]> first : perTerm.get(0).entrySet()) {
+                int matches = 0;
+                for (int start : first.getValue()) {
+                    boolean all = true;
+                    for (int i = 1; i < perTerm.size() && all; i++) {
+                        int[] positions = perTerm.get(i).get(first.getKey());
+                        all = positions != null && Arrays.binarySearch(positions, start + i) >= 0;
+                    }
+                    if (all) matches++;
+                }
+                if (matches > 0) {
+                    scores.put(first.getKey(), (1 + Math.log(matches)) * idf * p.terms().size());
+                }
+            }
+        }
+        return scores;
+    }
+
+    private static void addScores(ContentIndexSegment segment, int termIndex, Map<Integer, Double> scores) {
+        double idf = Math.log(1 + (double) segment.docCount() / segment.df(termIndex));
+        for (ContentIndexSegment.Posting posting : segment.postings(termIndex)) {
+            double score = (1 + Math.log(posting.positions().length)) * idf;
+            scores.merge(posting.doc(), score, Double::sum);
+        }
+    }
+
+    private static List<Clause> parse(String query) {
+        List<Clause> clauses = new ArrayList<>();
+        if (query == null) {
+            return clauses;
+        }
+        int i = 0;
+        while (i < query.length()) {
+            char c = query.charAt(i);
+            if (Character.isWhitespace(c)) {
+                i++;
+            } else if (c == '"') {
+                int end = query.indexOf('"', i + 1);
+                if (end < 0) end = query.length();
+                addWords(clauses, tokenize(query.substring(i + 1, end)), false);
+                i = end + 1;
+            } else {
+                int end = i;
+                while (end < query.length() && !Character.isWhitespace(query.charAt(end))) end++;
+                String word = query.substring(i, end);
+                boolean prefix = word.endsWith("*");
+                addWords(clauses, tokenize(prefix ? word.substring(0, word.length() - 1) : word), prefix);
+                i = end;
+            }
+        }
+        return clauses;
+    }
+
+    private static void addWords(List<Clause> clauses, List<String> tokens, boolean prefix) {
+        if (tokens.isEmpty()) {
+            return;
+        }
+        if (tokens.size() > 1) {
+            // "foo.bar" or a quoted phrase: the tokens must be adjacent
+            clauses.add(new PhraseClause(tokens));
+        } else if (prefix) {
+            if (tokens.get(0).length() < MIN_PREFIX_LENGTH) {
+                throw new IllegalArgumentException("Prefix queries need at least " + MIN_PREFIX_LENGTH + " characters");
+            }
+            clauses.add(new PrefixClause(tokens.get(0)));
+        } else {
+            clauses.add(new TermClause(tokens.get(0)));
+        }
+    }
+
+    // ------------------------------------------------------------------
+    // Tokenizing
+    // ------------------------------------------------------------------
+
+    private interface TokenSink {
+        /**
+         * @return false to stop tokenizing
+         */
+        boolean accept(String token);
+    }
+
+    /**
+     * Lower-cased runs of letters, digits and underscores. Tokens longer than
+     * {@link #MAX_TOKEN_LENGTH} (hashes, base64 blobs) are skipped.
+     */
+    private static void tokenize(Reader reader, TokenSink sink) throws IOException {
+        char[] buf = new char[8192];
+        StringBuilder token = new StringBuilder(MAX_TOKEN_LENGTH);
+        boolean tooLong = false;
+        int n;
+        while ((n = reader.read(buf)) > 0) {
+            for (int i = 0; i < n; i++) {
+                char c = buf[i];
+                if (Character.isLetterOrDigit(c) || c == '_') {
+                    if (token.length() < MAX_TOKEN_LENGTH) {
+                        token.append(Character.toLowerCase(c));
+                    } else {
+                        tooLong = true;
+                    }
+                } else if (token.length() > 0) {
+                    if (!tooLong && !sink.accept(token.toString())) return;
+                    token.setLength(0);
+                    tooLong = false;
+                }
+            }
+        }
+        if (token.length() > 0 && !tooLong) {
+            sink.accept(token.toString());
+        }
+    }
+
+    private static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        try {
+            tokenize(new StringReader(text), tokens::add);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        return tokens;
+    }
+
+    private static final class IntList {
+        private int[] values = new int[4];
+        private int size;
+
+        void add(int value) {
+            if (size == values.length) values = Arrays.copyOf(values, size * 2);
+            values[size++] = value;
+        }
+
+        int[] toArray() {
+            return Arrays.copyOf(values, size);
+        }
+    }
+}
@@ -0,0 +1,278 @@
+package com.artifactcomparator.service;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * One immutable segment of the content index.
+ *
+ * File layout (all integers in the postings are unsigned varints):
+ * <pre>
+ *   "CIX1" | docCount:int | docCount x (uuid msb:long, uuid lsb:long, ownerId:long)
+ *   postings, one block per term in term order:
+ *       df, then per document: docDelta, freq, freq x positionDelta
+ *   dictionary: termCount:int | termCount x (term:utf, df:int, offset:long)
+ *   dictionaryOffset:long
+ * </pre>
+ * Documents are sorted by artifact id, which makes the local doc id a binary search away;
+ * postings list local doc ids in ascending order, so both doc ids and positions are
+ * delta-encoded. The file is memory-mapped; only the term dictionary lives on the heap.
+ */
+final class ContentIndexSegment {
+
+    private static final int MAGIC = 0x43495831; // "CIX1"
+
+    final long generation;
+    final Path file;
+    final UUID[] docIds;
+    final long[] owners;
+    private final String[] terms;
+    private final int[] dfs;
+    private final long[] offsets;
+    private final MappedByteBuffer data;
+
+    private ContentIndexSegment(long generation, Path file, UUID[] docIds, long[] owners,
+                                String[] terms, int[] dfs, long[] offsets, MappedByteBuffer data) {
+        this.generation = generation;
+        this.file = file;
+        this.docIds = docIds;
+        this.owners = owners;
+        this.terms = terms;
+        this.dfs = dfs;
+        this.offsets = offsets;
+        this.data = data;
+    }
+
+    /**
+     * Postings of one term in one document: ascending token positions.
+     */
+    record Posting(int doc, int[] positions) {}
+
+    /**
+     * Input for writing a segment: documents sorted by id (local doc id = array index) and the
+     * terms in ascending order, each with its postings sorted by local doc id. Terms are
+     * consumed one at a time so a merge never holds all postings in memory.
+     */
+    record Source(UUID[] docIds, long[] owners, Iterator<Map.Entry<String, List<Posting>>> terms) {}
+
+    int docCount() {
+        return docIds.length;
+    }
+
+    int termCount() {
+        return terms.length;
+    }
+
+    String term(int index) {
+        return terms[index];
+    }
+
+    int df(int index) {
+        return dfs[index];
+    }
+
+    /**
+     * Local id of the document, or a negative value if this segment does not contain it.
+     */
+    int findDoc(UUID id) {
+        return Arrays.binarySearch(docIds, id);
+    }
+
+    int findTerm(String term) {
+        return Arrays.binarySearch(terms, term);
+    }
+
+    /**
+     * Index range [from, to) of the terms starting with the prefix.
+     */
+    int[] prefixRange(String prefix) {
+        int from = Arrays.binarySearch(terms, prefix);
+        if (from < 0) from = -from - 1;
+        int to = from;
+        while (to < terms.length && terms[to].startsWith(prefix)) to++;
+        return new int[] { from, to };
+    }
+
+    /**
+     * Decodes the postings of the term at the given dictionary index.
+     */
+    Posting[] postings(int termIndex) {
+        ByteBuffer in = data.duplicate();
+        in.position((int) offsets[termIndex]);
+        int df = readVarint(in);
+        Posting[] result = new Posting[df];
+        int doc = 0;
+        for (int i = 0; i < df; i++) {
+            doc += readVarint(in);
+            int freq = readVarint(in);
+            int[] positions = new int[freq];
+            int pos = 0;
+            for (int j = 0; j < freq; j++) {
+                pos += readVarint(in);
+                positions[j] = pos;
+            }
+            result[i] = new Posting(doc, positions);
+        }
+        return result;
+    }
+
+    static void write(Path target, Source source) throws IOException {
+        Path tmp = target.resolveSibling(target.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            // DataOutputStream is unbuffered, so the counter below it always sees the exact offset.
+            // The streams are only flushed: closing them would close the channel before it is synced.
+            CountingOutputStream counter = new CountingOutputStream(
+                    new BufferedOutputStream(Channels.newOutputStream(channel), 64 * 1024));
+            DataOutputStream out = new DataOutputStream(counter);
+            out.writeInt(MAGIC);
+            out.writeInt(source.docIds().length);
+            for (int i = 0; i < source.docIds().length; i++) {
+                out.writeLong(source.docIds()[i].getMostSignificantBits());
+                out.writeLong(source.docIds()[i].getLeastSignificantBits());
+                out.writeLong(source.owners()[i]);
+            }
+
+            List<String> termList = new ArrayList<>();
+            List<Integer> dfList = new ArrayList<>();
+            List<Long> offsetList = new ArrayList<>();
+            while (source.terms().hasNext()) {
+                Map.Entry<String, List<Posting>> entry = source.terms().next();
+                List<Posting> postings = entry.getValue();
+                termList.add(entry.getKey());
+                dfList.add(postings.size());
+                offsetList.add(counter.count);
+                writeVarint(out, postings.size());
+                int prevDoc = 0;
+                for (Posting p : postings) {
+                    writeVarint(out, p.doc() - prevDoc);
+                    prevDoc = p.doc();
+                    writeVarint(out, p.positions().length);
+                    int prevPos = 0;
+                    for (int pos : p.positions()) {
+                        writeVarint(out, pos - prevPos);
+                        prevPos = pos;
+                    }
+                }
+            }
+
+            long dictionaryOffset = counter.count;
+            out.writeInt(termList.size());
+            for (int i = 0; i < termList.size(); i++) {
+                out.writeUTF(termList.get(i));
+                out.writeInt(dfList.get(i));
+                out.writeLong(offsetList.get(i));
+            }
+            out.writeLong(dictionaryOffset);
+            out.flush();
+            channel.force(true);
+        }
+        Files.move(tmp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    static ContentIndexSegment open(long generation, Path file) throws IOException {
+        MappedByteBuffer data;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("Content index segment too large to map: " + file);
+            }
+            data = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        ByteBuffer in = data.duplicate();
+        if (in.getInt() != MAGIC) {
+            throw new IOException("Not a content index segment: " + file);
+        }
+        int docCount = in.getInt();
+        UUID[] docIds = new UUID[docCount];
+        long[] owners = new long[docCount];
+        for (int i = 0; i < docCount; i++) {
+            docIds[i] = new UUID(in.getLong(), in.getLong());
+            owners[i] = in.getLong();
+        }
+
+        in.position(in.limit() - Long.BYTES);
+        in.position((int) in.getLong());
+        int termCount = in.getInt();
+        String[] terms = new String[termCount];
+        int[] dfs = new int[termCount];
+        long[] offsets = new long[termCount];
+        for (int i = 0; i < termCount; i++) {
+            int len = in.getShort() & 0xFFFF;
+            byte[] bytes = new byte[len];
+            in.get(bytes);
+            // Tokens never contain NUL or supplementary characters, so modified UTF-8 equals UTF-8
+            terms[i] = new String(bytes, StandardCharsets.UTF_8);
+            dfs[i] = in.getInt();
+            offsets[i] = in.getLong();
+        }
+        return new ContentIndexSegment(generation, file, docIds, owners, terms, dfs, offsets, data);
+    }
+
+    static void writeVarint(DataOutputStream out, int value) throws IOException {
+        while ((value & ~0x7F) != 0) {
+            out.writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte(value);
+    }
+
+    static int readVarint(ByteBuffer in) {
+        int value = 0;
+        int shift = 0;
+        byte b;
+        do {
+            b = in.get();
+            value |= (b & 0x7F) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+        return value;
+    }
+
+    private static final class CountingOutputStream extends OutputStream {
+        private final OutputStream out;
+        long count;
+
+        CountingOutputStream(OutputStream out) {
+            this.out = out;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            count += len;
+        }
+
+        @Override
+        public void flush() throws IOException {
+            out.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            out.close();
+        }
+    }
+}
@@ -0,0 +1,272 @@
+package com.artifactcomparator.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.apache.pdfbox.io.MemoryUsageSetting;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.text.PDFTextStripper;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+
+/**
+ * Text of PDF artifacts, extracted page by page and cached per page in pdf_page_text.
+ *
+ * Documents are opened with temp-file scratch memory and the missing pages are split into one
+ * range per pool thread (at least pages-per-task pages each, since every range loads the document
+ * again). Each worker has its own PDDocument (PDFBox documents are not thread safe); the calling
+ * thread extracts the first range with the document it opened to count the pages. A range is
+ * stored as soon as it is done, so a crash or restart only re-extracts the pages that are missing.
+ * Word counts and search indexing read the cached pages instead of parsing the PDF again.
+ */
+@Service
+@Slf4j
+public class PdfTextService {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Executor executor;
+    private final int parallelism;
+    private final ConcurrentHashMap<String, CompletableFuture<Summary>> inFlight = new ConcurrentHashMap<>();
+
+    @Value("${app.artifacts.pdf.pages-per-task:16}")
+    private int pagesPerTask;
+
+    public PdfTextService(JdbcTemplate jdbcTemplate,
+                          @Qualifier("pdfTextExecutor") Executor executor) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.executor = executor;
+        this.parallelism = executor instanceof ThreadPoolTaskExecutor pool ? pool.getMaxPoolSize() : 1;
+    }
+
+    public record Summary(int pageCount, int wordCount) {}
+
+    public interface PageConsumer {
+        void accept(int pageNumber, String text);
+    }
+
+    private record Page(int number, String text, int words) {}
+
+    /**
+     * Makes sure every page of the document is cached and returns the totals.
+     */
+    public Summary extract(String sha256, Path file) throws IOException {
+        Summary done = completed(sha256);
+        if (done != null) {
+            return done;
+        }
+
+        CompletableFuture<Summary> mine = new CompletableFuture<>();
+        CompletableFuture<Summary> running = inFlight.putIfAbsent(sha256, mine);
+        if (running != null) {
+            try {
+                return running.join();
+            } catch (CompletionException e) {
+                throw unwrap(e);
+            }
+        }
+        try {
+            Summary summary = completed(sha256);
+            if (summary == null) {
+                summary = extractMissing(sha256, file);
+            }
+            mine.complete(summary);
+            return summary;
+        } catch (IOException | RuntimeException e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(sha256, mine);
+        }
+    }
+
+    /**
+     * Streams the cached pages in order without loading the whole document text.
+     */
+    public void forEachPage(String sha256, PageConsumer consumer) {
+        jdbcTemplate.query(
+                "SELECT page_number, content FROM pdf_page_text WHERE sha256 = ? ORDER BY page_number",
+                rs -> {
+                    consumer.accept(rs.getInt(1), rs.getString(2));
+                },
+                sha256);
+    }
+
+    /**
+     * Totals of a document without caching anything, for files that have no content hash.
+     */
+    public Summary summarize(Path file) throws IOException {
+        try (PDDocument doc = load(file)) {
+            PDFTextStripper stripper = stripper();
+            int words = 0;
+            for (int p = 1; p <= doc.getNumberOfPages(); p++) {
+                words += countWords(pageText(stripper, doc, p));
+            }
+            return new Summary(doc.getNumberOfPages(), words);
+        }
+    }
+
+    public void evict(String sha256) {
+        jdbcTemplate.update("DELETE FROM pdf_text WHERE sha256 = ?", sha256);
+    }
+
+    private Summary completed(String sha256) {
+        List<Summary> rows = jdbcTemplate.query(
+                "SELECT page_count, word_count FROM pdf_text WHERE sha256 = ? AND completed_at IS NOT NULL",
+                (rs, i) -> new Summary(rs.getInt(1), rs.getInt(2)), sha256);
+        return rows.isEmpty() ? null : rows.get(0);
+    }
+
+    private Summary extractMissing(String sha256, Path file) throws IOException {
+        Integer stored = storedPageCount(sha256);
+        BitSet present = new BitSet();
+        jdbcTemplate.query("SELECT page_number FROM pdf_page_text WHERE sha256 = ?",
+                rs -> {
+                    present.set(rs.getInt(1));
+                },
+                sha256);
+
+        if (stored == null || present.nextClearBit(1) <= stored) {
+            try (PDDocument doc = load(file)) {
+                int pageCount = doc.getNumberOfPages();
+                jdbcTemplate.update("""
+                        INSERT INTO pdf_text (sha256, page_count) VALUES (?, ?)
+                        ON CONFLICT (sha256) DO NOTHING
+                        """, sha256, pageCount);
+                extractPages(sha256, file, doc, pageCount, present);
+            }
+        }
+
+        jdbcTemplate.update("""
+                UPDATE pdf_text t
+                SET word_count = (SELECT COALESCE(SUM(p.word_count), 0) FROM pdf_page_text p WHERE p.sha256 = t.sha256),
+                    completed_at = CURRENT_TIMESTAMP
+                WHERE t.sha256 = ?
+                """, sha256);
+        Summary summary = completed(sha256);
+        if (summary == null) {
+            throw new IllegalStateException("PDF text for " + sha256 + " was removed during extraction");
+        }
+        return summary;
+    }
+
+    private void extractPages(String sha256, Path file, PDDocument doc, int pageCount, BitSet present) throws IOException {
+        int missing = pageCount - present.get(1, pageCount + 1).cardinality();
+        if (missing <= 0) {
+            return;
+        }
+        int rangeSize = Math.max(pagesPerTask, (missing + parallelism - 1) / parallelism);
+
+        List<int[]> ranges = new ArrayList<>();
+        int page = present.nextClearBit(1);
+        while (page <= pageCount) {
+            int end = page;
+            while (end < pageCount && end - page + 1 < rangeSize && !present.get(end + 1)) {
+                end++;
+            }
+            ranges.add(new int[] { page, end });
+            page = present.nextClearBit(end + 1);
+        }
+        log.debug("Extracting {} page ranges of PDF {}", ranges.size(), sha256);
+
+        List<CompletableFuture<Void>> tasks = new ArrayList<>(ranges.size() - 1);
+        for (int[] range : ranges.subList(1, ranges.size())) {
+            tasks.add(CompletableFuture.runAsync(() -> extractRange(sha256, file, range[0], range[1]), executor));
+        }
+        try {
+            storeRange(sha256, doc, ranges.get(0)[0], ranges.get(0)[1]);
+        } finally {
+            // The other ranges still finish (and get stored) if this one failed
+            CompletableFuture<Void> all = CompletableFuture.allOf(tasks.toArray(new CompletableFuture[0]));
+            try {
+                all.join();
+            } catch (CompletionException e) {
+                throw unwrap(e);
+            }
+        }
+    }
+
+    private Integer storedPageCount(String sha256) {
+        List<Integer> rows = jdbcTemplate.queryForList(
+                "SELECT page_count FROM pdf_text WHERE sha256 = ?", Integer.class, sha256);
+        return rows.isEmpty() ? null : rows.get(0);
+    }
+
+    private void extractRange(String sha256, Path file, int start, int end) {
+        try (PDDocument doc = load(file)) {
+            storeRange(sha256, doc, start, end);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to extract pages " + start + "-" + end, e);
+        }
+    }
+
+    private void storeRange(String sha256, PDDocument doc, int start, int end) throws IOException {
+        List<Page> pages = new ArrayList<>(end - start + 1);
+        PDFTextStripper stripper = stripper();
+        for (int p = start; p <= end; p++) {
+            String text = pageText(stripper, doc, p);
+            pages.add(new Page(p, text, countWords(text)));
+        }
+        jdbcTemplate.batchUpdate("""
+                INSERT INTO pdf_page_text (sha256, page_number, content, word_count)
+                VALUES (?, ?, ?, ?)
+                ON CONFLICT (sha256, page_number) DO NOTHING
+                """,
+                pages.stream().map(pg -> new Object[] { sha256, pg.number(), pg.text(), pg.words() }).toList());
+    }
+
+    private static PDDocument load(Path file) throws IOException {
+        return PDDocument.load(file.toFile(), MemoryUsageSetting.setupTempFileOnly());
+    }
+
+    private static PDFTextStripper stripper() throws IOException {
+        PDFTextStripper stripper = new PDFTextStripper();
+        stripper.setSortByPosition(true);
+        return stripper;
+    }
+
+    private static String pageText(PDFTextStripper stripper, PDDocument doc, int page) throws IOException {
+        stripper.setStartPage(page);
+        stripper.setEndPage(page);
+        // PostgreSQL text cannot hold NUL characters
+        return stripper.getText(doc).replace("\u0000", "");
+    }
+
+    static int countWords(String text) {
+        int words = 0;
+        boolean inWord = false;
+        for (int i = 0; i < text.length(); i++) {
+            boolean space = Character.isWhitespace(text.charAt(i));
+            if (!space && !inWord) {
+                words++;
+            }
+            inWord = !space;
+        }
+        return words;
+    }
+
+    private static IOException unwrap(CompletionException e) {
+        Throwable cause = e.getCause();
+        if (cause instanceof UncheckedIOException uio) {
+            return uio.getCause();
+        }
+        if (cause instanceof IOException io) {
+            return io;
+        }
+        if (cause instanceof RuntimeException re) {
+            throw re;
+        }
+        throw e;
+    }
+}
@@ -0,0 +1,258 @@
+package com.artifactcomparator.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.apache.pdfbox.io.MemoryUsageSetting;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.common.PDRectangle;
+import org.apache.pdfbox.rendering.ImageType;
+import org.apache.pdfbox.rendering.PDFRenderer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.*;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Downscaled JPEG previews: image thumbnails and PDF first-page rasters at a few fixed sizes
+ * (longest edge in pixels).
+ *
+ * Renditions are derived from content, so they are keyed by sha256 and size and live next to
+ * the blobs under {storage-dir}/renditions/ab/cd/{sha256}-{size}.jpg; they are never updated,
+ * only created once and deleted together with the blob. Concurrent requests for a missing
+ * rendition share one generation (single-flight), and the file appears atomically.
+ */
+@Service
+@Slf4j
+public class RenditionService {
+
+    public static final List<Integer> SIZES = List.of(128, 256, 512);
+    public static final String CONTENT_TYPE = "image/jpeg";
+
+    private static final String PREFIX = "renditions/";
+    private static final float JPEG_QUALITY = 0.85f;
+
+    private final ConcurrentHashMap<String, CompletableFuture<Path>> inFlight = new ConcurrentHashMap<>();
+
+    @Value("${app.artifacts.storage-dir}")
+    private String storageDir;
+
+    public static boolean supports(String contentType) {
+        if ("application/pdf".equals(contentType)) {
+            return true;
+        }
+        return contentType != null && contentType.startsWith("image/")
+                && ImageIO.getImageReadersByMIMEType(contentType).hasNext();
+    }
+
+    /**
+     * Smallest fixed size that is at least the requested one, so clients can ask for what they
+     * display and still hit a cached file.
+     */
+    public static int normalizeSize(Integer requested) {
+        if (requested == null) {
+            return SIZES.get(1);
+        }
+        for (int size : SIZES) {
+            if (size >= requested) {
+                return size;
+            }
+        }
+        return SIZES.get(SIZES.size() - 1);
+    }
+
+    public Path path(String sha256, int size) {
+        return Path.of(storageDir).resolve(PREFIX + sha256.substring(0, 2) + "/" + sha256.substring(2, 4)
+                + "/" + sha256 + "-" + size + ".jpg");
+    }
+
+    /**
+     * Returns the rendition, generating it first if needed.
+     */
+    public Path getOrCreate(String sha256, Path source, String contentType, int size) throws IOException {
+        if (!supports(contentType)) {
+            throw new IllegalArgumentException("No preview available for " + contentType);
+        }
+        Path target = path(sha256, size);
+        if (Files.exists(target)) {
+            return target;
+        }
+        return singleFlight(sha256, size, () -> write(render(source, contentType, size), target));
+    }
+
+    /**
+     * Eager variant used after upload: decodes the source once at the largest size and derives
+     * the smaller renditions from that image.
+     */
+    public void generateAll(String sha256, Path source, String contentType) throws IOException {
+        if (!supports(contentType)) {
+            return;
+        }
+        List<Integer> missing = SIZES.stream()
+                .filter(size -> !Files.exists(path(sha256, size)))
+                .sorted(Comparator.reverseOrder())
+                .toList();
+        if (missing.isEmpty()) {
+            return;
+        }
+        BufferedImage base = render(source, contentType, missing.get(0));
+        for (int size : missing) {
+            Path target = path(sha256, size);
+            singleFlight(sha256, size, () -> write(scale(base, size), target));
+        }
+    }
+
+    public void deleteAll(String sha256) {
+        for (int size : SIZES) {
+            try {
+                Files.deleteIfExists(path(sha256, size));
+            } catch (IOException e) {
+                log.warn("Failed to delete rendition {}-{}: {}", sha256, size, e.getMessage());
+            }
+        }
+    }
+
+    private interface Generator {
+        Path generate() throws IOException;
+    }
+
+    private Path singleFlight(String sha256, int size, Generator generator) throws IOException {
+        String key = sha256 + "-" + size;
+        CompletableFuture<Path> mine = new CompletableFuture<>();
+        CompletableFuture<Path> running = inFlight.putIfAbsent(key, mine);
+        if (running != null) {
+            try {
+                return running.join();
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof IOException io) {
+                    throw io;
+                }
+                throw e;
+            }
+        }
+        try {
+            Path target = path(sha256, size);
+            Path result = Files.exists(target) ? target : generator.generate();
+            mine.complete(result);
+            return result;
+        } catch (IOException | RuntimeException e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, mine);
+        }
+    }
+
+    private BufferedImage render(Path source, String contentType, int size) throws IOException {
+        BufferedImage image = "application/pdf".equals(contentType)
+                ? renderPdfFirstPage(source, size)
+                : readImage(source, size);
+        if (image == null) {
+            throw new IllegalArgumentException("Unreadable image");
+        }
+        return scale(image, size);
+    }
+
+    /**
+     * Decodes with source subsampling so a 6000px photo is never fully expanded in memory;
+     * the result still keeps at least twice the target size for a clean final downscale.
+     */
+    private static BufferedImage readImage(Path source, int size) throws IOException {
+        try (ImageInputStream iis = ImageIO.createImageInputStream(source.toFile())) {
+            if (iis == null) return null;
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(iis);
+            if (!readers.hasNext()) return null;
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(iis, true, true);
+                int longest = Math.max(reader.getWidth(0), reader.getHeight(0));
+                int step = Math.max(1, longest / (size * 2));
+                ImageReadParam param = reader.getDefaultReadParam();
+                param.setSourceSubsampling(step, step, 0, 0);
+                return reader.read(0, param);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    private static BufferedImage renderPdfFirstPage(Path source, int size) throws IOException {
+        try (PDDocument doc = PDDocument.load(source.toFile(), MemoryUsageSetting.setupTempFileOnly())) {
+            if (doc.getNumberOfPages() == 0) {
+                return null;
+            }
+            PDRectangle box = doc.getPage(0).getCropBox();
+            float longest = Math.max(box.getWidth(), box.getHeight());
+            float dpi = longest > 0 ? size * 72f / longest : 72f;
+            return new PDFRenderer(doc).renderImageWithDPI(0, dpi, ImageType.RGB);
+        }
+    }
+
+    /**
+     * Fits the image into size x size, halving step by step so bilinear filtering never skips
+     * pixels, and flattens transparency onto white for JPEG.
+     */
+    private static BufferedImage scale(BufferedImage src, int size) {
+        int w = src.getWidth(), h = src.getHeight();
+        double ratio = Math.min(1.0, (double) size / Math.max(w, h));
+        int targetW = Math.max(1, (int) Math.round(w * ratio));
+        int targetH = Math.max(1, (int) Math.round(h * ratio));
+
+        BufferedImage current = src;
+        int cw = w, ch = h;
+        do {
+            cw = Math.max(targetW, cw / 2);
+            ch = Math.max(targetH, ch / 2);
+            BufferedImage next = new BufferedImage(cw, ch, BufferedImage.TYPE_INT_RGB);
+            Graphics2D g = next.createGraphics();
+            try {
+                g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+                g.setColor(Color.WHITE);
+                g.fillRect(0, 0, cw, ch);
+                g.drawImage(current, 0, 0, cw, ch, null);
+            } finally {
+                g.dispose();
+            }
+            current = next;
+        } while (cw > targetW || ch > targetH);
+        return current;
+    }
+
+    private static Path write(BufferedImage image, Path target) throws IOException {
+        Files.createDirectories(target.getParent());
+        Path tmp = Files.createTempFile(target.getParent(), "rendition", ".tmp");
+        try {
+            ImageWriter writer = ImageIO.getImageWritersByFormatName("jpg").next();
+            try (ImageOutputStream out = ImageIO.createImageOutputStream(tmp.toFile())) {
+                ImageWriteParam param = writer.getDefaultWriteParam();
+                param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+                param.setCompressionQuality(JPEG_QUALITY);
+                writer.setOutput(out);
+                writer.write(null, new IIOImage(image, null, null), param);
+            } finally {
+                writer.dispose();
+            }
+            Files.move(tmp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+        return target;
+    }
+}
@@ -1,28 +1,36 @@
 package com.artifactcomparator.service.evaluation;
 
+import com.artifactcomparator.model.evaluation.EvaluationImage;
+import com.artifactcomparator.repository.evaluation.EvaluationImageRepository;
+import com.artifactcomparator.service.ArtifactFiles;
 import com.artifactcomparator.service.ArtifactService;
+import com.artifactcomparator.service.BlobStore;
+import com.artifactcomparator.service.RenditionService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.core.io.Resource;
-import org.springframework.core.io.UrlResource;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.multipart.MultipartFile;
 
-import javax.imageio.ImageIO;
-import java.awt.image.BufferedImage;
 import java.io.IOException;
 import java.io.InputStream;
 import java.nio.file.*;
+import java.util.Optional;
 import java.util.UUID;
 
 @Service
 @RequiredArgsConstructor
 public class ImageStorageService {
 
+    private static final long MAX_IMAGE_SIZE = 10 * 1024 * 1024;
+
     @Value("${app.artifacts.storage-dir:/app/storage/artifacts}")
     private String storageDir;
 
     private final ArtifactService artifactService;
+    private final BlobStore blobStore;
+    private final RenditionService renditionService;
+    private final EvaluationImageRepository evaluationImageRepository;
 
     private void ensureStorage() {
         try {
@@ -38,6 +46,7 @@ public class ImageStorageService {
     /**
      * Store an image and return its UUID
      */
+    @Transactional
     public UUID storeImage(MultipartFile file) {
         ensureStorage();
 
@@ -48,106 +57,87 @@ public class ImageStorageService {
         }
 
         // Validate max size (10MB)
-        if (file.getSize() > 10 * 1024 * 1024) {
+        if (file.getSize() > MAX_IMAGE_SIZE) {
             throw new IllegalArgumentException("Image size exceeds 10MB limit");
         }
 
-        // Generate UUID for the image
         UUID imageId = UUID.randomUUID();
-        String storedFilename = imageId.toString() + getFileExtension(file.getOriginalFilename());
-        Path targetPath = Path.of(storageDir).resolve(storedFilename);
+        Path tempPath = Path.of(storageDir).resolve("temp-" + imageId);
 
+        ArtifactFiles.StreamedFile streamed;
         try (InputStream in = file.getInputStream()) {
-            Files.copy(in, targetPath, StandardCopyOption.REPLACE_EXISTING);
+            streamed = ArtifactFiles.streamToFile(in, tempPath, MAX_IMAGE_SIZE);
 
-            // Validate it's actually a valid image
-            BufferedImage img = ImageIO.read(targetPath.toFile());
-            if (img == null) {
-                Files.deleteIfExists(targetPath);
+            // Validate it's actually a valid image (header only, no decode)
+            if (ArtifactFiles.readImageSize(tempPath) == null) {
+                Files.deleteIfExists(tempPath);
                 throw new IllegalArgumentException("Invalid image file");
             }
+            blobStore.put(tempPath, streamed.sha256(), streamed.sizeBytes());
+        } catch (IllegalArgumentException e) {
+            try {
+                Files.deleteIfExists(tempPath);
+            } catch (IOException ignored) {}
+            throw e;
         } catch (IOException e) {
             try {
-                Files.deleteIfExists(targetPath);
+                Files.deleteIfExists(tempPath);
             } catch (IOException ignored) {}
             throw new RuntimeException("Failed to store image: " + file.getOriginalFilename(), e);
         }
 
-        return imageId;
-    }
+        evaluationImageRepository.save(EvaluationImage.builder()
+                .id(imageId)
+                .sha256(streamed.sha256())
+                .contentType(contentType)
+                .originalFilename(file.getOriginalFilename())
+                .sizeBytes(streamed.sizeBytes())
+                .build());
 
-    public Resource loadImage(UUID imageId) {
-        try {
-            Resource evaluationImage = loadFromEvaluationStorage(imageId);
-            if (evaluationImage != null) {
-                return evaluationImage;
-            }
-            // Fallback to study artifact storage
-            return artifactService.getArtifactContent(imageId);
-        } catch (Exception e) {
-            throw new IllegalArgumentException("Failed to load image: " + imageId, e);
-        }
+        return imageId;
     }
 
     /**
-     * Find the image file path by UUID (trying different extensions)
+     * Resolves an evaluation image (or, as a fallback, a study artifact) to its file and
+     * validator fields. Evaluation images are a primary-key lookup; the blob path follows from the hash.
      */
-    private Path findImagePath(UUID imageId) {
-        String[] extensions = {".png", ".jpg", ".jpeg", ".gif", ".webp", ""};
-
-        for (String ext : extensions) {
-            Path path = Path.of(storageDir).resolve(imageId.toString() + ext);
-            if (Files.exists(path)) {
-                return path;
-            }
-        }
-
-        return null;
-    }
-
-    private Resource loadFromEvaluationStorage(UUID imageId) {
-        Path imagePath = findImagePath(imageId);
-        if (imagePath == null) {
-            return null;
+    @Transactional(readOnly = true)
+    public ArtifactService.StoredFile resolveImage(UUID imageId) {
+        Optional<EvaluationImage> image = evaluationImageRepository.findById(imageId);
+        if (image.isPresent()) {
+            EvaluationImage img = image.get();
+            java.time.Instant created = img.getCreatedAt() != null
+                    ? img.getCreatedAt().atZone(java.time.ZoneId.systemDefault()).toInstant()
+                    : null;
+            return new ArtifactService.StoredFile(blobStore.path(img.getSha256()),
+                    img.getContentType(), img.getSha256(), created);
         }
-
-        try {
-            Resource resource = new UrlResource(imagePath.toUri());
-            if (resource.exists() && resource.isReadable()) {
-                return resource;
-            }
-        } catch (Exception ignored) {
-        }
-        return null;
+        return artifactService.getStoredFile(imageId);
     }
 
     /**
-     * Delete an image by UUID
+     * Downscaled JPEG of an evaluation image (or artifact), generated on first request and then
+     * served from the rendition cache. The returned sha256 field is the rendition's cache key.
      */
-    public void deleteImage(UUID imageId) {
-        try {
-            Path imagePath = findImagePath(imageId);
-            if (imagePath != null) {
-                Files.deleteIfExists(imagePath);
-            }
-        } catch (IOException e) {
-            throw new RuntimeException("Failed to delete image: " + imageId, e);
+    public ArtifactService.StoredFile resolveThumbnail(UUID imageId, Integer size) throws IOException {
+        ArtifactService.StoredFile image = resolveImage(imageId);
+        if (image.sha256() == null || !RenditionService.supports(image.contentType())) {
+            throw new IllegalArgumentException("No preview available");
         }
+        int effectiveSize = RenditionService.normalizeSize(size);
+        Path rendition = renditionService.getOrCreate(image.sha256(), image.path(), image.contentType(), effectiveSize);
+        return new ArtifactService.StoredFile(rendition, RenditionService.CONTENT_TYPE,
+                image.sha256() + "-" + effectiveSize, image.lastModified());
     }
 
     /**
-     * Get file extension from filename
+     * Delete an image by UUID
      */
-    private String getFileExtension(String filename) {
-        if (filename == null || filename.isEmpty()) {
-            return ".png";
-        }
-
-        int lastDot = filename.lastIndexOf('.');
-        if (lastDot > 0 && lastDot < filename.length() - 1) {
-            return filename.substring(lastDot);
-        }
-
-        return ".png";
+    @Transactional
+    public void deleteImage(UUID imageId) {
+        evaluationImageRepository.findById(imageId).ifPresent(image -> {
+            evaluationImageRepository.delete(image);
+            blobStore.release(image.getSha256());
+        });
     }
 }
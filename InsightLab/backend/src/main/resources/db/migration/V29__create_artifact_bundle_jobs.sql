@@ -0,0 +1,22 @@
+-- V29: Bulk ZIP bundle ingestion jobs
+-- Each row tracks one uploaded bundle while its entries are hashed, de-duplicated
+-- and batch-inserted in the background.
+
+CREATE TABLE artifact_bundle_jobs (
+    id BIGSERIAL PRIMARY KEY,
+    uploaded_by_id BIGINT NOT NULL REFERENCES users(id) ON DELETE CASCADE,
+    study_id BIGINT REFERENCES studies(id) ON DELETE SET NULL,
+    original_filename VARCHAR(255) NOT NULL,
+    status VARCHAR(20) NOT NULL DEFAULT 'PENDING',
+    total_entries INTEGER NOT NULL DEFAULT 0,
+    processed_entries INTEGER NOT NULL DEFAULT 0,
+    created_count INTEGER NOT NULL DEFAULT 0,
+    duplicate_count INTEGER NOT NULL DEFAULT 0,
+    skipped_count INTEGER NOT NULL DEFAULT 0,
+    error_message TEXT,
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    updated_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+
+CREATE INDEX idx_artifact_bundle_jobs_uploaded_by ON artifact_bundle_jobs(uploaded_by_id);
+CREATE INDEX idx_artifact_bundle_jobs_status ON artifact_bundle_jobs(status);
@@ -0,0 +1,23 @@
+-- V30: Content-addressed blob store
+-- Files live under {storage-dir}/blobs/ab/cd/{sha256}. Each row counts the artifacts and
+-- evaluation images that point at one blob; the file is deleted when the count drops to zero.
+
+CREATE TABLE blobs (
+    sha256 VARCHAR(64) PRIMARY KEY,
+    size_bytes BIGINT NOT NULL,
+    ref_count INTEGER NOT NULL DEFAULT 0,
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+
+-- Evaluation images used to be found by probing {id}.png, {id}.jpg, ... in the storage dir.
+-- This table maps the image id straight to its blob.
+CREATE TABLE evaluation_images (
+    id UUID PRIMARY KEY,
+    sha256 VARCHAR(64) NOT NULL,
+    content_type VARCHAR(100),
+    original_filename VARCHAR(255),
+    size_bytes BIGINT NOT NULL,
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+
+CREATE INDEX idx_evaluation_images_sha256 ON evaluation_images(sha256);
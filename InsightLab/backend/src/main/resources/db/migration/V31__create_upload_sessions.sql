@@ -0,0 +1,18 @@
+-- V31: Resumable chunked uploads
+-- A session owns one partial file under {storage-dir}/uploads/{id}.part. Chunks are appended
+-- at received_bytes; sessions not touched within the configured TTL are expired.
+
+CREATE TABLE upload_sessions (
+    id UUID PRIMARY KEY,
+    uploaded_by_id BIGINT NOT NULL REFERENCES users(id) ON DELETE CASCADE,
+    study_id BIGINT REFERENCES studies(id) ON DELETE SET NULL,
+    original_filename VARCHAR(255) NOT NULL,
+    content_type VARCHAR(100),
+    total_bytes BIGINT NOT NULL,
+    received_bytes BIGINT NOT NULL DEFAULT 0,
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    updated_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+
+CREATE INDEX idx_upload_sessions_uploaded_by ON upload_sessions(uploaded_by_id);
+CREATE INDEX idx_upload_sessions_updated_at ON upload_sessions(updated_at);
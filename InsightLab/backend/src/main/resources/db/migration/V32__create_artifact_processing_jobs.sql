@@ -0,0 +1,26 @@
+-- V32: Asynchronous post-upload processing
+-- Uploads only write and hash the file; metadata extraction and later steps run from this
+-- job queue. Workers claim due rows with FOR UPDATE SKIP LOCKED, failed jobs are retried
+-- with backoff until max_attempts. artifact.processing_status summarises an artifact's jobs.
+
+ALTER TABLE artifact ADD COLUMN processing_status VARCHAR(20) NOT NULL DEFAULT 'READY';
+ALTER TABLE artifact ADD COLUMN processing_error TEXT;
+ALTER TABLE artifact ADD COLUMN processed_at TIMESTAMP;
+
+CREATE TABLE artifact_processing_jobs (
+    id BIGSERIAL PRIMARY KEY,
+    artifact_id UUID NOT NULL REFERENCES artifact(id) ON DELETE CASCADE,
+    job_type VARCHAR(30) NOT NULL,
+    status VARCHAR(20) NOT NULL DEFAULT 'PENDING',
+    attempts INTEGER NOT NULL DEFAULT 0,
+    max_attempts INTEGER NOT NULL DEFAULT 5,
+    next_attempt_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    locked_at TIMESTAMP,
+    error_message TEXT,
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    updated_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    CONSTRAINT uq_artifact_processing_jobs UNIQUE (artifact_id, job_type)
+);
+
+CREATE INDEX idx_artifact_processing_jobs_due ON artifact_processing_jobs(next_attempt_at) WHERE status = 'PENDING';
+CREATE INDEX idx_artifact_processing_jobs_locked ON artifact_processing_jobs(locked_at) WHERE status = 'PROCESSING';
@@ -0,0 +1,15 @@
+-- V33: Content-keyed cache for artifact analytics
+-- Analysis depends only on the bytes (sha256), the inputs named in variant (extension and
+-- content type) and the analyser code, so identical uploads share one row. Rows written by
+-- an older analyser_version are never read and are purged on start-up.
+
+CREATE TABLE artifact_analysis_cache (
+    sha256 VARCHAR(64) NOT NULL,
+    variant VARCHAR(150) NOT NULL,
+    analyzer_version INTEGER NOT NULL,
+    metric_groups JSONB NOT NULL,
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    PRIMARY KEY (sha256, variant, analyzer_version)
+);
+
+CREATE INDEX idx_artifact_analysis_cache_version ON artifact_analysis_cache(analyzer_version);
@@ -0,0 +1,20 @@
+-- V34: Per-page text extracted from PDF artifacts
+-- Keyed by content (sha256) like the blob store, so identical uploads are parsed once.
+-- Pages are written as soon as their range is extracted; completed_at is set only when
+-- every page is present, so an interrupted extraction resumes with the missing pages.
+
+CREATE TABLE pdf_text (
+    sha256 VARCHAR(64) PRIMARY KEY,
+    page_count INTEGER NOT NULL,
+    word_count INTEGER,
+    completed_at TIMESTAMP,
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+
+CREATE TABLE pdf_page_text (
+    sha256 VARCHAR(64) NOT NULL REFERENCES pdf_text(sha256) ON DELETE CASCADE,
+    page_number INTEGER NOT NULL,
+    content TEXT NOT NULL,
+    word_count INTEGER NOT NULL,
+    PRIMARY KEY (sha256, page_number)
+);
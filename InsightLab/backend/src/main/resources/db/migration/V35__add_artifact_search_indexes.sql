@@ -0,0 +1,16 @@
+-- V35: Indexes for artifact search
+-- Search matches substrings of the filename and content type (trigram GIN indexes serve
+-- LIKE '%term%' on the lowered columns) and prefixes of the sha256. Results are paged by
+-- keyset on (created_at, id) within one owner, which the composite index serves directly.
+
+CREATE INDEX IF NOT EXISTS idx_artifact_filename_trgm
+    ON artifact USING gin (lower(original_filename) gin_trgm_ops);
+
+CREATE INDEX IF NOT EXISTS idx_artifact_content_type_trgm
+    ON artifact USING gin (lower(content_type) gin_trgm_ops);
+
+CREATE INDEX IF NOT EXISTS idx_artifact_sha256_prefix
+    ON artifact (sha256 text_pattern_ops);
+
+CREATE INDEX IF NOT EXISTS idx_artifact_owner_created
+    ON artifact (uploaded_by_id, created_at DESC, id DESC);
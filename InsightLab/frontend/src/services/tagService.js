@@ -71,13 +71,21 @@ export const tagService = {
   },
 
   /**
-   * Search artifacts by query and/or tags
+   * Search artifacts by query and/or tags. The server returns one page at a time; the
+   * pages are followed through X-Next-Cursor so `data` still holds every match.
    */
-  searchArtifacts(query = null, tagIds = null) {
+  async searchArtifacts(query = null, tagIds = null) {
     const params = {};
     if (query) params.query = query;
     if (tagIds && tagIds.length > 0) params.tagIds = tagIds;
-    return client.get('/artifacts/search', { params });
+    const items = [];
+    let response;
+    do {
+      response = await client.get('/artifacts/search', { params });
+      items.push(...response.data);
+      params.cursor = response.headers['x-next-cursor'];
+    } while (params.cursor);
+    return { ...response, data: items };
   },
 };
 